@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.bench;
+
+import io.github.k7t3.horzcv.client.model.LiveStreaming;
+import io.github.k7t3.horzcv.client.model.StreamingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 画面の履歴トークンに使用する{@link LiveStreaming#toTokens(List)}と{@link LiveStreaming#fromTokens(String)}の計測。
+ * <p>
+ *     同時に表示できる最大数({@link LiveStreaming#MAX_STREAMS})の配信を対象にする。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LiveStreamingTokensBenchmark {
+
+    private List<LiveStreaming> streams;
+
+    private String tokens;
+
+    @Setup
+    public void setUp() {
+        streams = new ArrayList<>();
+        for (var i = 0; i < LiveStreaming.MAX_STREAMS; i++) {
+            var live = new LiveStreaming();
+            if (i % 2 == 0) {
+                live.setService(StreamingService.TWITCH);
+                live.setId("streamer" + i);
+                live.setName("配信者" + i);
+            } else {
+                live.setService(StreamingService.YOUTUBE);
+                live.setId("abcd1234ef" + i);
+                live.setName("Channel " + i);
+            }
+            streams.add(live);
+        }
+        tokens = LiveStreaming.toTokens(streams);
+    }
+
+    @Benchmark
+    public String toTokens() {
+        return LiveStreaming.toTokens(streams);
+    }
+
+    @Benchmark
+    public List<LiveStreaming> fromTokens() {
+        return LiveStreaming.fromTokens(tokens);
+    }
+
+}
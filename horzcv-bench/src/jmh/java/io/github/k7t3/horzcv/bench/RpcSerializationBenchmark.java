@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.bench;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.RPC;
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.shared.service.StreamerInfoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GWT-RPCの応答として{@link StreamerInfoResponse}をシリアライズする処理の計測。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RpcSerializationBenchmark {
+
+    // シリアライゼーションポリシーのファイルを使用せずにすべての型を許可する
+    private static final SerializationPolicy POLICY = new SerializationPolicy() {
+        @Override
+        public boolean shouldDeserializeFields(Class<?> clazz) {
+            return true;
+        }
+
+        @Override
+        public boolean shouldSerializeFields(Class<?> clazz) {
+            return true;
+        }
+
+        @Override
+        public void validateDeserialize(Class<?> clazz) {
+        }
+
+        @Override
+        public void validateSerialize(Class<?> clazz) {
+        }
+    };
+
+    private Method single;
+
+    private Method batch;
+
+    private StreamerInfoResponse response;
+
+    private StreamerInfoResponse[] responses;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        single = StreamerInfoService.class.getMethod("getStreamerInfo", String.class);
+        batch = StreamerInfoService.class.getMethod("getStreamerInfos", String[].class);
+
+        response = StreamerInfoResponse.of(new StreamerInfo(
+                "配信者", "https://static-cdn.jtvnw.net/jtv_user_pictures/testuser-profile_image-300x300.png",
+                "https://www.twitch.tv/testuser"));
+
+        // 1回の問い合わせでまとめて検索できる最大数の配信
+        responses = new StreamerInfoResponse[StreamerInfoService.MAX_BATCH_SIZE];
+        for (var i = 0; i < responses.length; i++) {
+            responses[i] = StreamerInfoResponse.of(new StreamerInfo(
+                    "Channel " + i, "https://yt3.ggpht.com/channel" + i + "=s88-c-k-c0x00ffffff-no-rj",
+                    "https://www.youtube.com/watch?v=abcd1234ef" + i));
+        }
+    }
+
+    @Benchmark
+    public String encodeResponse() throws SerializationException {
+        return RPC.encodeResponseForSuccess(single, response, POLICY);
+    }
+
+    @Benchmark
+    public String encodeBatchResponse() throws SerializationException {
+        return RPC.encodeResponseForSuccess(batch, responses, POLICY);
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.bench;
+
+import io.github.k7t3.horzcv.server.services.StreamKeys;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 検索クラスが行うURLからのID抽出の計測。
+ * <p>
+ *     {@link StreamUrlParser}に置き換える前の正規表現による抽出も比較のために計測する。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StreamUrlBenchmark {
+
+    // 置き換える前のTwitchStreamerIdentityFinderのパターン
+    private static final Pattern LEGACY_TWITCH_PATTERN = Pattern.compile("(?<=https?://(www\\.)?twitch.tv/)[^/]+$");
+
+    // 置き換える前のYoutubeStreamerIdentityFinderのパターン
+    private static final Pattern LEGACY_YOUTUBE_PATTERN = Pattern.compile("https?://(?:www\\.)?youtube\\.com/(?:watch\\?v=|live/)([^/&?]+)");
+
+    @Param({
+            "https://www.twitch.tv/testuser",
+            "https://www.youtube.com/watch?v=abcd1234efg&t=10",
+            "https://www.example.com/not-a-stream"
+    })
+    public String url;
+
+    @Benchmark
+    public String parser() {
+        return StreamUrlParser.id(url, StreamUrlParser.parse(url));
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return StreamKeys.canonicalize(url);
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        var twitch = LEGACY_TWITCH_PATTERN.matcher(url);
+        if (twitch.find()) {
+            return twitch.group();
+        }
+        var youtube = LEGACY_YOUTUBE_PATTERN.matcher(url);
+        if (youtube.find()) {
+            return youtube.group(1);
+        }
+        return null;
+    }
+
+}
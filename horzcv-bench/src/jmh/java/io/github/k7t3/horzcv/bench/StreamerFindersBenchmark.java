@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.bench;
+
+import io.github.k7t3.horzcv.server.services.StreamerFinders;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StreamerFinders#find(String)}のキャッシュにヒットしたときとミスしたときの計測。
+ * <p>
+ *     ミスのときは配信サービスへの問い合わせを含まず、キャッシュの読み込みと追い出しの費用だけを計測する。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StreamerFindersBenchmark {
+
+    // キャッシュの最大件数(1000件)に収まる件数
+    private static final int HIT_KEYS = 512;
+
+    // キャッシュの最大件数を大きく超える件数
+    private static final int MISS_KEYS = 1 << 16;
+
+    private StreamerFinders finders;
+
+    private String[] hitUrls;
+
+    private String[] missUrls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        finders = StubStreamerFinders.create();
+
+        hitUrls = new String[HIT_KEYS];
+        for (var i = 0; i < HIT_KEYS; i++) {
+            // 半分は正規化が必要な表記にする
+            hitUrls[i] = i % 2 == 0
+                    ? "https://www.twitch.tv/streamer" + i
+                    : "https://youtube.com/live/video" + i + "?si=share";
+            finders.find(hitUrls[i]);
+        }
+
+        missUrls = new String[MISS_KEYS];
+        for (var i = 0; i < MISS_KEYS; i++) {
+            missUrls[i] = "https://www.twitch.tv/miss" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        int next(int length) {
+            var i = index;
+            index = (i + 1) & (length - 1);
+            return i;
+        }
+    }
+
+    @Benchmark
+    public StreamerInfoResponse hit(Cursor cursor) {
+        return finders.find(hitUrls[cursor.next(HIT_KEYS)]);
+    }
+
+    @Benchmark
+    public StreamerInfoResponse miss(Cursor cursor) {
+        return finders.find(missUrls[cursor.next(MISS_KEYS)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public StreamerInfoResponse hitContended(Cursor cursor) {
+        return finders.find(hitUrls[cursor.next(HIT_KEYS)]);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.bench;
+
+import io.github.k7t3.horzcv.server.services.StreamerFinders;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchStreamerIdentityFinder;
+import io.github.k7t3.horzcv.server.services.youtube.YoutubeStreamerIdentityFinder;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+
+import java.lang.reflect.Field;
+
+/**
+ * 配信サービスへ問い合わせずに固定の情報を返す検索クラスを設定した{@link StreamerFinders}を生成する。
+ * <p>
+ *     URLの判別は本来の実装と同じ処理を行い、配信サービスへの問い合わせだけを省略する。
+ * </p>
+ */
+final class StubStreamerFinders {
+
+    private StubStreamerFinders() {
+    }
+
+    static StreamerFinders create() {
+        var finders = new StreamerFinders();
+        inject(finders, "twitchFinder", new StubTwitchFinder());
+        inject(finders, "youtubeFinder", new StubYoutubeFinder());
+        finders.initialize();
+        return finders;
+    }
+
+    // CDIの代わりにフィールドへ注入する
+    private static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static StreamerInfoResponse response(String name, String streamURL) {
+        return StreamerInfoResponse.of(new StreamerInfo(name, "https://example.com/" + name + ".png", streamURL));
+    }
+
+    private static class StubTwitchFinder extends TwitchStreamerIdentityFinder {
+        @Override
+        public StreamerInfoResponse find(String urlOrKeyword) {
+            var result = StreamUrlParser.parse(urlOrKeyword);
+            if (StreamUrlParser.service(result) != StreamUrlParser.SERVICE_TWITCH) {
+                return StreamerInfoResponse.empty();
+            }
+            var login = StreamUrlParser.id(urlOrKeyword, result);
+            return response(login, "https://www.twitch.tv/" + login);
+        }
+    }
+
+    private static class StubYoutubeFinder extends YoutubeStreamerIdentityFinder {
+        @Override
+        public StreamerInfoResponse find(String urlOrKeyword) {
+            var result = StreamUrlParser.parse(urlOrKeyword);
+            if (StreamUrlParser.service(result) != StreamUrlParser.SERVICE_YOUTUBE) {
+                return StreamerInfoResponse.empty();
+            }
+            return response("channel", urlOrKeyword);
+        }
+    }
+
+}
@@ -17,6 +17,7 @@
 package io.github.k7t3.horzcv.client;
 
 import com.google.gwt.core.client.EntryPoint;
+import elemental2.dom.DomGlobal;
 import org.dominokit.domino.api.client.ClientApp;
 import org.dominokit.domino.api.client.annotations.ClientModule;
 import org.dominokit.domino.gwt.client.app.DominoGWT;
@@ -41,6 +42,25 @@ public class HorzCVApp implements EntryPoint {
 		app.run();
 
 		LOGGER.info("App started");
+
+		registerServiceWorker();
+	}
+
+	/**
+	 * アプリケーションの外枠をキャッシュするService Workerを登録する。
+	 * <p>
+	 *     sw.jsは<code>gwtCompileForDeploy</code>が生成するため、開発環境では登録に失敗する。
+	 * </p>
+	 */
+	private static void registerServiceWorker() {
+		var container = DomGlobal.navigator.serviceWorker;
+		if (container == null) {
+			return;
+		}
+		container.register("/sw.js").then(registration -> null, error -> {
+			LOGGER.fine("Service worker is not registered: " + error);
+			return null;
+		});
 	}
 
 }
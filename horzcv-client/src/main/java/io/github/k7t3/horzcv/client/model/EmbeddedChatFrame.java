@@ -40,6 +40,16 @@ public class EmbeddedChatFrame {
         return iframe;
     }
 
+    /**
+     * 配信を識別するキーを返す。
+     * <p>
+     *     表示名やURLが変更されても同じ配信であれば同じ値になる。
+     * </p>
+     */
+    public String getKey() {
+        return stream.getService() + ":" + stream.getId();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof EmbeddedChatFrame that)) return false;
@@ -26,6 +26,12 @@ import java.util.stream.Stream;
 
 public class LiveStreaming {
 
+    /**
+     * 同時に表示できる配信の最大数。チャットの画面では表示されている配信だけを読み込むため、
+     * ブラウザの負荷は配信の数に比例しない。
+     */
+    public static final int MAX_STREAMS = 48;
+
     private static final String DELIMITER = ",";
     private static final String TOKEN_DELIMITER = ";";
 
@@ -16,6 +16,7 @@
 
 package io.github.k7t3.horzcv.client.presenter;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.storage.client.Storage;
 import com.google.gwt.user.client.Window;
 import elemental2.dom.DomGlobal;
@@ -108,6 +109,7 @@ public class ChatListPresenter
     @OnBeforeReveal
     public void setUpStreams() {
         LOGGER.info("setUpStreams: " + chatFrames);
+        view.setDeferHiddenReload(isDeferHiddenReload());
         updateView();
     }
 
@@ -126,9 +128,7 @@ public class ChatListPresenter
      */
     @ListenTo(event = ColorSchemeEvent.class)
     public void onEventReceived(ColorSchemeEvent event) {
-        var isDarkMode = event.getColorScheme() == ColorScheme.DARK;
-        updateEmbeddedChatFrames(isDarkMode);
-        view.setChatList(Collections.unmodifiableList(chatFrames));
+        updateView(event.getColorScheme());
     }
 
     @Override
@@ -186,9 +186,20 @@ public class ChatListPresenter
      * ビューを現在のストリームリストで更新する
      */
     private void updateView() {
-        var isDarkMode = ThemeManager.INSTANCE.getColorScheme() == ColorScheme.DARK;
-        updateEmbeddedChatFrames(isDarkMode);
-        view.setChatList(Collections.unmodifiableList(chatFrames));
+        updateView(ThemeManager.INSTANCE.getColorScheme());
+    }
+
+    /**
+     * 指定したカラースキームでビューを更新する。
+     * <p>
+     *     チャットの画面のコードは分割したフラグメントにあるため、初めて表示するときに読み込む。
+     * </p>
+     */
+    private void updateView(ColorScheme colorScheme) {
+        GWT.runAsync(ChatListPresenter.class, FragmentCallback.of(() -> {
+            updateEmbeddedChatFrames(colorScheme == ColorScheme.DARK);
+            view.setChatList(Collections.unmodifiableList(chatFrames));
+        }));
     }
 
     /**
@@ -213,6 +224,18 @@ public class ChatListPresenter
         }
     }
 
+    /**
+     * 表示されていないチャットの読み込み直しを遅らせるかをローカルストレージから取得する。
+     * 設定されていないときは遅らせる。
+     */
+    private boolean isDeferHiddenReload() {
+        var storage = Storage.getLocalStorageIfSupported();
+        if (storage == null) {
+            return true;
+        }
+        return !"false".equals(storage.getItem(Storages.DEFER_HIDDEN_RELOAD));
+    }
+
     private void saveSession(String token) {
         Storage storage = Storage.getSessionStorageIfSupported();
         if (storage != null) {
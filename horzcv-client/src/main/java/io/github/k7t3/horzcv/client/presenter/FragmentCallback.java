@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.presenter;
+
+import com.google.gwt.core.client.RunAsyncCallback;
+import com.google.gwt.storage.client.Storage;
+import io.github.k7t3.horzcv.client.view.Routes;
+import org.dominokit.domino.api.client.ClientApp;
+import org.dominokit.domino.history.StateToken;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 分割したコードのフラグメントを読み込んだときのコールバックインターフェース。
+ * <p>
+ *     <code>GWT.runAsync</code>は呼び出し箇所ごとに分割点になるため、
+ *     各プレゼンターで<code>GWT.runAsync(プレゼンターのクラス, コールバック)</code>を直接呼び出すこと。
+ * </p>
+ * <p>
+ *     フラグメントを読み込めなかったときは接続エラーのページへ移動する。
+ * </p>
+ */
+@FunctionalInterface
+public interface FragmentCallback extends RunAsyncCallback {
+
+    Logger LOGGER = Logger.getLogger(FragmentCallback.class.getName());
+
+    static FragmentCallback of(Runnable callback) {
+        return callback::run;
+    }
+
+    @Override
+    default void onFailure(Throwable reason) {
+        var errorMessage = "Failed to load the application: " + reason.getMessage();
+
+        LOGGER.log(Level.SEVERE, errorMessage, reason);
+
+        // セッションストレージが有効な場合はエラーメッセージを保存
+        var storage = Storage.getSessionStorageIfSupported();
+        if (storage != null) {
+            storage.setItem(Storages.ERROR, errorMessage);
+        }
+
+        // エラーページに遷移
+        var history = ClientApp.make().getHistory();
+        history.fireState(StateToken.of(Routes.OOPS));
+    }
+
+}
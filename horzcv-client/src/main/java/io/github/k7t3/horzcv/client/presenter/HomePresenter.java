@@ -16,7 +16,10 @@
 
 package io.github.k7t3.horzcv.client.presenter;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.storage.client.Storage;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import elemental2.dom.DomGlobal;
 import io.github.k7t3.horzcv.client.model.LiveStreaming;
 import io.github.k7t3.horzcv.client.model.LiveStreamingDetector;
 import io.github.k7t3.horzcv.client.presenter.twitch.TwitchChannelDetector;
@@ -28,6 +31,7 @@ import io.github.k7t3.horzcv.client.view.Routes;
 import io.github.k7t3.horzcv.client.view.Slots;
 import io.github.k7t3.horzcv.client.view.Tokens;
 import io.github.k7t3.horzcv.client.view.ui.LiveStreamingFormViewImpl;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
 import io.github.k7t3.horzcv.shared.service.StreamerInfoServiceAsync;
 import org.dominokit.domino.api.client.annotations.presenter.*;
 import org.dominokit.domino.api.client.mvp.presenter.ViewablePresenter;
@@ -53,13 +57,51 @@ public class HomePresenter extends ViewablePresenter<HomeView>
 
     private static final Logger LOGGER = Logger.getLogger(HomePresenter.class.getName());
 
-    private static final int MAX_LIVE_STREAMING_FORMS = 8;
+    /**
+     * 配信の最大数
+     */
+    private static final int MAX_LIVE_STREAMING_FORMS = LiveStreaming.MAX_STREAMS;
+
+    /**
+     * URLの入力が止まってから検索するまでの時間(ミリ秒)
+     */
+    private static final int LOOKUP_DEBOUNCE_MILLIS = 400;
+
+    /**
+     * 検索の結果を待つ最大の時間(ミリ秒)
+     */
+    private static final int LOOKUP_TIMEOUT_MILLIS = 10000;
 
     // FIXME: 一時的にバックエンドサービスを使用しないように変更。
-    private final StreamerInfoServiceAsync streamerInfoService = (url, callback) -> {
-        // no-op
+    // 静的なホスティングにはサーバーがないため、結果を返さないサービスを使用する。
+    // このサービスを使用している間は検索の結果が届かないため、ストリーマーの情報のキャッシュは保存されず、
+    // 検索はLOOKUP_TIMEOUT_MILLISを経過すると破棄される。
+    // サーバーを使用するときはGWT.create(StreamerInfoService.class)に置き換える。
+    private final StreamerInfoServiceAsync streamerInfoService = new StreamerInfoServiceAsync() {
+        @Override
+        public void getStreamerInfo(String url, AsyncCallback<StreamerInfoResponse> callback) {
+            // no-op
+        }
+
+        @Override
+        public void getStreamerInfos(String[] urls, AsyncCallback<StreamerInfoResponse[]> callback) {
+            // no-op
+        }
     };
 
+    private final StreamerInfoCache streamerInfoCache = StreamerInfoCache.local();
+
+    // すべてのフォームの検索をまとめる
+    private final StreamerLookupCoordinator lookupCoordinator = new StreamerLookupCoordinator(
+            streamerInfoService,
+            (task, delayMillis) -> {
+                var id = DomGlobal.setTimeout(ignore -> task.run(), delayMillis);
+                return () -> DomGlobal.clearTimeout(id);
+            },
+            LOOKUP_DEBOUNCE_MILLIS,
+            LOOKUP_TIMEOUT_MILLIS
+    );
+
     private final List<LiveStreamingDetector> detectors;
 
     private final Map<LiveStreamingFormView, LiveStreamingPresenter> forms = new HashMap<>();
@@ -104,6 +146,8 @@ public class HomePresenter extends ViewablePresenter<HomeView>
      * 6. ビューのアニメーションを開始
      * <p>
      * セッションストレージが未対応、またはトークンが存在しない場合、空のフォームが初期化されます。
+     * <p>
+     * フォームのコードは分割したフラグメントにあるため、初めて表示するときに読み込みます。
      */
     @OnReveal
     public void onRevealed() {
@@ -122,25 +166,27 @@ public class HomePresenter extends ViewablePresenter<HomeView>
         }
 
         // 表示するフォームの数を決定
-        // 8件以下のストリームを全て表示し、4件未満の場合は最低4件のフォームを作成
+        // 上限以下のストリームを全て表示し、4件未満の場合は最低4件のフォームを作成
         int formsToCreate = Math.max(4, Math.min(streams.size(), MAX_LIVE_STREAMING_FORMS));
         LOGGER.info("onRevealed: " + streams + ", formsToCreate: " + formsToCreate);
 
-        for (var i = 0; i < formsToCreate; i++) {
-            var view = new LiveStreamingFormViewImpl();
-            var form = new LiveStreamingPresenter(streamerInfoService, detectors, view);
-            view.setUiHandlers(this);
+        GWT.runAsync(HomePresenter.class, FragmentCallback.of(() -> {
+            for (var i = 0; i < formsToCreate; i++) {
+                var view = new LiveStreamingFormViewImpl();
+                var form = new LiveStreamingPresenter(lookupCoordinator, streamerInfoCache, detectors, view);
+                view.setUiHandlers(this);
 
-            forms.put(view, form);
-            this.view.addLiveStreamingForm(view);
+                forms.put(view, form);
+                this.view.addLiveStreamingForm(view);
 
-            if (i < streams.size()) {
-                var stream = streams.get(i);
-                form.setStream(stream);
+                if (i < streams.size()) {
+                    var stream = streams.get(i);
+                    form.setStream(stream);
+                }
             }
-        }
 
-        view.startAnimation();
+            view.startAnimation();
+        }));
     }
 
     private void updateAddButton() {
@@ -150,7 +196,7 @@ public class HomePresenter extends ViewablePresenter<HomeView>
 
     @Override
     public void onAddedLiveStreamingForm(LiveStreamingFormView view) {
-        var form = new LiveStreamingPresenter(streamerInfoService, detectors, view);
+        var form = new LiveStreamingPresenter(lookupCoordinator, streamerInfoCache, detectors, view);
         forms.put(view, form);
         view.setUiHandlers(this);
         updateAddButton();
@@ -19,7 +19,6 @@ package io.github.k7t3.horzcv.client.presenter;
 import io.github.k7t3.horzcv.client.model.LiveStreaming;
 import io.github.k7t3.horzcv.client.model.LiveStreamingDetector;
 import io.github.k7t3.horzcv.client.view.LiveStreamingFormView;
-import io.github.k7t3.horzcv.shared.service.StreamerInfoServiceAsync;
 
 import java.util.List;
 import java.util.logging.Logger;
@@ -28,7 +27,9 @@ public class LiveStreamingPresenter implements LiveStreamingFormView.LiveStreami
 
     private static final Logger LOGGER = Logger.getLogger(LiveStreamingPresenter.class.getName());
 
-    private final StreamerInfoServiceAsync streamerInfoService;
+    private final StreamerLookupCoordinator lookupCoordinator;
+
+    private final StreamerInfoCache streamerInfoCache;
 
     private final List<LiveStreamingDetector> detectors;
 
@@ -37,11 +38,13 @@ public class LiveStreamingPresenter implements LiveStreamingFormView.LiveStreami
     private boolean valid = false;
 
     public LiveStreamingPresenter(
-            StreamerInfoServiceAsync streamerInfoService,
+            StreamerLookupCoordinator lookupCoordinator,
+            StreamerInfoCache streamerInfoCache,
             List<LiveStreamingDetector> detectors,
             LiveStreamingFormView view
     ) {
-        this.streamerInfoService = streamerInfoService;
+        this.lookupCoordinator = lookupCoordinator;
+        this.streamerInfoCache = streamerInfoCache;
         this.detectors = detectors;
         this.view = view;
         view.setUiHandlers(this);
@@ -86,17 +89,34 @@ public class LiveStreamingPresenter implements LiveStreamingFormView.LiveStreami
         view.setInvalid(invalid);
         valid = !invalid;
 
+        // 保存されているユーザー名があればサーバーに問い合わせずに割り当てる
+        var cached = streamerInfoCache.get(uri);
+        if (cached != null) {
+            view.setName(cached.getInfo().getName());
+            if (!cached.isStale()) {
+                // 入力中の以前の検索は不要になる
+                lookupCoordinator.cancel(this);
+                return;
+            }
+        }
+
         // URIに基づくユーザー名が取得できたときはそれを割り当てる
-        streamerInfoService.getStreamerInfo(uri, BasicAsyncCallback.of(response -> {
+        // 古いキャッシュを再検証するときは、ユーザーが名前を変更していなければ更新する
+        var cachedName = cached == null ? null : cached.getInfo().getName();
+        // 入力が止まるまで待ち、他のフォームの検索とまとめて送信する
+        lookupCoordinator.lookup(this, uri, BasicAsyncCallback.of(response -> {
             if (response.isIdentified() && response.getInfoArray().length > 0) {
                 var info = response.getInfoArray()[0];
-                view.setName(info.getName());
+                streamerInfoCache.put(uri, info);
+                if (cachedName == null || cachedName.equals(view.getName())) {
+                    view.setName(info.getName());
+                }
             }
         }));
     }
 
     @Override
     public void onRemoved(LiveStreamingFormView view) {
-        // no-op
+        lookupCoordinator.cancel(this);
     }
 }
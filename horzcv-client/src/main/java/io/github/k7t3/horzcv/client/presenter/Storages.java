@@ -22,4 +22,19 @@ public class Storages {
 
     public static final String ERROR = "horzcv-error";
 
+    /**
+     * 表示されていないチャットの読み込み直しを表示されるまで遅らせるか(<code>true</code>/<code>false</code>)。
+     * ローカルストレージに保存する。
+     * <p>
+     *     動作を比較するためのデバッグ用の設定で、画面からは変更できない。
+     *     無効にするときはブラウザの開発者ツールから<code>false</code>を設定する。
+     * </p>
+     */
+    public static final String DEFER_HIDDEN_RELOAD = "horzcv-defer-hidden-reload";
+
+    /**
+     * 検索したストリーマーの情報のキャッシュ。ローカルストレージに保存する。
+     */
+    public static final String STREAMER_CACHE = "horzcv-streamer-cache";
+
 }
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.presenter;
+
+import com.google.gwt.storage.client.Storage;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 検索したストリーマーの情報をブラウザに保存するキャッシュ。
+ * <p>
+ *     配信ごとに正規化したキーでストリーマーの情報を保存し、同じ配信のURLが入力されたときはサーバーに問い合わせずに使用する。
+ *     保存してから{@code freshMillis}を経過したものは古いものとして返し、呼び出し元がバックグラウンドで再検証する。
+ *     {@code maxAgeMillis}を経過したものは返さない。
+ *     保存する数が上限に達したときは最も長く使用されていないものから削除する。
+ * </p>
+ * <p>
+ *     すべてのエントリを1つの文字列にしてローカルストレージに保存する。
+ *     保存するのは{@link #put(String, StreamerInfo)}のときだけで、他のタブが保存した内容を読み込み直して合わせてから保存する。
+ *     {@link #get(String)}で使用した順序はメモリに記録し、次に保存するときに反映する。
+ * </p>
+ */
+public class StreamerInfoCache {
+
+    private static final Logger LOGGER = Logger.getLogger(StreamerInfoCache.class.getName());
+
+    private static final String VERSION = "v1";
+
+    /**
+     * 保存する最大数
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * 再検証せずに使用する期間(1日)
+     */
+    private static final long DEFAULT_FRESH_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 使用できる最大の期間(30日)
+     */
+    private static final long DEFAULT_MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * キャッシュを保存する場所
+     */
+    public interface Store {
+
+        /**
+         * @return 保存した文字列。保存されていないときはnull
+         */
+        String load();
+
+        void save(String value);
+
+    }
+
+    /**
+     * キャッシュから取得したストリーマーの情報
+     */
+    public static final class Lookup {
+
+        private final StreamerInfo info;
+
+        private final boolean stale;
+
+        Lookup(StreamerInfo info, boolean stale) {
+            this.info = info;
+            this.stale = stale;
+        }
+
+        public StreamerInfo getInfo() {
+            return info;
+        }
+
+        /**
+         * 再検証が必要なときはtrue
+         */
+        public boolean isStale() {
+            return stale;
+        }
+
+    }
+
+    private static final class Entry {
+
+        final StreamerInfo info;
+
+        final long storedAt;
+
+        Entry(StreamerInfo info, long storedAt) {
+            this.info = info;
+            this.storedAt = storedAt;
+        }
+
+    }
+
+    private final Store store;
+
+    private final LongSupplier clock;
+
+    private final int capacity;
+
+    private final long freshMillis;
+
+    private final long maxAgeMillis;
+
+    // 最も長く使用されていないものが先頭
+    private Map<String, Entry> entries;
+
+    // 前回保存してから使用したキー(最後に使用したものが末尾)
+    private final Set<String> used = new LinkedHashSet<>();
+
+    /**
+     * @param store        キャッシュを保存する場所
+     * @param clock        現在時刻(エポックミリ秒)を返す関数
+     * @param capacity     保存する最大数
+     * @param freshMillis  再検証せずに使用する期間(ミリ秒)
+     * @param maxAgeMillis 使用できる最大の期間(ミリ秒)
+     */
+    public StreamerInfoCache(Store store, LongSupplier clock, int capacity, long freshMillis, long maxAgeMillis) {
+        this.store = store;
+        this.clock = clock;
+        this.capacity = Math.max(1, capacity);
+        this.freshMillis = freshMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * ローカルストレージに保存するキャッシュを生成する。
+     * ローカルストレージが使用できないときは保存せずにページを開いている間だけ保持する。
+     */
+    public static StreamerInfoCache local() {
+        var storage = Storage.getLocalStorageIfSupported();
+        Store store;
+        if (storage == null) {
+            store = new Store() {
+                @Override
+                public String load() {
+                    return null;
+                }
+
+                @Override
+                public void save(String value) {
+                    // no-op
+                }
+            };
+        } else {
+            store = new Store() {
+                @Override
+                public String load() {
+                    return storage.getItem(Storages.STREAMER_CACHE);
+                }
+
+                @Override
+                public void save(String value) {
+                    try {
+                        storage.setItem(Storages.STREAMER_CACHE, value);
+                    } catch (RuntimeException e) {
+                        // 容量を超えたときなど
+                        LOGGER.log(Level.WARNING, "Failed to save the streamer cache", e);
+                    }
+                }
+            };
+        }
+        return new StreamerInfoCache(store, System::currentTimeMillis,
+                DEFAULT_CAPACITY, DEFAULT_FRESH_MILLIS, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    /**
+     * 配信のURLを正規化したキーを返す。
+     * @return キー。配信のURLとして認識できないときはnull
+     */
+    public static String keyOf(String url) {
+        var result = StreamUrlParser.parse(url);
+        return switch (StreamUrlParser.service(result)) {
+            // Twitchのログイン名は大文字小文字を区別しない
+            case StreamUrlParser.SERVICE_TWITCH -> "twitch:" + StreamUrlParser.id(url, result).toLowerCase();
+            case StreamUrlParser.SERVICE_YOUTUBE -> "youtube:" + StreamUrlParser.id(url, result);
+            default -> null;
+        };
+    }
+
+    /**
+     * URLに対応するストリーマーの情報を取得する。
+     * @return ストリーマーの情報。保存されていないか期限が切れているときはnull
+     */
+    public Lookup get(String url) {
+        var key = keyOf(url);
+        if (key == null) {
+            return null;
+        }
+        var entries = entries();
+        var entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        var age = clock.getAsLong() - entry.storedAt;
+        if (maxAgeMillis <= age) {
+            // ストレージからは次に保存するときに削除する
+            entries.remove(key);
+            return null;
+        }
+        // 使用した順序は次に保存するときに反映する
+        used.remove(key);
+        used.add(key);
+        return new Lookup(entry.info, freshMillis <= age);
+    }
+
+    /**
+     * URLに対応するストリーマーの情報を保存する。
+     */
+    public void put(String url, StreamerInfo info) {
+        var key = keyOf(url);
+        if (key == null || info == null) {
+            return;
+        }
+        // 他のタブが保存した内容を読み込み直してから追加する
+        var now = clock.getAsLong();
+        var merged = load();
+        merged.values().removeIf(entry -> maxAgeMillis <= now - entry.storedAt);
+        for (var usedKey : used) {
+            merged.get(usedKey);
+        }
+        used.clear();
+        merged.put(key, new Entry(info, now));
+        entries = merged;
+        store.save(encode(merged));
+    }
+
+    private Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return entries;
+    }
+
+    private Map<String, Entry> load() {
+        var loaded = new LinkedHashMap<String, Entry>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return capacity < size();
+            }
+        };
+        decode(store.load(), loaded);
+        return loaded;
+    }
+
+    /**
+     * 1行に1つのエントリをタブ区切りで出力する(キー、保存した時刻、名前、サムネイルのURL、配信のURL)。
+     */
+    private static String encode(Map<String, Entry> entries) {
+        var builder = new StringBuilder(VERSION).append('\n');
+        for (var e : entries.entrySet()) {
+            var info = e.getValue().info;
+            builder.append(escape(e.getKey())).append('\t')
+                    .append(e.getValue().storedAt).append('\t')
+                    .append(escape(info.getName())).append('\t')
+                    .append(escape(info.getThumbnailURL())).append('\t')
+                    .append(escape(info.getStreamURL())).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * {@link #encode(Map)}で出力した文字列を読み込む。壊れている行は無視する。
+     */
+    private static void decode(String value, Map<String, Entry> entries) {
+        if (value == null || !value.startsWith(VERSION + "\n")) {
+            return;
+        }
+        for (var line : value.substring(VERSION.length() + 1).split("\n")) {
+            var fields = line.split("\t", -1);
+            if (fields.length != 5) {
+                continue;
+            }
+            try {
+                var info = new StreamerInfo(unescape(fields[2]), unescape(fields[3]), unescape(fields[4]));
+                entries.put(unescape(fields[0]), new Entry(info, Long.parseLong(fields[1])));
+            } catch (RuntimeException e) {
+                LOGGER.fine("Ignored a broken streamer cache entry: " + line);
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("%", "%25").replace("\t", "%09").replace("\n", "%0A");
+    }
+
+    private static String unescape(String value) {
+        return value.replace("%0A", "\n").replace("%09", "\t").replace("%25", "%");
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.presenter;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.shared.service.StreamerInfoService;
+import io.github.k7t3.horzcv.shared.service.StreamerInfoServiceAsync;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ページ内のフォームからのストリーマーの検索をまとめるクラス。
+ * <ul>
+ *     <li>フォームごとに入力が止まるまで待ってから検索する(デバウンス)</li>
+ *     <li>フォームの入力が変わった後に届いた古い検索の結果は破棄する</li>
+ *     <li>一定の時間内に結果が届かない検索は破棄する</li>
+ *     <li>同じ配信(正規化したキーが同じ)の検索は1つにまとめ、同時に待っている検索は
+ *     {@link StreamerInfoService#MAX_BATCH_SIZE}件ずつまとめて送信する</li>
+ * </ul>
+ */
+public class StreamerLookupCoordinator {
+
+    /**
+     * タイマーを登録する関数
+     */
+    public interface Timeouts {
+
+        /**
+         * @return 登録したタイマーを取り消す関数
+         */
+        Runnable schedule(Runnable task, int delayMillis);
+
+    }
+
+    private final StreamerInfoServiceAsync service;
+
+    private final Timeouts timeouts;
+
+    private final int debounceMillis;
+
+    private final int timeoutMillis;
+
+    // フォームごとの最新の検索の番号
+    private final Map<Object, Integer> sequences = new HashMap<>();
+
+    // フォームごとのデバウンスのタイマーを取り消す関数
+    private final Map<Object, Runnable> debounces = new HashMap<>();
+
+    // 次のリクエストで送信する検索(キーごと)
+    private final Map<String, List<Request>> queued = new LinkedHashMap<>();
+
+    // 結果を待っている検索(キーごと)
+    private final Map<String, List<Request>> inFlight = new HashMap<>();
+
+    private boolean flushScheduled = false;
+
+    /**
+     * @param service        ストリーマーの情報を検索するサービス
+     * @param timeouts       タイマーを登録する関数
+     * @param debounceMillis 入力が止まってから検索するまでの時間(ミリ秒)
+     * @param timeoutMillis  結果を待つ最大の時間(ミリ秒)。経過した検索は結果を受け取らずに破棄する
+     */
+    public StreamerLookupCoordinator(StreamerInfoServiceAsync service, Timeouts timeouts,
+                                     int debounceMillis, int timeoutMillis) {
+        this.service = service;
+        this.timeouts = timeouts;
+        this.debounceMillis = debounceMillis;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 検索を予約する。同じフォームの以前の検索は取り消され、そのコールバックは呼び出されない。
+     * @param owner    検索するフォーム
+     * @param url      入力されたURL
+     * @param callback 検索の結果を受け取るコールバック
+     */
+    public void lookup(Object owner, String url, AsyncCallback<StreamerInfoResponse> callback) {
+        var key = StreamerInfoCache.keyOf(url);
+        var sequence = next(owner);
+        if (key == null) {
+            // 配信のURLではないときは検索しない
+            return;
+        }
+        var request = new Request(owner, sequence, url, callback);
+        debounces.put(owner, timeouts.schedule(() -> {
+            debounces.remove(owner);
+            enqueue(key, request);
+        }, debounceMillis));
+    }
+
+    /**
+     * フォームの検索を取り消す。
+     */
+    public void cancel(Object owner) {
+        next(owner);
+        sequences.remove(owner);
+    }
+
+    private int next(Object owner) {
+        var cancel = debounces.remove(owner);
+        if (cancel != null) {
+            cancel.run();
+        }
+        var sequence = sequences.getOrDefault(owner, 0) + 1;
+        sequences.put(owner, sequence);
+        return sequence;
+    }
+
+    private boolean isCurrent(Request request) {
+        var sequence = sequences.get(request.owner);
+        return sequence != null && sequence == request.sequence;
+    }
+
+    private void enqueue(String key, Request request) {
+        // 同じ配信を検索しているときは結果を共有する
+        var waiting = inFlight.get(key);
+        if (waiting != null) {
+            waiting.add(request);
+            return;
+        }
+        queued.computeIfAbsent(key, k -> new ArrayList<>()).add(request);
+
+        // 同じ時点で入力が止まった他のフォームの検索とまとめて送信する
+        if (!flushScheduled) {
+            flushScheduled = true;
+            timeouts.schedule(this::flush, 0);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+
+        // 待っている間に取り消された検索は送信しない
+        var keys = new ArrayList<String>();
+        var urls = new ArrayList<String>();
+        for (var entry : queued.entrySet()) {
+            var requests = entry.getValue();
+            requests.removeIf(request -> !isCurrent(request));
+            if (requests.isEmpty()) {
+                continue;
+            }
+            keys.add(entry.getKey());
+            urls.add(requests.get(0).url);
+            inFlight.put(entry.getKey(), requests);
+        }
+        queued.clear();
+
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        // サーバーが一度に受け付ける数ごとに分けて送信し、エラーの処理は全体で1回だけ行う
+        var failure = new Failure();
+        for (var from = 0; from < keys.size(); from += StreamerInfoService.MAX_BATCH_SIZE) {
+            var to = Math.min(keys.size(), from + StreamerInfoService.MAX_BATCH_SIZE);
+            send(new ArrayList<>(keys.subList(from, to)), new ArrayList<>(urls.subList(from, to)), failure);
+        }
+    }
+
+    private void send(List<String> keys, List<String> urls, Failure failure) {
+        // 結果が届かないときは待っている検索を破棄し、次の同じ配信の検索を送信できるようにする
+        var sent = new ArrayList<List<Request>>();
+        for (var key : keys) {
+            sent.add(inFlight.get(key));
+        }
+        var cancelTimeout = timeouts.schedule(() -> expire(keys, sent), timeoutMillis);
+
+        if (keys.size() == 1) {
+            service.getStreamerInfo(urls.get(0), new AsyncCallback<>() {
+                @Override
+                public void onSuccess(StreamerInfoResponse result) {
+                    cancelTimeout.run();
+                    complete(keys.get(0), result);
+                }
+
+                @Override
+                public void onFailure(Throwable caught) {
+                    cancelTimeout.run();
+                    fail(keys, caught, failure);
+                }
+            });
+            return;
+        }
+        service.getStreamerInfos(urls.toArray(new String[0]), new AsyncCallback<>() {
+            @Override
+            public void onSuccess(StreamerInfoResponse[] result) {
+                cancelTimeout.run();
+                for (var i = 0; i < keys.size(); i++) {
+                    complete(keys.get(i), result != null && i < result.length ? result[i] : StreamerInfoResponse.EMPTY);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                cancelTimeout.run();
+                fail(keys, caught, failure);
+            }
+        });
+    }
+
+    private void expire(List<String> keys, List<List<Request>> sent) {
+        for (var i = 0; i < keys.size(); i++) {
+            // 同じ配信の新しい検索が送信されているときは残す
+            if (inFlight.get(keys.get(i)) == sent.get(i)) {
+                inFlight.remove(keys.get(i));
+            }
+        }
+    }
+
+    private void complete(String key, StreamerInfoResponse response) {
+        var requests = inFlight.remove(key);
+        if (requests == null) {
+            return;
+        }
+        for (var request : requests) {
+            if (isCurrent(request)) {
+                request.callback.onSuccess(response == null ? StreamerInfoResponse.EMPTY : response);
+            }
+        }
+    }
+
+    private void fail(List<String> keys, Throwable caught, Failure failure) {
+        // エラーの処理(エラーページへの移動など)は1回だけ行う
+        AsyncCallback<StreamerInfoResponse> callback = null;
+        for (var key : keys) {
+            var requests = inFlight.remove(key);
+            if (requests == null) {
+                continue;
+            }
+            for (var request : requests) {
+                if (callback == null && isCurrent(request)) {
+                    callback = request.callback;
+                }
+            }
+        }
+        if (callback != null && !failure.reported) {
+            failure.reported = true;
+            callback.onFailure(caught);
+        }
+    }
+
+    /**
+     * 同時に送信したリクエストのエラーを処理したかどうか
+     */
+    private static final class Failure {
+
+        boolean reported;
+
+    }
+
+    private static final class Request {
+
+        final Object owner;
+
+        final int sequence;
+
+        final String url;
+
+        final AsyncCallback<StreamerInfoResponse> callback;
+
+        Request(Object owner, int sequence, String url, AsyncCallback<StreamerInfoResponse> callback) {
+            this.owner = owner;
+            this.sequence = sequence;
+            this.url = url;
+            this.callback = callback;
+        }
+
+    }
+
+}
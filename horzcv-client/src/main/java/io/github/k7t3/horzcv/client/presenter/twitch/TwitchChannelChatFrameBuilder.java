@@ -23,15 +23,27 @@ import io.github.k7t3.horzcv.client.model.EmbeddedChatFrameBuilder;
 
 public class TwitchChannelChatFrameBuilder implements EmbeddedChatFrameBuilder {
 
+    // 以下の定数はビルド時にindex.htmlの埋め込みのチャットを先に読み込むスクリプトにも出力する(build.gradle)
+
+    /**
+     * 埋め込みのチャットのURL。{0}はチャンネル、{1}はホスト、{2}はダークモードのパラメータ
+     */
+    public static final String URL_TEMPLATE = "https://www.twitch.tv/embed/{0}/chat?parent={1}{2}";
+
+    /**
+     * ダークモードにしたいときはクエリパラメータに<code>darkpopout</code>を追加する
+     */
+    public static final String DARK_MODE = "&darkpopout";
+
+    public static final String LIGHT_MODE = "";
+
+    public static final String CSS_CLASS = "chatFrame twitch";
+
     /**
      * Twitchのチャットを埋め込むためのiframeを生成するテンプレート。
-     * <p>
-     *     ダークモードにしたいときはクエリパラメータに<code>darkpopout</code>を追加する。
-     * </p>
      */
     public interface TwitchEmbeddedChatUrl extends SafeHtmlTemplates {
-        @Template("<iframe src=\"https://www.twitch.tv/embed/{0}/chat?parent={1}{2}\"" +
-                "class=\"chatFrame twitch\"></iframe>")
+        @Template("<iframe src=\"" + URL_TEMPLATE + "\" class=\"" + CSS_CLASS + "\"></iframe>")
         SafeHtml template(String channel, String host, String darkMode);
     }
 
@@ -45,7 +57,7 @@ public class TwitchChannelChatFrameBuilder implements EmbeddedChatFrameBuilder {
 
     @Override
     public String build(String id, boolean isDarkMode) {
-        var darkMode = isDarkMode ? "&darkpopout": "";
+        var darkMode = isDarkMode ? DARK_MODE : LIGHT_MODE;
         return TWITCH_EMBEDDED_CHAT_TEMPLATE.template(id, host, darkMode).asString();
     }
 }
@@ -16,28 +16,25 @@
 
 package io.github.k7t3.horzcv.client.presenter.twitch;
 
-import com.google.gwt.regexp.shared.RegExp;
 import io.github.k7t3.horzcv.client.model.LiveStreamingDetector;
 import io.github.k7t3.horzcv.client.model.StreamingService;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
 
 public class TwitchChannelDetector implements LiveStreamingDetector {
 
-    /** Twitchのチャンネルにマッチする正規表現*/
-    private final RegExp regex = RegExp.compile("https?://(?:www\\.)twitch\\.tv/([^/]+)");
-
     public TwitchChannelDetector() {
     }
 
     @Override
     public boolean isValidURL(String url) {
-        return regex.test(url);
+        return StreamUrlParser.service(StreamUrlParser.parse(url)) == StreamUrlParser.SERVICE_TWITCH;
     }
 
     @Override
     public String parseId(String url) {
-        var matcher = regex.exec(url);
-        if (matcher != null && 0 < matcher.getGroupCount()) {
-            return matcher.getGroup(1);
+        var result = StreamUrlParser.parse(url);
+        if (StreamUrlParser.service(result) == StreamUrlParser.SERVICE_TWITCH) {
+            return StreamUrlParser.id(url, result);
         }
         throw new IllegalArgumentException("Invalid Twitch Channel URL");
     }
@@ -23,11 +23,24 @@ import io.github.k7t3.horzcv.client.model.EmbeddedChatFrameBuilder;
 
 public class YoutubeLiveChatFrameBuilder implements EmbeddedChatFrameBuilder {
 
+    // 以下の定数はビルド時にindex.htmlの埋め込みのチャットを先に読み込むスクリプトにも出力する(build.gradle)
+
+    /**
+     * 埋め込みのチャットのURL。{0}は動画のID、{1}はホスト、{2}はダークモードのパラメータ
+     */
+    public static final String URL_TEMPLATE = "https://www.youtube.com/live_chat?v={0}&embed_domain={1}&dark_theme={2}";
+
+    public static final String DARK_MODE = "1";
+
+    public static final String LIGHT_MODE = "0";
+
+    public static final String CSS_CLASS = "chatFrame youtube";
+
     /**
      * Youtube LIVEのチャットを埋め込むためのiframeを生成するテンプレート。
      */
     public interface YoutubeEmbeddedChatUrl extends SafeHtmlTemplates {
-        @Template("<iframe src=\"https://www.youtube.com/live_chat?v={0}&embed_domain={1}&dark_theme={2}\" class=\"chatFrame youtube\"></iframe>")
+        @Template("<iframe src=\"" + URL_TEMPLATE + "\" class=\"" + CSS_CLASS + "\"></iframe>")
         SafeHtml template(String videoId, String host, String darkMode);
     }
 
@@ -41,7 +54,7 @@ public class YoutubeLiveChatFrameBuilder implements EmbeddedChatFrameBuilder {
 
     @Override
     public String build(String id, boolean isDarkMode) {
-        var darkMode = isDarkMode ? "1" : "0";
+        var darkMode = isDarkMode ? DARK_MODE : LIGHT_MODE;
         return YOUTUBE_EMBEDDED_CHAT_TEMPLATE.template(id, host, darkMode).asString();
     }
 }
@@ -16,29 +16,25 @@
 
 package io.github.k7t3.horzcv.client.presenter.youtube;
 
-import com.google.gwt.regexp.shared.MatchResult;
-import com.google.gwt.regexp.shared.RegExp;
 import io.github.k7t3.horzcv.client.model.LiveStreamingDetector;
 import io.github.k7t3.horzcv.client.model.StreamingService;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
 
 public class YoutubeLiveDetector implements LiveStreamingDetector {
 
-    /** Youtube LIVEのビデオIDにマッチする正規表現*/
-    private final RegExp regex = RegExp.compile("https?://(?:www\\.)?youtube\\.com/(?:watch\\?v=|live/)([^/&?]+)");
-
     public YoutubeLiveDetector() {
     }
 
     @Override
     public boolean isValidURL(String url) {
-        return regex.test(url);
+        return StreamUrlParser.service(StreamUrlParser.parse(url)) == StreamUrlParser.SERVICE_YOUTUBE;
     }
 
     @Override
     public String parseId(String url) {
-        MatchResult matcher = regex.exec(url);
-        if (matcher != null && 0 < matcher.getGroupCount()) {
-            return matcher.getGroup(1);
+        var result = StreamUrlParser.parse(url);
+        if (StreamUrlParser.service(result) == StreamUrlParser.SERVICE_YOUTUBE) {
+            return StreamUrlParser.id(url, result);
         }
         throw new IllegalArgumentException("Invalid YouTube Live URL");
     }
@@ -36,6 +36,12 @@ public interface ChatListView extends ContentView,
      */
     void setChatList(List<EmbeddedChatFrame> chatFrames);
 
+    /**
+     * 表示されていないチャットのテーマの変更などによる読み込み直しを、表示されるまで遅らせるかを設定する。
+     * @param defer 遅らせるときはtrue
+     */
+    void setDeferHiddenReload(boolean defer);
+
     interface ChatListUiHandler extends UiHandlers {
 
         /**
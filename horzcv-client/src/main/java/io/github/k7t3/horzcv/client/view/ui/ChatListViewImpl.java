@@ -16,10 +16,15 @@
 
 package io.github.k7t3.horzcv.client.view.ui;
 
+import elemental2.dom.DomGlobal;
 import elemental2.dom.Element;
 import elemental2.dom.HTMLElement;
+import elemental2.dom.IntersectionObserver;
+import elemental2.dom.IntersectionObserverInit;
 import io.github.k7t3.horzcv.client.model.EmbeddedChatFrame;
 import io.github.k7t3.horzcv.client.presenter.ChatListPresenter;
+import io.github.k7t3.horzcv.client.presenter.theme.ColorScheme;
+import io.github.k7t3.horzcv.client.presenter.theme.ThemeManager;
 import io.github.k7t3.horzcv.client.view.ChatListView;
 import org.dominokit.domino.api.client.annotations.UiView;
 import org.dominokit.domino.ui.animations.Animation;
@@ -31,6 +36,7 @@ import org.dominokit.domino.ui.grid.flex.FlexLayout;
 import org.dominokit.domino.view.BaseElementView;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,12 +48,58 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
 
     private static final Logger LOGGER = Logger.getLogger(ChatListViewImpl.class.getName());
 
+    /**
+     * 同時に読み込む埋め込みのチャットの最大数
+     */
+    private static final int MAX_CONCURRENT_LOADS = 2;
+
+    /**
+     * 埋め込みのチャットの<code>load</code>イベントを待つ最大の時間(ミリ秒)
+     */
+    private static final int LOAD_TIMEOUT_MILLIS = 8000;
+
+    /**
+     * 読み込んだままにする埋め込みのチャットの最大数
+     */
+    private static final int MAX_LIVE_FRAMES = 8;
+
+    /**
+     * 表示されなくなった埋め込みのチャットを休止させるまでの時間(ミリ秒)
+     */
+    private static final int SUSPEND_DELAY_MILLIS = 10000;
+
     private Chat first = null;
 
     private final FlexLayout flex;
 
     private ChatListUiHandler handler;
 
+    // チャットリストを反映している間は変更を通知しない
+    private boolean reconciling = false;
+
+    // 表示されていないチャットの読み込み直しを表示されるまで遅らせる
+    private boolean deferHiddenReload = true;
+
+    // 表示の順序が前のチャットから埋め込みのチャットを読み込む
+    private final IframeLoadScheduler<ChatView> loadScheduler = new IframeLoadScheduler<>(
+            ChatView::loadFrame,
+            this::orderOf,
+            ChatListViewImpl::setTimeout,
+            MAX_CONCURRENT_LOADS,
+            LOAD_TIMEOUT_MILLIS
+    );
+
+    // 表示されているチャットだけを読み込み、表示されなくなったチャットを休止させる
+    private final IframePool<ChatView> framePool = new IframePool<>(
+            this::activateFrame,
+            this::suspendFrame,
+            ChatListViewImpl::setTimeout,
+            MAX_LIVE_FRAMES,
+            SUSPEND_DELAY_MILLIS
+    );
+
+    private final IntersectionObserver visibilityObserver;
+
     public ChatListViewImpl() {
         flex = FlexLayout.create()
                 .setDirection(FlexDirection.LEFT_TO_RIGHT)
@@ -55,6 +107,25 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
                 .setAlignItems(FlexAlign.STRETCH)
                 .setGap("2mm")
                 .setHeight("100%");
+        // チャットが多いときは横にスクロールする
+        flex.element().classList.add("chatList");
+
+        // スクロールの途中で空白が見えないように左右の隣接するチャットも表示されているものとする
+        var options = IntersectionObserverInit.create();
+        options.setRoot(flex.element());
+        options.setRootMargin("0px 25% 0px 25%");
+        visibilityObserver = new IntersectionObserver((entries, observer) -> {
+            for (var i = 0; i < entries.length; i++) {
+                var entry = entries.getAt(i);
+                var chat = findByElement(entry.target);
+                if (chat != null) {
+                    framePool.setVisible(chat.view, entry.isIntersecting);
+                    if (entry.isIntersecting) {
+                        reloadIfStale(chat);
+                    }
+                }
+            }
+        }, options);
     }
 
     private void notifyListUpdated() {
@@ -69,48 +140,224 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
         }
     }
 
-    private void clearChatList() {
-        flex.clearElement();
-        first = null;
-    }
-
+    /**
+     * {@inheritDoc}
+     * <p>
+     *     同じ配信のチャットはビューと埋め込みのチャットをそのまま使用し、
+     *     追加された配信のビューの生成、削除された配信のビューの削除、変更された内容の反映だけを行う。
+     *     順序の変更はDOM要素を移動せずに{@link #applyOrder()}で反映する。
+     * </p>
+     */
     @Override
     public void setChatList(List<EmbeddedChatFrame> chatFrames) {
-        clearChatList();
+        reconciling = true;
+        try {
+            reconcile(chatFrames);
+        } finally {
+            reconciling = false;
+        }
+    }
+
+    private void reconcile(List<EmbeddedChatFrame> chatFrames) {
+        // 起動前に読み込み始めた埋め込みのチャットは表示されたチャットが引き継ぐ
+        PrerenderedChats.hide();
+
+        // 表示しているチャットを配信ごとに分類する(同じ配信が複数あるときは順に割り当てる)
+        var existing = new HashMap<String, LinkedList<Chat>>();
+        if (first != null) {
+            for (var chat : first) {
+                existing.computeIfAbsent(chat.chatFrame.getKey(), k -> new LinkedList<>()).add(chat);
+            }
+        }
 
         var size = chatFrames.size();
         var index = 0;
+        Chat head = null;
         Chat current = null;
 
         for (var chatFrame : chatFrames) {
-            var html = chatFrame.getIframe();
-
-            var chatView = new ChatView();
-            flex.appendChild(chatView);
+            var chats = existing.get(chatFrame.getKey());
+            var chat = chats == null || chats.isEmpty() ? null : chats.removeFirst();
+            if (chat == null) {
+                chat = createChat(chatFrame);
+            } else {
+                updateChat(chat, chatFrame);
+            }
 
-            if (first == null) {
-                first = new Chat(chatFrame, chatView);
-                current = first;
+            chat.left = current;
+            chat.right = null;
+            if (current == null) {
+                head = chat;
             } else {
-                assert current != null;
+                current.right = chat;
+            }
+            current = chat;
+
+            chat.view.setDisableLeft(index++ == 0);
+            chat.view.setDisableRight(index == size);
+        }
+        first = head;
+
+        // 表示されなくなったチャットを削除する
+        for (var chats : existing.values()) {
+            for (var chat : chats) {
+                release(chat.view);
+                chat.view.element().remove();
+            }
+        }
+
+        applyOrder();
+    }
+
+    private Chat createChat(EmbeddedChatFrame chatFrame) {
+        var chatView = new ChatView();
+        var chat = new Chat(chatFrame, chatView);
+        flex.appendChild(chatView);
+
+        chatView.setUiHandlers(this);
+        chatView.flexItem.setFlexGrow(1);
+        // 表示されたときにプールから読み込む
+        chatView.showPlaceholder();
+        chat.renderedIframe = chatFrame.getIframe();
+        chatView.name.setValue(chatFrame.getStream().getName());
+        chatView.initialize();
+        chatView.startAnimation();
+        visibilityObserver.observe(chatView.element());
+        return chat;
+    }
+
+    private void updateChat(Chat chat, EmbeddedChatFrame chatFrame) {
+        chat.chatFrame = chatFrame;
+
+        // テーマの変更などで埋め込みのチャットが変わったときだけ読み込み直す
+        // 休止しているチャットは再開するときに新しい内容で読み込む
+        var html = chatFrame.getIframe();
+        if (!Objects.equals(chat.renderedIframe, html)) {
+            chat.renderedIframe = html;
+            reloadIfStale(chat);
+        }
+
+        var name = chatFrame.getStream().getName();
+        if (!Objects.equals(chat.view.name.getValue(), name)) {
+            chat.view.name.setValue(name);
+        }
+    }
 
-                var next = new Chat(chatFrame, chatView);
-                current.right = next;
-                next.left = current;
-                current = next;
+    /**
+     * 読み込んでいる埋め込みのチャットが古いときは読み込み直す。
+     * <p>
+     *     読み込み直しは{@link IframeLoadScheduler}を通して少しずつ行う。
+     *     {@link #deferHiddenReload}が有効なときは表示されていないチャットを表示されるまで読み込み直さない。
+     * </p>
+     */
+    private void reloadIfStale(Chat chat) {
+        if (!framePool.isLive(chat.view) || Objects.equals(chat.loadedIframe, chat.renderedIframe)) {
+            return;
+        }
+        if (deferHiddenReload && !framePool.isVisible(chat.view)) {
+            return;
+        }
+        chat.loadedIframe = chat.renderedIframe;
+        loadScheduler.schedule(chat.view, chat.renderedIframe);
+    }
+
+    @Override
+    public void setDeferHiddenReload(boolean defer) {
+        deferHiddenReload = defer;
+        if (!defer) {
+            for (var chat = first; chat != null; chat = chat.right) {
+                reloadIfStale(chat);
+            }
+        }
+    }
+
+    /**
+     * チャットリストの順序で表示されるようにCSSの<code>order</code>を設定する。
+     * <p>
+     *     DOM内で移動した埋め込みのチャットはブラウザが読み込み直すため、
+     *     チャットの要素は追加した位置から移動せずに表示の順序だけを変更する。
+     * </p>
+     */
+    private void applyOrder() {
+        var order = 0;
+        for (var chat = first; chat != null; chat = chat.right) {
+            chat.view.element().style.setProperty("order", String.valueOf(order++));
+        }
+    }
+
+    /**
+     * チャットの表示の順序を返す。リストに存在しないときは最後とする。
+     */
+    private int orderOf(ChatView view) {
+        var order = 0;
+        for (var chat = first; chat != null; chat = chat.right) {
+            if (chat.isSameView(view)) {
+                return order;
+            }
+            order++;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * プールから読み込みを許可されたチャットを読み込む。
+     */
+    private void activateFrame(ChatView view) {
+        var chat = findOrNull(view);
+        if (chat != null) {
+            chat.loadedIframe = chat.renderedIframe;
+            // 起動前に読み込み始めた埋め込みのチャットがあれば読み込み直さずに引き継ぐ
+            var dark = ThemeManager.INSTANCE.getColorScheme() == ColorScheme.DARK;
+            if (!view.adoptFrame(chat.chatFrame.getKey(), dark)) {
+                loadScheduler.schedule(view, chat.renderedIframe);
             }
+        }
+    }
 
-            chatView.setUiHandlers(this);
-            chatView.flexItem.setFlexGrow(1);
-            chatView.iframe.setInnerHtml(html);
-            chatView.name.setValue(chatFrame.getStream().getName());
-            chatView.setDisableLeft(index++ == 0);
-            chatView.setDisableRight(index == size);
-            chatView.initialize();
-            chatView.startAnimation();
+    /**
+     * 埋め込みのチャットを破棄して枠だけを表示する。
+     */
+    private void suspendFrame(ChatView view) {
+        loadScheduler.cancel(view);
+        view.showPlaceholder();
+        var chat = findOrNull(view);
+        if (chat != null) {
+            chat.loadedIframe = null;
         }
     }
 
+    /**
+     * 削除するチャットの読み込みと表示の監視を終了する。
+     */
+    private void release(ChatView view) {
+        visibilityObserver.unobserve(view.element());
+        framePool.remove(view);
+        loadScheduler.cancel(view);
+    }
+
+    private Chat findOrNull(ChatView view) {
+        for (var chat = first; chat != null; chat = chat.right) {
+            if (chat.isSameView(view)) {
+                return chat;
+            }
+        }
+        return null;
+    }
+
+    private Chat findByElement(Element element) {
+        for (var chat = first; chat != null; chat = chat.right) {
+            if (chat.view.element() == element) {
+                return chat;
+            }
+        }
+        return null;
+    }
+
+    private static Runnable setTimeout(Runnable task, int delayMillis) {
+        var id = DomGlobal.setTimeout(ignore -> task.run(), delayMillis);
+        return () -> DomGlobal.clearTimeout(id);
+    }
+
     private Chat find(ChatView view) {
         if (first == null) {
             throw new IllegalStateException("Chat list is empty");
@@ -230,8 +477,8 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
             leftView.setDisableLeft(false);
             leftView.setDisableRight(left.right == null);
 
-            // DOM要素の順序を更新
-            flex.insertBefore(view.element(), leftView.element());
+            // 表示の順序を更新(DOM要素は移動しない)
+            applyOrder();
             
             // アニメーション開始
             view.startAnimation();
@@ -278,8 +525,8 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
             rightView.setDisableLeft(right.left == null);
             rightView.setDisableRight(false);
 
-            // DOM要素の順序を更新
-            flex.insertAfter(view.element(), rightView.element());
+            // 表示の順序を更新(DOM要素は移動しない)
+            applyOrder();
             
             // アニメーション開始
             view.startAnimation();
@@ -301,6 +548,7 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
     @Override
     public void onRemoveClicked(ChatView view) {
         remove(view);
+        release(view);
 
         var animation = Animation.create(view.element())
                 .transition(Transition.FADE_OUT_RIGHT)
@@ -315,7 +563,9 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
     public void onNameChanged(ChatView view, String name) {
         var chat = find(view);
         chat.chatFrame.getStream().setName(name);
-        notifyListUpdated();
+        if (!reconciling) {
+            notifyListUpdated();
+        }
     }
 
     @Override
@@ -329,9 +579,15 @@ public class ChatListViewImpl extends BaseElementView<HTMLElement> implements Ch
     }
 
     static class Chat implements Iterable<Chat> {
-        final EmbeddedChatFrame chatFrame;
+        EmbeddedChatFrame chatFrame;
         final ChatView view;
 
+        // 埋め込みのチャットに設定するHTML(休止しているときは再開するときに設定する)
+        String renderedIframe;
+
+        // 埋め込みのチャットに読み込んだHTML(休止しているときはnull)
+        String loadedIframe;
+
         Chat left = null;
         Chat right = null;
 
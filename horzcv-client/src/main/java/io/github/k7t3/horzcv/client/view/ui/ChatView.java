@@ -16,7 +16,10 @@
 
 package io.github.k7t3.horzcv.client.view.ui;
 
+import elemental2.dom.DomGlobal;
+import elemental2.dom.EventListener;
 import elemental2.dom.HTMLDivElement;
+import elemental2.dom.HTMLTemplateElement;
 import org.dominokit.domino.api.client.mvp.view.HasUiHandlers;
 import org.dominokit.domino.api.client.mvp.view.UiHandlers;
 import org.dominokit.domino.ui.IsElement;
@@ -66,6 +69,9 @@ public class ChatView implements IsElement<HTMLDivElement>, HasUiHandlers<ChatVi
 
     private ChatUiHandler handler;
 
+    // 埋め込みのチャットのloadイベントのリスナー
+    private EventListener frameLoadListener;
+
     public ChatView() {
 
         var menu = Menu.<Integer>create()
@@ -190,6 +196,69 @@ public class ChatView implements IsElement<HTMLDivElement>, HasUiHandlers<ChatVi
                 .animate();
     }
 
+    /**
+     * 読み込みの順番を待っている間に表示する枠を設定する。
+     */
+    void showPlaceholder() {
+        iframe.setInnerHtml("<div class=\"chatFrame chatFramePlaceholder\"></div>");
+    }
+
+    /**
+     * 埋め込みのチャットを読み込む。
+     * <p>
+     *     埋め込みのチャットを表示しているときは要素を作り直さずに<code>src</code>だけを変更する。
+     * </p>
+     * @param html     埋め込みのチャットのHTML
+     * @param onLoaded 埋め込みのチャットの<code>load</code>イベントが発生したときに呼び出す関数
+     */
+    void loadFrame(String html, Runnable onLoaded) {
+        var frame = iframe.element().querySelector("iframe");
+        var src = frame == null ? null : extractSrc(html);
+        if (src != null) {
+            frame.removeEventListener("load", frameLoadListener);
+            frame.setAttribute("src", src);
+        } else {
+            iframe.setInnerHtml(html);
+            frame = iframe.element().querySelector("iframe");
+            if (frame == null) {
+                onLoaded.run();
+                return;
+            }
+        }
+        frameLoadListener = e -> onLoaded.run();
+        frame.addEventListener("load", frameLoadListener);
+    }
+
+    /**
+     * GWTの起動前に読み込み始めた埋め込みのチャットを引き継ぐ。
+     * @param key  配信のキー
+     * @param dark ダークモードで表示するときはtrue
+     * @return 引き継いだときはtrue
+     * @see PrerenderedChats
+     */
+    boolean adoptFrame(String key, boolean dark) {
+        var placeholder = iframe.element().firstElementChild;
+        if (PrerenderedChats.adopt(key, dark, iframe.element()) == null) {
+            return false;
+        }
+        if (placeholder != null) {
+            placeholder.remove();
+        }
+        frameLoadListener = null;
+        return true;
+    }
+
+    /**
+     * 埋め込みのチャットのHTMLからURLを取り出す。
+     * templateの内容は読み込まれないため、iframeを生成しても通信は発生しない。
+     */
+    private static String extractSrc(String html) {
+        var template = (HTMLTemplateElement) DomGlobal.document.createElement("template");
+        template.innerHTML = html;
+        var frame = template.content.querySelector("iframe");
+        return frame == null ? null : frame.getAttribute("src");
+    }
+
     public void setDisableLeft(boolean disable) {
         left.setDisabled(disable);
         leftMenuItem.setDisabled(disable);
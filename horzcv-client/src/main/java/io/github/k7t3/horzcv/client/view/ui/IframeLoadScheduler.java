@@ -0,0 +1,184 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.view.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * 埋め込みのチャットの読み込みを順番に行うスケジューラー。
+ * <p>
+ *     多数のチャットを同時に読み込むとCPUとネットワークを使い切って画面が固まるため、
+ *     同時に読み込む数を制限し、優先度の高い(表示の順序が前の)チャットから読み込む。
+ *     読み込み中のチャットが<code>load</code>イベントを発生させるか、一定の時間が経過すると次の読み込みを開始する。
+ * </p>
+ * <p>
+ *     DOMの操作とタイマーは呼び出し元から受け取る。
+ * </p>
+ * @param <T> 読み込む対象
+ */
+class IframeLoadScheduler<T> {
+
+    /**
+     * 埋め込みのチャットを読み込む関数
+     */
+    interface Loader<T> {
+
+        /**
+         * @param target   読み込む対象
+         * @param html     埋め込みのチャットのHTML
+         * @param onLoaded 読み込みが終わったときに呼び出す関数
+         */
+        void load(T target, String html, Runnable onLoaded);
+
+    }
+
+    /**
+     * タイマーを登録する関数
+     */
+    interface Timeouts {
+
+        /**
+         * @return 登録したタイマーを取り消す関数
+         */
+        Runnable schedule(Runnable task, int delayMillis);
+
+    }
+
+    private final Loader<T> loader;
+
+    private final ToIntFunction<T> priority;
+
+    private final Timeouts timeouts;
+
+    private final int maxConcurrent;
+
+    private final int timeoutMillis;
+
+    private final List<Task<T>> pending = new ArrayList<>();
+
+    private final List<Task<T>> active = new ArrayList<>();
+
+    /**
+     * @param loader        埋め込みのチャットを読み込む関数
+     * @param priority      優先度を返す関数(小さいほど先に読み込む)
+     * @param timeouts      タイマーを登録する関数
+     * @param maxConcurrent 同時に読み込む最大数
+     * @param timeoutMillis 読み込みの完了を待つ最大の時間(ミリ秒)
+     */
+    IframeLoadScheduler(Loader<T> loader, ToIntFunction<T> priority, Timeouts timeouts,
+                        int maxConcurrent, int timeoutMillis) {
+        this.loader = loader;
+        this.priority = priority;
+        this.timeouts = timeouts;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 読み込みを予約する。同じ対象の読み込みが予約されているときは置き換える。
+     */
+    void schedule(T target, String html) {
+        removePending(target);
+        pending.add(new Task<>(target, html));
+        pump();
+    }
+
+    /**
+     * 対象の読み込みを取り消す。読み込み中のときは完了を待たずに次の読み込みを開始する。
+     */
+    void cancel(T target) {
+        removePending(target);
+        for (var task : new ArrayList<>(active)) {
+            if (task.target.equals(target)) {
+                finish(task);
+            }
+        }
+    }
+
+    /**
+     * 対象の読み込みが予約されているときはtrue
+     */
+    boolean isPending(T target) {
+        for (var task : pending) {
+            if (task.target.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getActiveCount() {
+        return active.size();
+    }
+
+    private void removePending(T target) {
+        pending.removeIf(task -> task.target.equals(target));
+    }
+
+    private void pump() {
+        while (active.size() < maxConcurrent && !pending.isEmpty()) {
+            var next = pending.get(0);
+            var nextPriority = priority.applyAsInt(next.target);
+            for (var i = 1; i < pending.size(); i++) {
+                var task = pending.get(i);
+                var taskPriority = priority.applyAsInt(task.target);
+                if (taskPriority < nextPriority) {
+                    next = task;
+                    nextPriority = taskPriority;
+                }
+            }
+            pending.remove(next);
+            start(next);
+        }
+    }
+
+    private void start(Task<T> task) {
+        active.add(task);
+        // 読み込みが同期的に終わったときにも取り消せるように先に登録する
+        task.cancelTimeout = timeouts.schedule(() -> finish(task), timeoutMillis);
+        loader.load(task.target, task.html, () -> finish(task));
+    }
+
+    private void finish(Task<T> task) {
+        // loadイベントとタイムアウトの両方、またはiframe内の遷移で複数回呼び出される
+        if (!active.remove(task)) {
+            return;
+        }
+        if (task.cancelTimeout != null) {
+            task.cancelTimeout.run();
+        }
+        pump();
+    }
+
+    private static final class Task<T> {
+
+        final T target;
+
+        final String html;
+
+        Runnable cancelTimeout;
+
+        Task(T target, String html) {
+            this.target = target;
+            this.html = html;
+        }
+
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.view.ui;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 読み込んだままにする埋め込みのチャットの数を制限するプール。
+ * <p>
+ *     表示されているチャットを読み込み、表示されなくなったチャットは一定の時間が経過した後で休止させる。
+ *     読み込んでいるチャットの数が上限に達したときは、表示されていないチャットを最も長く表示されていないものから休止させる。
+ *     表示されているチャットだけで上限に達したときは、いずれかが表示されなくなるまで読み込みを待機させる。
+ * </p>
+ * <p>
+ *     表示の判定とタイマーは呼び出し元から受け取る。
+ * </p>
+ * @param <T> 埋め込みのチャットを表示する対象
+ */
+class IframePool<T> {
+
+    private final Consumer<T> onActivate;
+
+    private final Consumer<T> onSuspend;
+
+    private final IframeLoadScheduler.Timeouts timeouts;
+
+    private final int capacity;
+
+    private final int suspendDelayMillis;
+
+    // 読み込んでいる対象(最後に表示されていた時刻が古いものが先頭)
+    private final LinkedHashSet<T> live = new LinkedHashSet<>();
+
+    // 表示されている対象
+    private final Set<T> visible = new LinkedHashSet<>();
+
+    // 表示されているが上限のために読み込めない対象
+    private final LinkedHashSet<T> waiting = new LinkedHashSet<>();
+
+    // 休止させるタイマーを取り消す関数
+    private final Map<T, Runnable> suspensions = new HashMap<>();
+
+    /**
+     * @param onActivate         埋め込みのチャットを読み込む関数
+     * @param onSuspend          埋め込みのチャットを休止させる関数
+     * @param timeouts           タイマーを登録する関数
+     * @param capacity           読み込んだままにする最大数
+     * @param suspendDelayMillis 表示されなくなってから休止させるまでの時間(ミリ秒)
+     */
+    IframePool(Consumer<T> onActivate, Consumer<T> onSuspend, IframeLoadScheduler.Timeouts timeouts,
+               int capacity, int suspendDelayMillis) {
+        this.onActivate = onActivate;
+        this.onSuspend = onSuspend;
+        this.timeouts = timeouts;
+        this.capacity = Math.max(1, capacity);
+        this.suspendDelayMillis = suspendDelayMillis;
+    }
+
+    /**
+     * 対象の表示の状態を更新する。
+     */
+    void setVisible(T target, boolean isVisible) {
+        if (isVisible) {
+            show(target);
+        } else {
+            hide(target);
+        }
+    }
+
+    /**
+     * 対象が読み込まれているときはtrue
+     */
+    boolean isLive(T target) {
+        return live.contains(target);
+    }
+
+    /**
+     * 対象が表示されているときはtrue
+     */
+    boolean isVisible(T target) {
+        return visible.contains(target);
+    }
+
+    int getLiveCount() {
+        return live.size();
+    }
+
+    /**
+     * 対象をプールから削除する。対象の埋め込みのチャットは呼び出し元で破棄する。
+     */
+    void remove(T target) {
+        cancelSuspension(target);
+        visible.remove(target);
+        waiting.remove(target);
+        if (live.remove(target)) {
+            promote();
+        }
+    }
+
+    private void show(T target) {
+        visible.add(target);
+        cancelSuspension(target);
+        if (live.contains(target)) {
+            // 最近表示されたものとして末尾に移動する
+            live.remove(target);
+            live.add(target);
+            return;
+        }
+        if (capacity <= live.size() && !evictHidden()) {
+            waiting.add(target);
+            return;
+        }
+        activate(target);
+    }
+
+    private void hide(T target) {
+        visible.remove(target);
+        waiting.remove(target);
+        if (live.contains(target) && !suspensions.containsKey(target)) {
+            // 表示されなくなった順に休止させるため末尾に移動する
+            live.remove(target);
+            live.add(target);
+            suspensions.put(target, timeouts.schedule(() -> {
+                suspensions.remove(target);
+                suspend(target);
+            }, suspendDelayMillis));
+        }
+    }
+
+    private void activate(T target) {
+        waiting.remove(target);
+        live.add(target);
+        onActivate.accept(target);
+    }
+
+    private void suspend(T target) {
+        if (live.remove(target)) {
+            onSuspend.accept(target);
+            promote();
+        }
+    }
+
+    /**
+     * 表示されていない対象を最も長く表示されていないものから1つ休止させる。
+     * @return 休止させたときはtrue
+     */
+    private boolean evictHidden() {
+        for (var target : live) {
+            if (!visible.contains(target)) {
+                cancelSuspension(target);
+                live.remove(target);
+                onSuspend.accept(target);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 空きがあれば待機している対象を読み込む。
+     */
+    private void promote() {
+        while (live.size() < capacity && !waiting.isEmpty()) {
+            activate(waiting.iterator().next());
+        }
+    }
+
+    private void cancelSuspension(T target) {
+        var cancel = suspensions.remove(target);
+        if (cancel != null) {
+            cancel.run();
+        }
+    }
+
+}
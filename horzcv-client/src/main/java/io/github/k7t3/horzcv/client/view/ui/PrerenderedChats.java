@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.view.ui;
+
+import elemental2.dom.DomGlobal;
+import elemental2.dom.Element;
+import elemental2.dom.HTMLElement;
+import elemental2.dom.Node;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+
+import java.util.logging.Logger;
+
+/**
+ * GWTの起動前に読み込み始めた埋め込みのチャットを引き継ぐクラス。
+ * <p>
+ *     <code>/chat</code>のページでは、index.htmlのスクリプトが画面に収まる数のチャットについて
+ *     配信ごとに<code>data-key</code>を設定したiframeを出力し、2つずつ読み込む。
+ *     DOM内で移動したiframeはブラウザが読み込み直すため、スクリプトは読み込みの状態を保ったまま移動できる
+ *     <code>Element.moveBefore()</code>に対応しているブラウザでだけ実行される。
+ * </p>
+ * <p>
+ *     引き継げないiframeは、同じチャットを二重に読み込まないように削除する。
+ * </p>
+ */
+final class PrerenderedChats {
+
+    private static final Logger LOGGER = Logger.getLogger(PrerenderedChats.class.getName());
+
+    /**
+     * 埋め込みのチャットを出力する要素のID
+     */
+    static final String ROOT_ID = "horzcv-prerender";
+
+    @JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "Element")
+    private static class MovableElement {
+
+        native void moveBefore(Node node, Node child);
+
+    }
+
+    private PrerenderedChats() {
+    }
+
+    /**
+     * チャットリストを表示したので、引き継ぐまで埋め込みのチャットを非表示にする。
+     * 非表示にしてもiframeの読み込みは続く。
+     * 読み込みを始めていないiframeは{@link ChatListViewImpl}が読み込むため削除する。
+     */
+    static void hide() {
+        var root = DomGlobal.document.getElementById(ROOT_ID);
+        if (root == null) {
+            return;
+        }
+        Js.<HTMLElement>uncheckedCast(root).style.setProperty("display", "none");
+        var frames = root.querySelectorAll("iframe:not([src])");
+        for (var i = 0; i < frames.length; i++) {
+            frames.getAt(i).remove();
+        }
+        removeIfEmpty(root);
+    }
+
+    /**
+     * 配信の埋め込みのチャットを<code>parent</code>に移動する。
+     * @param key    配信のキー({@link io.github.k7t3.horzcv.client.model.EmbeddedChatFrame#getKey()})
+     * @param dark   ダークモードで表示するときはtrue
+     * @param parent 移動先の要素
+     * @return 移動したiframe。引き継げないときはnull
+     */
+    static Element adopt(String key, boolean dark, Element parent) {
+        var root = DomGlobal.document.getElementById(ROOT_ID);
+        if (root == null || !Js.asPropertyMap(root).has("moveBefore")) {
+            return null;
+        }
+        var frames = root.querySelectorAll("iframe");
+        for (var i = 0; i < frames.length; i++) {
+            var frame = frames.getAt(i);
+            if (!key.equals(frame.getAttribute("data-key"))) {
+                continue;
+            }
+            // テーマが異なるときは読み込み直すため引き継がない
+            var adopted = (dark ? "1" : "0").equals(frame.getAttribute("data-dark"));
+            if (adopted) {
+                try {
+                    Js.<MovableElement>uncheckedCast(parent).moveBefore(frame, null);
+                } catch (Exception e) {
+                    LOGGER.fine("Failed to adopt the prerendered chat: " + e);
+                    adopted = false;
+                }
+            }
+            if (!adopted) {
+                frame.remove();
+            }
+            removeIfEmpty(root);
+            return adopted ? frame : null;
+        }
+        return null;
+    }
+
+    private static void removeIfEmpty(Element root) {
+        if (root.querySelector("iframe") == null) {
+            root.remove();
+        }
+    }
+
+}
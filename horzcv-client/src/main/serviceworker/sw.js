@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// アプリケーションの外枠(index.html、GWTのブートストラップ、CSS、フォント)をキャッシュするService Worker。
+// VERSIONとPRECACHE、FRAGMENTSはgwtCompileForDeployが出力したファイルから埋め込む。
+//
+// - インストール時に外枠だけをキャッシュし、以降はキャッシュから応答する(ネットワークを待たない)
+// - パーミュテーション(*.cache.js)と分割されたフラグメント(deferredjs)はブラウザごとに1つしか使用しないため、
+//   最初に読み込まれたときにキャッシュする。パーミュテーションを読み込んだときは、
+//   表示中のページが後から読み込むフラグメントもバックグラウンドでキャッシュする
+// - デプロイでファイルが変わるとsw.jsの内容も変わるため、ブラウザがバックグラウンドで新しいバージョンをインストールする
+// - 新しいバージョンは開いているタブがすべて閉じられた後で有効になる
+//   (表示中のページが古いパーミュテーションの分割されたフラグメントを読み込めなくならないように)
+
+const VERSION = '__VERSION__';
+const CACHE_NAME = 'horzcv-' + VERSION;
+const CACHE_PREFIX = 'horzcv-';
+const PRECACHE = __PRECACHE__;
+// パーミュテーションのパスに対応する分割されたフラグメントのパス
+const FRAGMENTS = __FRAGMENTS__;
+
+self.addEventListener('install', event => {
+  event.waitUntil(
+    caches.open(CACHE_NAME).then(cache => cache.addAll(PRECACHE.map(path => new Request(path, { cache: 'reload' }))))
+  );
+});
+
+self.addEventListener('activate', event => {
+  // 古いバージョンのキャッシュを削除する
+  event.waitUntil(
+    caches.keys().then(keys => Promise.all(
+      keys.filter(key => key.startsWith(CACHE_PREFIX) && key !== CACHE_NAME).map(key => caches.delete(key))
+    ))
+  );
+});
+
+self.addEventListener('fetch', event => {
+  const request = event.request;
+  if (request.method !== 'GET') {
+    return;
+  }
+  const url = new URL(request.url);
+  if (url.origin !== self.location.origin) {
+    return;
+  }
+
+  // 画面の遷移はすべてindex.htmlに書き換えられる(firebase.jsonのrewrites)
+  if (request.mode === 'navigate') {
+    event.respondWith(
+      caches.match('/index.html', { cacheName: CACHE_NAME }).then(response => response || fetch(request))
+    );
+    return;
+  }
+
+  if (url.pathname.endsWith('.cache.js')) {
+    event.respondWith(cacheOnFirstFetch(event, url.pathname));
+    return;
+  }
+
+  event.respondWith(
+    caches.match(url.pathname, { cacheName: CACHE_NAME }).then(response => response || fetch(request))
+  );
+});
+
+// キャッシュに存在しなければ取得してキャッシュする(*.cache.jsは内容が変わるとファイル名も変わる)
+async function cacheOnFirstFetch(event, path) {
+  const cache = await caches.open(CACHE_NAME);
+  const cached = await cache.match(path);
+  if (cached) {
+    return cached;
+  }
+  const response = await fetch(event.request);
+  if (response.ok) {
+    event.waitUntil(cache.put(path, response.clone()));
+    const fragments = FRAGMENTS[path];
+    if (fragments) {
+      event.waitUntil(cacheMissing(cache, fragments));
+    }
+  }
+  return response;
+}
+
+async function cacheMissing(cache, paths) {
+  for (const path of paths) {
+    if (!(await cache.match(path))) {
+      try {
+        await cache.add(path);
+      } catch (e) {
+        // 表示中のページが読み込むときに再び取得する
+      }
+    }
+  }
+}
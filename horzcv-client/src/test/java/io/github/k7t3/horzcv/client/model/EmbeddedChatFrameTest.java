@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedChatFrameTest {
+
+    @Test
+    public void keyIgnoresNameAndUri() {
+        EmbeddedChatFrame frame = new EmbeddedChatFrame(stream(StreamingService.TWITCH, "abc", "before"));
+        EmbeddedChatFrame renamed = new EmbeddedChatFrame(stream(StreamingService.TWITCH, "abc", "after"));
+        renamed.getStream().setUri("https://www.twitch.tv/abc");
+
+        assertNotEquals(frame, renamed);
+        assertEquals(frame.getKey(), renamed.getKey());
+    }
+
+    @Test
+    public void keyDiffersByService() {
+        EmbeddedChatFrame twitch = new EmbeddedChatFrame(stream(StreamingService.TWITCH, "abc", null));
+        EmbeddedChatFrame youtube = new EmbeddedChatFrame(stream(StreamingService.YOUTUBE, "abc", null));
+
+        assertNotEquals(twitch.getKey(), youtube.getKey());
+    }
+
+    private static LiveStreaming stream(StreamingService service, String id, String name) {
+        LiveStreaming stream = new LiveStreaming();
+        stream.setService(service);
+        stream.setId(id);
+        stream.setName(name);
+        return stream;
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.presenter;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamerInfoCacheTest {
+
+    private static final long FRESH = 1000;
+    private static final long MAX_AGE = 10000;
+
+    // 保存した文字列
+    private String stored;
+
+    private int saves;
+
+    private long now = 0;
+
+    private final StreamerInfoCache.Store store = new StreamerInfoCache.Store() {
+        @Override
+        public String load() {
+            return stored;
+        }
+
+        @Override
+        public void save(String value) {
+            stored = value;
+            saves++;
+        }
+    };
+
+    private StreamerInfoCache create(int capacity) {
+        return new StreamerInfoCache(store, () -> now, capacity, FRESH, MAX_AGE);
+    }
+
+    private static StreamerInfo info(String name) {
+        return new StreamerInfo(name, "https://example.com/" + name + ".png", "https://www.twitch.tv/" + name);
+    }
+
+    @Test
+    public void testKeyOf() {
+        assertEquals("twitch:testuser", StreamerInfoCache.keyOf("https://www.twitch.tv/TestUser"));
+        assertEquals("twitch:testuser", StreamerInfoCache.keyOf("http://m.twitch.tv/testuser"));
+        assertEquals("youtube:abc123XYZ", StreamerInfoCache.keyOf("https://youtu.be/abc123XYZ"));
+        assertEquals("youtube:abc123XYZ", StreamerInfoCache.keyOf("https://www.youtube.com/watch?v=abc123XYZ"));
+        assertNull(StreamerInfoCache.keyOf("https://example.com/"));
+        assertNull(StreamerInfoCache.keyOf(null));
+    }
+
+    @Test
+    public void testGetByCanonicalKey() {
+        var cache = create(8);
+        cache.put("https://www.twitch.tv/TestUser", info("testuser"));
+
+        var lookup = cache.get("https://twitch.tv/testuser");
+        assertNotNull(lookup);
+        assertEquals("testuser", lookup.getInfo().getName());
+        assertFalse(lookup.isStale());
+        assertNull(cache.get("https://www.twitch.tv/other"));
+    }
+
+    @Test
+    public void testStaleAndExpired() {
+        var cache = create(8);
+        cache.put("https://www.twitch.tv/testuser", info("testuser"));
+
+        now = FRESH;
+        assertTrue(cache.get("https://www.twitch.tv/testuser").isStale());
+
+        now = MAX_AGE;
+        assertNull(cache.get("https://www.twitch.tv/testuser"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        var cache = create(2);
+        cache.put("https://www.twitch.tv/a", info("a"));
+        cache.put("https://www.twitch.tv/b", info("b"));
+
+        // aを使用したのでbが最も長く使用されていない
+        assertNotNull(cache.get("https://www.twitch.tv/a"));
+        cache.put("https://www.twitch.tv/c", info("c"));
+
+        assertNotNull(cache.get("https://www.twitch.tv/a"));
+        assertNull(cache.get("https://www.twitch.tv/b"));
+        assertNotNull(cache.get("https://www.twitch.tv/c"));
+    }
+
+    @Test
+    public void testPersists() {
+        var cache = create(8);
+        cache.put("https://www.twitch.tv/a", new StreamerInfo("name\twith\ntabs %09", "", "https://www.twitch.tv/a"));
+
+        // 保存した文字列から読み込む
+        var restored = create(8);
+        var lookup = restored.get("https://www.twitch.tv/a");
+        assertNotNull(lookup);
+        assertEquals("name\twith\ntabs %09", lookup.getInfo().getName());
+        assertEquals("https://www.twitch.tv/a", lookup.getInfo().getStreamURL());
+    }
+
+    @Test
+    public void testIgnoresBrokenStorage() {
+        stored = "v1\nbroken\ntwitch:a\tnot-a-number\ta\t\t\n";
+        var cache = create(8);
+        assertNull(cache.get("https://www.twitch.tv/a"));
+
+        stored = "unknown format";
+        cache = create(8);
+        assertNull(cache.get("https://www.twitch.tv/a"));
+    }
+
+    @Test
+    public void testGetDoesNotSave() {
+        var cache = create(8);
+        cache.put("https://www.twitch.tv/a", info("a"));
+        assertEquals(1, saves);
+
+        assertNotNull(cache.get("https://www.twitch.tv/a"));
+        assertNull(cache.get("https://www.twitch.tv/b"));
+        now = MAX_AGE;
+        assertNull(cache.get("https://www.twitch.tv/a"));
+        assertEquals(1, saves);
+    }
+
+    @Test
+    public void testMergesOtherTabs() {
+        var tab1 = create(8);
+        var tab2 = create(8);
+        // 両方のタブが保存する前に読み込む
+        assertNull(tab1.get("https://www.twitch.tv/a"));
+        assertNull(tab2.get("https://www.twitch.tv/b"));
+
+        tab1.put("https://www.twitch.tv/a", info("a"));
+        tab2.put("https://www.twitch.tv/b", info("b"));
+
+        // 後から保存したタブが先に保存されたエントリを上書きしない
+        var restored = create(8);
+        assertNotNull(restored.get("https://www.twitch.tv/a"));
+        assertNotNull(restored.get("https://www.twitch.tv/b"));
+        assertNotNull(tab2.get("https://www.twitch.tv/a"));
+    }
+
+}
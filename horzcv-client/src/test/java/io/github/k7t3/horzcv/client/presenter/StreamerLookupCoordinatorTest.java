@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.presenter;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.shared.service.StreamerInfoService;
+import io.github.k7t3.horzcv.shared.service.StreamerInfoServiceAsync;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StreamerLookupCoordinatorTest {
+
+    // 送信されたリクエスト(URLの配列)とコールバック
+    private final List<String[]> requests = new ArrayList<>();
+    private final List<AsyncCallback<StreamerInfoResponse>> singleCallbacks = new ArrayList<>();
+    private final List<AsyncCallback<StreamerInfoResponse[]>> batchCallbacks = new ArrayList<>();
+
+    private static final int DEBOUNCE = 300;
+    private static final int TIMEOUT = 10000;
+
+    // 登録されたタイマー(取り消されたものは除く)
+    private final Map<Integer, Runnable> timers = new LinkedHashMap<>();
+    private final Map<Integer, Runnable> timeouts = new LinkedHashMap<>();
+    private int nextTimer;
+
+    private StreamerLookupCoordinator coordinator;
+
+    @Before
+    public void setUp() {
+        var service = new StreamerInfoServiceAsync() {
+            @Override
+            public void getStreamerInfo(String url, AsyncCallback<StreamerInfoResponse> callback) {
+                requests.add(new String[]{url});
+                singleCallbacks.add(callback);
+            }
+
+            @Override
+            public void getStreamerInfos(String[] urls, AsyncCallback<StreamerInfoResponse[]> callback) {
+                requests.add(urls);
+                batchCallbacks.add(callback);
+            }
+        };
+        coordinator = new StreamerLookupCoordinator(service, (task, delay) -> {
+            var id = nextTimer++;
+            var target = delay < TIMEOUT ? timers : timeouts;
+            target.put(id, task);
+            return () -> target.remove(id);
+        }, DEBOUNCE, TIMEOUT);
+    }
+
+    /**
+     * 結果を待つ時間を経過させる
+     */
+    private void expire() {
+        var tasks = new ArrayList<>(timeouts.values());
+        timeouts.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    /**
+     * 登録されているタイマーをすべて実行する(実行中に登録されたタイマーも含む)。
+     * 結果を待つ時間のタイマーは{@link #expire()}で実行する。
+     */
+    private void fireTimers() {
+        while (!timers.isEmpty()) {
+            var tasks = new ArrayList<>(timers.values());
+            timers.clear();
+            tasks.forEach(Runnable::run);
+        }
+    }
+
+    private static StreamerInfoResponse response(String name) {
+        return StreamerInfoResponse.of(new StreamerInfo(name, "", ""));
+    }
+
+    private static class Recorder implements AsyncCallback<StreamerInfoResponse> {
+        final List<StreamerInfoResponse> results = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+
+        @Override
+        public void onSuccess(StreamerInfoResponse result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onFailure(Throwable caught) {
+            failures.add(caught);
+        }
+    }
+
+    @Test
+    public void testDebounce() {
+        var form = new Object();
+        var recorder = new Recorder();
+        coordinator.lookup(form, "https://www.twitch.tv/t", recorder);
+        coordinator.lookup(form, "https://www.twitch.tv/te", recorder);
+        coordinator.lookup(form, "https://www.twitch.tv/test", recorder);
+        fireTimers();
+
+        // 最後の入力だけを検索する
+        assertEquals(1, requests.size());
+        assertEquals("https://www.twitch.tv/test", requests.get(0)[0]);
+
+        singleCallbacks.get(0).onSuccess(response("test"));
+        assertEquals(1, recorder.results.size());
+    }
+
+    @Test
+    public void testDropsStaleResponse() {
+        var form = new Object();
+        var first = new Recorder();
+        var second = new Recorder();
+        coordinator.lookup(form, "https://www.twitch.tv/first", first);
+        fireTimers();
+        coordinator.lookup(form, "https://www.twitch.tv/second", second);
+        fireTimers();
+        assertEquals(2, requests.size());
+
+        // 後から届いた古い結果は破棄する
+        singleCallbacks.get(1).onSuccess(response("second"));
+        singleCallbacks.get(0).onSuccess(response("first"));
+        assertTrue(first.results.isEmpty());
+        assertEquals(1, second.results.size());
+    }
+
+    @Test
+    public void testDeduplicatesAndBatches() {
+        var a = new Recorder();
+        var b = new Recorder();
+        var c = new Recorder();
+        coordinator.lookup("form-a", "https://www.twitch.tv/Same", a);
+        coordinator.lookup("form-b", "https://twitch.tv/same", b);
+        coordinator.lookup("form-c", "https://youtu.be/abcdef", c);
+        fireTimers();
+
+        // 同じ配信は1つにまとめ、異なる配信は1回のリクエストで送信する
+        assertEquals(1, requests.size());
+        assertEquals(2, requests.get(0).length);
+        assertEquals(List.of("https://www.twitch.tv/Same", "https://youtu.be/abcdef"), Arrays.asList(requests.get(0)));
+
+        batchCallbacks.get(0).onSuccess(new StreamerInfoResponse[]{response("same"), response("yt")});
+        assertEquals("same", a.results.get(0).getInfoArray()[0].getName());
+        assertEquals("same", b.results.get(0).getInfoArray()[0].getName());
+        assertEquals("yt", c.results.get(0).getInfoArray()[0].getName());
+    }
+
+    @Test
+    public void testJoinsInFlightLookup() {
+        var a = new Recorder();
+        var b = new Recorder();
+        coordinator.lookup("form-a", "https://www.twitch.tv/same", a);
+        fireTimers();
+        coordinator.lookup("form-b", "https://www.twitch.tv/same", b);
+        fireTimers();
+
+        // 結果を待っている検索に相乗りする
+        assertEquals(1, requests.size());
+        singleCallbacks.get(0).onSuccess(response("same"));
+        assertEquals(1, a.results.size());
+        assertEquals(1, b.results.size());
+    }
+
+    @Test
+    public void testCancel() {
+        var recorder = new Recorder();
+        coordinator.lookup("form", "https://www.twitch.tv/test", recorder);
+        coordinator.cancel("form");
+        fireTimers();
+        assertTrue(requests.isEmpty());
+
+        coordinator.lookup("form", "https://www.twitch.tv/test", recorder);
+        fireTimers();
+        coordinator.cancel("form");
+        singleCallbacks.get(0).onSuccess(response("test"));
+        assertTrue(recorder.results.isEmpty());
+    }
+
+    @Test
+    public void testIgnoresInvalidURL() {
+        var recorder = new Recorder();
+        coordinator.lookup("form", "https://www.twitch.tv/test", recorder);
+        // 配信のURLではない入力に変わった
+        coordinator.lookup("form", "not a url", recorder);
+        fireTimers();
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    public void testFailureIsReportedOnce() {
+        var a = new Recorder();
+        var b = new Recorder();
+        coordinator.lookup("form-a", "https://www.twitch.tv/a", a);
+        coordinator.lookup("form-b", "https://www.twitch.tv/b", b);
+        fireTimers();
+
+        batchCallbacks.get(0).onFailure(new RuntimeException("offline"));
+        assertEquals(1, a.failures.size() + b.failures.size());
+    }
+
+    @Test
+    public void testSplitsLargeBatches() {
+        var count = StreamerInfoService.MAX_BATCH_SIZE * 2 + 1;
+        var recorders = new ArrayList<Recorder>();
+        for (var i = 0; i < count; i++) {
+            var recorder = new Recorder();
+            recorders.add(recorder);
+            coordinator.lookup("form-" + i, "https://www.twitch.tv/channel" + i, recorder);
+        }
+        fireTimers();
+
+        // サーバーが受け付ける数ごとに分けて送信する
+        assertEquals(3, requests.size());
+        assertEquals(StreamerInfoService.MAX_BATCH_SIZE, requests.get(0).length);
+        assertEquals(StreamerInfoService.MAX_BATCH_SIZE, requests.get(1).length);
+        assertEquals(1, requests.get(2).length);
+        assertEquals("https://www.twitch.tv/channel" + (count - 1), requests.get(2)[0]);
+
+        var responses = new StreamerInfoResponse[StreamerInfoService.MAX_BATCH_SIZE];
+        Arrays.fill(responses, response("batch"));
+        batchCallbacks.get(0).onSuccess(responses);
+        singleCallbacks.get(0).onSuccess(response("last"));
+        assertEquals(1, recorders.get(0).results.size());
+        assertTrue(recorders.get(StreamerInfoService.MAX_BATCH_SIZE).results.isEmpty());
+        assertEquals("last", recorders.get(count - 1).results.get(0).getInfoArray()[0].getName());
+
+        // 分けて送信したリクエストが失敗してもエラーの処理は1回だけ行う
+        batchCallbacks.get(1).onFailure(new RuntimeException("offline"));
+        var failures = 0;
+        for (var recorder : recorders) {
+            failures += recorder.failures.size();
+        }
+        assertEquals(1, failures);
+    }
+
+    @Test
+    public void testExpiresUnansweredLookup() {
+        var a = new Recorder();
+        coordinator.lookup("form-a", "https://www.twitch.tv/same", a);
+        fireTimers();
+        assertEquals(1, requests.size());
+
+        // 結果が届かないまま時間が経過したときは、次の検索で改めて送信する
+        expire();
+        var b = new Recorder();
+        coordinator.lookup("form-b", "https://www.twitch.tv/same", b);
+        fireTimers();
+        assertEquals(2, requests.size());
+
+        // 遅れて届いた結果は待っている検索に渡す
+        singleCallbacks.get(1).onSuccess(response("same"));
+        assertTrue(a.results.isEmpty());
+        assertEquals(1, b.results.size());
+        singleCallbacks.get(0).onSuccess(response("late"));
+        assertTrue(a.results.isEmpty());
+        assertEquals(1, b.results.size());
+    }
+
+    @Test
+    public void testAnsweredLookupCancelsTimeout() {
+        coordinator.lookup("form", "https://www.twitch.tv/test", new Recorder());
+        fireTimers();
+        assertEquals(1, timeouts.size());
+        singleCallbacks.get(0).onSuccess(response("test"));
+        assertTrue(timeouts.isEmpty());
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.view.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IframeLoadSchedulerTest {
+
+    // 読み込みを開始した対象と完了を通知する関数
+    private final List<String> started = new ArrayList<>();
+    private final Map<String, Runnable> loaded = new HashMap<>();
+
+    // 登録されたタイマーと取り消された数
+    private final List<Runnable> timers = new ArrayList<>();
+    private int cancelledTimers;
+
+    private final Map<String, Integer> priorities = new HashMap<>();
+
+    private IframeLoadScheduler<String> scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new IframeLoadScheduler<>(
+                (target, html, onLoaded) -> {
+                    started.add(target);
+                    loaded.put(target, onLoaded);
+                },
+                target -> priorities.getOrDefault(target, 0),
+                (task, delay) -> {
+                    timers.add(task);
+                    return () -> cancelledTimers++;
+                },
+                2,
+                1000
+        );
+    }
+
+    @Test
+    public void testLimitsConcurrentLoads() {
+        scheduler.schedule("a", "<iframe>");
+        scheduler.schedule("b", "<iframe>");
+        scheduler.schedule("c", "<iframe>");
+
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(2, scheduler.getActiveCount());
+        assertTrue(scheduler.isPending("c"));
+
+        // 読み込みが終わると次を開始する
+        loaded.get("a").run();
+        assertEquals(List.of("a", "b", "c"), started);
+        assertFalse(scheduler.isPending("c"));
+        assertEquals(1, cancelledTimers);
+    }
+
+    @Test
+    public void testLoadsByPriority() {
+        priorities.put("a", 0);
+        priorities.put("b", 1);
+        priorities.put("c", 3);
+        priorities.put("d", 2);
+
+        scheduler.schedule("a", "<iframe>");
+        scheduler.schedule("b", "<iframe>");
+        scheduler.schedule("c", "<iframe>");
+        scheduler.schedule("d", "<iframe>");
+
+        loaded.get("a").run();
+        loaded.get("b").run();
+        assertEquals(List.of("a", "b", "d", "c"), started);
+    }
+
+    @Test
+    public void testTimeoutStartsNext() {
+        scheduler.schedule("a", "<iframe>");
+        scheduler.schedule("b", "<iframe>");
+        scheduler.schedule("c", "<iframe>");
+
+        // loadイベントが発生しないまま時間が経過した
+        timers.get(0).run();
+        assertEquals(List.of("a", "b", "c"), started);
+
+        // 遅れて発生したloadイベントは無視する
+        loaded.get("a").run();
+        assertEquals(2, scheduler.getActiveCount());
+    }
+
+    @Test
+    public void testRescheduleReplacesPending() {
+        scheduler.schedule("a", "<iframe>");
+        scheduler.schedule("b", "<iframe>");
+        scheduler.schedule("c", "<iframe 1>");
+        scheduler.schedule("c", "<iframe 2>");
+
+        loaded.get("a").run();
+        loaded.get("b").run();
+        assertEquals(List.of("a", "b", "c"), started);
+        assertEquals(1, scheduler.getActiveCount());
+    }
+
+    @Test
+    public void testCancel() {
+        scheduler.schedule("a", "<iframe>");
+        scheduler.schedule("b", "<iframe>");
+        scheduler.schedule("c", "<iframe>");
+        scheduler.schedule("d", "<iframe>");
+
+        // 予約を取り消す
+        scheduler.cancel("c");
+        assertFalse(scheduler.isPending("c"));
+
+        // 読み込み中を取り消すと次を開始する
+        scheduler.cancel("a");
+        assertEquals(List.of("a", "b", "d"), started);
+        assertEquals(2, scheduler.getActiveCount());
+    }
+
+    @Test
+    public void testSynchronousLoad() {
+        var sync = new IframeLoadScheduler<String>(
+                (target, html, onLoaded) -> {
+                    started.add(target);
+                    onLoaded.run();
+                },
+                target -> 0,
+                (task, delay) -> () -> cancelledTimers++,
+                1,
+                1000
+        );
+        sync.schedule("a", "");
+        sync.schedule("b", "");
+        assertEquals(List.of("a", "b"), started);
+        assertEquals(0, sync.getActiveCount());
+        assertEquals(2, cancelledTimers);
+    }
+
+}
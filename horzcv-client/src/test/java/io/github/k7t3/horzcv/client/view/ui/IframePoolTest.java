@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.client.view.ui;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class IframePoolTest {
+
+    private final List<String> activated = new ArrayList<>();
+    private final List<String> suspended = new ArrayList<>();
+
+    // 登録されたタイマー(取り消されたものは除く)
+    private final Map<Integer, Runnable> timers = new LinkedHashMap<>();
+    private int nextTimer;
+
+    private IframePool<String> pool;
+
+    @Before
+    public void setUp() {
+        pool = new IframePool<>(
+                activated::add,
+                suspended::add,
+                (task, delay) -> {
+                    var id = nextTimer++;
+                    timers.put(id, task);
+                    return () -> timers.remove(id);
+                },
+                2,
+                1000
+        );
+    }
+
+    private void fireTimers() {
+        var tasks = new ArrayList<>(timers.values());
+        timers.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testActivatesVisible() {
+        pool.setVisible("a", true);
+        pool.setVisible("b", true);
+
+        assertEquals(List.of("a", "b"), activated);
+        assertTrue(pool.isLive("a"));
+        assertTrue(pool.isLive("b"));
+        assertEquals(2, pool.getLiveCount());
+    }
+
+    @Test
+    public void testSuspendsAfterDelay() {
+        pool.setVisible("a", true);
+        pool.setVisible("a", false);
+
+        // 時間が経過するまでは読み込んだまま
+        assertTrue(pool.isLive("a"));
+        fireTimers();
+        assertFalse(pool.isLive("a"));
+        assertEquals(List.of("a"), suspended);
+    }
+
+    @Test
+    public void testVisibleAgainCancelsSuspension() {
+        pool.setVisible("a", true);
+        pool.setVisible("a", false);
+        pool.setVisible("a", true);
+
+        fireTimers();
+        assertTrue(pool.isLive("a"));
+        assertTrue(suspended.isEmpty());
+        assertEquals(List.of("a"), activated);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyVisibleHidden() {
+        pool.setVisible("a", true);
+        pool.setVisible("b", true);
+        pool.setVisible("b", false);
+        pool.setVisible("a", false);
+
+        // 上限に達しているため表示されていないものを休止させる
+        pool.setVisible("c", true);
+        assertEquals(List.of("b"), suspended);
+        assertTrue(pool.isLive("a"));
+        assertTrue(pool.isLive("c"));
+
+        // 休止させたもののタイマーは取り消されている
+        fireTimers();
+        assertEquals(List.of("b", "a"), suspended);
+    }
+
+    @Test
+    public void testWaitsWhenAllLiveAreVisible() {
+        pool.setVisible("a", true);
+        pool.setVisible("b", true);
+        pool.setVisible("c", true);
+
+        assertFalse(pool.isLive("c"));
+        assertEquals(2, pool.getLiveCount());
+
+        // 空きができると待機しているものを読み込む
+        pool.setVisible("a", false);
+        fireTimers();
+        assertTrue(pool.isLive("c"));
+        assertEquals(List.of("a", "b", "c"), activated);
+    }
+
+    @Test
+    public void testRemove() {
+        pool.setVisible("a", true);
+        pool.setVisible("b", true);
+        pool.setVisible("c", true);
+
+        pool.remove("a");
+        assertFalse(pool.isLive("a"));
+        assertFalse(pool.isVisible("a"));
+        assertTrue(pool.isLive("c"));
+        // 削除したものは休止させない
+        assertTrue(suspended.isEmpty());
+    }
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * サーバーで記録したJFRのファイルを読み込み、処理の段階ごとのレイテンシを集計するツール。
+ * <p>
+ *     検索({@code io.github.k7t3.horzcv.Lookup})ごとに、同じスレッドで記録されたキャッシュの参照と
+ *     配信サービスの呼び出し、GCによる停止、ロックの待機の時間を集計し、全体と遅い検索とで比較する。
+ * </p>
+ * <pre>
+ *     ./gradlew :horzcv-loadtest:jfrSummary -Pargs="file=recording.jfr"
+ * </pre>
+ */
+public final class JfrSummary {
+
+    private static final String LOOKUP = "io.github.k7t3.horzcv.Lookup";
+    private static final String CACHE_LOOKUP = "io.github.k7t3.horzcv.CacheLookup";
+    private static final String UPSTREAM_CALL = "io.github.k7t3.horzcv.UpstreamCall";
+
+    private static final String GC_PAUSE = "jdk.GCPhasePause";
+    private static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    private static final String THREAD_PARK = "jdk.ThreadPark";
+
+    // 1マイクロ秒から1分までを有効数字3桁で記録する
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Histogram> stages = new TreeMap<>();
+
+    private final List<Span> lookups = new ArrayList<>();
+
+    private final Map<Long, List<Span>> cacheByThread = new HashMap<>();
+
+    private final Map<Long, List<Span>> upstreamByThread = new HashMap<>();
+
+    private final Map<Long, List<Span>> blockedByThread = new HashMap<>();
+
+    private final List<Span> gcPauses = new ArrayList<>();
+
+    private final double slowPercentile;
+
+    private JfrSummary(double slowPercentile) {
+        this.slowPercentile = slowPercentile;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var options = new Options(args);
+        var file = options.get("file", "recording.jfr");
+
+        var summary = new JfrSummary(options.getDouble("slow_percentile", 99));
+        try (var recording = new RecordingFile(Path.of(file))) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        summary.print();
+    }
+
+    private void accept(RecordedEvent event) {
+        var name = event.getEventType().getName();
+        switch (name) {
+            case LOOKUP -> {
+                lookups.add(Span.of(event));
+                record(stage("lookup", event.getString("endpoint"), event.getString("outcome")), event);
+            }
+            case CACHE_LOOKUP -> {
+                add(cacheByThread, event);
+                var source = event.getString("source");
+                record(stage("cache", event.getString("result"), source == null ? "-" : source), event);
+            }
+            case UPSTREAM_CALL -> {
+                add(upstreamByThread, event);
+                record(stage("upstream", event.getString("service") + "." + event.getString("operation"),
+                        event.getString("outcome")), event);
+            }
+            case GC_PAUSE -> gcPauses.add(Span.of(event));
+            case MONITOR_ENTER, THREAD_PARK -> add(blockedByThread, event);
+            default -> {
+            }
+        }
+    }
+
+    private static String stage(String kind, String name, String outcome) {
+        return kind + " " + name + " [" + outcome + "]";
+    }
+
+    private void record(String stage, RecordedEvent event) {
+        var histogram = stages.computeIfAbsent(stage, k -> new Histogram(MAX_MICROS, 3));
+        histogram.recordValue(Math.min(MAX_MICROS, Math.max(0, event.getDuration().toNanos() / 1000)));
+    }
+
+    private static void add(Map<Long, List<Span>> byThread, RecordedEvent event) {
+        if (event.getThread() == null) {
+            return;
+        }
+        byThread.computeIfAbsent(event.getThread().getJavaThreadId(), k -> new ArrayList<>()).add(Span.of(event));
+    }
+
+    private void print() {
+        System.out.printf("%-60s %8s %10s %10s %10s %10s%n", "stage", "count", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+        stages.forEach((stage, h) -> System.out.printf("%-60s %8d %10.2f %10.2f %10.2f %10.2f%n",
+                stage, h.getTotalCount(),
+                millis(h.getValueAtPercentile(50)),
+                millis(h.getValueAtPercentile(90)),
+                millis(h.getValueAtPercentile(99)),
+                millis(h.getMaxValue())));
+
+        if (lookups.isEmpty()) {
+            System.out.println();
+            System.out.println("検索のイベントが記録されていません。horzcv.jfcを指定して記録してください。");
+            return;
+        }
+
+        var comparator = Comparator.comparingLong(Span::start);
+        cacheByThread.values().forEach(list -> list.sort(comparator));
+        upstreamByThread.values().forEach(list -> list.sort(comparator));
+        blockedByThread.values().forEach(list -> list.sort(comparator));
+        gcPauses.sort(comparator);
+
+        var durations = lookups.stream().mapToLong(Span::duration).sorted().toArray();
+        var threshold = durations[(int) Math.min(durations.length - 1,
+                Math.floor(durations.length * slowPercentile / 100.0))];
+
+        var all = new Breakdown();
+        var slow = new Breakdown();
+        for (var lookup : lookups) {
+            var cache = overlap(cacheByThread.get(lookup.thread()), lookup);
+            var upstream = overlap(upstreamByThread.get(lookup.thread()), lookup);
+            var gc = overlap(gcPauses, lookup);
+            var blocked = overlap(blockedByThread.get(lookup.thread()), lookup);
+
+            all.add(lookup.duration(), cache, upstream, gc, blocked);
+            if (threshold <= lookup.duration()) {
+                slow.add(lookup.duration(), cache, upstream, gc, blocked);
+            }
+        }
+
+        System.out.println();
+        System.out.println("検索1回あたりの平均の内訳(ms)。upstreamはcacheに含まれる");
+        System.out.printf("%-24s %8s %10s %10s %10s %10s %10s%n", "", "count", "total", "cache", "upstream", "gc", "blocked");
+        all.print("all");
+        slow.print(String.format("slow (>= p%s, %.2fms)", trim(slowPercentile), threshold / 1e6));
+    }
+
+    /**
+     * 検索の区間と重なる時間の合計を返す。
+     */
+    private static long overlap(List<Span> spans, Span lookup) {
+        if (spans == null) {
+            return 0;
+        }
+        var total = 0L;
+        for (var i = firstEndingAfter(spans, lookup.start()); i < spans.size(); i++) {
+            var span = spans.get(i);
+            if (lookup.end() <= span.start()) {
+                break;
+            }
+            total += Math.max(0, Math.min(span.end(), lookup.end()) - Math.max(span.start(), lookup.start()));
+        }
+        return total;
+    }
+
+    /**
+     * 開始時刻の順に並んだ区間のうち、指定した時刻より後に終わる可能性がある最初の位置を返す。
+     * <p>
+     *     区間は入れ子にならない前提で、開始時刻で二分探索してから1つ前に戻る。
+     * </p>
+     */
+    private static int firstEndingAfter(List<Span> spans, long time) {
+        var low = 0;
+        var high = spans.size();
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (spans.get(mid).start() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.max(0, low - 1);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private record Span(long thread, long start, long end) {
+
+        static Span of(RecordedEvent event) {
+            var thread = event.getThread() == null ? -1 : event.getThread().getJavaThreadId();
+            return new Span(thread, epochNanos(event.getStartTime()), epochNanos(event.getEndTime()));
+        }
+
+        long duration() {
+            return end - start;
+        }
+
+    }
+
+    private static final class Breakdown {
+
+        private long count;
+        private long total;
+        private long cache;
+        private long upstream;
+        private long gc;
+        private long blocked;
+
+        void add(long total, long cache, long upstream, long gc, long blocked) {
+            count++;
+            this.total += total;
+            this.cache += cache;
+            this.upstream += upstream;
+            this.gc += gc;
+            this.blocked += blocked;
+        }
+
+        void print(String label) {
+            if (count == 0) {
+                return;
+            }
+            System.out.printf("%-24s %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", label, count,
+                    mean(total), mean(cache), mean(upstream), mean(gc), mean(blocked));
+        }
+
+        private double mean(long nanos) {
+            return nanos / 1e6 / count;
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 1種類のリクエストのレイテンシとエラーを集計するクラス。
+ * <p>
+ *     レイテンシはリクエストを送信する予定だった時刻から計測するため、
+ *     サーバーの応答が遅れて送信が滞ったときの待ち時間も含まれる。
+ * </p>
+ */
+final class LatencyStats {
+
+    // 1マイクロ秒から1分までを有効数字3桁で記録する
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+
+    private final Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    private long totalErrors;
+
+    LatencyStats(String name) {
+        this.name = name;
+    }
+
+    void record(long latencyNanos) {
+        recorder.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    /**
+     * 前回からの区間の集計を出力し、計測期間中であれば全体の集計に加える。
+     * @param seconds  区間の長さ(秒)
+     * @param measured 計測期間中のときはtrue(ウォームアップ中はfalse)
+     */
+    synchronized String interval(double seconds, boolean measured) {
+        var histogram = recorder.getIntervalHistogram();
+        var intervalErrors = errors.sumThenReset();
+        if (measured) {
+            total.add(histogram);
+            totalErrors += intervalErrors;
+        }
+        return format(histogram, intervalErrors, seconds);
+    }
+
+    synchronized String total(double seconds) {
+        return format(total, totalErrors, seconds);
+    }
+
+    private String format(Histogram histogram, long errorCount, double seconds) {
+        var count = histogram.getTotalCount();
+        return String.format("%-7s count=%8d errors=%6d rps=%9.1f p50=%8.2fms p99=%8.2fms p999=%8.2fms max=%8.2fms",
+                name, count, errorCount, seconds <= 0 ? 0 : (count + errorCount) / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+}
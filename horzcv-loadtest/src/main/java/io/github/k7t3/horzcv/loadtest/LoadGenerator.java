@@ -0,0 +1,272 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * サーバーのGWT-RPCに負荷をかけてレイテンシを計測するクラス。
+ * <p>
+ *     オープンモデルで負荷を生成する。リクエストはサーバーの応答を待たずにポアソン過程の到着間隔で送信し、
+ *     レイテンシは送信する予定だった時刻から計測する。サーバーが詰まったときの待ち時間も結果に反映される。
+ * </p>
+ * <p>
+ *     仮想的なユーザーはそれぞれ視聴中の配信(1〜<code>max_streams_per_user</code>件)を持ち、
+ *     単一の検索か視聴中の配信をまとめた一括の検索を送信する。
+ *     クライアントと同じく、一括の検索は1回あたり{@value #MAX_BATCH_SIZE}件までに分割する。
+ *     配信は人気の偏りを再現するためZipf分布で選択する。
+ * </p>
+ * <pre>
+ *     target=http://localhost:8080  rate=100  duration=60  warmup=10
+ *     users=500  max_streams_per_user=48  streams=5000  zipf=1.1  youtube_ratio=0.3  missing_ratio=0.02
+ *     batch_ratio=0.2  switch_ratio=0.05  max_in_flight=10000
+ *     policy=(シリアライゼーションポリシーの名前)  policy_dir=horzcv-client/build/gwt/js/horzcv
+ * </pre>
+ */
+public class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+    // 同時に表示できる配信の最大数(クライアントのLiveStreaming.MAX_STREAMSと同じ)
+    private static final int MAX_STREAMS_PER_USER = 48;
+
+    // 一括の検索で送信できるURLの最大数(StreamerInfoService.MAX_BATCH_SIZEと同じ)
+    private static final int MAX_BATCH_SIZE = 16;
+
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(10);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final URI endpoint;
+
+    private final String moduleBaseUrl;
+
+    private final RpcPayloads payloads;
+
+    private final double rate;
+
+    private final Duration duration;
+
+    private final Duration warmup;
+
+    private final double batchRatio;
+
+    private final double switchRatio;
+
+    private final int maxInFlight;
+
+    private final String[] streamUrls;
+
+    private final ZipfSampler popularity;
+
+    private final List<List<String>> userStreams = new ArrayList<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LatencyStats single = new LatencyStats("single");
+
+    private final LatencyStats batch = new LatencyStats("batch");
+
+    public LoadGenerator(Options options) throws Exception {
+        var target = options.get("target", "http://localhost:8080");
+        moduleBaseUrl = target + "/horzcv/";
+        endpoint = URI.create(moduleBaseUrl + "api/streamer");
+
+        var policy = options.get("policy", null);
+        if (policy == null) {
+            policy = RpcPayloads.findPolicy(Path.of(options.get("policy_dir", "horzcv-client/build/gwt/js/horzcv")));
+        }
+        payloads = new RpcPayloads(moduleBaseUrl, policy);
+
+        rate = options.getDouble("rate", 100);
+        duration = Duration.ofSeconds(options.getInt("duration", 60));
+        warmup = Duration.ofSeconds(options.getInt("warmup", 10));
+        batchRatio = options.getDouble("batch_ratio", 0.2);
+        switchRatio = options.getDouble("switch_ratio", 0.05);
+        maxInFlight = options.getInt("max_in_flight", 10_000);
+
+        streamUrls = createStreamUrls(
+                options.getInt("streams", 5000),
+                options.getDouble("youtube_ratio", 0.3),
+                options.getDouble("missing_ratio", 0.02));
+        popularity = new ZipfSampler(streamUrls.length, options.getDouble("zipf", 1.1));
+
+        var users = options.getInt("users", 500);
+        var maxStreams = Math.min(options.getInt("max_streams_per_user", MAX_STREAMS_PER_USER), streamUrls.length);
+        if (maxStreams < 1) {
+            throw new IllegalArgumentException("max_streams_per_user must be positive");
+        }
+        var random = ThreadLocalRandom.current();
+        for (var i = 0; i < users; i++) {
+            var streams = new ArrayList<String>();
+            var count = 1 + random.nextInt(maxStreams);
+            while (streams.size() < count) {
+                var url = streamUrls[popularity.sample(random)];
+                if (!streams.contains(url)) {
+                    streams.add(url);
+                }
+            }
+            userStreams.add(streams);
+        }
+
+        LOGGER.info("target={}, policy={}, rate={}/s, duration={}, warmup={}, users={}, max_streams_per_user={}, streams={}",
+                endpoint, policy, rate, duration, warmup, users, maxStreams, streamUrls.length);
+    }
+
+    private static String[] createStreamUrls(int count, double youtubeRatio, double missingRatio) {
+        var random = ThreadLocalRandom.current();
+        var urls = new String[count];
+        for (var i = 0; i < count; i++) {
+            // 代替サーバーはmissingで始まるIDを存在しない配信として扱う
+            var prefix = random.nextDouble() < missingRatio ? "missing" : "";
+            urls[i] = random.nextDouble() < youtubeRatio
+                    ? "https://www.youtube.com/watch?v=" + prefix + "video" + i
+                    : "https://www.twitch.tv/" + prefix + "streamer" + i;
+        }
+        return urls;
+    }
+
+    /**
+     * 負荷を生成し、最後に全体の集計を出力する。
+     */
+    public void run() throws InterruptedException {
+        var start = System.nanoTime();
+        var measureStart = start + warmup.toNanos();
+        var end = measureStart + duration.toNanos();
+        var nextReport = start + REPORT_INTERVAL.toNanos();
+        var lastReport = start;
+        var meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        var random = ThreadLocalRandom.current();
+        var intended = start;
+        while (intended < end) {
+            // ポアソン過程の到着間隔
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+            var wait = intended - System.nanoTime();
+            if (0 < wait) {
+                LockSupport.parkNanos(wait);
+            }
+
+            send(intended, random);
+
+            var now = System.nanoTime();
+            if (nextReport <= now) {
+                report(now - lastReport, measureStart <= lastReport);
+                lastReport = now;
+                nextReport = now + REPORT_INTERVAL.toNanos();
+            }
+        }
+
+        // 送信済みのリクエストの完了を待つ
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (0 < inFlight.get() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        report(System.nanoTime() - lastReport, measureStart <= lastReport);
+
+        var seconds = duration.toNanos() / 1e9;
+        LOGGER.info("--- total ({}s, excluding warmup) ---", duration.toSeconds());
+        LOGGER.info(single.total(seconds));
+        LOGGER.info(batch.total(seconds));
+    }
+
+    // 生成のスレッドからのみ呼び出す
+    private void send(long intended, ThreadLocalRandom random) {
+        var streams = userStreams.get(random.nextInt(userStreams.size()));
+
+        // 一部のユーザーは視聴する配信を切り替える
+        if (random.nextDouble() < switchRatio) {
+            var url = streamUrls[popularity.sample(random)];
+            if (!streams.contains(url)) {
+                streams.set(random.nextInt(streams.size()), url);
+            }
+        }
+
+        var isBatch = random.nextDouble() < batchRatio;
+        var stats = isBatch ? batch : single;
+        if (maxInFlight <= inFlight.get()) {
+            // 送信できないリクエストはエラーとして扱う
+            stats.error();
+            return;
+        }
+
+        var payload = isBatch
+                ? payloads.getStreamerInfos(batchOf(streams, random))
+                : payloads.getStreamerInfo(streams.get(random.nextInt(streams.size())));
+
+        var builder = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "text/x-gwt-rpc; charset=utf-8")
+                .header("X-GWT-Module-Base", moduleBaseUrl)
+                .header("X-GWT-Permutation", "loadtest")
+                .POST(HttpRequest.BodyPublishers.ofString(payload));
+
+        inFlight.incrementAndGet();
+        client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (error != null || response.statusCode() != 200 || !response.body().startsWith("//OK")) {
+                        stats.error();
+                        return;
+                    }
+                    stats.record(System.nanoTime() - intended);
+                });
+    }
+
+    /**
+     * クライアントが{@value #MAX_BATCH_SIZE}件ずつ分割して送信する一括の検索のうち、1回分の配信を選択する。
+     */
+    private static List<String> batchOf(List<String> streams, ThreadLocalRandom random) {
+        if (streams.size() <= MAX_BATCH_SIZE) {
+            return streams;
+        }
+        var batches = (streams.size() + MAX_BATCH_SIZE - 1) / MAX_BATCH_SIZE;
+        var from = random.nextInt(batches) * MAX_BATCH_SIZE;
+        return streams.subList(from, Math.min(streams.size(), from + MAX_BATCH_SIZE));
+    }
+
+    private void report(long elapsedNanos, boolean measured) {
+        var seconds = elapsedNanos / 1e9;
+        var phase = measured ? "" : " (warmup)";
+        LOGGER.info("{}{} inFlight={}", single.interval(seconds, measured), phase, inFlight.get());
+        LOGGER.info("{}{}", batch.interval(seconds, measured), phase);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(new Options(args)).run();
+    }
+
+}
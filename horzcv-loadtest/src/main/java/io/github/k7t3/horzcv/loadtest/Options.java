@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <code>key=value</code>形式のコマンドライン引数。
+ * <p>
+ *     引数で指定されていないときは同じ名前のシステムプロパティを参照する。
+ * </p>
+ */
+public final class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public Options(String[] args) {
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("invalid argument (key=value): " + arg);
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+    }
+
+    public String get(String name, String defaultValue) {
+        var value = values.get(name);
+        if (value == null) {
+            value = System.getProperty(name);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String name, int defaultValue) {
+        var value = get(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        var value = get(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+}
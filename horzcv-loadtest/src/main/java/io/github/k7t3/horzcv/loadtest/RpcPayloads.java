@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * <code>StreamerInfoService</code>を呼び出すGWT-RPCのリクエストを組み立てるクラス。
+ * <p>
+ *     GWTのクライアントが送信するのと同じ形式(バージョン7)で組み立てる。
+ *     サーバーは<code>StreamerInfoResponse</code>をシリアライズするために、
+ *     クライアントのコンパイル時に出力されたシリアライゼーションポリシーを必要とする。
+ * </p>
+ */
+public final class RpcPayloads {
+
+    private static final String SERVICE = "io.github.k7t3.horzcv.shared.service.StreamerInfoService";
+
+    private static final String STRING_TYPE = "java.lang.String/2004016611";
+
+    private static final String STRING_ARRAY_TYPE = "[Ljava.lang.String;/2600011424";
+
+    // シリアライゼーションポリシーに含まれる型
+    private static final String RESPONSE_TYPE = "io.github.k7t3.horzcv.shared.model.StreamerInfoResponse";
+
+    private final String moduleBaseUrl;
+
+    private final String policyStrongName;
+
+    public RpcPayloads(String moduleBaseUrl, String policyStrongName) {
+        this.moduleBaseUrl = moduleBaseUrl;
+        this.policyStrongName = policyStrongName;
+    }
+
+    /**
+     * <code>getStreamerInfo(String)</code>のリクエストを組み立てる。
+     */
+    public String getStreamerInfo(String url) {
+        var writer = new Writer();
+        writer.header("getStreamerInfo", STRING_TYPE);
+        writer.string(url);
+        return writer.toPayload();
+    }
+
+    /**
+     * <code>getStreamerInfos(String[])</code>のリクエストを組み立てる。
+     */
+    public String getStreamerInfos(List<String> urls) {
+        var writer = new Writer();
+        writer.header("getStreamerInfos", STRING_ARRAY_TYPE);
+        // 配列はオブジェクトとして型、長さ、要素の順に書き込む
+        writer.string(STRING_ARRAY_TYPE);
+        writer.value(urls.size());
+        for (var url : urls) {
+            writer.string(STRING_TYPE);
+            writer.string(url);
+        }
+        return writer.toPayload();
+    }
+
+    /**
+     * クライアントのコンパイル結果からシリアライゼーションポリシーの名前を探す。
+     * @param directory <code>*.gwt.rpc</code>が出力されたディレクトリ
+     * @return ポリシーの名前(拡張子を除いたファイル名)
+     */
+    public static String findPolicy(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.filter(f -> f.getFileName().toString().endsWith(".gwt.rpc")).toList()) {
+                if (Files.readString(file, StandardCharsets.UTF_8).contains(RESPONSE_TYPE)) {
+                    var name = file.getFileName().toString();
+                    return name.substring(0, name.length() - ".gwt.rpc".length());
+                }
+            }
+        }
+        throw new IOException("serialization policy for " + RESPONSE_TYPE + " is not found in " + directory);
+    }
+
+    private class Writer {
+
+        private final LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        void header(String method, String parameterType) {
+            string(moduleBaseUrl);
+            string(policyStrongName);
+            string(SERVICE);
+            string(method);
+            value(1);
+            string(parameterType);
+        }
+
+        void string(String value) {
+            var index = strings.computeIfAbsent(value, v -> strings.size() + 1);
+            values.add(Integer.toString(index));
+        }
+
+        void value(int value) {
+            values.add(Integer.toString(value));
+        }
+
+        String toPayload() {
+            var builder = new StringBuilder();
+            builder.append("7|0|").append(strings.size()).append('|');
+            for (var value : strings.keySet()) {
+                escape(builder, value);
+                builder.append('|');
+            }
+            for (var value : values) {
+                builder.append(value).append('|');
+            }
+            return builder.toString();
+        }
+
+        private void escape(StringBuilder builder, String value) {
+            for (var i = 0; i < value.length(); i++) {
+                var c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> builder.append("\\\\");
+                    case '|' -> builder.append("\\!");
+                    case '\0' -> builder.append("\\0");
+                    default -> builder.append(c);
+                }
+            }
+        }
+
+    }
+
+}
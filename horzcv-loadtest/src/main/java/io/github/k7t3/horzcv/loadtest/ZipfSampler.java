@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf分布にしたがって0から<code>n - 1</code>の順位を選択するクラス。
+ * <p>
+ *     少数の人気の配信に検索が集中する偏りを再現する。
+ * </p>
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    /**
+     * @param n        要素の数
+     * @param exponent 偏りの強さ。大きいほど上位に集中する
+     */
+    ZipfSampler(int n, double exponent) {
+        cumulative = new double[n];
+        var sum = 0.0;
+        for (var i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (var i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        var index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(cumulative.length - 1, index < 0 ? -index - 1 : index);
+    }
+
+}
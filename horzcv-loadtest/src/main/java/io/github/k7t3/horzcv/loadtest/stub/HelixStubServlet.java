@@ -0,0 +1,227 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Twitch Helix APIの代替となるサーブレット。
+ * <p>
+ *     ストリーマーの検索、ユーザー、配信一覧、EventSubのサブスクリプションに応答する。
+ *     <code>missing</code>で始まるログイン名は存在しないストリーマーとして扱い、それ以外は任意のログイン名に応答する。
+ * </p>
+ * <p>
+ *     Helixと同じく<code>Ratelimit-Limit</code>、<code>Ratelimit-Remaining</code>、<code>Ratelimit-Reset</code>
+ *     ヘッダーを返し、上限を超えたときは429を返す。
+ * </p>
+ */
+class HelixStubServlet extends StubServlet {
+
+    private static final String MISSING_PREFIX = "missing";
+
+    // 配信一覧で返すストリーマーの数
+    private static final int LIVE_STREAMERS = 1000;
+
+    private static final String STARTED_AT = Instant.parse("2025-01-01T00:00:00Z").toString();
+
+    private final RateLimitWindow rateLimit;
+
+    HelixStubServlet(StubBehavior behavior) {
+        super(behavior);
+        // Helixのレート制限はトークンごとに1分あたりの上限がある
+        this.rateLimit = new RateLimitWindow(behavior.rateLimit(), Duration.ofMinutes(1));
+    }
+
+    @Override
+    protected void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var state = rateLimit.acquire(1);
+        resp.setHeader("Ratelimit-Limit", Integer.toString(state.limit()));
+        resp.setHeader("Ratelimit-Remaining", Integer.toString(state.remaining()));
+        resp.setHeader("Ratelimit-Reset", Long.toString(state.resetSeconds()));
+        if (!state.allowed()) {
+            onRateLimited();
+            writeError(resp, 429, "Too Many Requests");
+            return;
+        }
+
+        var path = req.getPathInfo() == null ? "" : req.getPathInfo();
+        switch (path) {
+            case "/search/channels" -> searchChannels(req, resp);
+            case "/users" -> users(req, resp);
+            case "/streams" -> streams(req, resp);
+            case "/eventsub/subscriptions" -> eventSubSubscriptions(req, resp);
+            default -> writeError(resp, HttpServletResponse.SC_NOT_FOUND, "Not Found");
+        }
+    }
+
+    private void searchChannels(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var query = req.getParameter("query");
+        var body = object();
+        var data = body.putArray("data");
+        if (query != null && !query.toLowerCase().startsWith(MISSING_PREFIX)) {
+            var login = query.toLowerCase();
+            data.addObject()
+                    .put("broadcaster_language", "ja")
+                    .put("broadcaster_login", login)
+                    .put("display_name", displayName(login))
+                    .put("game_id", "509658")
+                    .put("game_name", "Just Chatting")
+                    .put("id", stableId(login))
+                    .put("is_live", true)
+                    .put("thumbnail_url", profileImage(login))
+                    .put("title", "stub stream")
+                    .put("started_at", STARTED_AT)
+                    .putArray("tags");
+        }
+        body.putObject("pagination");
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    private void users(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var body = object();
+        var data = body.putArray("data");
+
+        var ids = req.getParameterValues("id");
+        if (ids != null) {
+            for (var id : ids) {
+                // 配信一覧で返したユーザーIDからログイン名を復元する
+                addUser(data, id, "streamer" + id);
+            }
+        }
+        var logins = req.getParameterValues("login");
+        if (logins != null) {
+            for (var login : logins) {
+                if (!login.toLowerCase().startsWith(MISSING_PREFIX)) {
+                    addUser(data, stableId(login.toLowerCase()), login.toLowerCase());
+                }
+            }
+        }
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    private void addUser(ArrayNode data, String id, String login) {
+        data.addObject()
+                .put("id", id)
+                .put("login", login)
+                .put("display_name", displayName(login))
+                .put("type", "")
+                .put("broadcaster_type", "")
+                .put("description", "")
+                .put("profile_image_url", profileImage(login))
+                .put("offline_image_url", "")
+                .put("created_at", STARTED_AT);
+    }
+
+    private void streams(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var first = parseInt(req.getParameter("first"), 20);
+        var offset = parseInt(req.getParameter("after"), 0);
+
+        var body = object();
+        var data = body.putArray("data");
+        var end = Math.min(LIVE_STREAMERS, offset + first);
+        for (var i = offset; i < end; i++) {
+            var id = Integer.toString(i);
+            var login = "streamer" + id;
+            data.addObject()
+                    .put("id", stableId("stream" + id))
+                    .put("user_id", id)
+                    .put("user_login", login)
+                    .put("user_name", displayName(login))
+                    .put("game_id", "509658")
+                    .put("game_name", "Just Chatting")
+                    .put("type", "live")
+                    .put("title", "stub stream")
+                    .put("viewer_count", LIVE_STREAMERS - i)
+                    .put("started_at", STARTED_AT)
+                    .put("language", "ja")
+                    .put("thumbnail_url", profileImage(login))
+                    .put("is_mature", false)
+                    .putArray("tags");
+        }
+        var pagination = body.putObject("pagination");
+        if (end < LIVE_STREAMERS) {
+            pagination.put("cursor", Integer.toString(end));
+        }
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    private void eventSubSubscriptions(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        switch (req.getMethod()) {
+            case "POST" -> {
+                var request = MAPPER.readTree(req.getInputStream());
+                var body = object();
+                var subscription = body.putArray("data").addObject()
+                        .put("id", UUID.randomUUID().toString())
+                        .put("status", "webhook_callback_verification_pending")
+                        .put("type", request.path("type").asText())
+                        .put("version", request.path("version").asText())
+                        .put("created_at", Instant.now().toString())
+                        .put("cost", 0);
+                subscription.set("condition", request.path("condition"));
+                subscription.putObject("transport")
+                        .put("method", "webhook")
+                        .put("callback", request.path("transport").path("callback").asText());
+                body.put("total", 1).put("total_cost", 0).put("max_total_cost", 10000);
+                writeJson(resp, HttpServletResponse.SC_ACCEPTED, body);
+            }
+            case "DELETE" -> resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            default -> {
+                var body = object();
+                body.putArray("data");
+                body.put("total", 0).put("total_cost", 0).put("max_total_cost", 10000);
+                body.putObject("pagination");
+                writeJson(resp, HttpServletResponse.SC_OK, body);
+            }
+        }
+    }
+
+    @Override
+    protected void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        var body = object()
+                .put("error", message)
+                .put("status", status)
+                .put("message", message);
+        writeJson(resp, status, body);
+    }
+
+    private static String displayName(String login) {
+        return Character.toUpperCase(login.charAt(0)) + login.substring(1);
+    }
+
+    private static String profileImage(String login) {
+        return "https://static-cdn.jtvnw.net/jtv_user_pictures/" + login + "-profile_image-300x300.png";
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 配信サービスの応答時間を対数正規分布で模倣するモデル。
+ * <p>
+ *     中央値と99パーセンタイルを指定し、実際のAPIのように裾の長い分布で応答時間を決定する。
+ * </p>
+ */
+public final class LatencyModel {
+
+    // 標準正規分布の99パーセンタイル
+    private static final double Z_99 = 2.3263478740408408;
+
+    private final double medianMillis;
+
+    private final double sigma;
+
+    /**
+     * @param medianMillis 応答時間の中央値(ミリ秒)
+     * @param p99Millis    応答時間の99パーセンタイル(ミリ秒)。中央値以下のときは常に中央値になる
+     */
+    public LatencyModel(double medianMillis, double p99Millis) {
+        if (medianMillis < 0) {
+            throw new IllegalArgumentException("median must not be negative: " + medianMillis);
+        }
+        this.medianMillis = medianMillis;
+        this.sigma = medianMillis <= 0 || p99Millis <= medianMillis ? 0 : Math.log(p99Millis / medianMillis) / Z_99;
+    }
+
+    /**
+     * 応答時間を抽選する。
+     */
+    public Duration sample() {
+        if (medianMillis <= 0) {
+            return Duration.ZERO;
+        }
+        var millis = medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (millis * 1_000_000));
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyModel{median=" + medianMillis + "ms, sigma=" + sigma + "}";
+    }
+
+}
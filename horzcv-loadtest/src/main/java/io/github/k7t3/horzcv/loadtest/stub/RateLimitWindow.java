@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import java.time.Duration;
+
+/**
+ * 一定の期間ごとに上限がリセットされるレート制限。
+ */
+public final class RateLimitWindow {
+
+    private final int limit;
+
+    private final long windowMillis;
+
+    private long windowStart;
+
+    private int used;
+
+    /**
+     * @param limit  期間あたりの上限。0以下のときは制限しない
+     * @param window 期間
+     */
+    public RateLimitWindow(int limit, Duration window) {
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * 指定したコストを消費する。
+     * @return 消費した後の状態
+     */
+    public synchronized State acquire(int cost) {
+        var now = System.currentTimeMillis();
+        if (windowStart + windowMillis <= now) {
+            windowStart = now - (now % windowMillis);
+            used = 0;
+        }
+
+        var reset = (windowStart + windowMillis) / 1000;
+        if (limit <= 0) {
+            return new State(true, Integer.MAX_VALUE, Integer.MAX_VALUE, reset);
+        }
+        if (limit < used + cost) {
+            return new State(false, limit, Math.max(0, limit - used), reset);
+        }
+        used += cost;
+        return new State(true, limit, limit - used, reset);
+    }
+
+    /**
+     * @param allowed      上限を超えていないときはtrue
+     * @param limit        期間あたりの上限
+     * @param remaining    期間内の残り
+     * @param resetSeconds 上限がリセットされる時刻(エポック秒)
+     */
+    public record State(boolean allowed, int limit, int remaining, long resetSeconds) {
+    }
+
+}
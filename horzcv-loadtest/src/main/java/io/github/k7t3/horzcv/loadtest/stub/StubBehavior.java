@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import io.github.k7t3.horzcv.loadtest.Options;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 代替サーバーの振る舞い。
+ * <p>
+ *     <code>{prefix}.median_ms</code>、<code>{prefix}.p99_ms</code>、<code>{prefix}.error_rate</code>、
+ *     <code>{prefix}.rate_limit</code>の引数で指定する。
+ * </p>
+ * @param latency   応答時間の分布
+ * @param errorRate サーバーエラーを返す割合(0.0〜1.0)
+ * @param rateLimit 1分あたりのリクエスト数(YouTubeはクォータ)の上限。0以下のときは制限しない
+ */
+public record StubBehavior(LatencyModel latency, double errorRate, int rateLimit) {
+
+    public static StubBehavior from(Options options, String prefix, double medianMillis, double p99Millis, int rateLimit) {
+        return new StubBehavior(
+                new LatencyModel(
+                        options.getDouble(prefix + ".median_ms", medianMillis),
+                        options.getDouble(prefix + ".p99_ms", p99Millis)),
+                options.getDouble(prefix + ".error_rate", 0.0),
+                options.getInt(prefix + ".rate_limit", rateLimit));
+    }
+
+    /**
+     * サーバーエラーを返すかを抽選する。
+     */
+    public boolean shouldFail() {
+        return 0 < errorRate && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    /**
+     * 抽選した応答時間だけ待機する。
+     */
+    public void delay() throws InterruptedException {
+        var duration = latency.sample();
+        if (!duration.isZero()) {
+            Thread.sleep(duration);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import io.github.k7t3.horzcv.loadtest.Options;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+
+/**
+ * TwitchとYouTubeの代替サーバーを起動するクラス。
+ * <p>
+ *     起動後に表示される設定値をサーバーのシステムプロパティまたは環境変数に指定すると、
+ *     実際のAPIを使用せずにサーバーを動作させることができる。
+ * </p>
+ * <pre>
+ *     twitch.port=9081 youtube.port=9082
+ *     twitch.median_ms=80 twitch.p99_ms=400 twitch.error_rate=0.0 twitch.rate_limit=800
+ *     youtube.median_ms=120 youtube.p99_ms=600 youtube.error_rate=0.0 youtube.rate_limit=0 youtube.channels=500
+ * </pre>
+ */
+public class StubServers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubServers.class);
+
+    private final HelixStubServlet helix;
+
+    private final YoutubeStubServlet youtube;
+
+    private final Server twitchServer;
+
+    private final Server youtubeServer;
+
+    public StubServers(Options options) {
+        helix = new HelixStubServlet(StubBehavior.from(options, "twitch", 80, 400, 800));
+        youtube = new YoutubeStubServlet(StubBehavior.from(options, "youtube", 120, 600, 0),
+                options.getInt("youtube.channels", 500));
+
+        twitchServer = createServer(options.getInt("twitch.port", 9081), helix, "/helix/*");
+        youtubeServer = createServer(options.getInt("youtube.port", 9082), youtube, "/youtube/v3/*");
+    }
+
+    private static Server createServer(int port, StubServlet servlet, String pathSpec) {
+        // 応答の遅延を待機するスレッドが不足しないように仮想スレッドを使用する
+        var threadPool = new QueuedThreadPool();
+        threadPool.setVirtualThreadsExecutor(Executors.newVirtualThreadPerTaskExecutor());
+
+        var server = new Server(threadPool);
+        var connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+
+        var context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(servlet), pathSpec);
+        server.setHandler(context);
+        return server;
+    }
+
+    public void start() throws Exception {
+        twitchServer.start();
+        youtubeServer.start();
+    }
+
+    public void stop() throws Exception {
+        LOGGER.info("twitch: {}", helix.summary());
+        LOGGER.info("youtube: {}", youtube.summary());
+        twitchServer.stop();
+        youtubeServer.stop();
+    }
+
+    public void join() throws InterruptedException {
+        twitchServer.join();
+        youtubeServer.join();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new Options(args);
+        var stubs = new StubServers(options);
+        stubs.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                stubs.stop();
+            } catch (Exception e) {
+                LOGGER.warn("failed to stop stub servers", e);
+            }
+        }));
+
+        LOGGER.info("""
+                stub servers started. run horzcv-server with:
+                  twitch_helix_base_url=http://localhost:{}/helix
+                  twitch_client_id=loadtest
+                  twitch_app_access_token=loadtest
+                  youtube_root_url=http://localhost:{}/
+                  youtube_api_key=loadtest""",
+                options.getInt("twitch.port", 9081), options.getInt("youtube.port", 9082));
+        stubs.join();
+    }
+
+}
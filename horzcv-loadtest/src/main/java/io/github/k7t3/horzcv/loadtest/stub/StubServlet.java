@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 配信サービスの代替となるサーブレットの基底クラス。
+ * <p>
+ *     {@link StubBehavior}にしたがって応答を遅延させ、一定の割合でサーバーエラーを返す。
+ * </p>
+ */
+abstract class StubServlet extends HttpServlet {
+
+    protected static final ObjectMapper MAPPER = new ObjectMapper();
+
+    protected final StubBehavior behavior;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+
+    protected StubServlet(StubBehavior behavior) {
+        this.behavior = behavior;
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        requests.increment();
+        try {
+            behavior.delay();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        if (behavior.shouldFail()) {
+            failures.increment();
+            writeError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "injected failure");
+            return;
+        }
+
+        handle(req, resp);
+    }
+
+    /**
+     * リクエストを処理する。
+     */
+    protected abstract void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException;
+
+    /**
+     * エラーの応答を書き込む。
+     */
+    protected abstract void writeError(HttpServletResponse resp, int status, String message) throws IOException;
+
+    /**
+     * レート制限を超えたことを記録する。
+     */
+    protected void onRateLimited() {
+        limited.increment();
+    }
+
+    protected ObjectNode object() {
+        return MAPPER.createObjectNode();
+    }
+
+    protected void writeJson(HttpServletResponse resp, int status, JsonNode body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        MAPPER.writeValue(resp.getOutputStream(), body);
+    }
+
+    /**
+     * 処理したリクエストの件数を文字列で返す。
+     */
+    String summary() {
+        return "requests=" + requests.sum() + ", failures=" + failures.sum() + ", rateLimited=" + limited.sum();
+    }
+
+    /**
+     * 文字列から決定的に識別子を生成する。
+     */
+    protected static String stableId(String value) {
+        return Integer.toUnsignedString(value.hashCode() & 0x7fffffff);
+    }
+
+}
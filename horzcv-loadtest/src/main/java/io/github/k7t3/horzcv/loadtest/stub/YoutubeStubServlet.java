@@ -0,0 +1,192 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.loadtest.stub;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+
+/**
+ * YouTube Data APIの代替となるサーブレット。
+ * <p>
+ *     動画、チャンネル、検索に応答する。<code>missing</code>で始まる動画IDは存在しない動画として扱い、
+ *     それ以外の動画は指定された数のチャンネルのいずれかに属する。
+ * </p>
+ * <p>
+ *     1分あたりのクォータを超えたときは<code>quotaExceeded</code>の403を返す。
+ *     1件のチャンネルをETag付きで取得したときは、変更がなければ304を返す。
+ * </p>
+ */
+class YoutubeStubServlet extends StubServlet {
+
+    private static final String MISSING_PREFIX = "missing";
+
+    // search.listが消費するクォータ
+    private static final int SEARCH_COST = 100;
+
+    private final RateLimitWindow quota;
+
+    private final int channels;
+
+    /**
+     * @param behavior 振る舞い
+     * @param channels 動画が属するチャンネルの数
+     */
+    YoutubeStubServlet(StubBehavior behavior, int channels) {
+        super(behavior);
+        this.quota = new RateLimitWindow(behavior.rateLimit(), Duration.ofMinutes(1));
+        this.channels = Math.max(1, channels);
+    }
+
+    @Override
+    protected void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var path = req.getPathInfo() == null ? "" : req.getPathInfo();
+        var cost = path.equals("/search") ? SEARCH_COST : 1;
+        if (!quota.acquire(cost).allowed()) {
+            onRateLimited();
+            writeGoogleError(resp, HttpServletResponse.SC_FORBIDDEN, "youtube.quota", "quotaExceeded",
+                    "The request cannot be completed because you have exceeded your quota.");
+            return;
+        }
+
+        switch (path) {
+            case "/videos" -> videos(req, resp);
+            case "/channels" -> channels(req, resp);
+            case "/search" -> search(req, resp);
+            default -> writeError(resp, HttpServletResponse.SC_NOT_FOUND, "Not Found");
+        }
+    }
+
+    private void videos(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var body = object()
+                .put("kind", "youtube#videoListResponse")
+                .put("etag", "videos");
+        var items = body.putArray("items");
+        for (var id : ids(req)) {
+            if (id.startsWith(MISSING_PREFIX)) {
+                continue;
+            }
+            var snippet = items.addObject()
+                    .put("kind", "youtube#video")
+                    .put("etag", "video-" + id)
+                    .put("id", id)
+                    .putObject("snippet");
+            snippet.put("channelId", channelOf(id))
+                    .put("title", "stub video " + id);
+        }
+        body.putObject("pageInfo")
+                .put("totalResults", items.size())
+                .put("resultsPerPage", items.size());
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    private void channels(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var ids = ids(req);
+
+        // 単一チャンネルのETagによる再検証
+        if (ids.size() == 1) {
+            var etag = channelEtag(ids.iterator().next());
+            if (etag.equals(req.getHeader("If-None-Match"))) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        var body = object()
+                .put("kind", "youtube#channelListResponse")
+                .put("etag", ids.size() == 1 ? channelEtag(ids.iterator().next()) : "channels");
+        var items = body.putArray("items");
+        for (var id : ids) {
+            var channel = items.addObject()
+                    .put("kind", "youtube#channel")
+                    .put("etag", channelEtag(id))
+                    .put("id", id);
+            var snippet = channel.putObject("snippet")
+                    .put("title", "Channel " + id);
+            snippet.putObject("thumbnails").putObject("default")
+                    .put("url", "https://yt3.ggpht.com/" + id + "=s88-c-k-c0x00ffffff-no-rj")
+                    .put("width", 88)
+                    .put("height", 88);
+        }
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    private void search(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var maxResults = req.getParameter("maxResults") == null ? 5 : Integer.parseInt(req.getParameter("maxResults"));
+        var page = req.getParameter("pageToken") == null ? 0 : Integer.parseInt(req.getParameter("pageToken"));
+
+        var body = object().put("kind", "youtube#searchListResponse");
+        var items = body.putArray("items");
+        for (var i = 0; i < maxResults; i++) {
+            var videoId = "live" + (page * maxResults + i);
+            var item = items.addObject().put("kind", "youtube#searchResult");
+            item.putObject("id")
+                    .put("kind", "youtube#video")
+                    .put("videoId", videoId);
+            item.putObject("snippet")
+                    .put("channelId", channelOf(videoId))
+                    .put("title", "stub live " + videoId);
+        }
+        body.put("nextPageToken", Integer.toString(page + 1));
+        writeJson(resp, HttpServletResponse.SC_OK, body);
+    }
+
+    @Override
+    protected void writeError(HttpServletResponse resp, int status, String message) throws IOException {
+        writeGoogleError(resp, status, "global", status == HttpServletResponse.SC_NOT_FOUND ? "notFound" : "backendError", message);
+    }
+
+    private void writeGoogleError(HttpServletResponse resp, int status, String domain, String reason, String message)
+            throws IOException {
+        var body = object();
+        var error = body.putObject("error")
+                .put("code", status)
+                .put("message", message);
+        error.putArray("errors").addObject()
+                .put("message", message)
+                .put("domain", domain)
+                .put("reason", reason);
+        writeJson(resp, status, body);
+    }
+
+    private static LinkedHashSet<String> ids(HttpServletRequest req) {
+        var ids = new LinkedHashSet<String>();
+        var values = req.getParameterValues("id");
+        if (values != null) {
+            for (var value : values) {
+                for (var id : value.split(",")) {
+                    if (!id.isBlank()) {
+                        ids.add(id.trim());
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private String channelOf(String videoId) {
+        return "UC" + (Math.floorMod(videoId.hashCode(), channels));
+    }
+
+    private static String channelEtag(String channelId) {
+        return "\"channel-" + stableId(channelId) + "\"";
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.accesslog;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.jfr.LookupEvent;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.util.Json;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 検索のアクセスログを1行1件のJSONで出力するクラス。
+ * <p>
+ *     検索のスレッドは{@link AccessLogRing}に書き込むだけで、ログの出力はバックグラウンドのスレッドが
+ *     <code>horzcv.access</code>のロガーに対して行う。バッファが満杯のときは待たずに破棄する。
+ * </p>
+ * <p>
+ *     結果ごとに抽出する割合を設定でき、抽出したログには割合(<code>rate</code>)を含めるため
+ *     集計するときは<code>1 / rate</code>を重みとして件数を推定できる。
+ *     <code>access_log_slow_ms</code>以上かかった検索は割合にかかわらず出力する。
+ * </p>
+ */
+@ApplicationScoped
+public class AccessLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+
+    private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("horzcv.access");
+
+    private static final String ACCESS_LOG_SAMPLE_IDENTIFIED = "access_log_sample_identified";
+
+    private static final String ACCESS_LOG_SAMPLE_UNIDENTIFIED = "access_log_sample_unidentified";
+
+    private static final String ACCESS_LOG_SAMPLE_ERROR = "access_log_sample_error";
+
+    private static final String ACCESS_LOG_SLOW_MS = "access_log_slow_ms";
+
+    private static final String ACCESS_LOG_BUFFER_SIZE = "access_log_buffer_size";
+
+    /**
+     * 出力する間隔
+     */
+    private static final long DRAIN_INTERVAL_MILLIS = 200;
+
+    /**
+     * 1回の読み出しで処理する最大数
+     */
+    private static final int DRAIN_BATCH_SIZE = 512;
+
+    private final double identifiedRate = rate(ACCESS_LOG_SAMPLE_IDENTIFIED, 0.1);
+
+    private final double unidentifiedRate = rate(ACCESS_LOG_SAMPLE_UNIDENTIFIED, 1.0);
+
+    private final double errorRate = rate(ACCESS_LOG_SAMPLE_ERROR, 1.0);
+
+    private final long slowNanos = TimeUnit.MILLISECONDS.toNanos(ServerConfig.getLong(ACCESS_LOG_SLOW_MS, 1000));
+
+    private final AccessLogRing ring = new AccessLogRing(ServerConfig.getInt(ACCESS_LOG_BUFFER_SIZE, 8192));
+
+    private final LongAdder dropped = new LongAdder();
+
+    // 以下は出力用のスレッドだけが操作する
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private long reportedDropped;
+
+    private ScheduledExecutorService executor;
+
+    public AccessLog() {
+    }
+
+    /**
+     * アプリケーションの起動時に出力を開始する。
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        Metrics.INSTANCE.gauge("access_log_dropped_entries",
+                "Number of access log entries dropped because the buffer was full.", dropped::sum);
+
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("access-log-writer")
+                .daemon(true)
+                .factory());
+        executor.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        LOGGER.info("access log enabled (identified: {}, unidentified: {}, error: {}, buffer: {})",
+                identifiedRate, unidentifiedRate, errorRate, ring.capacity());
+    }
+
+    /**
+     * 停止する前にバッファに残っているログを出力する。
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.execute(this::drain);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 検索のアクセスログを記録する。抽出の対象にならなかったときは何もしない。
+     * @param endpoint      エンドポイント
+     * @param key           正規化した配信のURL(一括の検索のときは先頭のURL)
+     * @param count         検索したURLの数
+     * @param outcome       {@link LookupEvent}の結果
+     * @param durationNanos 処理時間(ナノ秒)
+     * @param error         失敗したときの例外。成功したときはnull
+     */
+    public void record(String endpoint, String key, int count, String outcome, long durationNanos, Throwable error) {
+        var rate = slowNanos <= durationNanos ? 1.0 : rateOf(outcome);
+        if (rate <= 0 || (rate < 1 && rate <= ThreadLocalRandom.current().nextDouble())) {
+            return;
+        }
+        var errorName = error == null ? null : error.getClass().getName();
+        if (!ring.offer(System.currentTimeMillis(), endpoint, key, count, outcome, durationNanos, errorName, rate)) {
+            dropped.increment();
+        }
+    }
+
+    private double rateOf(String outcome) {
+        return switch (outcome) {
+            case LookupEvent.IDENTIFIED -> identifiedRate;
+            case LookupEvent.UNIDENTIFIED -> unidentifiedRate;
+            default -> errorRate;
+        };
+    }
+
+    private void drain() {
+        try {
+            int drained;
+            do {
+                drained = ring.drain(DRAIN_BATCH_SIZE, this::write);
+            } while (drained == DRAIN_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to write access log", e);
+        }
+
+        var total = dropped.sum();
+        if (reportedDropped < total) {
+            LOGGER.warn("dropped {} access log entries (buffer full)", total - reportedDropped);
+            reportedDropped = total;
+        }
+    }
+
+    private void write(AccessLogRing.Entry entry) {
+        if (!ACCESS_LOGGER.isInfoEnabled()) {
+            return;
+        }
+        line.setLength(0);
+        encode(entry, line);
+        ACCESS_LOGGER.info(line.toString());
+    }
+
+    /**
+     * アクセスログを1行のJSONに変換する。
+     */
+    static void encode(AccessLogRing.Entry entry, StringBuilder builder) {
+        builder.append("{\"ts\":").append(entry.epochMillis);
+        builder.append(",\"endpoint\":");
+        Json.appendString(builder, entry.endpoint);
+        builder.append(",\"key\":");
+        Json.appendString(builder, entry.key);
+        builder.append(",\"count\":").append(entry.count);
+        builder.append(",\"outcome\":");
+        Json.appendString(builder, entry.outcome);
+        builder.append(",\"durMs\":");
+        Json.appendMillis(builder, entry.durationNanos);
+        builder.append(",\"rate\":").append(entry.rate);
+        if (entry.error != null) {
+            builder.append(",\"error\":");
+            Json.appendString(builder, entry.error);
+        }
+        builder.append('}');
+    }
+
+    private static double rate(String name, double defaultValue) {
+        return Math.max(0, Math.min(1, ServerConfig.getDouble(name, defaultValue)));
+    }
+
+}
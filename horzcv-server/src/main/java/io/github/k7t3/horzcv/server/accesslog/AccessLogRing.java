@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 複数のスレッドから書き込み、1つのスレッドから読み出す固定長のリングバッファ。
+ * <p>
+ *     書き込む位置をCASで確保し、位置ごとの連番で書き込みの完了を公開するためロックを取得しない。
+ *     エントリーは事前に確保したものを再利用するため、書き込みではオブジェクトを生成しない。
+ *     満杯のときは待たずに書き込みを諦める。
+ * </p>
+ */
+final class AccessLogRing {
+
+    /**
+     * 1件のアクセスログ。リングバッファが所有し、読み出しの間だけ参照できる。
+     */
+    static final class Entry {
+
+        long epochMillis;
+
+        String endpoint;
+
+        String key;
+
+        int count;
+
+        String outcome;
+
+        long durationNanos;
+
+        String error;
+
+        double rate;
+
+    }
+
+    private final Entry[] entries;
+
+    // 位置ごとの連番。書き込める周回のときは位置、読み出せるときは位置+1になる
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // 読み出し用のスレッドだけが操作する
+    private long head;
+
+    /**
+     * @param size 保持する最大数(2の累乗に切り上げる)
+     */
+    AccessLogRing(int size) {
+        var capacity = Integer.highestOneBit((Math.max(16, size) - 1) << 1);
+        this.entries = new Entry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (var i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * アクセスログを書き込む。
+     * @return 満杯で書き込めなかったときはfalse
+     */
+    boolean offer(long epochMillis, String endpoint, String key, int count, String outcome,
+                  long durationNanos, String error, double rate) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            var sequence = sequences.get(index);
+            if (sequence < position) {
+                // 前の周回のエントリーがまだ読み出されていない
+                return false;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                break;
+            }
+        }
+
+        var entry = entries[index];
+        entry.epochMillis = epochMillis;
+        entry.endpoint = endpoint;
+        entry.key = key;
+        entry.count = count;
+        entry.outcome = outcome;
+        entry.durationNanos = durationNanos;
+        entry.error = error;
+        entry.rate = rate;
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 書き込まれたアクセスログを古い順に読み出す。読み出し用のスレッドから呼び出すこと。
+     * @param max      読み出す最大数
+     * @param consumer 読み出したエントリーを受け取る関数。エントリーは呼び出しの間だけ有効
+     * @return 読み出した数
+     */
+    int drain(int max, Consumer<Entry> consumer) {
+        var drained = 0;
+        while (drained < max) {
+            var index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            var entry = entries[index];
+            consumer.accept(entry);
+            entry.endpoint = null;
+            entry.key = null;
+            entry.outcome = null;
+            entry.error = null;
+            sequences.set(index, head + entries.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.accesslog;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * エラーのログの出力を一定時間ごとの件数に制限するクラス。
+ * <pre>
+ *     if (limiter.tryAcquire()) {
+ *         LOGGER.error("... (抑制したログ: {}件)", limiter.takeSuppressed(), e);
+ *     }
+ * </pre>
+ * <p>
+ *     配信サービスの障害などでエラーが連続したときに、スタックトレースの出力が処理を圧迫しないようにする。
+ *     区切りの切り替えが競合したときは上限をわずかに超えることがある。
+ * </p>
+ */
+public final class ErrorLogLimiter {
+
+    private final int permits;
+
+    private final long intervalNanos;
+
+    private final AtomicLong windowStart;
+
+    private final AtomicInteger used = new AtomicInteger();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * @param permits       区切りごとに出力する件数
+     * @param intervalNanos 区切りの長さ(ナノ秒)
+     */
+    public ErrorLogLimiter(int permits, long intervalNanos) {
+        this.permits = permits;
+        this.intervalNanos = intervalNanos;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * ログを出力してよいときはtrueを返す。falseのときは抑制した件数に加算する。
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        var start = windowStart.get();
+        if (intervalNanos <= nowNanos - start && windowStart.compareAndSet(start, nowNanos)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= permits) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * 前回の呼び出しから抑制した件数を返し、0に戻す。
+     */
+    public long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 直近の一定時間に検索された回数の多いキーを集計するクラス。
+ * <p>
+ *     検索のスレッドはリングバッファにキーを書き込むだけでロックを取得しない。
+ *     集計用のスレッドが定期的に{@link #drain(long)}でリングバッファを読み出し、
+ *     時間の区切りごとの{@link SpaceSaving}に加算する。上位のキーはすべての区切りを合算して求める。
+ * </p>
+ * <p>
+ *     読み出しより速く書き込まれたときは古いキーが上書きされるため、回数は検索の標本に基づく近似値になる。
+ * </p>
+ */
+public final class HotKeys {
+
+    private final AtomicReferenceArray<String> ring;
+
+    private final int mask;
+
+    private final AtomicLong writeIndex = new AtomicLong();
+
+    // 以下は集計用のスレッドだけが操作する
+
+    private final SpaceSaving[] buckets;
+
+    private final long bucketMillis;
+
+    private long readIndex;
+
+    private int current;
+
+    private long currentStart;
+
+    private volatile List<HotKey> snapshot = List.of();
+
+    /**
+     * @param ringSize     リングバッファの大きさ(2の累乗に切り上げる)
+     * @param capacity     区切りごとに保持するキーの最大数
+     * @param buckets      区切りの数
+     * @param bucketMillis 区切りの長さ(ミリ秒)
+     */
+    public HotKeys(int ringSize, int capacity, int buckets, long bucketMillis) {
+        var size = Integer.highestOneBit((Math.max(16, ringSize) - 1) << 1);
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.buckets = new SpaceSaving[buckets];
+        for (var i = 0; i < buckets; i++) {
+            this.buckets[i] = new SpaceSaving(capacity);
+        }
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * 検索されたキーを記録する。
+     */
+    public void record(String key) {
+        var index = writeIndex.getAndIncrement();
+        ring.lazySet((int) index & mask, key);
+    }
+
+    /**
+     * リングバッファに書き込まれたキーを集計し、上位のキーを更新する。集計用のスレッドから呼び出すこと。
+     * @param nowMillis 現在時刻(ミリ秒)
+     */
+    public void drain(long nowMillis) {
+        rotate(nowMillis);
+
+        var end = writeIndex.get();
+        // 読み出す前に上書きされた範囲は読み飛ばす
+        var start = Math.max(readIndex, end - ring.length());
+        var bucket = buckets[current];
+        for (var i = start; i < end; i++) {
+            var key = ring.getAndSet((int) i & mask, null);
+            if (key != null) {
+                bucket.add(key);
+            }
+        }
+        readIndex = end;
+
+        var totals = new HashMap<String, long[]>();
+        for (var b : buckets) {
+            b.addTo(totals);
+        }
+        var result = new ArrayList<HotKey>(totals.size());
+        totals.forEach((key, total) -> result.add(new HotKey(key, total[0], total[1])));
+        result.sort(Comparator.comparingLong(HotKey::count).reversed());
+        snapshot = result;
+    }
+
+    private void rotate(long nowMillis) {
+        if (currentStart == 0) {
+            currentStart = nowMillis;
+            return;
+        }
+        var elapsed = (nowMillis - currentStart) / bucketMillis;
+        if (elapsed <= 0) {
+            return;
+        }
+        for (var i = 0; i < Math.min(elapsed, buckets.length); i++) {
+            current = (current + 1) % buckets.length;
+            buckets[current].clear();
+        }
+        currentStart += elapsed * bucketMillis;
+    }
+
+    /**
+     * 直前の集計での上位のキーを返す。
+     * @param limit 返す件数
+     */
+    public List<HotKey> top(int limit) {
+        var keys = snapshot;
+        return keys.subList(0, Math.min(limit, keys.size()));
+    }
+
+    /**
+     * 検索された回数の多いキー
+     * @param key   正規化された配信のURL
+     * @param count 検索された回数の推定値(実際の回数以上)
+     * @param error 推定値に含まれる誤差の上限
+     */
+    public record HotKey(String key, long count, long error) {
+    }
+
+}
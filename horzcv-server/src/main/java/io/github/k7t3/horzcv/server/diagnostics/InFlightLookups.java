@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 処理中の検索を保持するクラス。
+ * <p>
+ *     固定長の配列の空いている位置をCASで確保するためロックを取得しない。
+ *     空いている位置がないときは記録しない。
+ * </p>
+ */
+public final class InFlightLookups {
+
+    private final AtomicReferenceArray<InFlight> slots;
+
+    private final int mask;
+
+    /**
+     * @param size 保持する最大数(2の累乗に切り上げる)
+     */
+    public InFlightLookups(int size) {
+        var capacity = Integer.highestOneBit((Math.max(16, size) - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * 検索の開始を記録する。
+     * @return 記録した位置。記録できなかったときは-1
+     */
+    public int begin(String endpoint, String key) {
+        var lookup = new InFlight(endpoint, key, Thread.currentThread().getName(), System.nanoTime());
+        // スレッドごとに異なる位置から探す
+        var start = (int) mix(Thread.currentThread().threadId());
+        for (var i = 0; i <= mask; i++) {
+            var index = (start + i) & mask;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, lookup)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 検索の終了を記録する。
+     * @param slot {@link #begin(String, String)}が返した位置
+     */
+    public void end(int slot) {
+        if (0 <= slot) {
+            slots.set(slot, null);
+        }
+    }
+
+    /**
+     * 処理中の検索を開始した順に返す。
+     */
+    public List<InFlight> snapshot() {
+        var result = new ArrayList<InFlight>();
+        for (var i = 0; i < slots.length(); i++) {
+            var slot = slots.get(i);
+            if (slot != null) {
+                result.add(slot);
+            }
+        }
+        result.sort(Comparator.comparingLong(InFlight::startNanos));
+        return result;
+    }
+
+    private static long mix(long value) {
+        value *= 0x9E3779B97F4A7C15L;
+        return value ^ (value >>> 32);
+    }
+
+    /**
+     * 処理中の検索
+     * @param endpoint   エンドポイント
+     * @param key        正規化した配信のURL(一括の検索のときは先頭のURL)
+     * @param thread     処理しているスレッドの名前
+     * @param startNanos 開始時刻({@link System#nanoTime()})
+     */
+    public record InFlight(String endpoint, String key, String thread, long startNanos) {
+
+        /**
+         * 開始からの経過時間(ナノ秒)
+         */
+        public long ageNanos(long nowNanos) {
+            return nowNanos - startNanos;
+        }
+
+    }
+
+}
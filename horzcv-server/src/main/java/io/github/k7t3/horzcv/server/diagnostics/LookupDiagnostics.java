@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import io.github.k7t3.horzcv.server.trace.Tracer;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 負荷の原因を調べるために検索の状況を記録するクラス。
+ * <ul>
+ *     <li>直近1分間に検索された回数の多い配信</li>
+ *     <li>直近5分間で処理時間の長かった検索と段階ごとの処理時間</li>
+ *     <li>処理中の検索と経過時間</li>
+ * </ul>
+ * <p>
+ *     検索のスレッドではロックを取得しないため、本番環境でも常に有効にしておける。
+ * </p>
+ */
+@ApplicationScoped
+public class LookupDiagnostics {
+
+    /**
+     * 集計の間隔
+     */
+    private static final long DRAIN_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 処理時間の長かった検索を保持する期間
+     */
+    private static final Duration SLOW_RETENTION = Duration.ofMinutes(5);
+
+    private final HotKeys hotKeys = new HotKeys(8192, 256, 6, Duration.ofSeconds(10).toMillis());
+
+    private final SlowLookups slowLookups = new SlowLookups(32, SLOW_RETENTION.toNanos());
+
+    private final InFlightLookups inFlight = new InFlightLookups(1024);
+
+    private ScheduledExecutorService executor;
+
+    public LookupDiagnostics() {
+    }
+
+    /**
+     * アプリケーションの起動時に集計を開始する。
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("lookup-diagnostics")
+                .daemon(true)
+                .factory());
+        executor.scheduleWithFixedDelay(() -> hotKeys.drain(System.currentTimeMillis()),
+                DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 検索の開始を記録する。
+     * @param endpoint エンドポイント
+     * @param key      正規化した配信のURL
+     * @return {@link #end(int, String, String, long)}に渡す値
+     */
+    public int begin(String endpoint, String key) {
+        return inFlight.begin(endpoint, key);
+    }
+
+    /**
+     * 検索の終了を記録する。
+     * @param slot          {@link #begin(String, String)}が返した値
+     * @param endpoint      エンドポイント
+     * @param key           正規化した配信のURL
+     * @param durationNanos 処理時間(ナノ秒)
+     */
+    public void end(int slot, String endpoint, String key, long durationNanos) {
+        inFlight.end(slot);
+        slowLookups.record(durationNanos, () -> {
+            var trace = Tracer.current();
+            return new SlowLookups.SlowLookup(endpoint, key, durationNanos, System.nanoTime(),
+                    System.currentTimeMillis(), trace == null ? null : trace.serverTiming());
+        });
+    }
+
+    /**
+     * 検索された配信を記録する。
+     * @param key 正規化した配信のURL
+     */
+    public void recordKey(String key) {
+        if (key != null) {
+            hotKeys.record(key);
+        }
+    }
+
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    public SlowLookups getSlowLookups() {
+        return slowLookups;
+    }
+
+    public InFlightLookups getInFlight() {
+        return inFlight;
+    }
+
+}
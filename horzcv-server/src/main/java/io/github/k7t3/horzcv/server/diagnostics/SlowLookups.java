@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 直近の一定時間で処理時間の長かった検索を保持するクラス。
+ * <p>
+ *     固定長の配列のうち、期限切れか最も短い検索をCASで置き換えるためロックを取得しない。
+ *     置き換えの対象にならない検索では記録する内容を生成しない。
+ * </p>
+ */
+public final class SlowLookups {
+
+    // 置き換えが競合したときに再試行する回数
+    private static final int MAX_ATTEMPTS = 4;
+
+    private final AtomicReferenceArray<SlowLookup> slots;
+
+    private final long retentionNanos;
+
+    /**
+     * @param size           保持する件数
+     * @param retentionNanos 保持する期間(ナノ秒)
+     */
+    public SlowLookups(int size, long retentionNanos) {
+        this.slots = new AtomicReferenceArray<>(size);
+        this.retentionNanos = retentionNanos;
+    }
+
+    /**
+     * 処理時間が保持している検索より長いときに記録する。
+     * @param durationNanos 処理時間(ナノ秒)
+     * @param lookup        記録する内容を生成する関数
+     */
+    public void record(long durationNanos, Supplier<SlowLookup> lookup) {
+        var now = System.nanoTime();
+        SlowLookup created = null;
+        for (var attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            var index = -1;
+            SlowLookup victim = null;
+            for (var i = 0; i < slots.length(); i++) {
+                var slot = slots.get(i);
+                if (slot == null || retentionNanos < now - slot.endNanos()) {
+                    index = i;
+                    victim = slot;
+                    break;
+                }
+                if (victim == null || slot.durationNanos() < victim.durationNanos()) {
+                    index = i;
+                    victim = slot;
+                }
+            }
+            var expired = victim == null || retentionNanos < now - victim.endNanos();
+            if (!expired && durationNanos <= victim.durationNanos()) {
+                return;
+            }
+            if (created == null) {
+                created = lookup.get();
+            }
+            if (slots.compareAndSet(index, victim, created)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 保持している検索を処理時間の長い順に返す。
+     */
+    public List<SlowLookup> snapshot() {
+        var now = System.nanoTime();
+        var result = new ArrayList<SlowLookup>(slots.length());
+        for (var i = 0; i < slots.length(); i++) {
+            var slot = slots.get(i);
+            if (slot != null && now - slot.endNanos() <= retentionNanos) {
+                result.add(slot);
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowLookup::durationNanos).reversed());
+        return result;
+    }
+
+    /**
+     * 処理時間の長かった検索
+     * @param endpoint      エンドポイント
+     * @param key           正規化した配信のURL(一括の検索のときは先頭のURL)
+     * @param durationNanos 処理時間(ナノ秒)
+     * @param endNanos      終了時刻({@link System#nanoTime()})
+     * @param endEpochMillis 終了時刻(UNIXエポックからのミリ秒)
+     * @param stages        段階ごとの処理時間(<code>Server-Timing</code>の形式)
+     */
+    public record SlowLookup(String endpoint, String key, long durationNanos, long endNanos,
+                             long endEpochMillis, String stages) {
+    }
+
+}
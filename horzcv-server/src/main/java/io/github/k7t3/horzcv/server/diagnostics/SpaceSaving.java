@@ -0,0 +1,82 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Savingアルゴリズムで出現回数の多いキーを近似するスケッチ。
+ * <p>
+ *     保持するキーの数が上限に達したときは最も少ないキーを置き換え、その回数を新しいキーの誤差とする。
+ *     スレッドセーフではないため、1つのスレッドからだけ操作すること。
+ * </p>
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+
+    private final Map<String, long[]> counters;
+
+    /**
+     * @param capacity 保持するキーの最大数
+     */
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key) {
+        var counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[]{1, 0});
+            return;
+        }
+
+        // 最も少ないキーを置き換える
+        String minKey = null;
+        long[] min = null;
+        for (var entry : counters.entrySet()) {
+            if (min == null || entry.getValue()[0] < min[0]) {
+                minKey = entry.getKey();
+                min = entry.getValue();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new long[]{min[0] + 1, min[0]});
+    }
+
+    /**
+     * 保持しているキーの回数と誤差を加算する。
+     */
+    void addTo(Map<String, long[]> totals) {
+        counters.forEach((key, counter) -> {
+            var total = totals.computeIfAbsent(key, k -> new long[2]);
+            total[0] += counter[0];
+            total[1] += counter[1];
+        });
+    }
+
+    void clear() {
+        counters.clear();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ストリーマー情報のキャッシュの参照1回を表すJFRのイベント。
+ * <p>
+ *     ミスしたときは下位の層(ヒープ外のキャッシュ、共有キャッシュ、配信サービス)から読み込んだ時間を含む。
+ * </p>
+ */
+@Name(CacheLookupEvent.NAME)
+@Label("Streamer Cache Lookup")
+@Category({"HorzCV", "Cache"})
+@Description("ストリーマー情報のキャッシュの参照")
+@StackTrace(false)
+public final class CacheLookupEvent extends Event {
+
+    public static final String NAME = "io.github.k7t3.horzcv.CacheLookup";
+
+    public static final String HIT = "hit";
+
+    public static final String MISS = "miss";
+
+    /**
+     * ヒープ外のキャッシュから読み込んだ
+     */
+    public static final String SOURCE_OFFHEAP = "offheap";
+
+    /**
+     * 共有キャッシュから読み込んだ
+     */
+    public static final String SOURCE_SHARED = "shared";
+
+    /**
+     * 配信サービスに問い合わせた
+     */
+    public static final String SOURCE_UPSTREAM = "upstream";
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    @Description("正規化した配信のURL")
+    public String key;
+
+    @Label("Result")
+    @Description("hitまたはmiss")
+    public String result;
+
+    @Label("Source")
+    @Description("ミスしたときに読み込んだ層")
+    public String source;
+
+}
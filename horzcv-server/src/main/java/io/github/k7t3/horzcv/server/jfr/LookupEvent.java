@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * GWT-RPCによるストリーマー情報の検索1回を表すJFRのイベント。
+ * <p>
+ *     同じスレッドで発生したGCの停止やロックの待機と照らし合わせて、検索が遅延した原因を調べるために使用する。
+ * </p>
+ */
+@Name(LookupEvent.NAME)
+@Label("Streamer Lookup")
+@Category({"HorzCV", "Lookup"})
+@Description("GWT-RPCによるストリーマー情報の検索")
+@StackTrace(false)
+public final class LookupEvent extends Event {
+
+    public static final String NAME = "io.github.k7t3.horzcv.Lookup";
+
+    /**
+     * 識別できた
+     */
+    public static final String IDENTIFIED = "identified";
+
+    /**
+     * 識別できなかった
+     */
+    public static final String UNIDENTIFIED = "unidentified";
+
+    /**
+     * 例外が発生した
+     */
+    public static final String ERROR = "error";
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Key")
+    @Description("正規化した配信のURL。一括の検索のときは先頭のURL")
+    public String key;
+
+    @Label("Count")
+    @Description("検索したURLの件数")
+    public int count;
+
+    @Label("Outcome")
+    public String outcome;
+
+}
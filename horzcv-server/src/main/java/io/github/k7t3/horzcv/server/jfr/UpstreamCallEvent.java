@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 配信サービスのAPIの呼び出し1回を表すJFRのイベント。
+ */
+@Name(UpstreamCallEvent.NAME)
+@Label("Upstream API Call")
+@Category({"HorzCV", "Upstream"})
+@Description("TwitchまたはYouTubeのAPIの呼び出し")
+@StackTrace(false)
+public final class UpstreamCallEvent extends Event {
+
+    public static final String NAME = "io.github.k7t3.horzcv.UpstreamCall";
+
+    public static final String SUCCESS = "success";
+
+    @Label("Service")
+    public String service;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Key")
+    @Description("問い合わせたログイン名、動画ID、チャンネルID")
+    public String key;
+
+    @Label("Outcome")
+    @Description("successまたはエラーの分類")
+    public String outcome;
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caffeineのキャッシュの統計を記録するクラス。
+ * <p>
+ *     <code>Caffeine.recordStats(() -> metrics)</code>で指定する。
+ * </p>
+ */
+public final class CacheMetrics implements StatsCounter {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    CacheMetrics() {
+    }
+
+    @Override
+    public void recordHits(int count) {
+        hits.add(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        misses.add(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccesses.increment();
+        totalLoadTime.add(loadTime);
+        loadLatency.record(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loadFailures.increment();
+        totalLoadTime.add(loadTime);
+        loadLatency.record(loadTime);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        evictions.increment();
+        evictionWeight.add(weight);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.of(
+                hits.sum(),
+                misses.sum(),
+                loadSuccesses.sum(),
+                loadFailures.sum(),
+                totalLoadTime.sum(),
+                evictions.sum(),
+                evictionWeight.sum());
+    }
+
+    public LatencyHistogram loadLatency() {
+        return loadLatency;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 処理時間(ナノ秒)を記録するロックフリーの対数線形ヒストグラム。
+ * <p>
+ *     2の冪ごとの区間を16個に等分したバケットに記録するため、相対誤差は約6%に収まる。
+ *     記録時にオブジェクトを生成せず、ロックも取得しない。
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 2^40ナノ秒(約18分)を上限とする
+    private static final int MAX_EXPONENT = 40;
+
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 処理時間を記録する。
+     * @param nanos 処理時間(ナノ秒)
+     */
+    public void record(long nanos) {
+        var value = Math.min(MAX_VALUE, Math.max(0, nanos));
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * 記録した件数を返す。
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * 記録した処理時間の合計(ナノ秒)を返す。
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * 指定したパーセンタイルの処理時間を返す。
+     * @param percentile パーセンタイル(0〜100)
+     * @return 処理時間(ナノ秒)。記録がないときは0
+     */
+    public long percentile(double percentile) {
+        var snapshot = snapshot();
+        var total = 0L;
+        for (var c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        var rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100.0);
+        var seen = 0L;
+        for (var i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (rank <= seen && 0 < snapshot[i]) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(snapshot.length - 1);
+    }
+
+    /**
+     * 指定した上限ごとの累積の件数を返す。
+     * <p>
+     *     バケットの中央値が上限以下のバケットを数えるため、境界付近の値は隣の上限に数えられることがある。
+     * </p>
+     * @param upperBounds 昇順に並んだ上限(ナノ秒)
+     * @return 上限ごとの累積の件数
+     */
+    public long[] cumulativeCounts(long[] upperBounds) {
+        var snapshot = snapshot();
+        var result = new long[upperBounds.length];
+        var bound = 0;
+        var cumulative = 0L;
+        for (var i = 0; i < snapshot.length; i++) {
+            var midpoint = midpointOf(i);
+            while (bound < upperBounds.length && upperBounds[bound] < midpoint) {
+                result[bound++] = cumulative;
+            }
+            cumulative += snapshot[i];
+        }
+        while (bound < upperBounds.length) {
+            result[bound++] = cumulative;
+        }
+        return result;
+    }
+
+    private long[] snapshot() {
+        var snapshot = new long[BUCKETS];
+        for (var i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var exponent = 63 - Long.numberOfLeadingZeros(value);
+        var sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        var sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long midpointOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var lower = lowerBoundOf(index);
+        var width = lowerBoundOf(index + 1) - lower;
+        return lower + width / 2;
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * サーバーのメトリクスを保持し、Prometheusのテキスト形式で出力するクラス。
+ * <p>
+ *     Caffeineのキャッシュのようにフィールドの初期化時に参照されるため、CDIのBeanではなく単一のインスタンスとする。
+ *     各メトリクスは利用する側で起動時に取得してフィールドに保持し、記録のたびに検索しないこと。
+ * </p>
+ */
+public final class Metrics {
+
+    public static final Metrics INSTANCE = new Metrics();
+
+    private static final String PREFIX = "horzcv_";
+
+    // Prometheusのヒストグラムの上限(秒)
+    private static final double[] BUCKET_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+    static {
+        for (var i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final Map<String, RequestMetrics> endpoints = new ConcurrentSkipListMap<>();
+
+    private final Map<String, RequestMetrics> finders = new ConcurrentSkipListMap<>();
+
+    private final Map<String, UpstreamMetrics> upstreams = new ConcurrentSkipListMap<>();
+
+    private final Map<String, CacheMetrics> caches = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    Metrics() {
+    }
+
+    /**
+     * サーブレットのエンドポイントのメトリクスを返す。
+     * @param endpoint エンドポイントの名前
+     */
+    public RequestMetrics endpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, k -> new RequestMetrics());
+    }
+
+    /**
+     * 検索クラスのメトリクスを返す。
+     * @param finder 検索クラスの名前
+     */
+    public RequestMetrics finder(String finder) {
+        return finders.computeIfAbsent(finder, k -> new RequestMetrics());
+    }
+
+    /**
+     * 配信サービスの呼び出しのメトリクスを返す。
+     * @param service   配信サービスの名前
+     * @param operation 呼び出すAPIの名前
+     */
+    public UpstreamMetrics upstream(String service, String operation) {
+        return upstreams.computeIfAbsent(service + '\0' + operation, k -> new UpstreamMetrics(service, operation));
+    }
+
+    /**
+     * キャッシュのメトリクスを返す。
+     * @param cache キャッシュの名前
+     */
+    public CacheMetrics cache(String cache) {
+        return caches.computeIfAbsent(cache, k -> new CacheMetrics());
+    }
+
+    /**
+     * 出力時に値を取得するゲージを登録する。同じ名前で登録したときは置き換える。
+     * @param name     メトリクスの名前(接頭辞を除く)
+     * @param help     説明
+     * @param supplier 値を返す関数
+     */
+    public void gauge(String name, String help, LongSupplier supplier) {
+        gauges.put(name, new Gauge(help, supplier));
+    }
+
+    /**
+     * Prometheusのテキスト形式(0.0.4)で出力する。
+     */
+    public void writePrometheus(StringBuilder out) {
+        writeRequests(out, "requests", "endpoint", endpoints, "servlet endpoint");
+        writeRequests(out, "finder_calls", "finder", finders, "streamer finder");
+        writeUpstreams(out);
+        writeCaches(out);
+
+        for (var entry : gauges.entrySet()) {
+            var name = PREFIX + entry.getKey();
+            header(out, name, entry.getValue().help(), "gauge");
+            out.append(name).append(' ').append(entry.getValue().supplier().getAsLong()).append('\n');
+        }
+    }
+
+    private void writeRequests(StringBuilder out, String family, String label,
+                               Map<String, ? extends RequestMetrics> metrics, String description) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        var name = PREFIX + family;
+
+        header(out, name + "_total", "Number of completed " + description + " calls.", "counter");
+        metrics.forEach((key, m) -> sample(out, name + "_total", label, key, m.requests()));
+
+        header(out, name + "_errors_total", "Number of failed " + description + " calls.", "counter");
+        metrics.forEach((key, m) -> sample(out, name + "_errors_total", label, key, m.errors()));
+
+        header(out, name + "_in_flight", "Number of " + description + " calls in progress.", "gauge");
+        metrics.forEach((key, m) -> sample(out, name + "_in_flight", label, key, m.inFlight()));
+
+        header(out, name + "_duration_seconds", "Duration of " + description + " calls.", "histogram");
+        metrics.forEach((key, m) -> histogram(out, name + "_duration_seconds", labels(label, key), m.latency()));
+    }
+
+    private void writeUpstreams(StringBuilder out) {
+        if (upstreams.isEmpty()) {
+            return;
+        }
+        var name = PREFIX + "upstream";
+
+        header(out, name + "_calls_total", "Number of completed upstream API calls.", "counter");
+        upstreams.forEach((key, m) -> sample(out, name + "_calls_total", upstreamLabels(key), m.requests()));
+
+        header(out, name + "_errors_total", "Number of failed upstream API calls by error class.", "counter");
+        upstreams.forEach((key, m) -> {
+            for (var error : UpstreamError.values()) {
+                var count = m.errors(error);
+                if (0 < count) {
+                    sample(out, name + "_errors_total",
+                            upstreamLabels(key) + ",class=\"" + error.getLabel() + "\"", count);
+                }
+            }
+        });
+
+        header(out, name + "_in_flight", "Number of upstream API calls in progress.", "gauge");
+        upstreams.forEach((key, m) -> sample(out, name + "_in_flight", upstreamLabels(key), m.inFlight()));
+
+        header(out, name + "_duration_seconds", "Duration of upstream API calls.", "histogram");
+        upstreams.forEach((key, m) -> histogram(out, name + "_duration_seconds", upstreamLabels(key), m.latency()));
+    }
+
+    private void writeCaches(StringBuilder out) {
+        if (caches.isEmpty()) {
+            return;
+        }
+        var name = PREFIX + "cache";
+
+        header(out, name + "_hits_total", "Number of cache hits.", "counter");
+        caches.forEach((key, m) -> sample(out, name + "_hits_total", "cache", key, m.snapshot().hitCount()));
+
+        header(out, name + "_misses_total", "Number of cache misses.", "counter");
+        caches.forEach((key, m) -> sample(out, name + "_misses_total", "cache", key, m.snapshot().missCount()));
+
+        header(out, name + "_loads_total", "Number of cache loads.", "counter");
+        caches.forEach((key, m) -> {
+            var stats = m.snapshot();
+            sample(out, name + "_loads_total", labels("cache", key) + ",result=\"success\"", stats.loadSuccessCount());
+            sample(out, name + "_loads_total", labels("cache", key) + ",result=\"failure\"", stats.loadFailureCount());
+        });
+
+        header(out, name + "_evictions_total", "Number of cache evictions.", "counter");
+        caches.forEach((key, m) -> sample(out, name + "_evictions_total", "cache", key, m.snapshot().evictionCount()));
+
+        header(out, name + "_load_duration_seconds", "Duration of cache loads.", "histogram");
+        caches.forEach((key, m) -> histogram(out, name + "_load_duration_seconds", labels("cache", key), m.loadLatency()));
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        var cumulative = histogram.cumulativeCounts(BUCKET_NANOS);
+        for (var i = 0; i < BUCKET_SECONDS.length; i++) {
+            sample(out, name + "_bucket", labels + ",le=\"" + BUCKET_SECONDS[i] + "\"", cumulative[i]);
+        }
+        var count = histogram.count();
+        sample(out, name + "_bucket", labels + ",le=\"+Inf\"", count);
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append(histogram.sum() / 1e9).append('\n');
+        sample(out, name + "_count", labels, count);
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        sample(out, name, labels(label, value), sample);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long sample) {
+        out.append(name).append('{').append(labels).append("} ").append(sample).append('\n');
+    }
+
+    private static String labels(String label, String value) {
+        return label + "=\"" + escape(value) + '"';
+    }
+
+    private static String upstreamLabels(String key) {
+        var separator = key.indexOf('\0');
+        return labels("service", key.substring(0, separator)) + ',' + labels("operation", key.substring(separator + 1));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private record Gauge(String help, LongSupplier supplier) {
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 1種類の処理の件数、エラー数、処理中の件数、処理時間を記録するクラス。
+ * <pre>
+ *     var start = metrics.start();
+ *     try {
+ *         ...
+ *         metrics.success(start);
+ *     } catch (RuntimeException e) {
+ *         metrics.failure(start);
+ *         throw e;
+ *     }
+ * </pre>
+ */
+public class RequestMetrics {
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RequestMetrics() {
+    }
+
+    /**
+     * 処理の開始を記録する。
+     * @return 開始時刻({@link System#nanoTime()})
+     */
+    public long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 処理の成功を記録する。
+     * @param start {@link #start()}が返した開始時刻
+     * @return 処理時間(ナノ秒)
+     */
+    public long success(long start) {
+        return end(start, true);
+    }
+
+    /**
+     * 処理の失敗を記録する。
+     * @param start {@link #start()}が返した開始時刻
+     * @return 処理時間(ナノ秒)
+     */
+    public long failure(long start) {
+        return end(start, false);
+    }
+
+    private long end(long start, boolean success) {
+        var elapsed = System.nanoTime() - start;
+        inFlight.decrementAndGet();
+        requests.increment();
+        if (!success) {
+            errors.increment();
+        }
+        latency.record(elapsed);
+        return elapsed;
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long inFlight() {
+        return inFlight.get();
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+}
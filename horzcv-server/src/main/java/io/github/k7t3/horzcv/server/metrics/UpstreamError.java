@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import com.google.api.client.http.HttpResponseException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 配信サービスの呼び出しで発生したエラーの分類。
+ */
+public enum UpstreamError {
+
+    /**
+     * レート制限やクォータの超過(429、YouTubeの403)
+     */
+    RATE_LIMITED("rate_limited"),
+
+    /**
+     * 認証の失敗(401)
+     */
+    UNAUTHORIZED("unauthorized"),
+
+    /**
+     * その他のクライアントエラー(4xx)
+     */
+    CLIENT_ERROR("client_error"),
+
+    /**
+     * サーバーエラー(5xx)
+     */
+    SERVER_ERROR("server_error"),
+
+    /**
+     * タイムアウト
+     */
+    TIMEOUT("timeout"),
+
+    /**
+     * 接続の失敗などの通信エラー
+     */
+    NETWORK("network"),
+
+    /**
+     * 分類できないエラー
+     */
+    OTHER("other");
+
+    private final String label;
+
+    UpstreamError(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 例外を分類する。原因の例外もたどって判定する。
+     */
+    public static UpstreamError classify(Throwable throwable) {
+        for (var t = throwable; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof HttpResponseException e) {
+                return ofStatus(e.getStatusCode(), e.getContent());
+            }
+            var feignStatus = feignStatus(t);
+            if (0 < feignStatus) {
+                return ofStatus(feignStatus, null);
+            }
+            if (t.getClass().getSimpleName().equals("UnauthorizedException")) {
+                return UNAUTHORIZED;
+            }
+            if (t instanceof SocketTimeoutException || t instanceof HttpTimeoutException || t instanceof TimeoutException) {
+                return TIMEOUT;
+            }
+            if (t instanceof IOException) {
+                return NETWORK;
+            }
+            // Hystrixのタイムアウトは原因の例外を持たない
+            if (t.getClass().getSimpleName().equals("HystrixTimeoutException")) {
+                return TIMEOUT;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Twitch4Jが使用するFeignの例外からステータスコードを取得する。
+     * <p>
+     *     Feignはコンパイル時に参照できないため、エラーのときだけリフレクションで取得する。
+     * </p>
+     * @return ステータスコード。Feignの例外でないときは-1
+     */
+    private static int feignStatus(Throwable t) {
+        for (Class<?> c = t.getClass(); c != null; c = c.getSuperclass()) {
+            if (c.getName().equals("feign.FeignException")) {
+                try {
+                    return (int) c.getMethod("status").invoke(t);
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static UpstreamError ofStatus(int status, String content) {
+        if (status == 429) {
+            return RATE_LIMITED;
+        }
+        if (status == 401) {
+            return UNAUTHORIZED;
+        }
+        // YouTube Data APIはクォータの超過を403で返す
+        if (status == 403 && content != null && (content.contains("quotaExceeded") || content.contains("rateLimitExceeded"))) {
+            return RATE_LIMITED;
+        }
+        if (500 <= status) {
+            return SERVER_ERROR;
+        }
+        return CLIENT_ERROR;
+    }
+
+}
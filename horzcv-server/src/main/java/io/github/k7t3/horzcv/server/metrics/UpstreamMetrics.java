@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import io.github.k7t3.horzcv.server.jfr.UpstreamCallEvent;
+import io.github.k7t3.horzcv.server.trace.SpanKind;
+import io.github.k7t3.horzcv.server.trace.Tracer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 配信サービスの呼び出しの件数、処理時間、エラーの分類ごとの件数を記録するクラス。
+ */
+public final class UpstreamMetrics extends RequestMetrics {
+
+    private final String service;
+
+    private final String operation;
+
+    // トレースの区間の名前
+    private final String spanName;
+
+    private final AtomicLongArray errorClasses = new AtomicLongArray(UpstreamError.values().length);
+
+    UpstreamMetrics(String service, String operation) {
+        this.service = service;
+        this.operation = operation;
+        this.spanName = service + "." + operation;
+    }
+
+    /**
+     * 処理の失敗をエラーの分類とともに記録する。
+     * @param start {@link #start()}が返した開始時刻
+     * @param error 発生した例外
+     * @return 処理時間(ナノ秒)
+     */
+    public long failure(long start, Throwable error) {
+        errorClasses.incrementAndGet(UpstreamError.classify(error).ordinal());
+        return failure(start);
+    }
+
+    /**
+     * 配信サービスを呼び出し、処理時間と結果を記録する。
+     * <p>
+     *     JFRの{@link UpstreamCallEvent}が有効なときはイベントも記録し、トレース中であれば区間も記録する。
+     * </p>
+     * @param key  問い合わせるログイン名やID
+     * @param call 配信サービスの呼び出し
+     * @return 呼び出しの結果
+     * @throws E 呼び出しが失敗したとき
+     */
+    public <T, E extends Exception> T record(String key, Call<T, E> call) throws E {
+        var event = new UpstreamCallEvent();
+        event.begin();
+        try (var span = Tracer.span(spanName, SpanKind.CLIENT)) {
+            span.attribute("peer.service", service).attribute("horzcv.key", key);
+            var start = start();
+            T result;
+            try {
+                result = call.execute();
+            } catch (Exception | Error e) {
+                var error = UpstreamError.classify(e);
+                errorClasses.incrementAndGet(error.ordinal());
+                failure(start);
+                span.error(e).attribute("error.type", error.getLabel());
+                commit(event, key, error.getLabel());
+                throw e;
+            }
+            success(start);
+            commit(event, key, UpstreamCallEvent.SUCCESS);
+            return result;
+        }
+    }
+
+    private void commit(UpstreamCallEvent event, String key, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.service = service;
+            event.operation = operation;
+            event.key = key;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    public String service() {
+        return service;
+    }
+
+    public String operation() {
+        return operation;
+    }
+
+    public long errors(UpstreamError error) {
+        return errorClasses.get(error.ordinal());
+    }
+
+    /**
+     * 配信サービスの呼び出し
+     * @param <T> 呼び出しの結果の型
+     * @param <E> 呼び出しが送出する例外の型
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+
+        T execute() throws E;
+
+    }
+
+}
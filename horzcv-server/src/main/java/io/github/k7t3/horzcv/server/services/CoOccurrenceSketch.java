@@ -0,0 +1,252 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 同時に開かれた配信の組み合わせを数える固定サイズのスケッチ。
+ * <p>
+ *     組み合わせの出現回数はCount-Min Sketchで近似し、
+ *     配信ごとに出現回数の多い相手を上位{@code K}件だけ保持する。
+ *     一定回数記録するごとにすべての値を半減させ、古い組み合わせの影響を小さくする。
+ * </p>
+ * <p>
+ *     検索のたびに呼び出されるため全体のロックは使用しない。
+ *     カウンタはアトミックに加算し、配信ごとの相手は配信のハッシュ値で分割した区画ごとにロックする。
+ * </p>
+ */
+public class CoOccurrenceSketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * 配信ごとの相手を保持する区画の数(2の累乗)
+     */
+    private static final int STRIPES = 16;
+
+    private final AtomicIntegerArray[] counters;
+
+    private final int mask;
+
+    private final int neighbours;
+
+    private final int resetInterval;
+
+    // 配信ごとの相手と出現回数の推定値
+    private final Stripe[] stripes;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param width      カウンタの幅(2の累乗に切り上げる)
+     * @param neighbours 配信ごとに保持する相手の数
+     * @param maxKeys    相手を保持する配信の最大数
+     */
+    public CoOccurrenceSketch(int width, int neighbours, int maxKeys) {
+        var size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.counters = new AtomicIntegerArray[DEPTH];
+        for (var d = 0; d < DEPTH; d++) {
+            counters[d] = new AtomicIntegerArray(size);
+        }
+        this.mask = size - 1;
+        this.neighbours = neighbours;
+        this.resetInterval = size * 10;
+        this.stripes = new Stripe[STRIPES];
+        var keysPerStripe = Math.max(1, (maxKeys + STRIPES - 1) / STRIPES);
+        for (var i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(keysPerStripe);
+        }
+    }
+
+    /**
+     * 同時に開かれた配信を記録する。
+     * @param keys 正規化された配信のURL
+     */
+    public void record(List<String> keys) {
+        for (var i = 0; i < keys.size(); i++) {
+            for (var j = i + 1; j < keys.size(); j++) {
+                record(keys.get(i), keys.get(j));
+            }
+        }
+    }
+
+    /**
+     * 2つの配信が同時に開かれたことを記録する。
+     */
+    public void record(String a, String b) {
+        if (a == null || b == null || a.equals(b)) {
+            return;
+        }
+
+        var hash = pairHash(a, b);
+        var estimate = Integer.MAX_VALUE;
+        for (var d = 0; d < DEPTH; d++) {
+            estimate = Math.min(estimate, counters[d].incrementAndGet(index(hash, d)));
+        }
+
+        offer(a, b, estimate);
+        offer(b, a, estimate);
+
+        // 到達したスレッドだけが半減させる
+        if (additions.incrementAndGet() == resetInterval) {
+            halve();
+        }
+    }
+
+    /**
+     * 指定された配信と一緒に開かれることの多い配信を返す。
+     * @param key      正規化された配信のURL
+     * @param limit    返却する最大件数
+     * @param minCount 返却する相手に必要な最小の出現回数
+     * @return 出現回数の多い順の配信のURL
+     */
+    public List<String> companions(String key, int limit, int minCount) {
+        var stripe = stripe(key);
+        synchronized (stripe) {
+            var entries = stripe.topK.get(key);
+            if (entries == null) {
+                return List.of();
+            }
+            return entries.entrySet().stream()
+                    .filter(e -> minCount <= e.getValue())
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+    }
+
+    /**
+     * 2つの配信が同時に開かれた回数の推定値を返す。
+     */
+    public int estimate(String a, String b) {
+        var hash = pairHash(a, b);
+        var estimate = Integer.MAX_VALUE;
+        for (var d = 0; d < DEPTH; d++) {
+            estimate = Math.min(estimate, counters[d].get(index(hash, d)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 相手を保持している配信の数を返す。
+     */
+    int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.topK.size();
+            }
+        }
+        return size;
+    }
+
+    private void offer(String key, String companion, int estimate) {
+        var stripe = stripe(key);
+        synchronized (stripe) {
+            var entries = stripe.topK.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            if (entries.containsKey(companion) || entries.size() < neighbours) {
+                entries.put(companion, estimate);
+                return;
+            }
+
+            // 最も少ない相手よりも多いときだけ入れ替える
+            var weakest = entries.entrySet().stream()
+                    .min(Comparator.comparingInt(Map.Entry::getValue))
+                    .orElseThrow();
+            if (weakest.getValue() < estimate) {
+                entries.remove(weakest.getKey());
+                entries.put(companion, estimate);
+            }
+        }
+    }
+
+    private void halve() {
+        additions.set(0);
+        for (var row : counters) {
+            for (var i = 0; i < row.length(); i++) {
+                row.getAndUpdate(i, v -> v >>> 1);
+            }
+        }
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                var iterator = stripe.topK.values().iterator();
+                while (iterator.hasNext()) {
+                    var entries = iterator.next();
+                    entries.replaceAll((k, v) -> v >>> 1);
+                    entries.values().removeIf(v -> v == 0);
+                    // 相手がいなくなった配信を残さない
+                    if (entries.isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[spread(key.hashCode()) & (STRIPES - 1)];
+    }
+
+    private int index(int hash, int depth) {
+        var h = (hash ^ SEEDS[depth]) * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    // 順序に依存しない組み合わせのハッシュ値
+    private static int pairHash(String a, String b) {
+        var ha = spread(a.hashCode());
+        var hb = spread(b.hashCode());
+        return Math.min(ha, hb) * 31 + Math.max(ha, hb);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * 配信ごとの相手を保持する区画。インスタンスをロックして操作する
+     */
+    private static final class Stripe {
+
+        // アクセス順で古いものから追い出す
+        final LinkedHashMap<String, Map<String, Integer>> topK;
+
+        Stripe(int maxKeys) {
+            this.topK = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, Integer>> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+
+    }
+
+}
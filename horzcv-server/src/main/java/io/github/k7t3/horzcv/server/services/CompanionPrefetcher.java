@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * 一緒に開かれることの多い配信を記録し、検索されたときに残りの配信を事前に読み込むクラス。
+ * <p>
+ *     コラボ配信や大会の複数視点のように、同じ組み合わせの配信が続けて検索されることが多いため、
+ *     最初の検索の時点で残りの配信をバックグラウンドでキャッシュに読み込んでおく。
+ * </p>
+ * <p>
+ *     組み合わせは画面の配信をまとめた一括の検索からだけ記録する。
+ *     単一の検索を送信元のアドレスなどでまとめると、NATやプロキシの背後の別々の利用者の配信が
+ *     同じ組み合わせとして記録されるため、単一の検索は事前の読み込みにだけ使用する。
+ * </p>
+ */
+@ApplicationScoped
+public class CompanionPrefetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompanionPrefetcher.class);
+
+    /**
+     * 事前に読み込む配信の最大数
+     */
+    private static final int MAX_COMPANIONS = 5;
+
+    /**
+     * 事前に読み込むために必要な同時に開かれた回数
+     */
+    private static final int MIN_CO_OCCURRENCES = 2;
+
+    /**
+     * 問い合わせ中の件数がこの値以上のときは事前の読み込みを行わない
+     */
+    private static final int MAX_PENDING_LOADS = 4;
+
+    private final CoOccurrenceSketch sketch = new CoOccurrenceSketch(1 << 16, 8, 20_000);
+
+    @Inject
+    private StreamerFinders finders;
+
+    public CompanionPrefetcher() {
+    }
+
+    /**
+     * まとめて検索された配信を記録する。
+     * @param keys 正規化された配信のURL
+     */
+    public void onBatchLookup(List<String> keys) {
+        var distinct = keys.stream().distinct().toList();
+        if (distinct.size() < 2) {
+            return;
+        }
+        sketch.record(distinct);
+    }
+
+    /**
+     * 検索された配信と一緒に開かれることの多い配信を事前に読み込む。
+     * @param key 正規化された配信のURL
+     */
+    public void onLookup(String key) {
+        if (MAX_PENDING_LOADS <= finders.getPendingLoads()) {
+            return;
+        }
+
+        var companions = sketch.companions(key, MAX_COMPANIONS, MIN_CO_OCCURRENCES);
+        if (companions.isEmpty()) {
+            return;
+        }
+
+        LOGGER.debug("prefetch companions of {}: {}", key, companions);
+        finders.prefetch(companions);
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+
+import java.util.Map;
+
+/**
+ * 配信サービスから一覧で取得した配信中のストリーマーの情報。
+ * @param responses  配信URLをキーとしたストリーマーの情報
+ * @param nextCursor 次のページを取得するためのカーソル。次のページがないときはnull
+ */
+public record CrawledStreams(
+        Map<String, StreamerInfoResponse> responses,
+        String nextCursor
+) {
+
+    private static final CrawledStreams EMPTY = new CrawledStreams(Map.of(), null);
+
+    public static CrawledStreams empty() {
+        return EMPTY;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null && !nextCursor.isEmpty();
+    }
+
+}
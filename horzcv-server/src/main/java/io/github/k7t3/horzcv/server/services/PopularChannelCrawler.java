@@ -0,0 +1,339 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.services.cache.SharedCacheStore;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchStreamerIdentityFinder;
+import io.github.k7t3.horzcv.server.services.youtube.YoutubeStreamerIdentityFinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配信中の人気のストリーマーを定期的に取得し、{@link StreamerFinders}のキャッシュを事前に温めるクラス。
+ * <p>
+ *     Twitchは視聴者数の多い配信を取得する。YouTubeは検索のクォータ消費が大きいため、
+ *     1日あたりのクォータが設定されているときだけ取得する。
+ * </p>
+ * <p>
+ *     ユーザーからの検索で配信サービスへの問い合わせが増えているときは取得を中断し、
+ *     配信サービスからエラーが返却されたときはしばらく取得を停止する。
+ * </p>
+ * <p>
+ *     配信サービスのクォータを消費するため既定では無効で、<code>crawler_enabled=true</code>で有効にする。
+ *     共有キャッシュを使用しているときは、取得する間隔ごとに共有キャッシュのリースを取得したサーバーだけが取得し、
+ *     結果は共有キャッシュを経由して他のサーバーでも使用される。
+ * </p>
+ */
+@ApplicationScoped
+public class PopularChannelCrawler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PopularChannelCrawler.class);
+
+    /**
+     * 取得を有効にするか
+     */
+    private static final String ENABLED = "crawler_enabled";
+
+    /**
+     * 取得する間隔(分)。キャッシュの有効期限より短くする
+     */
+    private static final String INTERVAL_MINUTES = "crawler_interval_minutes";
+
+    /**
+     * Twitchから取得する配信の数
+     */
+    private static final String TWITCH_STREAMS = "crawler_twitch_streams";
+
+    /**
+     * YouTubeから取得する配信の数
+     */
+    private static final String YOUTUBE_STREAMS = "crawler_youtube_streams";
+
+    /**
+     * 取得に使用するYouTube Data APIの1日あたりのクォータ(0のときは取得しない)
+     */
+    private static final String YOUTUBE_DAILY_QUOTA = "crawler_youtube_daily_quota";
+
+    /**
+     * 問い合わせ中の件数がこの値以上のときは取得を中断する
+     */
+    private static final String MAX_PENDING_LOADS = "crawler_max_pending_loads";
+
+    /**
+     * 1分あたりのキャッシュミスがこの値以上のときは取得を見送る
+     */
+    private static final String MAX_MISSES_PER_MINUTE = "crawler_max_misses_per_minute";
+
+    /**
+     * 配信サービスへのリクエストの最小間隔
+     */
+    private static final Duration REQUEST_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * エラーが発生したときに取得を停止する期間
+     */
+    private static final Duration BACKOFF = Duration.ofMinutes(15);
+
+    // YouTube Data APIのクォータは太平洋時間の0時にリセットされる
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    /**
+     * 取得するサーバーを1つに決めるための共有キャッシュのリースのキー
+     */
+    private static final String LEASE_KEY = "horzcv:crawler";
+
+    @Inject
+    private StreamerFinders finders;
+
+    @Inject
+    private TwitchStreamerIdentityFinder twitchFinder;
+
+    @Inject
+    private YoutubeStreamerIdentityFinder youtubeFinder;
+
+    @Inject
+    private SharedCacheStore sharedStore;
+
+    // このサーバーを識別する文字列
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private boolean enabled = false;
+    private int intervalMinutes = 5;
+    private int twitchStreams = 100;
+    private int youtubeStreams = 50;
+    private int youtubeDailyQuota = 0;
+    private int maxPendingLoads = 2;
+    private int maxMissesPerMinute = 30;
+
+    private ScheduledExecutorService executor;
+
+    // 起動後の最初の取得が終わるとカウントダウンする
+    private final CountDownLatch initialCrawl = new CountDownLatch(1);
+
+    // 直前の取得時のキャッシュミスの累計
+    private long lastMissCount;
+    private Instant lastCrawledAt;
+
+    private Instant backoffUntil = Instant.MIN;
+
+    private LocalDate quotaDate;
+    private int quotaUsed;
+
+    public PopularChannelCrawler() {
+    }
+
+    @PostConstruct
+    public void initialize() {
+        enabled = ServerConfig.getBoolean(ENABLED, enabled);
+        intervalMinutes = Math.max(1, ServerConfig.getInt(INTERVAL_MINUTES, intervalMinutes));
+        twitchStreams = ServerConfig.getInt(TWITCH_STREAMS, twitchStreams);
+        youtubeStreams = ServerConfig.getInt(YOUTUBE_STREAMS, youtubeStreams);
+        youtubeDailyQuota = ServerConfig.getInt(YOUTUBE_DAILY_QUOTA, youtubeDailyQuota);
+        maxPendingLoads = ServerConfig.getInt(MAX_PENDING_LOADS, maxPendingLoads);
+        maxMissesPerMinute = ServerConfig.getInt(MAX_MISSES_PER_MINUTE, maxMissesPerMinute);
+    }
+
+    /**
+     * アプリケーションの起動時に定期的な取得を開始する。
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!enabled) {
+            LOGGER.info("popular channel crawler is disabled");
+            initialCrawl.countDown();
+            return;
+        }
+
+        LOGGER.info("popular channel crawler started: interval={}min, twitch={}, youtube={} (quota {}/day)",
+                intervalMinutes, twitchStreams, youtubeStreams, youtubeDailyQuota);
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("popular-channel-crawler")
+                .daemon(true)
+                .factory());
+        executor.scheduleWithFixedDelay(this::crawl, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 起動後の最初の取得が終わるまで待機する。取得が無効のときは待機しない。
+     * @param timeout 待機する最大の時間
+     * @return 取得が終わったときはtrue
+     */
+    public boolean awaitInitialCrawl(Duration timeout) throws InterruptedException {
+        return initialCrawl.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 人気の配信を取得してキャッシュに格納する。
+     */
+    void crawl() {
+        try {
+            crawlOnce();
+        } finally {
+            initialCrawl.countDown();
+        }
+    }
+
+    private void crawlOnce() {
+        var now = Instant.now();
+        if (now.isBefore(backoffUntil)) {
+            return;
+        }
+
+        if (isBusy(now)) {
+            LOGGER.debug("skip crawling: pendingLoads={}", finders.getPendingLoads());
+            return;
+        }
+
+        if (!acquireLease()) {
+            LOGGER.debug("skip crawling: another server is crawling");
+            return;
+        }
+
+        try {
+            var twitchSeeded = crawlTwitch();
+            var youtubeSeeded = crawlYoutube(now);
+            LOGGER.debug("seeded popular streams: twitch={}, youtube={}", twitchSeeded, youtubeSeeded);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // レート制限を含むエラーのときはしばらく配信サービスへの問い合わせを控える
+            LOGGER.warn("failed to crawl popular streams, pausing for {}", BACKOFF, e);
+            backoffUntil = now.plus(BACKOFF);
+        }
+    }
+
+    /**
+     * 共有キャッシュのリースを取得する。
+     * <p>
+     *     リースは解放せず、取得する間隔が経過して期限が切れるまで保持する。
+     *     そのため同じ間隔の間に他のサーバーは取得しない。
+     * </p>
+     * @return このサーバーが取得するときはtrue
+     */
+    private boolean acquireLease() {
+        if (sharedStore == null || !sharedStore.isEnabled()) {
+            return true;
+        }
+        try {
+            return sharedStore.tryAcquireLease(LEASE_KEY, nodeId, Duration.ofMinutes(intervalMinutes));
+        } catch (RuntimeException e) {
+            // 共有キャッシュに接続できないときは各サーバーで取得する
+            LOGGER.warn("failed to acquire crawler lease", e);
+            return true;
+        }
+    }
+
+    private int crawlTwitch() throws InterruptedException {
+        var seeded = 0;
+        String cursor = null;
+        while (seeded < twitchStreams) {
+            var page = twitchFinder.findLiveStreams(cursor, twitchStreams - seeded);
+            finders.seed(page.responses());
+            seeded += page.responses().size();
+
+            if (!page.hasNext() || page.responses().isEmpty() || !pause()) {
+                break;
+            }
+            cursor = page.nextCursor();
+        }
+        return seeded;
+    }
+
+    private int crawlYoutube(Instant now) throws InterruptedException {
+        var today = LocalDate.ofInstant(now, QUOTA_ZONE);
+        if (!today.equals(quotaDate)) {
+            quotaDate = today;
+            quotaUsed = 0;
+        }
+
+        var seeded = 0;
+        String pageToken = null;
+        while (seeded < youtubeStreams) {
+            if (youtubeDailyQuota < quotaUsed + YoutubeStreamerIdentityFinder.LIVE_STREAMS_QUOTA_COST) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+
+            quotaUsed += YoutubeStreamerIdentityFinder.LIVE_STREAMS_QUOTA_COST;
+            var page = youtubeFinder.findLiveStreams(pageToken, youtubeStreams - seeded);
+            finders.seed(page.responses());
+            seeded += page.responses().size();
+
+            if (!page.hasNext() || page.responses().isEmpty()) {
+                break;
+            }
+            pageToken = page.nextCursor();
+        }
+        return seeded;
+    }
+
+    /**
+     * 次のリクエストまで待機する。
+     * @return 取得を続けてよいときはtrue
+     */
+    private boolean pause() throws InterruptedException {
+        Thread.sleep(REQUEST_INTERVAL);
+        return finders.getPendingLoads() < maxPendingLoads;
+    }
+
+    /**
+     * ユーザーからの検索で配信サービスへの問い合わせが増えているかを判定する。
+     */
+    private boolean isBusy(Instant now) {
+        var missCount = finders.getMissCount();
+        var misses = missCount - lastMissCount;
+        var previous = lastCrawledAt;
+        lastMissCount = missCount;
+        lastCrawledAt = now;
+
+        if (maxPendingLoads <= finders.getPendingLoads()) {
+            return true;
+        }
+        if (previous == null) {
+            return false;
+        }
+
+        var minutes = Math.max(1, Duration.between(previous, now).toMinutes());
+        return maxMissesPerMinute <= misses / minutes;
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import com.github.twitch4j.helix.TwitchHelix;
+import com.google.api.services.youtube.YouTube;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 起動直後のリクエストが遅くならないように、リクエストを受け付ける前に準備するクラス。
+ * <ol>
+ *     <li>配信サービスのクライアントを生成する</li>
+ *     <li>{@link PopularChannelCrawler}の最初の取得が終わるまで待機する</li>
+ *     <li><code>warmup_urls</code>の配信を検索し、配信サービスへの接続を確立してキャッシュに格納する</li>
+ *     <li>キャッシュに格納した配信を繰り返し検索し、検索の処理をJITコンパイルさせる</li>
+ * </ol>
+ * <p>
+ *     <code>warmup_urls</code>が指定されていないときは、人気の配信の取得でキャッシュに格納された配信を使用する。
+ *     それもないときは配信サービスに問い合わせないキーワードで検索の処理だけを準備する。
+ *     準備のための検索はキャッシュのヒット率のメトリクスに記録しない({@link StreamerFinders#warmUp(String)})。
+ * </p>
+ * <p>
+ *     すべてが終わると{@link #isReady()}がtrueになる。
+ *     <code>warmup_timeout_seconds</code>を超えたときは残りを省略して準備完了とする。
+ *     配信サービスのエラーで準備が終わらないままになることを防ぐため、失敗したときも残りを省略する。
+ * </p>
+ */
+@ApplicationScoped
+public class StartupWarmup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupWarmup.class);
+
+    /**
+     * 起動時に検索する配信のURL(カンマ区切り)
+     */
+    private static final String WARMUP_URLS = "warmup_urls";
+
+    /**
+     * キャッシュに格納した配信を繰り返し検索する回数
+     */
+    private static final String WARMUP_ITERATIONS = "warmup_iterations";
+
+    /**
+     * 準備にかける最大の時間(秒)
+     */
+    private static final String WARMUP_TIMEOUT_SECONDS = "warmup_timeout_seconds";
+
+    /**
+     * <code>warmup_urls</code>が指定されていないときにキャッシュから使用する配信の最大数
+     */
+    private static final int MAX_CACHED_KEYS = 16;
+
+    /**
+     * 使用できる配信がないときに検索するキーワード。URLではないため配信サービスには問い合わせない
+     */
+    private static final String STUB_KEYWORD = "horzcv-warmup";
+
+    @Inject
+    private Instance<TwitchHelix> twitchClient;
+
+    @Inject
+    private Instance<YouTube> youtubeClient;
+
+    @Inject
+    private StreamerFinders finders;
+
+    @Inject
+    private PopularChannelCrawler crawler;
+
+    // 実行中の段階(準備が終わるとnull)
+    private volatile String stage = "pending";
+
+    public StartupWarmup() {
+    }
+
+    /**
+     * アプリケーションの起動時にバックグラウンドで準備を開始する。
+     */
+    public void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        Thread.ofPlatform()
+                .name("startup-warmup")
+                .daemon(true)
+                .start(this::run);
+    }
+
+    /**
+     * リクエストを受け付ける準備ができているときはtrue
+     */
+    public boolean isReady() {
+        return stage == null;
+    }
+
+    /**
+     * 実行中の段階を返す。準備ができているときはnull
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    private void run() {
+        var start = System.nanoTime();
+        var timeout = Duration.ofSeconds(ServerConfig.getLong(WARMUP_TIMEOUT_SECONDS, 60));
+        var deadline = start + timeout.toNanos();
+        try {
+            stage = "clients";
+            initializeClients();
+
+            // 取得した人気の配信をwarmup_urlsの代わりに使用するため先に待機する
+            stage = "cache";
+            var remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            if (!crawler.awaitInitialCrawl(remaining)) {
+                LOGGER.warn("warm-up timed out while waiting for the initial crawl");
+            }
+
+            stage = "connections";
+            var urls = warmUpConnections(deadline);
+
+            stage = "jit";
+            warmUpLookups(urls, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            LOGGER.warn("warm-up failed at stage {}", stage, e);
+        }
+        stage = null;
+        LOGGER.info("server is ready ({}ms)", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * クライアントを生成する。トランスポートやトラストストアの初期化をリクエストの処理から外す。
+     */
+    private void initializeClients() {
+        twitchClient.get();
+        youtubeClient.get();
+        // キャッシュの生成と共有キャッシュへの接続
+        finders.getPendingLoads();
+    }
+
+    /**
+     * 指定された配信を検索する。配信サービスへのTLSの接続を確立し、結果をキャッシュに格納する。
+     * <p>
+     *     指定されていないときはキャッシュに格納された配信を返す。人気の配信の取得で接続は確立済みのため検索しない。
+     * </p>
+     * @return 検索できた配信のURL
+     */
+    private List<String> warmUpConnections(long deadline) {
+        var value = ServerConfig.get(WARMUP_URLS);
+        if (value == null || value.isBlank()) {
+            return finders.cachedKeys(MAX_CACHED_KEYS);
+        }
+        var urls = new ArrayList<String>();
+        for (var url : Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList()) {
+            if (deadline < System.nanoTime()) {
+                LOGGER.warn("warm-up timed out while looking up {}", url);
+                break;
+            }
+            try {
+                finders.warmUp(url);
+                urls.add(url);
+            } catch (RuntimeException e) {
+                LOGGER.warn("warm-up lookup failed: {}", url, e);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * キャッシュに格納した配信を繰り返し検索する。配信サービスには問い合わせない。
+     * 配信がないときは{@link #STUB_KEYWORD}を検索する。
+     */
+    private void warmUpLookups(List<String> urls, long deadline) {
+        if (urls.isEmpty()) {
+            urls = List.of(STUB_KEYWORD);
+        }
+        var iterations = ServerConfig.getInt(WARMUP_ITERATIONS, 2000);
+        for (var i = 0; i < iterations; i++) {
+            if ((i & 0xFF) == 0 && deadline < System.nanoTime()) {
+                break;
+            }
+            finders.warmUp(urls.get(i % urls.size()));
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+
+import java.util.Locale;
+
+/**
+ * 入力されたURLを配信ごとに一意な正規化されたURLに変換するユーティリティ。
+ * <p>
+ *     同じ配信を指す異なる表記(<code>www.</code>の有無、大文字小文字、<code>/live/</code>形式など)を
+ *     同じキャッシュのキーとして扱うために使用する。
+ * </p>
+ */
+public final class StreamKeys {
+
+    public static final String TWITCH_URL_PREFIX = "https://www.twitch.tv/";
+
+    public static final String YOUTUBE_URL_PREFIX = "https://www.youtube.com/watch?v=";
+
+    private StreamKeys() {
+    }
+
+    /**
+     * 入力されたURLを正規化する。
+     * @param urlOrKeyword ユーザーが入力した文字列
+     * @return 正規化されたURL。配信のURLとして認識できないときはnull
+     */
+    public static String canonicalize(String urlOrKeyword) {
+        var result = StreamUrlParser.parse(urlOrKeyword);
+        return switch (StreamUrlParser.service(result)) {
+            // Twitchのログイン名は大文字小文字を区別しない
+            case StreamUrlParser.SERVICE_TWITCH ->
+                    TWITCH_URL_PREFIX + StreamUrlParser.id(urlOrKeyword, result).toLowerCase(Locale.ROOT);
+            case StreamUrlParser.SERVICE_YOUTUBE -> YOUTUBE_URL_PREFIX + StreamUrlParser.id(urlOrKeyword, result);
+            default -> null;
+        };
+    }
+
+    /**
+     * Twitchのログイン名から正規化されたチャンネルのURLを生成する。
+     * @param login Twitchのログイン名
+     * @return 正規化されたURL
+     */
+    public static String twitch(String login) {
+        return TWITCH_URL_PREFIX + login.toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -19,17 +19,36 @@ package io.github.k7t3.horzcv.server.services;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
 import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.jfr.CacheLookupEvent;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.metrics.RequestMetrics;
+import io.github.k7t3.horzcv.server.services.cache.OffHeapStreamerInfoStore;
+import io.github.k7t3.horzcv.server.services.cache.SharedStreamerCache;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchEventSubscriptions;
 import io.github.k7t3.horzcv.server.services.twitch.TwitchStreamerIdentityFinder;
 import io.github.k7t3.horzcv.server.services.youtube.YoutubeStreamerIdentityFinder;
+import io.github.k7t3.horzcv.server.trace.Span;
+import io.github.k7t3.horzcv.server.trace.Tracer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 /**
  * {@link StreamerFinder}のファサードクラス
@@ -39,24 +58,83 @@ public class StreamerFinders implements StreamerFinder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StreamerFinders.class);
 
+    /**
+     * ヒープ外のキャッシュの容量(MB)。0のときは使用しない
+     */
+    private static final String OFFHEAP_CACHE_MB = "offheap_cache_mb";
+
+    /**
+     * ヒープ外のキャッシュの有効期限
+     */
+    private static final Duration OFFHEAP_TTL = Duration.ofMinutes(30);
+
+    /**
+     * 見つからなかったか問い合わせに失敗した配信のヒープ外のキャッシュの有効期限(共有キャッシュと同じ)
+     */
+    private static final Duration OFFHEAP_EMPTY_TTL = Duration.ofMinutes(1);
+
+    // 検索インスタンスごとのトレースの区間の名前(findersと同じ順序)
+    private static final List<String> FINDER_SPANS = List.of("finder.twitch", "finder.youtube");
+
+    /**
+     * 他のサーバーが問い合わせ中であることを表すキャッシュのエントリ。
+     * 待っている間に同じキーを読み込み直さないように格納し、待ったあとに読み込んだ情報で置き換える。
+     * 同一性で比較する。
+     */
+    private static final StreamerInfoResponse PENDING = new StreamerInfoResponse(new StreamerInfo[0], false);
+
+    /**
+     * 事前の読み込みを実行するスレッドの数
+     */
+    private static final int PREFETCH_THREADS = 2;
+
+    /**
+     * 実行を待つ事前の読み込みの最大数。超えたときは読み込まない
+     */
+    private static final int PREFETCH_QUEUE_CAPACITY = 64;
+
+    // 事前の読み込みとキャッシュの保守を実行するスレッド
+    // 配信サービスへの問い合わせで共通のForkJoinPoolを塞がないように専用のスレッドで実行する
+    private final ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(
+            PREFETCH_THREADS, PREFETCH_THREADS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PREFETCH_QUEUE_CAPACITY),
+            Thread.ofPlatform().name("streamer-prefetch-", 0).daemon(true).factory());
+
     // URLに対応するストリーマーの情報のキャッシュローダー
     // Twitch4Jのライブラリが使用している軽量のキャッシュ機構
     private final LoadingCache<String, StreamerInfoResponse> cache = Caffeine.newBuilder()
-            .maximumSize(40) // 最大40件
+            .executor(prefetchExecutor)
+            .maximumSize(1000) // 最大1000件(人気の配信を事前に読み込むため)
             .softValues() // ソフトリファレンス
             .expireAfterAccess(Duration.ofMinutes(10)) // 最後のアクセスから10分経過すると期限切れ
+            .recordStats(() -> Metrics.INSTANCE.cache("streamer"))
             .evictionListener(this::onEvicted)
-            .build(this::findFirst);
+            .build(key -> load(key, new LoadSource()));
+
+    // ヒープ上のキャッシュより多くのエントリを保持するヒープ外のキャッシュ(無効のときはnull)
+    private OffHeapStreamerInfoStore offHeapStore;
+
+    // 配信サービスへ問い合わせ中の件数
+    private final AtomicInteger pendingLoads = new AtomicInteger();
 
     // 定義済みの検索インスタンス
     private List<StreamerFinder> finders;
 
+    // 検索インスタンスごとのメトリクス(findersと同じ順序)
+    private List<RequestMetrics> finderMetrics;
+
     @Inject
     private TwitchStreamerIdentityFinder twitchFinder;
 
     @Inject
     private YoutubeStreamerIdentityFinder youtubeFinder;
 
+    @Inject
+    private TwitchEventSubscriptions twitchSubscriptions;
+
+    @Inject
+    private SharedStreamerCache sharedCache;
+
     /**
      * コンストラクタ
      */
@@ -67,23 +145,352 @@ public class StreamerFinders implements StreamerFinder {
     public void initialize() {
         LOGGER.info("StreamerFinders initializing");
         finders = List.of(twitchFinder, youtubeFinder);
+        finderMetrics = List.of(Metrics.INSTANCE.finder("twitch"), Metrics.INSTANCE.finder("youtube"));
+
+        var offHeapMegaBytes = ServerConfig.getLong(OFFHEAP_CACHE_MB, 0);
+        if (0 < offHeapMegaBytes) {
+            LOGGER.info("off-heap streamer cache enabled: {}MB", offHeapMegaBytes);
+            offHeapStore = new OffHeapStreamerInfoStore(offHeapMegaBytes * 1024 * 1024);
+        }
+
+        var metrics = Metrics.INSTANCE;
+        metrics.gauge("finder_pending_loads", "Number of lookups waiting for the streaming services.", pendingLoads::get);
+        metrics.gauge("cache_streamer_entries", "Number of entries in the streamer cache.", cache::estimatedSize);
+        if (offHeapStore != null) {
+            var store = offHeapStore;
+            metrics.gauge("cache_offheap_entries", "Number of entries in the off-heap streamer cache.", store::size);
+            metrics.gauge("cache_offheap_bytes", "Bytes used by the off-heap streamer cache.", store::usedBytes);
+        }
     }
 
     @Override
     public StreamerInfoResponse find(String urlOrKeyword) {
+        return find(urlOrKeyword, true);
+    }
+
+    /**
+     * 起動時の準備のために検索する。
+     * <p>
+     *     キャッシュのヒット率のメトリクスとEventSubのサブスクリプション管理には記録しない。
+     * </p>
+     * @see StartupWarmup
+     */
+    public StreamerInfoResponse warmUp(String urlOrKeyword) {
+        return find(urlOrKeyword, false);
+    }
+
+    /**
+     * ヒープ上のキャッシュに格納されている配信のキーを返す。
+     * @param limit 返す最大の件数
+     */
+    public List<String> cachedKeys(int limit) {
+        return cache.asMap().keySet().stream().limit(limit).toList();
+    }
+
+    /**
+     * @param record キャッシュの統計とEventSubのサブスクリプション管理に記録するときはtrue
+     */
+    private StreamerInfoResponse find(String urlOrKeyword, boolean record) {
         if (urlOrKeyword == null || urlOrKeyword.trim().isEmpty()) {
             LOGGER.warn("empty url or keyword");
             return StreamerInfoResponse.empty();
         }
-        return cache.get(urlOrKeyword);
+        var key = cacheKey(urlOrKeyword);
+        var event = new CacheLookupEvent();
+        event.begin();
+        StreamerInfoResponse response;
+        // この検索で読み込んだ層。ヒットしたときはnull
+        String source = null;
+        try (var span = Tracer.span("cache")) {
+            try {
+                var loaded = new LoadSource();
+                if (record) {
+                    // ヒットかミスと読み込みの結果をそれぞれ1回だけ記録する
+                    response = cache.get(key, k -> loadOrPending(k, loaded));
+                } else {
+                    // 起動時の準備では統計を記録しないasMap()で参照して格納する
+                    var map = cache.asMap();
+                    response = map.get(key);
+                    if (response == null) {
+                        response = loadOrPending(key, loaded);
+                        var existing = map.putIfAbsent(key, response);
+                        if (existing != null) {
+                            response = existing;
+                        }
+                    }
+                }
+                if (response == PENDING) {
+                    // 他のサーバーが問い合わせ中。Caffeineのロックを保持したまま待たないようにローダーの外で待つ
+                    response = awaitPending(key, loaded);
+                }
+                source = loaded.value;
+            } finally {
+                commitCacheLookup(event, key, span, source);
+            }
+        }
+        if (record) {
+            notifyTwitchLookup(response);
+        }
+        return response;
+    }
+
+    private static void commitCacheLookup(CacheLookupEvent event, String key, Span span, String source) {
+        span.attribute("cache.result", source == null ? CacheLookupEvent.HIT : source);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = "streamer";
+            event.key = key;
+            event.result = source == null ? CacheLookupEvent.HIT : CacheLookupEvent.MISS;
+            event.source = source;
+            event.commit();
+        }
+    }
+
+    /**
+     * キャッシュのキーを返す。
+     * <p>
+     *     配信のURLとして認識できるときは正規化したURLを使用し、同じ配信の異なる表記で同じキャッシュを共有する。
+     * </p>
+     */
+    private static String cacheKey(String urlOrKeyword) {
+        var key = StreamKeys.canonicalize(urlOrKeyword);
+        return key == null ? urlOrKeyword : key;
+    }
+
+    /**
+     * キャッシュに存在しない配信の情報をバックグラウンドで読み込む。
+     * @param urls 正規化された配信のURL
+     */
+    public void prefetch(List<String> urls) {
+        var map = cache.asMap();
+        for (var url : urls) {
+            if (!map.containsKey(url)) {
+                try {
+                    cache.refresh(url);
+                } catch (RejectedExecutionException e) {
+                    // 事前の読み込みが詰まっているときは残りを省略する
+                    LOGGER.debug("prefetch queue is full");
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定された配信URLのストリーマーの表示名をキャッシュ上で更新する。
+     * @param streamURL 配信のURL
+     * @param name      新しい表示名
+     */
+    public void updateStreamerName(String streamURL, String name) {
+        replaceStreamerInfo(streamURL, info -> new StreamerInfo(name, info.getThumbnailURL(), info.getStreamURL()));
+        invalidateLowerTiers(streamURL);
+    }
+
+    /**
+     * 指定された配信URLのストリーマーの情報をキャッシュから削除する。
+     * <p>
+     *     次回の参照時に配信サービスから再取得される。
+     * </p>
+     * @param streamURL 配信のURL
+     */
+    public void invalidateStream(String streamURL) {
+        invalidateLowerTiers(streamURL);
+        var map = cache.asMap();
+        map.forEach((key, response) -> {
+            if (containsStream(response, streamURL)) {
+                map.remove(key, response);
+            }
+        });
+    }
+
+    private void replaceStreamerInfo(String streamURL, UnaryOperator<StreamerInfo> replacer) {
+        var map = cache.asMap();
+        map.forEach((key, response) -> {
+            if (!containsStream(response, streamURL)) {
+                return;
+            }
+            var infoArray = Arrays.stream(response.getInfoArray())
+                    .map(info -> streamURL.equalsIgnoreCase(info.getStreamURL()) ? replacer.apply(info) : info)
+                    .toArray(StreamerInfo[]::new);
+            map.replace(key, response, new StreamerInfoResponse(infoArray, response.isIdentified()));
+        });
+    }
+
+    private static boolean containsStream(StreamerInfoResponse response, String streamURL) {
+        for (var info : response.getInfoArray()) {
+            if (streamURL.equalsIgnoreCase(info.getStreamURL())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Twitchのストリーマーが参照されたことをEventSubのサブスクリプション管理に通知する
+     */
+    private void notifyTwitchLookup(StreamerInfoResponse response) {
+        if (twitchSubscriptions == null || !twitchSubscriptions.isEnabled() || !response.isIdentified()) {
+            return;
+        }
+        var streamURL = response.getInfoArray()[0].getStreamURL();
+        if (streamURL != null && streamURL.startsWith(StreamKeys.TWITCH_URL_PREFIX)) {
+            twitchSubscriptions.onLookup(streamURL.substring(StreamKeys.TWITCH_URL_PREFIX.length()));
+        }
+    }
+
+    /**
+     * 事前に取得したストリーマーの情報をキャッシュに格納する。
+     * @param responses 配信URLをキーとしたストリーマーの情報
+     */
+    public void seed(Map<String, StreamerInfoResponse> responses) {
+        cache.putAll(responses);
+        if (offHeapStore != null) {
+            responses.forEach((key, response) -> offHeapStore.put(key, response, offHeapTtl(response)));
+        }
+        if (sharedCache != null) {
+            responses.forEach(sharedCache::put);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 配信サービスへ問い合わせ中の件数を返す。
+     */
+    public int getPendingLoads() {
+        return pendingLoads.get();
+    }
+
+    /**
+     * キャッシュに存在せず配信サービスへ問い合わせた累計の件数を返す。
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * 共有キャッシュを経由して読み込む
+     * @param source 読み込んだ層を記録する
+     * @return ストリーマーの情報。他のサーバーが問い合わせ中のときはnull(キャッシュに格納されない)
+     */
+    private StreamerInfoResponse load(String key, LoadSource source) {
+        if (offHeapStore != null) {
+            var stored = offHeapStore.get(key);
+            if (stored != null) {
+                source.value = CacheLookupEvent.SOURCE_OFFHEAP;
+                return stored;
+            }
+        }
+
+        // 配信サービスに問い合わせたときはfindFirstで上書きする
+        source.value = CacheLookupEvent.SOURCE_SHARED;
+        var response = sharedCache == null
+                ? findFirst(key, source)
+                : sharedCache.tryLoad(key, k -> findFirst(k, source));
+        if (response != null && offHeapStore != null) {
+            offHeapStore.put(key, response, offHeapTtl(response));
+        }
+        return response;
     }
 
-    private StreamerInfoResponse findFirst(String urlOrKeyword) {
-        return finders.stream()
-                .map(f -> f.find(urlOrKeyword))
-                .filter(r -> !r.isEmpty())
-                .findFirst()
-                .orElse(StreamerInfoResponse.empty());
+    /**
+     * {@link #load(String, LoadSource)}の結果を返す。他のサーバーが問い合わせ中のときは{@link #PENDING}を返す。
+     */
+    private StreamerInfoResponse loadOrPending(String key, LoadSource source) {
+        var response = load(key, source);
+        return response == null ? PENDING : response;
+    }
+
+    /**
+     * 他のサーバーの問い合わせを待ち、{@link #PENDING}を読み込んだ情報で置き換える。
+     * 待てなかったときはリースを取得せずに読み込む。
+     */
+    private StreamerInfoResponse awaitPending(String key, LoadSource source) {
+        var map = cache.asMap();
+        StreamerInfoResponse response;
+        try {
+            response = sharedCache.awaitOtherNode(key);
+            if (response != null) {
+                source.value = CacheLookupEvent.SOURCE_SHARED;
+            } else {
+                response = loadDirect(key, source);
+            }
+        } catch (RuntimeException e) {
+            // 次の検索で読み込み直す
+            map.remove(key, PENDING);
+            throw e;
+        }
+        if (map.replace(key, PENDING, response)) {
+            return response;
+        }
+        // 待っている間に他のスレッドが置き換えたときはその情報を使用する
+        var current = map.get(key);
+        return current == null || current == PENDING ? response : current;
+    }
+
+    /**
+     * 他のサーバーの問い合わせを待てなかったときに、リースを取得せずに読み込む
+     */
+    private StreamerInfoResponse loadDirect(String key, LoadSource source) {
+        var response = findFirst(key, source);
+        if (sharedCache != null) {
+            sharedCache.put(key, response);
+        }
+        if (offHeapStore != null) {
+            offHeapStore.put(key, response, offHeapTtl(response));
+        }
+        return response;
+    }
+
+    private static Duration offHeapTtl(StreamerInfoResponse response) {
+        return response.isEmpty() ? OFFHEAP_EMPTY_TTL : OFFHEAP_TTL;
+    }
+
+    /**
+     * 他のサーバーが古い情報を使用しないようにヒープ外のキャッシュと共有キャッシュから削除する
+     */
+    private void invalidateLowerTiers(String streamURL) {
+        var key = StreamKeys.canonicalize(streamURL);
+        if (key == null) {
+            return;
+        }
+        if (offHeapStore != null) {
+            offHeapStore.remove(key);
+        }
+        if (sharedCache != null) {
+            sharedCache.invalidate(key);
+        }
+    }
+
+    private StreamerInfoResponse findFirst(String urlOrKeyword, LoadSource source) {
+        source.value = CacheLookupEvent.SOURCE_UPSTREAM;
+        pendingLoads.incrementAndGet();
+        try {
+            for (var i = 0; i < finders.size(); i++) {
+                var metrics = finderMetrics.get(i);
+                var start = metrics.start();
+                StreamerInfoResponse response;
+                try (var span = Tracer.span(FINDER_SPANS.get(i))) {
+                    try {
+                        response = finders.get(i).find(urlOrKeyword);
+                    } catch (RuntimeException e) {
+                        span.error(e);
+                        metrics.failure(start);
+                        throw e;
+                    }
+                }
+                metrics.success(start);
+                if (!response.isEmpty()) {
+                    return response;
+                }
+            }
+            return StreamerInfoResponse.empty();
+        } finally {
+            pendingLoads.decrementAndGet();
+        }
     }
 
     private void onEvicted(String url, StreamerInfoResponse response, RemovalCause cause) {
@@ -92,4 +499,18 @@ public class StreamerFinders implements StreamerFinder {
         }
     }
 
+    /**
+     * キャッシュにミスしたときに読み込んだ層(JFRのイベントとトレースに記録する)
+     * <p>
+     *     検索ごとに生成して読み込み関数に渡す。
+     *     Caffeineで他のスレッドの読み込みを待ったときは、キャッシュの統計と同じくヒットとして記録する。
+     *     事前の読み込みはこの検索の結果として記録されない。
+     * </p>
+     */
+    private static final class LoadSource {
+
+        String value;
+
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.enterprise.inject.Vetoed;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * プロセス内で完結する{@link SharedCacheStore}の実装。
+ * <p>
+ *     テストや単一のサーバーで動作させるときの代替として使用する。
+ *     同じインスタンスを共有する{@link SharedStreamerCache}の間でのみ値とリースが共有される。
+ * </p>
+ * <p>
+ *     値は件数を制限し、有効期限が切れたものは参照されなくても削除する。
+ * </p>
+ */
+// SharedCacheStoreProducerで生成するためCDIのBeanとしては扱わない
+@Vetoed
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    /**
+     * 保持する値の最大数
+     */
+    private static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    private final Cache<String, Entry> values;
+
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    public InMemorySharedCacheStore() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize 保持する値の最大数
+     */
+    public InMemorySharedCacheStore(long maximumSize) {
+        values = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.<String, Entry>writing((key, entry) -> entry.ttl()))
+                .build();
+    }
+
+    @Override
+    public byte[] get(String key) {
+        var entry = values.getIfPresent(key);
+        return entry == null ? null : entry.value();
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        values.put(key, new Entry(value, ttl));
+    }
+
+    @Override
+    public void remove(String key) {
+        values.invalidate(key);
+    }
+
+    @Override
+    public boolean tryAcquireLease(String key, String owner, Duration ttl) {
+        var now = System.nanoTime();
+        var lease = new Lease(owner, now + ttl.toNanos());
+        var current = leases.compute(key, (k, e) -> e == null || e.isExpired(now) ? lease : e);
+        return current == lease;
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        leases.computeIfPresent(key, (k, e) -> e.owner().equals(owner) ? null : e);
+    }
+
+    private record Entry(byte[] value, Duration ttl) {
+    }
+
+    private record Lease(String owner, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt - now <= 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import jakarta.enterprise.inject.Vetoed;
+
+import java.time.Duration;
+
+/**
+ * 共有キャッシュを使用しないときの何もしない実装。
+ */
+// SharedCacheStoreProducerで生成するためCDIのBeanとしては扱わない
+@Vetoed
+public class NoopSharedCacheStore implements SharedCacheStore {
+
+    @Override
+    public byte[] get(String key) {
+        return null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        // no-op
+    }
+
+    @Override
+    public void remove(String key) {
+        // no-op
+    }
+
+    @Override
+    public boolean tryAcquireLease(String key, String owner, Duration ttl) {
+        return true;
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        // no-op
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ストリーマーの情報をヒープ外のメモリに保持するストア。
+ * <p>
+ *     キーのハッシュ値で最大16のセグメントに分割し、セグメントごとに読み書きのロックを持つ。
+ *     読み込みは同じセグメントでも並行して行い、書き込みと世代の切り替えは同じセグメントの操作だけを待たせる。
+ * </p>
+ * <p>
+ *     セグメントは値を{@link StreamerInfoCodec}で変換したバイト列と有効期限を2つの世代のダイレクトバッファに追記する。
+ *     現在の世代が一杯になると古い世代を破棄して新しい世代として再利用するため、
+ *     古く書き込まれたものから順に削除される。
+ * </p>
+ * <p>
+ *     索引はオープンアドレス法の<code>long[]</code>で、キーのハッシュ値と世代、オフセットを1つの値に格納する。
+ *     エントリごとにオブジェクトを生成しないため、数百万件を保持してもGCの負荷はほとんど増えない。
+ * </p>
+ * <p>
+ *     ダイレクトバッファの合計が<code>-XX:MaxDirectMemorySize</code>を超えないように容量を指定すること。
+ * </p>
+ */
+public class OffHeapStreamerInfoStore {
+
+    /**
+     * 1世代あたりの最大の容量(オフセットを31ビットで表すため)
+     */
+    private static final int MAX_GENERATION_CAPACITY = 1 << 30;
+
+    private static final int MIN_GENERATION_CAPACITY = 1024;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * セグメントに分割するときの1セグメントあたりの最小の容量
+     */
+    private static final long MIN_SEGMENT_CAPACITY = 64 << 10;
+
+    private static final int MIN_INDEX_CAPACITY = 1 << 10;
+
+    private static final long EMPTY = 0L;
+
+    private static final long TOMBSTONE = -1L;
+
+    private static final int GENERATION_BIT = 1 << 31;
+
+    private final Segment[] segments;
+
+    /**
+     * @param capacityBytes すべてのセグメントの2つの世代の合計の容量
+     */
+    public OffHeapStreamerInfoStore(long capacityBytes) {
+        var count = 1;
+        while (count < MAX_SEGMENTS && MIN_SEGMENT_CAPACITY <= capacityBytes / (count * 2L)) {
+            count *= 2;
+        }
+        var capacity = (int) Math.min(MAX_GENERATION_CAPACITY, capacityBytes / count / 2);
+        if (capacity < MIN_GENERATION_CAPACITY) {
+            throw new IllegalArgumentException("capacity is too small: " + capacityBytes);
+        }
+        segments = new Segment[count];
+        for (var i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * ストリーマーの情報を取得する。
+     * @param key キー
+     * @return ストリーマーの情報。存在しないか有効期限が切れているときはnull
+     */
+    public StreamerInfoResponse get(String key) {
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        var hash = hash(keyBytes);
+        return segmentFor(hash).get(keyBytes, hash);
+    }
+
+    /**
+     * ストリーマーの情報を保存する。
+     * @param key      キー
+     * @param response ストリーマーの情報
+     * @param ttl      有効期限
+     */
+    public void put(String key, StreamerInfoResponse response, Duration ttl) {
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        var hash = hash(keyBytes);
+        var value = StreamerInfoCodec.encode(response);
+        segmentFor(hash).put(keyBytes, hash, value, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    /**
+     * ストリーマーの情報を削除する。
+     * @param key キー
+     */
+    public void remove(String key) {
+        var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        var hash = hash(keyBytes);
+        segmentFor(hash).remove(keyBytes, hash);
+    }
+
+    /**
+     * 保持しているエントリの数を返す。
+     */
+    public int size() {
+        var size = 0;
+        for (var segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 書き込み済みのバイト数を返す。
+     */
+    public long usedBytes() {
+        var used = 0L;
+        for (var segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    private Segment segmentFor(int hash) {
+        // 索引の位置には下位のビットを使用するため、セグメントは上位のビットで選択する
+        return segments[(hash * 0x9E3779B9 >>> 24) & (segments.length - 1)];
+    }
+
+    private static long entry(int hash, int generation, int offset) {
+        var location = (generation == 1 ? GENERATION_BIT : 0) | (offset + 1);
+        return ((long) hash << 32) | (location & 0xFFFFFFFFL);
+    }
+
+    private static int generationOf(long entry) {
+        return ((int) entry & GENERATION_BIT) != 0 ? 1 : 0;
+    }
+
+    private static int offsetOf(long entry) {
+        return ((int) entry & ~GENERATION_BIT) - 1;
+    }
+
+    private static int hash(byte[] keyBytes) {
+        return Arrays.hashCode(keyBytes);
+    }
+
+    private static int mix(int hash) {
+        var h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 2つの世代のダイレクトバッファと索引を持つセグメント。
+     * <p>
+     *     読み込みは絶対位置の読み込みだけを使用するため、読み込みのロックで並行して実行できる。
+     * </p>
+     */
+    private static final class Segment {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final ByteBuffer[] generations = new ByteBuffer[2];
+
+        private final int generationCapacity;
+
+        private int current = 0;
+
+        // 上位32ビット: キーのハッシュ値、下位32ビット: 世代(1ビット)とオフセット + 1(31ビット)
+        private long[] index = new long[MIN_INDEX_CAPACITY];
+
+        // 有効なエントリの数
+        private int size = 0;
+
+        // 削除済みを含む使用中のスロットの数
+        private int occupied = 0;
+
+        Segment(int generationCapacity) {
+            this.generationCapacity = generationCapacity;
+            generations[0] = ByteBuffer.allocateDirect(generationCapacity);
+            generations[1] = ByteBuffer.allocateDirect(generationCapacity);
+        }
+
+        StreamerInfoResponse get(byte[] keyBytes, int hash) {
+            byte[] value;
+            var readLock = lock.readLock();
+            readLock.lock();
+            try {
+                var slot = find(keyBytes, hash);
+                if (slot < 0) {
+                    return null;
+                }
+
+                var entry = index[slot];
+                var buffer = generations[generationOf(entry)];
+                var expiresOffset = offsetOf(entry) + Integer.BYTES + keyBytes.length;
+                if (buffer.getLong(expiresOffset) <= System.currentTimeMillis()) {
+                    value = null;
+                } else {
+                    var valueOffset = expiresOffset + Long.BYTES;
+                    value = new byte[buffer.getInt(valueOffset)];
+                    buffer.get(valueOffset + Integer.BYTES, value);
+                }
+            } finally {
+                readLock.unlock();
+            }
+
+            if (value == null) {
+                removeExpired(keyBytes, hash);
+                return null;
+            }
+            // 変換はロックの外で行う
+            return StreamerInfoCodec.decode(value);
+        }
+
+        private void removeExpired(byte[] keyBytes, int hash) {
+            var writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                // ロックを取り直す間に上書きされていれば削除しない
+                var slot = find(keyBytes, hash);
+                if (slot >= 0 && expiresAt(index[slot], keyBytes.length) <= System.currentTimeMillis()) {
+                    index[slot] = TOMBSTONE;
+                    size--;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void put(byte[] keyBytes, int hash, byte[] value, long expiresAt) {
+            var recordSize = Integer.BYTES * 2 + Long.BYTES + keyBytes.length + value.length;
+            if (generationCapacity / 4 < recordSize) {
+                return;
+            }
+
+            var writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                if (generations[current].remaining() < recordSize) {
+                    nextGeneration();
+                }
+
+                var existing = find(keyBytes, hash);
+                if (existing >= 0) {
+                    index[existing] = TOMBSTONE;
+                    size--;
+                }
+
+                var buffer = generations[current];
+                var offset = buffer.position();
+                buffer.putInt(keyBytes.length)
+                        .put(keyBytes)
+                        .putLong(expiresAt)
+                        .putInt(value.length)
+                        .put(value);
+
+                insert(entry(hash, current, offset));
+                size++;
+
+                if (index.length < (occupied + 1) * 2) {
+                    rehash(size * 4, -1);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void remove(byte[] keyBytes, int hash) {
+            var writeLock = lock.writeLock();
+            writeLock.lock();
+            try {
+                var slot = find(keyBytes, hash);
+                if (slot >= 0) {
+                    index[slot] = TOMBSTONE;
+                    size--;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        int size() {
+            var readLock = lock.readLock();
+            readLock.lock();
+            try {
+                return size;
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        long usedBytes() {
+            var readLock = lock.readLock();
+            readLock.lock();
+            try {
+                return (long) generations[0].position() + generations[1].position();
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private long expiresAt(long entry, int keyLength) {
+            return generations[generationOf(entry)].getLong(offsetOf(entry) + Integer.BYTES + keyLength);
+        }
+
+        private int find(byte[] keyBytes, int hash) {
+            var mask = index.length - 1;
+            var i = mix(hash) & mask;
+            while (true) {
+                var entry = index[i];
+                if (entry == EMPTY) {
+                    return -1;
+                }
+                if (entry != TOMBSTONE && (int) (entry >>> 32) == hash && keyEquals(entry, keyBytes)) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private void insert(long entry) {
+            var mask = index.length - 1;
+            var i = mix((int) (entry >>> 32)) & mask;
+            while (index[i] != EMPTY && index[i] != TOMBSTONE) {
+                i = (i + 1) & mask;
+            }
+            if (index[i] == EMPTY) {
+                occupied++;
+            }
+            index[i] = entry;
+        }
+
+        private boolean keyEquals(long entry, byte[] keyBytes) {
+            var buffer = generations[generationOf(entry)];
+            var offset = offsetOf(entry);
+            if (buffer.getInt(offset) != keyBytes.length) {
+                return false;
+            }
+            var start = offset + Integer.BYTES;
+            for (var i = 0; i < keyBytes.length; i++) {
+                if (buffer.get(start + i) != keyBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 古い世代を破棄して新しい世代として使用する。
+         * 古い世代のエントリと削除済みのスロットは索引を作り直すときに1回の走査で取り除く。
+         */
+        private void nextGeneration() {
+            var next = 1 - current;
+            rehash(size * 4, next);
+            generations[next].clear();
+            current = next;
+        }
+
+        /**
+         * 索引を作り直す。
+         * @param capacity       索引の容量の目安
+         * @param dropGeneration 取り除く世代。取り除かないときは-1
+         */
+        private void rehash(int capacity, int dropGeneration) {
+            var old = index;
+            index = new long[Math.max(MIN_INDEX_CAPACITY, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1)];
+            occupied = 0;
+            size = 0;
+            for (var entry : old) {
+                if (entry != EMPTY && entry != TOMBSTONE && generationOf(entry) != dropGeneration) {
+                    insert(entry);
+                    size++;
+                }
+            }
+        }
+
+    }
+
+}
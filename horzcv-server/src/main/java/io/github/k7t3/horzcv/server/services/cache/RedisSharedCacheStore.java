@@ -0,0 +1,95 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import jakarta.enterprise.inject.Vetoed;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.SetParams;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redisプロトコルで通信する{@link SharedCacheStore}の実装。
+ * <p>
+ *     値は<code>SET PX</code>で有効期限付きで保存し、リースは<code>SET NX PX</code>で取得する。
+ *     リースの解放は所有者が一致するときだけ削除するスクリプトで行う。
+ * </p>
+ */
+// SharedCacheStoreProducerで生成するためCDIのBeanとしては扱わない
+@Vetoed
+public class RedisSharedCacheStore implements SharedCacheStore {
+
+    private static final String VALUE_PREFIX = "horzcv:v:";
+
+    private static final String LEASE_PREFIX = "horzcv:l:";
+
+    // 所有者が一致するときだけリースを削除するスクリプト
+    private static final String RELEASE_SCRIPT = """
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0
+            """;
+
+    private final JedisPooled jedis;
+
+    /**
+     * @param uri 接続先(例: redis://localhost:6379)
+     */
+    public RedisSharedCacheStore(URI uri) {
+        this.jedis = new JedisPooled(uri);
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return jedis.get(valueKey(key));
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        jedis.set(valueKey(key), value, SetParams.setParams().px(ttl.toMillis()));
+    }
+
+    @Override
+    public void remove(String key) {
+        jedis.del(valueKey(key));
+    }
+
+    @Override
+    public boolean tryAcquireLease(String key, String owner, Duration ttl) {
+        var result = jedis.set(LEASE_PREFIX + key, owner, SetParams.setParams().nx().px(ttl.toMillis()));
+        return "OK".equals(result);
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        jedis.eval(RELEASE_SCRIPT, List.of(LEASE_PREFIX + key), List.of(owner));
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+
+    private static byte[] valueKey(String key) {
+        return (VALUE_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
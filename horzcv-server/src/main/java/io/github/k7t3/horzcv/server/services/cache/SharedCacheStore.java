@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import java.time.Duration;
+
+/**
+ * 複数のサーバーで共有するキャッシュの保存先の定義。
+ * <p>
+ *     値はバイト列として保存し、有効期限が切れると自動的に削除される。
+ *     同じキーの読み込みを複数のサーバーで重複させないため、短時間のリースを取得できる。
+ * </p>
+ */
+public interface SharedCacheStore extends AutoCloseable {
+
+    /**
+     * 値を取得する。
+     * @param key キー
+     * @return 値。存在しないときはnull
+     */
+    byte[] get(String key);
+
+    /**
+     * 値を保存する。
+     * @param key   キー
+     * @param value 値
+     * @param ttl   有効期限
+     */
+    void put(String key, byte[] value, Duration ttl);
+
+    /**
+     * 値を削除する。
+     * @param key キー
+     */
+    void remove(String key);
+
+    /**
+     * キーに対するリースを取得する。
+     * <p>
+     *     他の所有者がリースを保持しているときは取得できない。
+     *     リースは有効期限が切れると自動的に解放される。
+     * </p>
+     * @param key   キー
+     * @param owner 所有者を識別する文字列
+     * @param ttl   リースの有効期限
+     * @return リースを取得できたときはtrue
+     */
+    boolean tryAcquireLease(String key, String owner, Duration ttl);
+
+    /**
+     * 取得したリースを解放する。
+     * <p>
+     *     他の所有者のリースは解放しない。
+     * </p>
+     * @param key   キー
+     * @param owner 所有者を識別する文字列
+     */
+    void releaseLease(String key, String owner);
+
+    /**
+     * 共有キャッシュが有効かを返す。
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    default void close() {
+    }
+
+}
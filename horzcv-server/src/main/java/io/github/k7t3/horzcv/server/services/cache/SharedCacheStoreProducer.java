@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+
+@ApplicationScoped
+public class SharedCacheStoreProducer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedCacheStoreProducer.class);
+
+    /**
+     * 共有キャッシュの接続先
+     * <ul>
+     *     <li>redis://host:port (Redisプロトコル)</li>
+     *     <li>memory (プロセス内)</li>
+     *     <li>未設定のときは使用しない</li>
+     * </ul>
+     */
+    private static final String SHARED_CACHE_URL = "shared_cache_url";
+
+    @Produces
+    @ApplicationScoped
+    public SharedCacheStore getStore() {
+        var url = ServerConfig.get(SHARED_CACHE_URL);
+        if (url == null) {
+            return new NoopSharedCacheStore();
+        }
+        if (url.equals("memory")) {
+            LOGGER.info("shared cache: in-memory");
+            return new InMemorySharedCacheStore();
+        }
+
+        var uri = URI.create(url);
+        LOGGER.info("shared cache: {}://{}:{}", uri.getScheme(), uri.getHost(), uri.getPort());
+        return new RedisSharedCacheStore(uri);
+    }
+
+    public void close(@Disposes SharedCacheStore store) {
+        store.close();
+    }
+
+}
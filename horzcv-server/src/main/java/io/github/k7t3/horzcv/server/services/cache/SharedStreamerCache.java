@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * 複数のサーバーで共有するストリーマーの情報のキャッシュ(L2)。
+ * <p>
+ *     各サーバーのメモリ上のキャッシュに存在しないときに参照する。
+ *     共有キャッシュにも存在しないときはリースを取得したサーバーだけが配信サービスへ問い合わせ、
+ *     他のサーバーは結果が共有キャッシュに保存されるまで待機する。
+ * </p>
+ * <p>
+ *     共有キャッシュで発生したエラーは検索を妨げないように、配信サービスへ直接問い合わせて回避する。
+ * </p>
+ */
+@ApplicationScoped
+public class SharedStreamerCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedStreamerCache.class);
+
+    /**
+     * ストリーマーの情報を保持する期間
+     */
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    /**
+     * 見つからなかった結果を保持する期間
+     */
+    private static final Duration EMPTY_TTL = Duration.ofMinutes(1);
+
+    /**
+     * リースの有効期限。配信サービスの応答がこれより遅いときは他のサーバーも問い合わせる
+     */
+    private static final Duration LEASE_TTL = Duration.ofSeconds(5);
+
+    /**
+     * 他のサーバーの結果を確認する間隔
+     */
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    // このサーバーを識別する文字列
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private SharedCacheStore store;
+
+    /**
+     * CDIのプロキシ用のコンストラクタ
+     */
+    protected SharedStreamerCache() {
+    }
+
+    @Inject
+    public SharedStreamerCache(SharedCacheStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 共有キャッシュから取得し、存在しないときは読み込んで共有キャッシュに保存する。
+     * <p>
+     *     他のサーバーが問い合わせ中のときはその結果を待つ。
+     *     待機中はスレッドを占有するため、キャッシュのローダーなどロックを保持している間は
+     *     {@link #tryLoad(String, Function)}を使用すること。
+     * </p>
+     * @param key    キー
+     * @param loader 配信サービスへ問い合わせる関数
+     * @return ストリーマーの情報
+     */
+    public StreamerInfoResponse load(String key, Function<String, StreamerInfoResponse> loader) {
+        var response = tryLoad(key, loader);
+        if (response != null) {
+            return response;
+        }
+
+        // 他のサーバーが問い合わせ中のときはその結果を待つ
+        var waited = awaitOtherNode(key);
+        if (waited != null) {
+            return waited;
+        }
+
+        LOGGER.debug("shared cache lease timed out: {}", key);
+        response = loader.apply(key);
+        put(key, response);
+        return response;
+    }
+
+    /**
+     * 共有キャッシュから取得し、存在しないときはリースを取得できた場合にだけ読み込んで共有キャッシュに保存する。
+     * 他のサーバーが問い合わせ中でも待機しない。
+     * @param key    キー
+     * @param loader 配信サービスへ問い合わせる関数
+     * @return ストリーマーの情報。他のサーバーが問い合わせ中のときはnull
+     * @see #awaitOtherNode(String)
+     */
+    public StreamerInfoResponse tryLoad(String key, Function<String, StreamerInfoResponse> loader) {
+        if (!store.isEnabled()) {
+            return loader.apply(key);
+        }
+
+        var cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        var owner = nodeId + ":" + Thread.currentThread().threadId();
+        if (!tryAcquireLease(key, owner)) {
+            return null;
+        }
+        try {
+            var response = loader.apply(key);
+            put(key, response);
+            return response;
+        } finally {
+            releaseLease(key, owner);
+        }
+    }
+
+    /**
+     * 他のサーバーが問い合わせた結果が共有キャッシュに保存されるまで待つ。
+     * <p>
+     *     リースの有効期限まで一定の間隔で確認するため、ロックを保持していないスレッドから呼び出すこと。
+     * </p>
+     * @param key キー
+     * @return ストリーマーの情報。リースの有効期限までに保存されなかったときはnull
+     */
+    public StreamerInfoResponse awaitOtherNode(String key) {
+        var deadline = System.nanoTime() + LEASE_TTL.toNanos();
+        try {
+            while (System.nanoTime() - deadline < 0) {
+                Thread.sleep(POLL_INTERVAL);
+                var cached = get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * 共有キャッシュに保存する。
+     */
+    public void put(String key, StreamerInfoResponse response) {
+        if (!store.isEnabled()) {
+            return;
+        }
+        try {
+            store.put(key, StreamerInfoCodec.encode(response), response.isEmpty() ? EMPTY_TTL : TTL);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to write shared cache: {}", key, e);
+        }
+    }
+
+    /**
+     * 共有キャッシュから削除する。
+     */
+    public void invalidate(String key) {
+        if (!store.isEnabled()) {
+            return;
+        }
+        try {
+            store.remove(key);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to invalidate shared cache: {}", key, e);
+        }
+    }
+
+    private StreamerInfoResponse get(String key) {
+        try {
+            return StreamerInfoCodec.decode(store.get(key));
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to read shared cache: {}", key, e);
+            return null;
+        }
+    }
+
+    private boolean tryAcquireLease(String key, String owner) {
+        try {
+            return store.tryAcquireLease(key, owner, LEASE_TTL);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to acquire shared cache lease: {}", key, e);
+            return true;
+        }
+    }
+
+    private void releaseLease(String key, String owner) {
+        try {
+            store.releaseLease(key, owner);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to release shared cache lease: {}", key, e);
+        }
+    }
+
+}
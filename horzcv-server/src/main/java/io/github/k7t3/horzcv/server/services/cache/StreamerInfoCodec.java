@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link StreamerInfoResponse}をキャッシュに保存するためのバイナリ形式に変換するクラス。
+ * <pre>
+ *     version(1byte) flags(1byte) count(varint)
+ *     count * { name(string) thumbnailURL(url) streamURL(url) }
+ *     string = length + 1(varint, 0はnull) UTF-8
+ *     url    = prefix(varint, 0はnull, 1は接頭辞なし, 2以降は{@link #URL_PREFIXES}の添字 + 2) 残りのstring
+ * </pre>
+ * <p>
+ *     URLは配信サービスごとに長い共通の接頭辞を持つため、既知の接頭辞を1バイトに置き換える。
+ *     接頭辞の一覧は保存済みのデータと互換性を保つため、末尾にのみ追加すること。
+ * </p>
+ */
+public final class StreamerInfoCodec {
+
+    /**
+     * URLの接頭辞を圧縮しない形式
+     */
+    private static final byte VERSION_PLAIN = 1;
+
+    private static final byte VERSION = 2;
+
+    // 既知のURLの接頭辞(前方一致で先に見つかったものを使用するため長いものから並べる)
+    private static final String[] URL_PREFIXES = {
+            "https://static-cdn.jtvnw.net/jtv_user_pictures/",
+            "https://static-cdn.jtvnw.net/",
+            "https://yt3.ggpht.com/",
+            "https://yt3.googleusercontent.com/",
+            "https://www.twitch.tv/",
+            "https://www.youtube.com/watch?v=",
+            "https://www.youtube.com/live/",
+            "https://",
+    };
+
+    private static final int FLAG_IDENTIFIED = 1;
+
+    private StreamerInfoCodec() {
+    }
+
+    public static byte[] encode(StreamerInfoResponse response) {
+        var infoArray = response.getInfoArray();
+        var out = new ByteArrayOutputStream(16 + infoArray.length * 128);
+        out.write(VERSION);
+        out.write(response.isIdentified() ? FLAG_IDENTIFIED : 0);
+        writeVarInt(out, infoArray.length);
+        for (var info : infoArray) {
+            writeString(out, info.getName());
+            writeURL(out, info.getThumbnailURL());
+            writeURL(out, info.getStreamURL());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * バイト列から復元する。
+     * <p>
+     *     共有キャッシュの値は他のプロセスが書き込むため、長さや件数は残りのバイト数で検証してから配列を確保する。
+     * </p>
+     * @param bytes 変換されたバイト列
+     * @return 復元したレスポンス。形式が異なるか壊れているときはnull
+     */
+    public static StreamerInfoResponse decode(byte[] bytes) {
+        if (bytes == null || bytes.length < 3) {
+            return null;
+        }
+
+        var version = bytes[0];
+        if (version != VERSION && version != VERSION_PLAIN) {
+            return null;
+        }
+
+        try {
+            var reader = new Reader(bytes);
+            reader.position = 1;
+            var flags = reader.readByte();
+            var count = reader.readVarInt();
+            // 1件あたり少なくとも3バイト(すべてnull)を使用する
+            if (reader.remaining() / 3 < count) {
+                return null;
+            }
+            var infoArray = new StreamerInfo[count];
+            for (var i = 0; i < count; i++) {
+                var name = reader.readString();
+                var thumbnailURL = version == VERSION ? reader.readURL() : reader.readString();
+                var streamURL = version == VERSION ? reader.readURL() : reader.readString();
+                infoArray[i] = new StreamerInfo(name, thumbnailURL, streamURL);
+            }
+            return new StreamerInfoResponse(infoArray, (flags & FLAG_IDENTIFIED) != 0);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeURL(ByteArrayOutputStream out, String url) {
+        if (url == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        for (var i = 0; i < URL_PREFIXES.length; i++) {
+            if (url.startsWith(URL_PREFIXES[i])) {
+                writeVarInt(out, i + 2);
+                writeString(out, url.substring(URL_PREFIXES[i].length()));
+                return;
+            }
+        }
+        writeVarInt(out, 1);
+        writeString(out, url);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static class Reader {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int remaining() {
+            return bytes.length - position;
+        }
+
+        int readByte() {
+            if (remaining() < 1) {
+                throw new IllegalArgumentException("unexpected end of data");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        int readVarInt() {
+            var value = 0;
+            var shift = 0;
+            int b;
+            do {
+                if (28 < shift) {
+                    throw new IllegalArgumentException("varint is too long");
+                }
+                b = readByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (value < 0) {
+                throw new IllegalArgumentException("negative varint: " + value);
+            }
+            return value;
+        }
+
+        String readString() {
+            var length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            if (remaining() < length - 1) {
+                throw new IllegalArgumentException("string exceeds data: " + length);
+            }
+            var value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        String readURL() {
+            var prefix = readVarInt();
+            if (prefix == 0) {
+                return null;
+            }
+            if (URL_PREFIXES.length + 1 < prefix) {
+                throw new IllegalArgumentException("unknown URL prefix: " + prefix);
+            }
+            var rest = readString();
+            return prefix == 1 ? rest : URL_PREFIXES[prefix - 2] + rest;
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.twitch;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+
+/**
+ * Twitch EventSubのWebhookに付与される署名を検証するクラス。
+ * <p>
+ *     署名は<code>Twitch-Eventsub-Message-Id</code>、<code>Twitch-Eventsub-Message-Timestamp</code>、
+ *     リクエストボディを連結したバイト列のHMAC-SHA256で、<code>sha256=</code>に続く16進数で送信される。
+ * </p>
+ * @see <a href="https://dev.twitch.tv/docs/eventsub/handling-webhook-events/#verifying-the-event-message">Verifying the event message</a>
+ */
+public class EventSubSignature {
+
+    public static final String HEADER_MESSAGE_ID = "Twitch-Eventsub-Message-Id";
+    public static final String HEADER_MESSAGE_TIMESTAMP = "Twitch-Eventsub-Message-Timestamp";
+    public static final String HEADER_MESSAGE_SIGNATURE = "Twitch-Eventsub-Message-Signature";
+    public static final String HEADER_MESSAGE_TYPE = "Twitch-Eventsub-Message-Type";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String PREFIX = "sha256=";
+
+    /**
+     * 受け入れるタイムスタンプの最大のずれ(リプレイ攻撃の対策)
+     */
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+    private final SecretKeySpec key;
+
+    /**
+     * @param secret サブスクリプションの作成時に指定したシークレット
+     */
+    public EventSubSignature(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("EventSub secret must not be empty");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    /**
+     * メッセージに署名する。
+     * @param messageId メッセージID
+     * @param timestamp タイムスタンプ
+     * @param body      リクエストボディ
+     * @return <code>sha256=</code>から始まる署名
+     */
+    public String sign(String messageId, String timestamp, byte[] body) {
+        try {
+            var mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(messageId.getBytes(StandardCharsets.UTF_8));
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+            mac.update(body);
+            return PREFIX + HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * メッセージの署名とタイムスタンプを検証する。
+     * @param messageId メッセージID
+     * @param timestamp タイムスタンプ(RFC3339)
+     * @param body      リクエストボディ
+     * @param signature 受信した署名
+     * @param now       現在時刻
+     * @return 正当なメッセージであればtrue
+     */
+    public boolean verify(String messageId, String timestamp, byte[] body, String signature, Instant now) {
+        if (messageId == null || timestamp == null || signature == null || body == null) {
+            return false;
+        }
+
+        try {
+            var sentAt = Instant.parse(timestamp);
+            if (Duration.between(sentAt, now).abs().compareTo(MAX_AGE) > 0) {
+                return false;
+            }
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+
+        var expected = sign(messageId, timestamp, body).getBytes(StandardCharsets.US_ASCII);
+        var actual = signature.getBytes(StandardCharsets.US_ASCII);
+
+        // タイミング攻撃を避けるため定数時間で比較する
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+}
@@ -16,8 +16,10 @@
 
 package io.github.k7t3.horzcv.server.services.twitch;
 
-import com.github.twitch4j.TwitchClient;
-import com.github.twitch4j.TwitchClientBuilder;
+import com.github.philippheuer.credentialmanager.domain.OAuth2Credential;
+import com.github.twitch4j.helix.TwitchHelix;
+import com.github.twitch4j.helix.TwitchHelixBuilder;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 
@@ -27,18 +29,33 @@ public class TwitchClientProducer {
     private static final String CLIENT_ID = "twitch_client_id";
     private static final String ACCESS_TOKEN = "twitch_client_secret";
 
-    private TwitchClient client;
+    /**
+     * Helix APIのURL。負荷試験などで代替のサーバーを使用するときに指定する
+     */
+    private static final String HELIX_BASE_URL = "twitch_helix_base_url";
+
+    /**
+     * アプリのアクセストークン。指定したときはクライアントシークレットによるトークンの取得を省略する
+     */
+    private static final String APP_ACCESS_TOKEN = "twitch_app_access_token";
+
+    private TwitchHelix helix;
 
     @Produces
-    public TwitchClient getClient() {
-        if (client == null) {
-            client = TwitchClientBuilder.builder()
-                    .withClientId(System.getenv(CLIENT_ID))
-                    .withClientSecret(System.getenv(ACCESS_TOKEN))
-                    .withEnableHelix(true)
-                    .build();
+    public synchronized TwitchHelix getHelix() {
+        if (helix == null) {
+            var builder = TwitchHelixBuilder.builder()
+                    .withClientId(ServerConfig.get(CLIENT_ID))
+                    .withClientSecret(ServerConfig.get(ACCESS_TOKEN))
+                    .withBaseUrl(ServerConfig.get(HELIX_BASE_URL, TwitchHelixBuilder.BASE_URL));
+
+            var token = ServerConfig.get(APP_ACCESS_TOKEN);
+            if (token != null) {
+                builder = builder.withDefaultAuthToken(new OAuth2Credential("twitch", token));
+            }
+            helix = builder.build();
         }
-        return client;
+        return helix;
     }
 
 }
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.twitch;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.twitch4j.eventsub.EventSubSubscription;
+import com.github.twitch4j.eventsub.EventSubSubscriptionStatus;
+import com.github.twitch4j.eventsub.EventSubTransport;
+import com.github.twitch4j.eventsub.EventSubTransportMethod;
+import com.github.twitch4j.eventsub.condition.ChannelEventSubCondition;
+import com.github.twitch4j.eventsub.condition.UserUpdateCondition;
+import com.github.twitch4j.eventsub.subscriptions.SubscriptionTypes;
+import com.github.twitch4j.helix.TwitchHelix;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 頻繁に参照されるTwitchチャンネルのEventSubサブスクリプションを管理するクラス。
+ * <p>
+ *     一定回数以上参照されたチャンネルに対して<code>channel.update</code>と<code>user.update</code>の
+ *     Webhookサブスクリプションを作成する。通知は{@code TwitchEventSubServlet}が受信し、
+ *     キャッシュを更新する。
+ * </p>
+ * <ul>
+ *     <li>起動時に同じコールバックURLの既存のサブスクリプションを取得して引き継ぐ(再起動で重複して作成しない)</li>
+ *     <li>サブスクリプションIDは種類ごとに記録し、作成できなかった種類だけを後で作成し直す</li>
+ *     <li>作成に失敗したチャンネルは失敗した回数に応じて待ってから再試行し、存在しないチャンネルは長く待つ</li>
+ *     <li>一定の時間参照されなかったチャンネルのサブスクリプションは削除する</li>
+ *     <li>上限に達したときは最も長く参照されていないチャンネルのサブスクリプションを削除して入れ替える</li>
+ * </ul>
+ * <p>
+ *     サブスクリプションの作成と削除は専用のスレッドで順に行う。
+ *     コールバックURLとシークレットが設定されていないときは何もしない。
+ * </p>
+ */
+@ApplicationScoped
+public class TwitchEventSubscriptions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TwitchEventSubscriptions.class);
+
+    /**
+     * WebhookのコールバックURL(例: https://example.com/horzcv/api/twitch/eventsub)
+     */
+    private static final String CALLBACK = "twitch_eventsub_callback";
+
+    /**
+     * Webhookの署名に使用するシークレット(10～100文字)
+     */
+    private static final String SECRET = "twitch_eventsub_secret";
+
+    /**
+     * サブスクリプションを作成するチャンネルの最大数
+     */
+    private static final String MAX_CHANNELS = "twitch_eventsub_max_channels";
+
+    /**
+     * 参照されなくなってからサブスクリプションを削除するまでの時間(分)
+     */
+    private static final String IDLE_MINUTES = "twitch_eventsub_idle_minutes";
+
+    /**
+     * サブスクリプションを作成するまでに必要な参照回数
+     */
+    private static final int HOT_THRESHOLD = 3;
+
+    /**
+     * 上限に達したとき、入れ替えの対象にするまでに参照されていない時間
+     */
+    private static final long EVICT_MIN_IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * 作成に失敗したときに最初に待つ時間(失敗するたびに2倍にする)
+     */
+    private static final long BACKOFF_BASE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * 作成に失敗したとき、または存在しないチャンネルに待つ最大の時間
+     */
+    private static final long BACKOFF_MAX_NANOS = TimeUnit.HOURS.toNanos(6);
+
+    /**
+     * 参照されなくなったサブスクリプションを確認する間隔(分)
+     */
+    private static final long SWEEP_INTERVAL_MINUTES = 10;
+
+    /**
+     * 既存のサブスクリプションを取得するときの1ページの件数
+     */
+    private static final int PAGE_SIZE = 100;
+
+    static final String CHANNEL_UPDATE = "channel.update";
+
+    static final String USER_UPDATE = "user.update";
+
+    // チャンネルごとに作成するサブスクリプションの種類
+    private static final List<String> TYPES = List.of(CHANNEL_UPDATE, USER_UPDATE);
+
+    // ログイン名ごとの参照回数
+    private final Cache<String, AtomicInteger> lookups = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    // ログイン名ごとの作成に失敗したときの再試行の予定
+    private final Cache<String, Backoff> failures = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofNanos(BACKOFF_MAX_NANOS * 2))
+            .build();
+
+    // ログイン名に対応するサブスクリプション
+    private final Map<String, Channel> subscriptions = new ConcurrentHashMap<>();
+
+    // サブスクリプションIDに対応するログイン名
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+
+    // 作成を予約しているログイン名
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    private TwitchHelix helix;
+
+    private String callback;
+    private String secret;
+    private int maxChannels;
+    private long idleNanos;
+    private LongSupplier clock = System::nanoTime;
+    private EventSubTransport transport;
+    private Executor executor;
+    private ScheduledExecutorService scheduler;
+
+    public TwitchEventSubscriptions() {
+    }
+
+    /**
+     * テストのためのコンストラクタ。作成と削除は<code>executor</code>で実行する。
+     */
+    TwitchEventSubscriptions(TwitchHelix helix, String callback, String secret, int maxChannels,
+                             long idleNanos, LongSupplier clock, Executor executor) {
+        this.helix = helix;
+        this.callback = callback;
+        this.secret = secret;
+        this.maxChannels = maxChannels;
+        this.idleNanos = idleNanos;
+        this.clock = clock;
+        this.transport = transport(callback, secret);
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        callback = ServerConfig.get(CALLBACK);
+        secret = ServerConfig.get(SECRET);
+        maxChannels = ServerConfig.getInt(MAX_CHANNELS, 100);
+        idleNanos = TimeUnit.MINUTES.toNanos(ServerConfig.getLong(IDLE_MINUTES, 360));
+
+        if (isEnabled()) {
+            LOGGER.info("Twitch EventSub enabled: callback={}, maxChannels={}", callback, maxChannels);
+            transport = transport(callback, secret);
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                    .name("twitch-eventsub")
+                    .daemon(true)
+                    .factory());
+            executor = scheduler;
+            // 作成の予約より先に既存のサブスクリプションを引き継ぐ
+            scheduler.execute(this::synchronize);
+            scheduler.scheduleWithFixedDelay(this::sweep,
+                    SWEEP_INTERVAL_MINUTES, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static EventSubTransport transport(String callback, String secret) {
+        return EventSubTransport.builder()
+                .method(EventSubTransportMethod.WEBHOOK)
+                .callback(callback)
+                .secret(secret)
+                .build();
+    }
+
+    /**
+     * EventSubが有効かを返す。
+     */
+    public boolean isEnabled() {
+        return callback != null && secret != null;
+    }
+
+    /**
+     * Webhookの署名に使用するシークレットを返す。
+     * @return シークレット。EventSubが無効のときはnull
+     */
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * チャンネルが参照されたことを通知する。
+     * <p>
+     *     参照回数がしきい値に達したとき、バックグラウンドでサブスクリプションを作成する。
+     * </p>
+     * @param login ログイン名
+     */
+    public void onLookup(String login) {
+        if (!isEnabled() || login == null || login.isEmpty()) {
+            return;
+        }
+
+        var key = login.toLowerCase(Locale.ROOT);
+        var now = clock.getAsLong();
+        var channel = subscriptions.get(key);
+        if (channel != null) {
+            channel.lastLookup = now;
+            if (channel.isComplete()) {
+                return;
+            }
+        } else {
+            var count = lookups.get(key, k -> new AtomicInteger()).incrementAndGet();
+            if (count < HOT_THRESHOLD) {
+                return;
+            }
+        }
+
+        var backoff = failures.getIfPresent(key);
+        if (backoff != null && now - backoff.retryAt() < 0) {
+            return;
+        }
+
+        if (pending.add(key)) {
+            executor.execute(() -> {
+                try {
+                    subscribe(key);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * サブスクリプションが取り消されたことを通知する。
+     * <p>
+     *     取り消された種類だけを削除し、すぐに作成し直さないように再試行を遅らせる。
+     * </p>
+     * @param subscriptionId 取り消されたサブスクリプションのID
+     */
+    public void onRevoked(String subscriptionId) {
+        if (executor == null || subscriptionId == null) {
+            return;
+        }
+        executor.execute(() -> revoke(subscriptionId));
+    }
+
+    /**
+     * サブスクリプションを作成したチャンネルの数を返す。
+     */
+    public int size() {
+        return subscriptions.size();
+    }
+
+    /**
+     * チャンネルのサブスクリプションIDを返す。
+     */
+    Map<String, String> subscriptionIds(String login) {
+        var channel = subscriptions.get(login);
+        return channel == null ? Map.of() : Map.copyOf(channel.ids);
+    }
+
+    /**
+     * 同じコールバックURLの既存のサブスクリプションを引き継ぐ。
+     * 有効でないものと、同じチャンネルの同じ種類で重複しているものは削除する。
+     */
+    void synchronize() {
+        try {
+            // ユーザーIDごとの種類とサブスクリプションID
+            var found = new HashMap<String, Map<String, String>>();
+            String cursor = null;
+            do {
+                var page = helix.getEventSubSubscriptions(null, null, null, null, cursor, PAGE_SIZE).execute();
+                for (var subscription : page.getSubscriptions()) {
+                    adopt(found, subscription);
+                }
+                cursor = page.getPagination() == null ? null : page.getPagination().getCursor();
+            } while (cursor != null && !cursor.isEmpty());
+
+            var userIds = new ArrayList<>(found.keySet());
+            var now = clock.getAsLong();
+            for (var from = 0; from < userIds.size(); from += PAGE_SIZE) {
+                var chunk = userIds.subList(from, Math.min(userIds.size(), from + PAGE_SIZE));
+                for (var user : helix.getUsers(null, chunk, null).execute().getUsers()) {
+                    var ids = found.remove(user.getId());
+                    if (ids == null) {
+                        continue;
+                    }
+                    var login = user.getLogin().toLowerCase(Locale.ROOT);
+                    var channel = new Channel(user.getId(), now);
+                    channel.ids.putAll(ids);
+                    ids.values().forEach(id -> owners.put(id, login));
+                    subscriptions.put(login, channel);
+                }
+            }
+
+            // 存在しなくなったユーザーのサブスクリプション
+            found.values().forEach(ids -> ids.values().forEach(this::delete));
+
+            LOGGER.info("adopted Twitch EventSub subscriptions: channels={}", subscriptions.size());
+
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to list Twitch EventSub subscriptions", e);
+        }
+    }
+
+    private void adopt(Map<String, Map<String, String>> found, EventSubSubscription subscription) {
+        var type = subscription.getType() == null ? null : subscription.getType().getName();
+        var target = subscription.getTransport() == null ? null : subscription.getTransport().getCallback();
+        if (!TYPES.contains(type) || !callback.equals(target)) {
+            // 他の用途のサブスクリプション
+            return;
+        }
+        var userId = conditionUserId(subscription);
+        var status = subscription.getStatus();
+        if (userId == null || (status != EventSubSubscriptionStatus.ENABLED
+                && status != EventSubSubscriptionStatus.WEBHOOK_CALLBACK_VERIFICATION_PENDING)) {
+            delete(subscription.getId());
+            return;
+        }
+        var ids = found.computeIfAbsent(userId, k -> new HashMap<>());
+        if (ids.putIfAbsent(type, subscription.getId()) != null) {
+            delete(subscription.getId());
+        }
+    }
+
+    private static String conditionUserId(EventSubSubscription subscription) {
+        var condition = subscription.getCondition();
+        if (condition instanceof ChannelEventSubCondition channel) {
+            return channel.getBroadcasterUserId();
+        }
+        if (condition instanceof UserUpdateCondition user) {
+            return user.getUserId();
+        }
+        return null;
+    }
+
+    /**
+     * 参照されなくなったチャンネルのサブスクリプションを削除する。
+     */
+    void sweep() {
+        var now = clock.getAsLong();
+        for (var entry : subscriptions.entrySet()) {
+            if (idleNanos <= now - entry.getValue().lastLookup) {
+                LOGGER.info("unsubscribing idle Twitch EventSub channel: login={}", entry.getKey());
+                unsubscribe(entry.getKey());
+            }
+        }
+    }
+
+    private void subscribe(String login) {
+        var channel = subscriptions.get(login);
+        if (channel == null && maxChannels <= subscriptions.size() && !evictIdle()) {
+            return;
+        }
+
+        try {
+            if (channel == null) {
+                var users = helix.getUsers(null, null, List.of(login)).execute().getUsers();
+                if (users.isEmpty()) {
+                    // 存在しないチャンネルは長く待つ
+                    failures.put(login, new Backoff(0, clock.getAsLong() + BACKOFF_MAX_NANOS));
+                    return;
+                }
+                channel = new Channel(users.get(0).getId(), clock.getAsLong());
+                subscriptions.put(login, channel);
+            }
+
+            // 作成できた種類はすぐに記録し、途中で失敗しても削除できるようにする
+            for (var type : TYPES) {
+                if (channel.ids.containsKey(type)) {
+                    continue;
+                }
+                var created = helix.createEventSubSubscription(null, prepare(type, channel.userId)).execute();
+                for (var subscription : created.getSubscriptions()) {
+                    channel.ids.put(type, subscription.getId());
+                    owners.put(subscription.getId(), login);
+                }
+            }
+
+            failures.invalidate(login);
+            LOGGER.info("subscribed Twitch EventSub: login={}, ids={}", login, channel.ids);
+
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to subscribe Twitch EventSub: login={}", login, e);
+            backoff(login);
+            if (channel != null && channel.ids.isEmpty()) {
+                subscriptions.remove(login, channel);
+            }
+        }
+    }
+
+    private EventSubSubscription prepare(String type, String userId) {
+        return switch (type) {
+            case CHANNEL_UPDATE -> SubscriptionTypes.CHANNEL_UPDATE_V2.prepareSubscription(
+                    b -> b.broadcasterUserId(userId).build(), transport);
+            case USER_UPDATE -> SubscriptionTypes.USER_UPDATE.prepareSubscription(
+                    b -> b.userId(userId).build(), transport);
+            default -> throw new IllegalArgumentException(type);
+        };
+    }
+
+    private void backoff(String login) {
+        var previous = failures.getIfPresent(login);
+        var attempts = previous == null ? 1 : previous.attempts() + 1;
+        var delay = Math.min(BACKOFF_MAX_NANOS, BACKOFF_BASE_NANOS << Math.min(attempts - 1, 20));
+        failures.put(login, new Backoff(attempts, clock.getAsLong() + delay));
+    }
+
+    /**
+     * 最も長く参照されていないチャンネルのサブスクリプションを削除する。
+     * @return 削除したときはtrue
+     */
+    private boolean evictIdle() {
+        String oldest = null;
+        var oldestLookup = 0L;
+        for (var entry : subscriptions.entrySet()) {
+            var lookup = entry.getValue().lastLookup;
+            if (oldest == null || lookup - oldestLookup < 0) {
+                oldest = entry.getKey();
+                oldestLookup = lookup;
+            }
+        }
+        if (oldest == null || clock.getAsLong() - oldestLookup < EVICT_MIN_IDLE_NANOS) {
+            return false;
+        }
+        LOGGER.info("evicting Twitch EventSub channel: login={}", oldest);
+        unsubscribe(oldest);
+        return true;
+    }
+
+    private void unsubscribe(String login) {
+        var channel = subscriptions.remove(login);
+        if (channel == null) {
+            return;
+        }
+        for (var id : channel.ids.values()) {
+            owners.remove(id);
+            delete(id);
+        }
+    }
+
+    private void revoke(String subscriptionId) {
+        var login = owners.remove(subscriptionId);
+        if (login == null) {
+            return;
+        }
+        var channel = subscriptions.get(login);
+        if (channel != null) {
+            channel.ids.values().remove(subscriptionId);
+            if (channel.ids.isEmpty()) {
+                subscriptions.remove(login, channel);
+            }
+        }
+        backoff(login);
+    }
+
+    private void delete(String subscriptionId) {
+        try {
+            helix.deleteEventSubSubscription(null, subscriptionId).execute();
+        } catch (RuntimeException e) {
+            // 削除できなかったものは次の起動時に引き継ぎ、参照されなければ削除する
+            LOGGER.warn("failed to delete Twitch EventSub subscription: id={}", subscriptionId, e);
+        }
+    }
+
+    /**
+     * チャンネルのサブスクリプション
+     */
+    private static final class Channel {
+
+        final String userId;
+
+        // 種類ごとのサブスクリプションID
+        final Map<String, String> ids = new ConcurrentHashMap<>();
+
+        // 最後に参照された時刻(System.nanoTime)
+        volatile long lastLookup;
+
+        Channel(String userId, long lastLookup) {
+            this.userId = userId;
+            this.lastLookup = lastLookup;
+        }
+
+        boolean isComplete() {
+            return ids.size() == TYPES.size();
+        }
+
+    }
+
+    /**
+     * 作成に失敗した回数と次に試行できる時刻(System.nanoTime)
+     */
+    private record Backoff(int attempts, long retryAt) {
+    }
+
+}
@@ -16,28 +16,44 @@
 
 package io.github.k7t3.horzcv.server.services.twitch;
 
-import com.github.twitch4j.TwitchClient;
+import com.github.twitch4j.helix.TwitchHelix;
+import com.github.twitch4j.helix.domain.Stream;
 import io.github.k7t3.horzcv.shared.model.StreamerInfo;
 import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.metrics.UpstreamMetrics;
+import io.github.k7t3.horzcv.server.services.CrawledStreams;
+import io.github.k7t3.horzcv.server.services.StreamKeys;
 import io.github.k7t3.horzcv.server.services.StreamerFinder;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
 
+@ApplicationScoped
 public class TwitchStreamerIdentityFinder implements StreamerFinder {
 
-    // URLからログイン名を取得するパターン
-    private static final Pattern LOGIN_PATTERN = Pattern.compile("(?<=https?://(www\\.)?twitch.tv/)[^/]+$");
+    /**
+     * 配信一覧の1ページで取得できる最大件数
+     */
+    public static final int MAX_LIVE_STREAMS = 100;
+
+    private static final UpstreamMetrics SEARCH_CHANNELS = Metrics.INSTANCE.upstream("twitch", "search_channels");
+
+    private static final UpstreamMetrics GET_STREAMS = Metrics.INSTANCE.upstream("twitch", "get_streams");
+
+    private static final UpstreamMetrics GET_USERS = Metrics.INSTANCE.upstream("twitch", "get_users");
 
     @Inject
-    private TwitchClient client;
+    private TwitchHelix helix;
 
     @Override
     public StreamerInfoResponse find(String urlOrKeyword) {
-        var matcher = LOGIN_PATTERN.matcher(urlOrKeyword);
+        var result = StreamUrlParser.parse(urlOrKeyword);
 
-        if (matcher.find()) {
-            var login = matcher.group();
+        if (StreamUrlParser.service(result) == StreamUrlParser.SERVICE_TWITCH) {
+            var login = StreamUrlParser.id(urlOrKeyword, result);
             var info = findStreamerInfo(login);
             if (info == null) {
                 return StreamerInfoResponse.empty();
@@ -49,9 +65,8 @@ public class TwitchStreamerIdentityFinder implements StreamerFinder {
     }
 
     private StreamerInfo findStreamerInfo(String login) {
-        var helix = client.getHelix();
         var command = helix.searchChannels(null, login, MAX_NUM, null, false);
-        var response = command.execute();
+        var response = SEARCH_CHANNELS.record(login, command::execute);
         var result = response.getResults();
         if (result.isEmpty()) {
             return null;
@@ -59,8 +74,40 @@ public class TwitchStreamerIdentityFinder implements StreamerFinder {
 
         return result.stream()
                 .filter(c -> c.getBroadcasterLogin().equalsIgnoreCase(login))
-                .map(c -> new StreamerInfo(c.getDisplayName(), c.getThumbnailUrl(), "https://www.twitch.tv/" + c.getBroadcasterLogin()))
+                .map(c -> new StreamerInfo(c.getDisplayName(), c.getThumbnailUrl(), StreamKeys.twitch(c.getBroadcasterLogin())))
                 .findFirst()
                 .orElse(null);
     }
+
+    /**
+     * 視聴者数の多い順に配信中のストリーマーの情報を取得する。
+     * @param cursor 前のページで返却されたカーソル。最初のページのときはnull
+     * @param limit  取得する最大件数(最大{@value #MAX_LIVE_STREAMS})
+     * @return 配信URLをキーとしたストリーマーの情報
+     */
+    public CrawledStreams findLiveStreams(String cursor, int limit) {
+        var streamsCommand = helix.getStreams(null, cursor, null, Math.min(limit, MAX_LIVE_STREAMS),
+                null, null, null, null);
+        var streamList = GET_STREAMS.record(cursor, streamsCommand::execute);
+
+        var userIds = streamList.getStreams().stream()
+                .map(Stream::getUserId)
+                .toList();
+        if (userIds.isEmpty()) {
+            return CrawledStreams.empty();
+        }
+
+        // 配信一覧にはプロフィール画像が含まれないためユーザー情報をまとめて取得する
+        var usersCommand = helix.getUsers(null, userIds, null);
+        var users = GET_USERS.record(null, usersCommand::execute).getUsers();
+
+        var responses = new LinkedHashMap<String, StreamerInfoResponse>();
+        for (var user : users) {
+            var info = new StreamerInfo(user.getDisplayName(), user.getProfileImageUrl(), StreamKeys.twitch(user.getLogin()));
+            responses.put(info.getStreamURL(), StreamerInfoResponse.of(info));
+        }
+
+        var pagination = streamList.getPagination();
+        return new CrawledStreams(responses, pagination == null ? null : pagination.getCursor());
+    }
 }
@@ -16,6 +16,8 @@
 
 package io.github.k7t3.horzcv.server.services.youtube;
 
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Channel;
 import com.google.api.services.youtube.model.ChannelListResponse;
@@ -23,6 +25,7 @@ import com.google.api.services.youtube.model.ChannelSnippet;
 import io.github.k7t3.horzcv.shared.model.StreamerInfo;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,19 +44,56 @@ public interface YoutubeChannelFinder {
      * @throws IOException API呼び出し中にエラーが発生した場合
      */
     default Optional<StreamerInfo> fetchChannelInfo(YouTube client, String channelId, String url) throws IOException {
-        var response = fetchChannelResponse(client, channelId);
-        return extractChannelSnippet(response)
-                .map(snippet -> createStreamerInfo(snippet, url));
+        return fetchChannelSnapshot(client, channelId, null)
+                .map(snapshot -> snapshot.toStreamerInfo(url));
     }
-    
+
     /**
-     * YouTube APIからチャンネル情報を取得します
+     * 指定されたチャンネルIDのスナップショットを取得します
+     * <p>
+     *     キャッシュされたスナップショットがETagを持つときは<code>If-None-Match</code>を付けて再検証し、
+     *     304(Not Modified)が返却されたときはスニペットを再取得せずに検証時刻だけを更新します。
+     * </p>
+     *
+     * @param client    YouTube APIクライアント
+     * @param channelId 取得対象のYouTubeチャンネルID
+     * @param cached    キャッシュされているスナップショット。存在しないときはnull
+     * @return チャンネルのスナップショット。チャンネルが見つからない場合は空のOptional
+     * @throws IOException API呼び出し中にエラーが発生した場合
      */
-    private ChannelListResponse fetchChannelResponse(YouTube client, String channelId) throws IOException {
-        return client.channels()
+    default Optional<YoutubeChannelSnapshot> fetchChannelSnapshot(
+            YouTube client,
+            String channelId,
+            YoutubeChannelSnapshot cached
+    ) throws IOException {
+        var request = client.channels()
                 .list(List.of("snippet"))
-                .setId(List.of(channelId))
-                .execute();
+                .setId(List.of(channelId));
+
+        var etag = cached == null ? null : cached.etag();
+        if (etag != null) {
+            request.getRequestHeaders().setIfNoneMatch(etag);
+        }
+
+        var response = YoutubeMetrics.CHANNELS_LIST.record(channelId, () -> {
+            try {
+                return request.execute();
+            } catch (HttpResponseException e) {
+                // 304は失敗として記録しない
+                if (etag != null && e.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+                    return null;
+                }
+                throw e;
+            }
+        });
+        if (response == null) {
+            // 変更されていないときはキャッシュの有効期限だけを延長する
+            return Optional.of(cached.revalidated(Instant.now()));
+        }
+
+        var now = Instant.now();
+        return extractChannelSnippet(response)
+                .map(snippet -> createSnapshot(snippet, response.getEtag(), now));
     }
     
     /**
@@ -67,13 +107,14 @@ public interface YoutubeChannelFinder {
     }
     
     /**
-     * チャンネルスニペットからStreamerInfoオブジェクトを作成します
+     * チャンネルスニペットからスナップショットを作成します
      */
-    private StreamerInfo createStreamerInfo(ChannelSnippet snippet, String url) {
-        return new StreamerInfo(
+    private YoutubeChannelSnapshot createSnapshot(ChannelSnippet snippet, String etag, Instant now) {
+        return new YoutubeChannelSnapshot(
                 snippet.getTitle(),
                 snippet.getThumbnails().getDefault().getUrl(),
-                url
+                etag,
+                now
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.youtube;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * YouTubeチャンネルのスニペットとそのETagを保持するスナップショット。
+ * <p>
+ *     ETagは再検証時に<code>If-None-Match</code>として送信し、
+ *     304が返却されたときは{@link #revalidated(Instant)}で検証時刻だけを更新する。
+ * </p>
+ * @param title        チャンネル名
+ * @param thumbnailURL サムネイルのURL
+ * @param etag         チャンネルレスポンスのETag
+ * @param validatedAt  最後にYouTube APIで検証した時刻
+ */
+public record YoutubeChannelSnapshot(
+        String title,
+        String thumbnailURL,
+        String etag,
+        Instant validatedAt
+) {
+
+    /**
+     * 最後の検証から指定された期間が経過していないかを判定する。
+     * @param freshness 再検証せずに使用できる期間
+     * @param now       現在時刻
+     * @return 再検証が不要なときはtrue
+     */
+    public boolean isFresh(Duration freshness, Instant now) {
+        return validatedAt.plus(freshness).isAfter(now);
+    }
+
+    /**
+     * 検証時刻だけを更新したスナップショットを返す。
+     * @param now 検証した時刻
+     * @return 新しいスナップショット
+     */
+    public YoutubeChannelSnapshot revalidated(Instant now) {
+        return new YoutubeChannelSnapshot(title, thumbnailURL, etag, now);
+    }
+
+    /**
+     * スナップショットから{@link StreamerInfo}を作成する。
+     * @param url 元の動画URL
+     * @return ストリーマーの情報
+     */
+    public StreamerInfo toStreamerInfo(String url) {
+        return new StreamerInfo(title, thumbnailURL, url);
+    }
+
+}
@@ -20,6 +20,7 @@ import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.YouTubeRequestInitializer;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 
@@ -31,10 +32,28 @@ public class YoutubeClientProducer {
 
     private static final String YOUTUBE_API_KEY = "youtube_api_key";
 
+    /**
+     * YouTube Data APIのルートURL。負荷試験などで代替のサーバーを使用するときに指定する
+     */
+    private static final String YOUTUBE_ROOT_URL = "youtube_root_url";
+
     private YouTube client;
 
+    /**
+     * クライアントを返す。
+     * <p>
+     *     トランスポートとトラストストアの初期化は重いため、最初に生成したクライアントを使い回す。
+     * </p>
+     */
     @Produces
-    public YouTube getClient() {
+    public synchronized YouTube getClient() {
+        if (client == null) {
+            client = createClient();
+        }
+        return client;
+    }
+
+    private static YouTube createClient() {
         try {
             var builder = new YouTube.Builder(
                     GoogleNetHttpTransport.newTrustedTransport(),
@@ -42,8 +61,12 @@ public class YoutubeClientProducer {
                     null
             );
             builder.setYouTubeRequestInitializer(
-                    new YouTubeRequestInitializer(System.getenv(YOUTUBE_API_KEY))
+                    new YouTubeRequestInitializer(ServerConfig.get(YOUTUBE_API_KEY))
             );
+            var rootUrl = ServerConfig.get(YOUTUBE_ROOT_URL);
+            if (rootUrl != null) {
+                builder.setRootUrl(rootUrl);
+            }
             return builder.build();
         } catch (GeneralSecurityException | IOException e) {
             throw new RuntimeException(e);
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.youtube;
+
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.metrics.UpstreamMetrics;
+
+/**
+ * YouTube Data APIの呼び出しのメトリクス
+ */
+final class YoutubeMetrics {
+
+    static final UpstreamMetrics VIDEOS_LIST = Metrics.INSTANCE.upstream("youtube", "videos_list");
+
+    static final UpstreamMetrics CHANNELS_LIST = Metrics.INSTANCE.upstream("youtube", "channels_list");
+
+    static final UpstreamMetrics SEARCH_LIST = Metrics.INSTANCE.upstream("youtube", "search_list");
+
+    private YoutubeMetrics() {
+    }
+
+}
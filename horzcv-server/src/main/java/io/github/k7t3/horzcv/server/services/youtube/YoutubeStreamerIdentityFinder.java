@@ -16,45 +16,81 @@
 
 package io.github.k7t3.horzcv.server.services.youtube;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.model.SearchResult;
+import io.github.k7t3.horzcv.server.services.CrawledStreams;
 import io.github.k7t3.horzcv.server.services.StreamerFinder;
 import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import io.github.k7t3.horzcv.shared.url.StreamUrlParser;
+import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
+@ApplicationScoped
 public class YoutubeStreamerIdentityFinder implements StreamerFinder, YoutubeChannelFinder {
 
-    private static final Pattern YOUTUBE_URL_PATTERN = Pattern.compile("https?://(?:www\\.)?youtube\\.com/(?:watch\\?v=|live/)([^/&?]+)");
+    /**
+     * 再検証せずにチャンネルのスナップショットを使用できる期間
+     */
+    private static final Duration CHANNEL_FRESHNESS = Duration.ofMinutes(10);
+
+    private static final String WATCH_URL_PREFIX = "https://www.youtube.com/watch?v=";
+
+    /**
+     * 配信一覧の1ページで取得できる最大件数
+     */
+    public static final long MAX_LIVE_STREAMS = 50;
+
+    /**
+     * {@link #findLiveStreams(String, long)}が消費するクォータ(search.list: 100, channels.list: 1)
+     */
+    public static final int LIVE_STREAMS_QUOTA_COST = 101;
+
+    // チャンネルIDに対応するスナップショットのキャッシュ
+    // 期限切れ後もETagによる再検証に使用するため、鮮度よりも長く保持する
+    private final Cache<String, YoutubeChannelSnapshot> channelCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofDays(1))
+            .build();
 
     @Inject
     private YouTube youtubeClient;
 
     @Override
     public StreamerInfoResponse find(String urlOrKeyword) {
-        return extractVideoId(urlOrKeyword)
-                .flatMap(this::findChannelIdByVideoId)
+        var result = StreamUrlParser.parse(urlOrKeyword);
+        if (StreamUrlParser.service(result) != StreamUrlParser.SERVICE_YOUTUBE) {
+            return StreamerInfoResponse.empty();
+        }
+
+        return findChannelIdByVideoId(StreamUrlParser.id(urlOrKeyword, result))
                 .map(channelId -> fetchStreamerInfo(channelId, urlOrKeyword))
                 .orElse(StreamerInfoResponse.empty());
     }
 
     protected Optional<String> extractVideoId(String url) {
-        var matcher = YOUTUBE_URL_PATTERN.matcher(url);
-        if (!matcher.find()) {
+        var result = StreamUrlParser.parse(url);
+        if (StreamUrlParser.service(result) != StreamUrlParser.SERVICE_YOUTUBE) {
             return Optional.empty();
         }
-        return Optional.of(matcher.group(1));
+        return Optional.of(StreamUrlParser.id(url, result));
     }
 
     protected Optional<String> findChannelIdByVideoId(String videoId) {
         try {
-            var videoResponse = youtubeClient.videos()
+            var request = youtubeClient.videos()
                     .list(List.of("snippet"))
-                    .setId(List.of(videoId))
-                    .execute();
+                    .setId(List.of(videoId));
+            var videoResponse = YoutubeMetrics.VIDEOS_LIST.record(videoId, request::execute);
 
             return videoResponse.getItems()
                     .stream()
@@ -66,14 +102,103 @@ public class YoutubeStreamerIdentityFinder implements StreamerFinder, YoutubeCha
     }
 
     private StreamerInfoResponse fetchStreamerInfo(String channelId, String originalUrl) {
+        return findChannelSnapshot(channelId)
+                .map(snapshot -> StreamerInfoResponse.of(snapshot.toStreamerInfo(originalUrl)))
+                .orElse(StreamerInfoResponse.empty());
+    }
+
+    /**
+     * チャンネルのスナップショットを取得する。
+     * <p>
+     *     鮮度の範囲内であればキャッシュをそのまま返し、期限切れのときはETagで再検証する。
+     * </p>
+     */
+    protected Optional<YoutubeChannelSnapshot> findChannelSnapshot(String channelId) {
+        var cached = channelCache.getIfPresent(channelId);
+        if (cached != null && cached.isFresh(CHANNEL_FRESHNESS, Instant.now())) {
+            return Optional.of(cached);
+        }
+
         try {
-            return fetchChannelInfo(youtubeClient, channelId, originalUrl)
-                    .map(StreamerInfoResponse::of)
-                    .orElse(StreamerInfoResponse.empty());
+            var snapshot = fetchChannelSnapshot(youtubeClient, channelId, cached);
+            if (snapshot.isPresent()) {
+                channelCache.put(channelId, snapshot.get());
+            } else {
+                channelCache.invalidate(channelId);
+            }
+            return snapshot;
         } catch (IOException e) {
             throw new RuntimeException("チャンネル情報の取得に失敗しました", e);
         }
     }
 
+    /**
+     * 視聴者数の多い順にライブ配信中のストリーマーの情報を取得する。
+     * <p>
+     *     取得したチャンネルのスナップショットはキャッシュされ、以降の検索で再利用される。
+     *     1回の呼び出しで{@value #LIVE_STREAMS_QUOTA_COST}のクォータを消費する。
+     * </p>
+     * @param pageToken 前のページで返却されたトークン。最初のページのときはnull
+     * @param limit     取得する最大件数(最大{@value #MAX_LIVE_STREAMS})
+     * @return 動画URLをキーとしたストリーマーの情報
+     */
+    public CrawledStreams findLiveStreams(String pageToken, long limit) {
+        try {
+            var searchRequest = youtubeClient.search()
+                    .list(List.of("snippet"))
+                    .setEventType("live")
+                    .setType(List.of("video"))
+                    .setOrder("viewCount")
+                    .setMaxResults(Math.min(limit, MAX_LIVE_STREAMS))
+                    .setPageToken(pageToken);
+            var searchResponse = YoutubeMetrics.SEARCH_LIST.record(pageToken, searchRequest::execute);
+
+            var results = searchResponse.getItems();
+            if (results == null || results.isEmpty()) {
+                return CrawledStreams.empty();
+            }
+
+            var channelIds = results.stream()
+                    .map(r -> r.getSnippet().getChannelId())
+                    .distinct()
+                    .toList();
+
+            // チャンネル情報はまとめて取得する
+            var channelRequest = youtubeClient.channels()
+                    .list(List.of("snippet"))
+                    .setId(channelIds)
+                    .setMaxResults(MAX_LIVE_STREAMS);
+            var channelResponse = YoutubeMetrics.CHANNELS_LIST.record(null, channelRequest::execute);
+
+            var now = Instant.now();
+            var snapshots = new HashMap<String, YoutubeChannelSnapshot>();
+            for (var channel : channelResponse.getItems()) {
+                var snippet = channel.getSnippet();
+                // 一括取得したレスポンスのETagは単一チャンネルの再検証には使用できない
+                var snapshot = new YoutubeChannelSnapshot(
+                        snippet.getTitle(),
+                        snippet.getThumbnails().getDefault().getUrl(),
+                        null,
+                        now
+                );
+                snapshots.put(channel.getId(), snapshot);
+                channelCache.put(channel.getId(), snapshot);
+            }
+
+            var responses = new LinkedHashMap<String, StreamerInfoResponse>();
+            for (SearchResult result : results) {
+                var snapshot = snapshots.get(result.getSnippet().getChannelId());
+                if (snapshot == null) {
+                    continue;
+                }
+                var url = WATCH_URL_PREFIX + result.getId().getVideoId();
+                responses.put(url, StreamerInfoResponse.of(snapshot.toStreamerInfo(url)));
+            }
+
+            return new CrawledStreams(responses, searchResponse.getNextPageToken());
+        } catch (IOException e) {
+            throw new RuntimeException("ライブ配信の一覧の取得に失敗しました", e);
+        }
+    }
 
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * <code>/chat</code>のページを出力するサーブレット。
+ * <p>
+ *     埋め込みのチャットの配信元へ早く接続できるように、index.htmlに<code>preconnect</code>と
+ *     <code>dns-prefetch</code>を追加して返す。
+ *     表示する配信はURLのフラグメントで指定されサーバーには送信されないため、
+ *     埋め込みのチャットはindex.htmlのスクリプトが出力する。
+ * </p>
+ * <p>
+ *     Firebase Hostingから配信する本番環境ではすべてのパスがindex.htmlに書き換えられるため使用されない。
+ *     サーバーから直接ページを配信するときだけ使用される。
+ * </p>
+ */
+@WebServlet(ChatPageServlet.PATH)
+@ApplicationScoped
+public class ChatPageServlet extends HttpServlet {
+
+    static final String PATH = "/chat";
+
+    private static final String HEAD_END = "</head>";
+
+    /**
+     * 埋め込みのチャットが接続する配信元
+     */
+    private static final List<String> ORIGINS = List.of(
+            "https://www.twitch.tv",
+            "https://static.twitchcdn.net",
+            "https://www.youtube.com",
+            "https://www.gstatic.com"
+    );
+
+    private volatile byte[] page;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        var page = page();
+        if (page == null) {
+            // クライアントが配置されていない
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        resp.setContentType("text/html; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.getOutputStream().write(page);
+    }
+
+    private byte[] page() throws IOException {
+        var page = this.page;
+        if (page == null) {
+            try (var in = getServletContext().getResourceAsStream("/index.html")) {
+                if (in == null) {
+                    return null;
+                }
+                page = render(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            }
+            this.page = page;
+        }
+        return page;
+    }
+
+    /**
+     * index.htmlの<code>head</code>の末尾に配信元への接続のヒントを追加する。
+     */
+    static String render(String indexHtml) {
+        var headEnd = indexHtml.indexOf(HEAD_END);
+        if (headEnd < 0) {
+            return indexHtml;
+        }
+        var builder = new StringBuilder(indexHtml.length() + 512);
+        builder.append(indexHtml, 0, headEnd);
+        for (var origin : ORIGINS) {
+            builder.append("<link rel=\"preconnect\" href=\"").append(origin).append("\" crossorigin>\n");
+            builder.append("<link rel=\"dns-prefetch\" href=\"").append(origin).append("\">\n");
+        }
+        builder.append(indexHtml, headEnd, indexHtml.length());
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.diagnostics.LookupDiagnostics;
+import io.github.k7t3.horzcv.server.util.Json;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+
+/**
+ * 検索の状況をJSONで出力する管理用のサーブレット。
+ * <ul>
+ *     <li><code>?view=hotkeys</code> 直近1分間に検索された回数の多い配信</li>
+ *     <li><code>?view=slow</code> 直近5分間で処理時間の長かった検索</li>
+ *     <li><code>?view=inflight</code> 処理中の検索</li>
+ * </ul>
+ * <p>
+ *     <code>view</code>を省略したときはすべてを出力する。
+ *     配信のURLを含むため<code>diagnostics_token</code>が設定されていないときは無効にし、
+ *     設定されているときは<code>Authorization: Bearer {token}</code>を要求する。
+ * </p>
+ */
+@WebServlet("/admin/diagnostics")
+@ApplicationScoped
+public class DiagnosticsServlet extends HttpServlet {
+
+    private static final String DIAGNOSTICS_TOKEN = "diagnostics_token";
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private static final int MAX_LIMIT = 256;
+
+    @Inject
+    private LookupDiagnostics diagnostics;
+
+    private byte[] token;
+
+    @Override
+    public void init() {
+        var value = ServerConfig.get(DIAGNOSTICS_TOKEN);
+        token = value == null ? null : ("Bearer " + value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (token == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        var authorization = req.getHeader("Authorization");
+        if (authorization == null
+                || !MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8))) {
+            resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        var view = req.getParameter("view");
+        var all = view == null || view.isEmpty();
+        if (!all && !view.equals("hotkeys") && !view.equals("slow") && !view.equals("inflight")) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "unknown view: " + view);
+            return;
+        }
+        var limit = parseLimit(req.getParameter("limit"));
+
+        var out = new StringBuilder(8 * 1024);
+        out.append('{');
+        var first = true;
+        if (all || view.equals("hotkeys")) {
+            writeHotKeys(out, limit);
+            first = false;
+        }
+        if (all || view.equals("slow")) {
+            if (!first) {
+                out.append(',');
+            }
+            writeSlowLookups(out, limit);
+            first = false;
+        }
+        if (all || view.equals("inflight")) {
+            if (!first) {
+                out.append(',');
+            }
+            writeInFlight(out, limit);
+        }
+        out.append("}\n");
+
+        resp.setContentType("application/json; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getOutputStream().write(out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeHotKeys(StringBuilder out, int limit) {
+        out.append("\"hotkeys\":[");
+        var keys = diagnostics.getHotKeys().top(limit);
+        for (var i = 0; i < keys.size(); i++) {
+            var key = keys.get(i);
+            if (0 < i) {
+                out.append(',');
+            }
+            out.append("{\"key\":");
+            Json.appendString(out, key.key());
+            out.append(",\"count\":").append(key.count());
+            out.append(",\"error\":").append(key.error()).append('}');
+        }
+        out.append(']');
+    }
+
+    private void writeSlowLookups(StringBuilder out, int limit) {
+        out.append("\"slow\":[");
+        var lookups = diagnostics.getSlowLookups().snapshot();
+        for (var i = 0; i < Math.min(limit, lookups.size()); i++) {
+            var lookup = lookups.get(i);
+            if (0 < i) {
+                out.append(',');
+            }
+            out.append("{\"endpoint\":");
+            Json.appendString(out, lookup.endpoint());
+            out.append(",\"key\":");
+            Json.appendString(out, lookup.key());
+            out.append(",\"durationMillis\":");
+            Json.appendMillis(out, lookup.durationNanos());
+            out.append(",\"end\":");
+            Json.appendString(out, Instant.ofEpochMilli(lookup.endEpochMillis()).toString());
+            out.append(",\"stages\":");
+            Json.appendString(out, lookup.stages());
+            out.append('}');
+        }
+        out.append(']');
+    }
+
+    private void writeInFlight(StringBuilder out, int limit) {
+        out.append("\"inflight\":[");
+        var now = System.nanoTime();
+        var lookups = diagnostics.getInFlight().snapshot();
+        for (var i = 0; i < Math.min(limit, lookups.size()); i++) {
+            var lookup = lookups.get(i);
+            if (0 < i) {
+                out.append(',');
+            }
+            out.append("{\"endpoint\":");
+            Json.appendString(out, lookup.endpoint());
+            out.append(",\"key\":");
+            Json.appendString(out, lookup.key());
+            out.append(",\"thread\":");
+            Json.appendString(out, lookup.thread());
+            out.append(",\"ageMillis\":");
+            Json.appendMillis(out, lookup.ageNanos(now)).append('}');
+        }
+        out.append(']');
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+
+}
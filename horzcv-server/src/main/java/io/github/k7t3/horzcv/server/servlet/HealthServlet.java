@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import io.github.k7t3.horzcv.server.services.StartupWarmup;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ヘルスチェックのサーブレット。
+ * <ul>
+ *     <li><code>/horzcv/health/live</code> サーバーが起動していれば200を返す</li>
+ *     <li><code>/horzcv/health/ready</code> {@link StartupWarmup}の準備が終わるまでは503を返す</li>
+ * </ul>
+ */
+@WebServlet({HealthServlet.LIVE_PATH, HealthServlet.READY_PATH})
+@ApplicationScoped
+public class HealthServlet extends HttpServlet {
+
+    static final String LIVE_PATH = "/horzcv/health/live";
+
+    static final String READY_PATH = "/horzcv/health/ready";
+
+    @Inject
+    private StartupWarmup warmup;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String body;
+        if (READY_PATH.equals(req.getServletPath()) && !warmup.isReady()) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            body = "warming up: " + warmup.getStage() + "\n";
+        } else {
+            body = "ok\n";
+        }
+        resp.setContentType("text/plain; charset=utf-8");
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * メトリクスをPrometheusのテキスト形式で出力するサーブレット。
+ * <p>
+ *     <code>metrics_token</code>が設定されているときは<code>Authorization: Bearer {token}</code>を要求する。
+ * </p>
+ */
+@WebServlet("/metrics")
+@ApplicationScoped
+public class MetricsServlet extends HttpServlet {
+
+    private static final String METRICS_TOKEN = "metrics_token";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private byte[] token;
+
+    @Override
+    public void init() {
+        var value = ServerConfig.get(METRICS_TOKEN);
+        token = value == null ? null : ("Bearer " + value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (token != null) {
+            var authorization = req.getHeader("Authorization");
+            if (authorization == null
+                    || !MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8))) {
+                resp.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+        }
+
+        var out = new StringBuilder(16 * 1024);
+        Metrics.INSTANCE.writePrometheus(out);
+
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-store");
+        resp.getOutputStream().write(out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
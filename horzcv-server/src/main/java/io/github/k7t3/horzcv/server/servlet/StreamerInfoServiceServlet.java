@@ -16,8 +16,19 @@
 
 package io.github.k7t3.horzcv.server.servlet;
 
+import com.google.gwt.user.server.rpc.RPCRequest;
 import com.google.gwt.user.server.rpc.jakarta.RemoteServiceServlet;
+import io.github.k7t3.horzcv.server.accesslog.AccessLog;
+import io.github.k7t3.horzcv.server.accesslog.ErrorLogLimiter;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.diagnostics.LookupDiagnostics;
+import io.github.k7t3.horzcv.server.jfr.LookupEvent;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.metrics.RequestMetrics;
+import io.github.k7t3.horzcv.server.services.CompanionPrefetcher;
+import io.github.k7t3.horzcv.server.services.StreamKeys;
 import io.github.k7t3.horzcv.server.services.StreamerFinders;
+import io.github.k7t3.horzcv.server.trace.Tracer;
 import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
 import io.github.k7t3.horzcv.shared.service.StreamerInfoService;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -26,15 +37,48 @@ import jakarta.servlet.annotation.WebServlet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
 @WebServlet("/horzcv/api/streamer")
 @ApplicationScoped
 public class StreamerInfoServiceServlet extends RemoteServiceServlet implements StreamerInfoService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StreamerInfoServiceServlet.class);
 
+    private static final String SINGLE_ENDPOINT = "getStreamerInfo";
+
+    private static final String BATCH_ENDPOINT = "getStreamerInfos";
+
+    private static final RequestMetrics SINGLE_METRICS = Metrics.INSTANCE.endpoint(SINGLE_ENDPOINT);
+
+    private static final RequestMetrics BATCH_METRICS = Metrics.INSTANCE.endpoint(BATCH_ENDPOINT);
+
+    private static final String DESERIALIZE_SPAN = "gwt.deserialize";
+
+    private static final String SERIALIZE_SPAN = "gwt.serialize";
+
+    /**
+     * 1分間に出力するエラーのログの最大数
+     */
+    private static final String ERROR_LOG_PER_MINUTE = "error_log_per_minute";
+
+    private static final ErrorLogLimiter ERROR_LOG = new ErrorLogLimiter(
+            ServerConfig.getInt(ERROR_LOG_PER_MINUTE, 10), TimeUnit.MINUTES.toNanos(1));
+
     @Inject
     private StreamerFinders finders;
 
+    @Inject
+    private CompanionPrefetcher prefetcher;
+
+    @Inject
+    private LookupDiagnostics diagnostics;
+
+    @Inject
+    private AccessLog accessLog;
+
     /**
      * コンストラクタ
      */
@@ -44,17 +88,157 @@ public class StreamerInfoServiceServlet extends RemoteServiceServlet implements
 
     @Override
     public StreamerInfoResponse getStreamerInfo(String url) {
-        LOGGER.info("ストリーマー情報のリクエストを受信: {}", url);
-        try {
-            long startTime = System.currentTimeMillis();
-            StreamerInfoResponse response = finders.find(url);
-            long processingTime = System.currentTimeMillis() - startTime;
-
-            LOGGER.info("ストリーマー情報の取得完了 - URL: {}, 識別: {}, 処理時間: {}ms", url, response.isIdentified(), processingTime);
-            return response;
+        var event = new LookupEvent();
+        event.begin();
+        var start = SINGLE_METRICS.start();
+        var key = StreamKeys.canonicalize(url);
+        diagnostics.recordKey(key);
+        var slot = diagnostics.begin(SINGLE_ENDPOINT, key);
+        StreamerInfoResponse response;
+        try (var span = Tracer.span(SINGLE_ENDPOINT)) {
+            try {
+                span.attribute("horzcv.key", key);
+                response = finders.find(url);
+
+                if (key != null) {
+                    prefetcher.onLookup(key);
+                }
+
+                var processingTime = SINGLE_METRICS.success(start);
+                var outcome = response.isIdentified() ? LookupEvent.IDENTIFIED : LookupEvent.UNIDENTIFIED;
+                commitLookup(event, SINGLE_ENDPOINT, key, 1, outcome);
+                accessLog.record(SINGLE_ENDPOINT, key, 1, outcome, processingTime, null);
+            } catch (RuntimeException e) {
+                // 区間が閉じられる前にエラーを記録する
+                span.error(e);
+                throw e;
+            }
         } catch (Exception e) {
-            LOGGER.error("ストリーマー情報の取得中にエラーが発生しました - URL: {}", url, e);
+            var processingTime = SINGLE_METRICS.failure(start);
+            commitLookup(event, SINGLE_ENDPOINT, key, 1, LookupEvent.ERROR);
+            accessLog.record(SINGLE_ENDPOINT, key, 1, LookupEvent.ERROR, processingTime, e);
+            if (ERROR_LOG.tryAcquire()) {
+                LOGGER.error("ストリーマー情報の取得中にエラーが発生しました - URL: {} (抑制したログ: {}件)",
+                        url, ERROR_LOG.takeSuppressed(), e);
+            }
             throw e;
+        } finally {
+            diagnostics.end(slot, SINGLE_ENDPOINT, key, System.nanoTime() - start);
+        }
+        beginSerialization();
+        return response;
+    }
+
+    @Override
+    public StreamerInfoResponse[] getStreamerInfos(String[] urls) {
+        if (urls == null || urls.length == 0) {
+            return new StreamerInfoResponse[0];
+        }
+        if (StreamerInfoService.MAX_BATCH_SIZE < urls.length) {
+            throw new IllegalArgumentException("too many urls: " + urls.length);
+        }
+
+        var event = new LookupEvent();
+        event.begin();
+        var start = BATCH_METRICS.start();
+        var firstKey = StreamKeys.canonicalize(urls[0]);
+        var slot = diagnostics.begin(BATCH_ENDPOINT, firstKey);
+        var responses = new StreamerInfoResponse[urls.length];
+        try (var span = Tracer.span(BATCH_ENDPOINT)) {
+            try {
+                span.attribute("horzcv.count", Integer.toString(urls.length));
+                var identified = true;
+                for (var i = 0; i < urls.length; i++) {
+                    responses[i] = finders.find(urls[i]);
+                    identified &= responses[i].isIdentified();
+                }
+
+                var keys = Arrays.stream(urls)
+                        .map(StreamKeys::canonicalize)
+                        .filter(Objects::nonNull)
+                        .toList();
+                keys.forEach(diagnostics::recordKey);
+                prefetcher.onBatchLookup(keys);
+
+                var processingTime = BATCH_METRICS.success(start);
+                var outcome = identified ? LookupEvent.IDENTIFIED : LookupEvent.UNIDENTIFIED;
+                commitLookup(event, BATCH_ENDPOINT, firstKey, urls.length, outcome);
+                accessLog.record(BATCH_ENDPOINT, firstKey, urls.length, outcome, processingTime, null);
+            } catch (RuntimeException e) {
+                // 区間が閉じられる前にエラーを記録する
+                span.error(e);
+                throw e;
+            }
+        } catch (Exception e) {
+            var processingTime = BATCH_METRICS.failure(start);
+            commitLookup(event, BATCH_ENDPOINT, firstKey, urls.length, LookupEvent.ERROR);
+            accessLog.record(BATCH_ENDPOINT, firstKey, urls.length, LookupEvent.ERROR, processingTime, e);
+            if (ERROR_LOG.tryAcquire()) {
+                LOGGER.error("ストリーマー情報の取得中にエラーが発生しました - URL: {} (抑制したログ: {}件)",
+                        Arrays.toString(urls), ERROR_LOG.takeSuppressed(), e);
+            }
+            throw e;
+        } finally {
+            diagnostics.end(slot, BATCH_ENDPOINT, firstKey, System.nanoTime() - start);
+        }
+        beginSerialization();
+        return responses;
+    }
+
+    @Override
+    protected void onBeforeRequestDeserialized(String serializedRequest) {
+        var request = getThreadLocalRequest();
+        var trace = Tracer.begin("POST " + request.getRequestURI(), request.getHeader("traceparent"));
+        trace.root().attribute("http.request.method", "POST");
+        Tracer.span(DESERIALIZE_SPAN);
+    }
+
+    @Override
+    protected void onAfterRequestDeserialized(RPCRequest rpcRequest) {
+        // 逆シリアライズの区間を閉じる
+        Tracer.currentSpan().close();
+        Tracer.currentSpan().attribute("rpc.method", rpcRequest.getMethod().getName());
+    }
+
+    @Override
+    protected void onAfterResponseSerialized(String serializedResponse) {
+        // シリアライズの区間もルートの区間とともに閉じられる
+        var trace = Tracer.end();
+        var response = getThreadLocalResponse();
+        if (trace != null && response != null) {
+            response.setHeader("Server-Timing", trace.serverTiming());
+        }
+    }
+
+    @Override
+    protected void doUnexpectedFailure(Throwable e) {
+        var span = Tracer.currentSpan();
+        if (!span.isNoop()) {
+            span.error(e);
+            Tracer.end();
+        }
+        super.doUnexpectedFailure(e);
+    }
+
+    /**
+     * 戻り値のシリアライズの区間を開始する。{@link #onAfterResponseSerialized(String)}で閉じられる。
+     */
+    private static void beginSerialization() {
+        Tracer.span(SERIALIZE_SPAN);
+    }
+
+    /**
+     * 検索のJFRのイベントを記録する。
+     * @param outcome 識別できたとき(一括の検索ではすべて識別できたとき)は{@link LookupEvent#IDENTIFIED}
+     */
+    private static void commitLookup(LookupEvent event, String endpoint, String key, int count, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.endpoint = endpoint;
+            event.key = key;
+            event.count = count;
+            event.outcome = outcome;
+            event.commit();
         }
     }
 
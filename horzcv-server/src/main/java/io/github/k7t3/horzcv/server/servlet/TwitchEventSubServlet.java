@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.k7t3.horzcv.server.services.StreamKeys;
+import io.github.k7t3.horzcv.server.services.StreamerFinders;
+import io.github.k7t3.horzcv.server.services.twitch.EventSubSignature;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchEventSubscriptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Twitch EventSubのWebhookを受信するサーブレット。
+ * <p>
+ *     <code>channel.update</code>を受信したときはキャッシュされている表示名をその場で更新し、
+ *     <code>user.update</code>を受信したときはキャッシュを無効化する。
+ * </p>
+ * @see TwitchEventSubscriptions サブスクリプションの管理
+ */
+@WebServlet("/horzcv/api/twitch/eventsub")
+@ApplicationScoped
+public class TwitchEventSubServlet extends HttpServlet {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TwitchEventSubServlet.class);
+
+    private static final String TYPE_VERIFICATION = "webhook_callback_verification";
+    private static final String TYPE_NOTIFICATION = "notification";
+    private static final String TYPE_REVOCATION = "revocation";
+
+    private static final String CHANNEL_UPDATE = "channel.update";
+    private static final String USER_UPDATE = "user.update";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // 再送されたメッセージを重複して処理しないためのメッセージIDのキャッシュ
+    private final Cache<String, Boolean> processedMessages = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    @Inject
+    private StreamerFinders finders;
+
+    @Inject
+    private TwitchEventSubscriptions subscriptions;
+
+    private EventSubSignature signature;
+
+    @Override
+    public void init() {
+        var secret = subscriptions.getSecret();
+        if (secret != null) {
+            signature = new EventSubSignature(secret);
+        }
+        LOGGER.info("{} が初期化されました (enabled={})", getClass().getSimpleName(), signature != null);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (signature == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        var body = req.getInputStream().readAllBytes();
+        var messageId = req.getHeader(EventSubSignature.HEADER_MESSAGE_ID);
+        var timestamp = req.getHeader(EventSubSignature.HEADER_MESSAGE_TIMESTAMP);
+        var sent = req.getHeader(EventSubSignature.HEADER_MESSAGE_SIGNATURE);
+
+        if (!signature.verify(messageId, timestamp, body, sent, Instant.now())) {
+            LOGGER.warn("invalid EventSub signature: messageId={}", messageId);
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        JsonNode message;
+        try {
+            message = mapper.readTree(body);
+        } catch (IOException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+
+        var type = req.getHeader(EventSubSignature.HEADER_MESSAGE_TYPE);
+        if (TYPE_VERIFICATION.equals(type)) {
+            // サブスクリプション作成時の検証リクエストにはchallengeをそのまま返す
+            resp.setContentType("text/plain");
+            resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            resp.getWriter().write(message.path("challenge").asText());
+            return;
+        }
+
+        // 再送されたメッセージは処理済みとして応答する
+        if (processedMessages.asMap().putIfAbsent(messageId, Boolean.TRUE) != null) {
+            resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
+        }
+
+        var subscription = message.path("subscription");
+        try {
+            if (TYPE_NOTIFICATION.equals(type)) {
+                onNotification(subscription.path("type").asText(), message.path("event"));
+            } else if (TYPE_REVOCATION.equals(type)) {
+                LOGGER.info("EventSub subscription revoked: {}", subscription.path("status").asText());
+                subscriptions.onRevoked(subscription.path("id").asText());
+            }
+        } catch (RuntimeException e) {
+            // 処理できなかったメッセージは再送されたときに処理し直す
+            processedMessages.invalidate(messageId);
+            throw e;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+    private void onNotification(String subscriptionType, JsonNode event) {
+        switch (subscriptionType) {
+            case CHANNEL_UPDATE -> {
+                var login = event.path("broadcaster_user_login").asText();
+                var name = event.path("broadcaster_user_name").asText();
+                if (!login.isEmpty() && !name.isEmpty()) {
+                    LOGGER.debug("channel.update: login={}, name={}", login, name);
+                    finders.updateStreamerName(StreamKeys.twitch(login), name);
+                }
+            }
+            case USER_UPDATE -> {
+                // プロフィール画像は通知に含まれないため再取得させる
+                var login = event.path("user_login").asText();
+                if (!login.isEmpty()) {
+                    LOGGER.debug("user.update: login={}", login);
+                    finders.invalidateStream(StreamKeys.twitch(login));
+                }
+            }
+            default -> LOGGER.debug("ignored EventSub notification: {}", subscriptionType);
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+import io.github.k7t3.horzcv.server.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 抽出されたトレースをOpenTelemetryのOTLP/JSON形式でローカルのファイルに出力するクラス。
+ * <p>
+ *     1行に1つの<code>ExportTraceServiceRequest</code>を出力するため、OpenTelemetry Collectorの
+ *     <code>otlpjsonfile</code>レシーバーでそのまま読み込める。
+ *     ファイルが上限のサイズを超えたときは番号を付けて退避し、指定した数を超えた古いファイルは削除する。
+ * </p>
+ * <p>
+ *     出力はバックグラウンドのスレッドで行い、キューが満杯のときはトレースを破棄する。
+ *     <code>trace_dir</code>が設定されていないときは出力しない。
+ * </p>
+ */
+final class OtlpFileExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OtlpFileExporter.class);
+
+    private static final String TRACE_DIR = "trace_dir";
+
+    private static final String TRACE_FILE_MAX_MB = "trace_file_max_mb";
+
+    private static final String TRACE_FILE_COUNT = "trace_file_count";
+
+    private static final String FILE_NAME = "horzcv-spans.jsonl";
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final String RESOURCE = "{\"resourceSpans\":[{\"resource\":{\"attributes\":["
+            + "{\"key\":\"service.name\",\"value\":{\"stringValue\":\"horzcv-server\"}}]},"
+            + "\"scopeSpans\":[{\"scope\":{\"name\":\"io.github.k7t3.horzcv\"},\"spans\":[";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final BlockingQueue<Trace> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final int maxFiles;
+
+    private OutputStream out;
+
+    private long written;
+
+    private OtlpFileExporter(Path directory, long maxBytes, int maxFiles) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * トレースの出力を予約する。出力が無効のときやキューが満杯のときは破棄する。
+     */
+    static void export(Trace trace) {
+        var exporter = Holder.INSTANCE;
+        if (exporter != null && !exporter.queue.offer(trace)) {
+            exporter.dropped.increment();
+        }
+    }
+
+    private void run() {
+        var builder = new StringBuilder(4096);
+        while (true) {
+            try {
+                var trace = queue.poll(1, TimeUnit.SECONDS);
+                if (trace == null) {
+                    flush();
+                    continue;
+                }
+                builder.setLength(0);
+                encode(trace, builder);
+                write(builder);
+                if (queue.isEmpty()) {
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("failed to write trace file", e);
+                closeQuietly();
+            }
+
+            var droppedCount = dropped.sumThenReset();
+            if (0 < droppedCount) {
+                LOGGER.warn("dropped {} traces (queue full)", droppedCount);
+            }
+        }
+    }
+
+    private void write(CharSequence line) throws IOException {
+        var bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        if (out == null) {
+            open();
+        } else if (maxBytes < written + bytes.length) {
+            roll();
+        }
+        out.write(bytes);
+        written += bytes.length;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        var file = directory.resolve(FILE_NAME);
+        out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        written = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        closeQuietly();
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + (maxFiles - 1)));
+        for (var i = maxFiles - 2; 1 <= i; i--) {
+            var source = directory.resolve(FILE_NAME + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (1 < maxFiles) {
+            Files.move(directory.resolve(FILE_NAME), directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+        }
+        open();
+    }
+
+    private void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private void closeQuietly() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.debug("failed to close trace file", e);
+        }
+        out = null;
+    }
+
+    /**
+     * トレースを1行のOTLP/JSONに変換する。
+     */
+    static void encode(Trace trace, StringBuilder builder) {
+        var epochOffset = trace.startEpochNanos() - trace.root().startNanos();
+
+        builder.append(RESOURCE);
+        var spans = trace.spans();
+        for (var i = 0; i < spans.size(); i++) {
+            var span = spans.get(i);
+            if (0 < i) {
+                builder.append(',');
+            }
+            builder.append("{\"traceId\":\"");
+            hex(builder, trace.traceIdHigh());
+            hex(builder, trace.traceIdLow());
+            builder.append("\",\"spanId\":\"");
+            hex(builder, span.spanId());
+            builder.append('"');
+
+            var parentId = span.parent() == null ? trace.remoteParentId() : span.parent().spanId();
+            if (parentId != 0) {
+                builder.append(",\"parentSpanId\":\"");
+                hex(builder, parentId);
+                builder.append('"');
+            }
+
+            builder.append(",\"name\":");
+            Json.appendString(builder, span.name());
+            builder.append(",\"kind\":").append(span.kind().getCode());
+            builder.append(",\"startTimeUnixNano\":\"").append(epochOffset + span.startNanos());
+            builder.append("\",\"endTimeUnixNano\":\"").append(epochOffset + span.endNanos()).append('"');
+
+            var attributes = span.attributes();
+            if (!attributes.isEmpty()) {
+                builder.append(",\"attributes\":[");
+                for (var j = 0; j < attributes.size(); j += 2) {
+                    if (0 < j) {
+                        builder.append(',');
+                    }
+                    builder.append("{\"key\":");
+                    Json.appendString(builder, attributes.get(j));
+                    builder.append(",\"value\":{\"stringValue\":");
+                    Json.appendString(builder, attributes.get(j + 1));
+                    builder.append("}}");
+                }
+                builder.append(']');
+            }
+
+            if (span.error() != null) {
+                builder.append(",\"status\":{\"code\":2,\"message\":");
+                Json.appendString(builder, span.error());
+                builder.append('}');
+            }
+            builder.append('}');
+        }
+        builder.append("]}]}]}\n");
+    }
+
+    private static void hex(StringBuilder builder, long value) {
+        for (var shift = 60; 0 <= shift; shift -= 4) {
+            builder.append(HEX[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * 最初に抽出されたトレースを出力するときに初期化する
+     */
+    private static final class Holder {
+
+        private static final OtlpFileExporter INSTANCE = create();
+
+        private static OtlpFileExporter create() {
+            var directory = ServerConfig.get(TRACE_DIR);
+            if (directory == null) {
+                return null;
+            }
+            var maxBytes = ServerConfig.getLong(TRACE_FILE_MAX_MB, 10) * 1024 * 1024;
+            var maxFiles = Math.max(1, ServerConfig.getInt(TRACE_FILE_COUNT, 5));
+            var exporter = new OtlpFileExporter(Path.of(directory), maxBytes, maxFiles);
+
+            Thread.ofPlatform()
+                    .name("trace-exporter")
+                    .daemon(true)
+                    .start(exporter::run);
+            LOGGER.info("trace export enabled: {}", directory);
+            return exporter;
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * トレースを構成する1つの処理の区間。
+ * <pre>
+ *     try (var span = Tracer.span("finder.twitch")) {
+ *         ...
+ *     }
+ * </pre>
+ * <p>
+ *     閉じたときにまだ開いている子の区間があれば、それらも同時に閉じる。
+ *     トレースの対象外のスレッドでは何も記録しない{@link #NOOP}が返される。
+ * </p>
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * 何も記録しない区間
+     */
+    static final Span NOOP = new Span(null, null, 0, null, SpanKind.INTERNAL, 0);
+
+    private final Trace trace;
+
+    private final Span parent;
+
+    private final long spanId;
+
+    private final String name;
+
+    private final SpanKind kind;
+
+    private final long startNanos;
+
+    private long endNanos;
+
+    // キーと値を交互に格納する
+    private List<String> attributes;
+
+    private String error;
+
+    Span(Trace trace, Span parent, long spanId, String name, SpanKind kind, long startNanos) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = spanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * 属性を追加する。
+     */
+    public Span attribute(String key, String value) {
+        if (trace != null && value != null) {
+            if (attributes == null) {
+                attributes = new ArrayList<>(4);
+            }
+            attributes.add(key);
+            attributes.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * 処理が失敗したことを記録する。
+     */
+    public Span error(Throwable error) {
+        if (trace != null) {
+            this.error = error.getClass().getName();
+        }
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (trace != null && endNanos == 0) {
+            trace.close(this, System.nanoTime());
+        }
+    }
+
+    /**
+     * トレースの対象外のときはtrue
+     */
+    public boolean isNoop() {
+        return trace == null;
+    }
+
+    void end(long nanos) {
+        if (endNanos == 0) {
+            endNanos = nanos;
+        }
+    }
+
+    boolean isEnded() {
+        return endNanos != 0;
+    }
+
+    Span parent() {
+        return parent;
+    }
+
+    long spanId() {
+        return spanId;
+    }
+
+    String name() {
+        return name;
+    }
+
+    SpanKind kind() {
+        return kind;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long endNanos() {
+        return endNanos;
+    }
+
+    long durationNanos() {
+        return endNanos - startNanos;
+    }
+
+    List<String> attributes() {
+        return attributes == null ? List.of() : attributes;
+    }
+
+    String error() {
+        return error;
+    }
+
+}
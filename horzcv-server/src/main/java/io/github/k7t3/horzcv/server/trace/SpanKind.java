@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+/**
+ * 区間の種類。値はOpenTelemetryの<code>SpanKind</code>に対応する。
+ */
+public enum SpanKind {
+
+    INTERNAL(1),
+
+    /**
+     * サーバーが受信したリクエスト
+     */
+    SERVER(2),
+
+    /**
+     * 配信サービスの呼び出し
+     */
+    CLIENT(3);
+
+    private final int code;
+
+    SpanKind(int code) {
+        this.code = code;
+    }
+
+    int getCode() {
+        return code;
+    }
+
+}
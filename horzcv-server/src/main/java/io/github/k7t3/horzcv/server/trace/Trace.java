@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 1回のリクエストの処理を表すトレース。
+ * <p>
+ *     リクエストを処理するスレッドだけが操作するため同期しない。
+ * </p>
+ */
+public final class Trace {
+
+    /**
+     * 1回のトレースで記録する区間の上限(超えた区間は記録しない)
+     */
+    static final int MAX_SPANS = 64;
+
+    private final long traceIdHigh;
+
+    private final long traceIdLow;
+
+    // 呼び出し元から引き継いだ親の区間のID(存在しないときは0)
+    private final long remoteParentId;
+
+    private final boolean sampled;
+
+    // ルートの区間の開始時刻(UNIXエポックからのナノ秒)
+    private final long startEpochNanos;
+
+    private final List<Span> spans = new ArrayList<>(8);
+
+    private final Span root;
+
+    private Span current;
+
+    Trace(long traceIdHigh, long traceIdLow, long remoteParentId, boolean sampled,
+          long startEpochNanos, String name, long startNanos) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.remoteParentId = remoteParentId;
+        this.sampled = sampled;
+        this.startEpochNanos = startEpochNanos;
+        this.root = new Span(this, null, newSpanId(), name, SpanKind.SERVER, startNanos);
+        spans.add(root);
+        current = root;
+    }
+
+    Span open(String name, SpanKind kind) {
+        if (MAX_SPANS <= spans.size()) {
+            return Span.NOOP;
+        }
+        var span = new Span(this, current, newSpanId(), name, kind, System.nanoTime());
+        spans.add(span);
+        current = span;
+        return span;
+    }
+
+    /**
+     * 区間を閉じる。まだ開いている子の区間も同時に閉じる。
+     */
+    void close(Span span, long nanos) {
+        var open = false;
+        for (var s = current; s != null; s = s.parent()) {
+            if (s == span) {
+                open = true;
+                break;
+            }
+        }
+        if (!open) {
+            span.end(nanos);
+            return;
+        }
+        for (var s = current; s != span.parent(); s = s.parent()) {
+            s.end(nanos);
+        }
+        current = span.parent();
+    }
+
+    /**
+     * <code>Server-Timing</code>ヘッダーの値を返す。
+     * <p>
+     *     同じ名前の区間は合計し、ルートの区間は<code>total</code>として出力する。
+     * </p>
+     */
+    public String serverTiming() {
+        var durations = new LinkedHashMap<String, Long>();
+        for (var i = 1; i < spans.size(); i++) {
+            var span = spans.get(i);
+            if (span.isEnded()) {
+                durations.merge(span.name(), span.durationNanos(), Long::sum);
+            }
+        }
+
+        var builder = new StringBuilder(32 * (durations.size() + 1));
+        durations.forEach((name, nanos) -> appendTiming(builder, name, nanos).append(", "));
+        appendTiming(builder, "total", root.isEnded() ? root.durationNanos() : System.nanoTime() - root.startNanos());
+        return builder.toString();
+    }
+
+    private static StringBuilder appendTiming(StringBuilder builder, String name, long nanos) {
+        // ミリ秒を小数点以下2桁で出力する
+        var hundredths = (nanos + 5_000) / 10_000;
+        builder.append(name).append(";dur=").append(hundredths / 100).append('.');
+        var fraction = hundredths % 100;
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction);
+    }
+
+    public Span root() {
+        return root;
+    }
+
+    Span current() {
+        return current;
+    }
+
+    void end(long nanos) {
+        close(root, nanos);
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    long traceIdHigh() {
+        return traceIdHigh;
+    }
+
+    long traceIdLow() {
+        return traceIdLow;
+    }
+
+    long remoteParentId() {
+        return remoteParentId;
+    }
+
+    long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    List<Span> spans() {
+        return spans;
+    }
+
+    private static long newSpanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+}
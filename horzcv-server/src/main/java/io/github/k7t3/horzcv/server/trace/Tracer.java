@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+import io.github.k7t3.horzcv.server.accesslog.ErrorLogLimiter;
+import io.github.k7t3.horzcv.server.config.ServerConfig;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * リクエストごとの処理の区間を記録するトレーサー。
+ * <p>
+ *     区間は常に記録して<code>Server-Timing</code>ヘッダーに使用し、
+ *     リクエストの開始時に抽出されたトレースだけをファイルに出力する(ヘッドベースのサンプリング)。
+ *     呼び出し元の<code>traceparent</code>ヘッダーを受け取ったときは、そのトレースIDを引き継ぐ。
+ *     抽出の判定(sampledフラグ)は誰でも送信できるため、<code>trace_trust_upstream_sampling</code>で
+ *     信頼できる呼び出し元(プロキシやゲートウェイ)の後ろに配置していると設定したときだけ引き継ぐ。
+ * </p>
+ * <p>
+ *     ファイルへの出力は1秒あたりの件数を制限し、超えたトレースは出力しない。
+ * </p>
+ */
+public final class Tracer {
+
+    /**
+     * ファイルに出力するトレースの割合(0〜1)
+     */
+    private static final String TRACE_SAMPLE_RATE = "trace_sample_rate";
+
+    private static final double SAMPLE_RATE = ServerConfig.getDouble(TRACE_SAMPLE_RATE, 0.01);
+
+    /**
+     * 呼び出し元の<code>traceparent</code>の抽出の判定を引き継ぐか
+     */
+    private static final String TRACE_TRUST_UPSTREAM_SAMPLING = "trace_trust_upstream_sampling";
+
+    private static final boolean TRUST_UPSTREAM_SAMPLING = ServerConfig.getBoolean(TRACE_TRUST_UPSTREAM_SAMPLING, false);
+
+    /**
+     * 1秒あたりにファイルに出力するトレースの最大数
+     */
+    private static final String TRACE_MAX_EXPORTS_PER_SECOND = "trace_max_exports_per_second";
+
+    private static final ErrorLogLimiter EXPORT_LIMITER = new ErrorLogLimiter(
+            ServerConfig.getInt(TRACE_MAX_EXPORTS_PER_SECOND, 10), TimeUnit.SECONDS.toNanos(1));
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private Tracer() {
+    }
+
+    /**
+     * 現在のスレッドでトレースを開始する。
+     * @param name        ルートの区間の名前
+     * @param traceparent 呼び出し元から受け取った<code>traceparent</code>ヘッダー。存在しないときはnull
+     * @return 開始したトレース
+     */
+    public static Trace begin(String name, String traceparent) {
+        return begin(name, traceparent, TRUST_UPSTREAM_SAMPLING, SAMPLE_RATE);
+    }
+
+    /**
+     * 現在のスレッドでトレースを開始する。
+     * @param trustSampled 呼び出し元の抽出の判定を引き継ぐときはtrue
+     * @param sampleRate   抽出の判定を引き継がないときにファイルに出力するトレースの割合
+     */
+    static Trace begin(String name, String traceparent, boolean trustSampled, double sampleRate) {
+        var startNanos = System.nanoTime();
+        var now = Instant.now();
+        var startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+
+        var random = ThreadLocalRandom.current();
+        var sampled = 0 < sampleRate && random.nextDouble() < sampleRate;
+        Trace trace = null;
+        if (traceparent != null && isValidTraceparent(traceparent)) {
+            var high = Long.parseUnsignedLong(traceparent, 3, 19, 16);
+            var low = Long.parseUnsignedLong(traceparent, 19, 35, 16);
+            var parent = Long.parseUnsignedLong(traceparent, 36, 52, 16);
+            var flags = Integer.parseInt(traceparent, 53, 55, 16);
+            if ((high | low) != 0 && parent != 0) {
+                if (trustSampled) {
+                    sampled = (flags & 1) != 0;
+                }
+                trace = new Trace(high, low, parent, sampled, startEpochNanos, name, startNanos);
+            }
+        }
+        if (trace == null) {
+            trace = new Trace(random.nextLong(), random.nextLong(), 0, sampled, startEpochNanos, name, startNanos);
+        }
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * 現在のスレッドのトレースを返す。
+     * @return トレース。開始されていないときはnull
+     */
+    public static Trace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 内部の処理の区間を開始する。
+     */
+    public static Span span(String name) {
+        return span(name, SpanKind.INTERNAL);
+    }
+
+    /**
+     * 区間を開始する。トレースが開始されていないときは何も記録しない区間を返す。
+     */
+    public static Span span(String name, SpanKind kind) {
+        var trace = CURRENT.get();
+        return trace == null ? Span.NOOP : trace.open(name, kind);
+    }
+
+    /**
+     * 現在開いている区間を返す。
+     */
+    public static Span currentSpan() {
+        var trace = CURRENT.get();
+        return trace == null ? Span.NOOP : trace.current();
+    }
+
+    /**
+     * 現在のスレッドのトレースを終了し、抽出されたトレースを出力の上限の範囲でファイルに出力する。
+     * @return 終了したトレース。開始されていないときはnull
+     */
+    public static Trace end() {
+        var trace = CURRENT.get();
+        if (trace == null) {
+            return null;
+        }
+        CURRENT.remove();
+        trace.end(System.nanoTime());
+        if (trace.isSampled() && EXPORT_LIMITER.tryAcquire()) {
+            OtlpFileExporter.export(trace);
+        }
+        return trace;
+    }
+
+    /**
+     * W3C Trace Contextの<code>traceparent</code>(バージョン00)の形式であることを確認する。
+     */
+    static boolean isValidTraceparent(String value) {
+        if (value.length() != 55 || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return false;
+        }
+        if (value.charAt(0) != '0' || value.charAt(1) != '0') {
+            return false;
+        }
+        for (var i = 3; i < 55; i++) {
+            if (i == 35 || i == 52) {
+                continue;
+            }
+            var c = value.charAt(i);
+            if (!('0' <= c && c <= '9') && !('a' <= c && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.accesslog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogRingTest {
+
+    @Test
+    void offerDrain_preservesOrder() {
+        var ring = new AccessLogRing(16);
+        for (var i = 0; i < 5; i++) {
+            assertTrue(offer(ring, "k" + i));
+        }
+
+        var keys = new ArrayList<String>();
+        assertEquals(5, ring.drain(100, entry -> keys.add(entry.key)));
+        assertEquals(5, keys.size());
+        assertEquals("k0", keys.get(0));
+        assertEquals("k4", keys.get(4));
+        assertEquals(0, ring.drain(100, entry -> keys.add(entry.key)));
+    }
+
+    @Test
+    void offer_full_returnsFalse() {
+        var ring = new AccessLogRing(16);
+        for (var i = 0; i < ring.capacity(); i++) {
+            assertTrue(offer(ring, "k" + i));
+        }
+        assertFalse(offer(ring, "overflow"));
+
+        // 読み出した分だけ再び書き込める
+        assertEquals(1, ring.drain(1, entry -> {
+        }));
+        assertTrue(offer(ring, "next"));
+    }
+
+    @Test
+    void drain_releasesReferences() {
+        var ring = new AccessLogRing(16);
+        offer(ring, "k");
+        var entries = new ArrayList<AccessLogRing.Entry>();
+        ring.drain(1, entries::add);
+
+        assertNull(entries.get(0).key);
+    }
+
+    @Test
+    void offer_concurrentProducers_noLossWhileCapacityRemains() throws InterruptedException {
+        var ring = new AccessLogRing(4096);
+        var threads = 4;
+        var perThread = 1000;
+        var start = new CountDownLatch(1);
+        var workers = new ArrayList<Thread>();
+        for (var t = 0; t < threads; t++) {
+            var prefix = "t" + t + "-";
+            var worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (var i = 0; i < perThread; i++) {
+                    offer(ring, prefix + i);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (var worker : workers) {
+            worker.join();
+        }
+
+        var keys = new HashSet<String>();
+        ring.drain(Integer.MAX_VALUE, entry -> keys.add(entry.key));
+        assertEquals(threads * perThread, keys.size());
+    }
+
+    private static boolean offer(AccessLogRing ring, String key) {
+        return ring.offer(1L, "getStreamerInfo", key, 1, "identified", 1_000_000L, null, 1.0);
+    }
+
+}
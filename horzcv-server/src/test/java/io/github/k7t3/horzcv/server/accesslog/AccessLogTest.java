@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.accesslog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccessLogTest {
+
+    @Test
+    void encode_writesJsonLine() {
+        var entry = new AccessLogRing.Entry();
+        entry.epochMillis = 1700000000000L;
+        entry.endpoint = "getStreamerInfo";
+        entry.key = "https://www.twitch.tv/\"x\"";
+        entry.count = 1;
+        entry.outcome = "error";
+        entry.durationNanos = 12_345_678;
+        entry.error = "java.lang.IllegalStateException";
+        entry.rate = 1.0;
+
+        var builder = new StringBuilder();
+        AccessLog.encode(entry, builder);
+
+        assertEquals("{\"ts\":1700000000000,\"endpoint\":\"getStreamerInfo\",\"key\":\"https://www.twitch.tv/\\\"x\\\"\","
+                + "\"count\":1,\"outcome\":\"error\",\"durMs\":12.35,\"rate\":1.0,"
+                + "\"error\":\"java.lang.IllegalStateException\"}", builder.toString());
+    }
+
+}
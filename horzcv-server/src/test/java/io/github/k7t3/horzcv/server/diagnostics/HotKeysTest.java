@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeysTest {
+
+    @Test
+    void drain_ranksByCount() {
+        var hotKeys = new HotKeys(64, 16, 3, 1000);
+        for (var i = 0; i < 5; i++) {
+            hotKeys.record("a");
+        }
+        for (var i = 0; i < 3; i++) {
+            hotKeys.record("b");
+        }
+        hotKeys.record("c");
+        hotKeys.drain(1);
+
+        var top = hotKeys.top(2);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).key());
+        assertEquals(5, top.get(0).count());
+        assertEquals("b", top.get(1).key());
+        assertEquals(3, top.get(1).count());
+    }
+
+    @Test
+    void drain_expiresOldBuckets() {
+        var hotKeys = new HotKeys(64, 16, 3, 1000);
+        hotKeys.record("a");
+        hotKeys.drain(1);
+        hotKeys.record("b");
+        hotKeys.drain(1001);
+        assertEquals(2, hotKeys.top(10).size());
+
+        // すべての区切りが経過したあとは残らない
+        hotKeys.drain(5001);
+        assertTrue(hotKeys.top(10).isEmpty());
+    }
+
+    @Test
+    void drain_skipsOverwrittenEntries() {
+        var hotKeys = new HotKeys(16, 16, 1, 1000);
+        for (var i = 0; i < 40; i++) {
+            hotKeys.record("a");
+        }
+        hotKeys.drain(1);
+
+        assertEquals(16, hotKeys.top(1).get(0).count());
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightLookupsTest {
+
+    @Test
+    void beginEnd_tracksInFlight() {
+        var inFlight = new InFlightLookups(16);
+        var first = inFlight.begin("getStreamerInfo", "a");
+        var second = inFlight.begin("getStreamerInfo", "b");
+
+        var snapshot = inFlight.snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("a", snapshot.get(0).key());
+        assertEquals(Thread.currentThread().getName(), snapshot.get(0).thread());
+
+        inFlight.end(first);
+        assertEquals("b", inFlight.snapshot().get(0).key());
+        inFlight.end(second);
+        assertTrue(inFlight.snapshot().isEmpty());
+    }
+
+    @Test
+    void begin_full_returnsMinusOne() {
+        var inFlight = new InFlightLookups(16);
+        for (var i = 0; i < 16; i++) {
+            assertTrue(0 <= inFlight.begin("getStreamerInfo", "k" + i));
+        }
+        assertEquals(-1, inFlight.begin("getStreamerInfo", "overflow"));
+
+        // 記録できなかった検索の終了は無視する
+        inFlight.end(-1);
+        assertEquals(16, inFlight.snapshot().size());
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowLookupsTest {
+
+    private static final long RETENTION = TimeUnit.MINUTES.toNanos(5);
+
+    @Test
+    void record_keepsSlowest() {
+        var lookups = new SlowLookups(2, RETENTION);
+        for (var duration : new long[]{10, 30, 20, 5}) {
+            lookups.record(duration, () -> lookup(duration, System.nanoTime()));
+        }
+
+        var snapshot = lookups.snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals(30, snapshot.get(0).durationNanos());
+        assertEquals(20, snapshot.get(1).durationNanos());
+    }
+
+    @Test
+    void record_fasterThanAll_doesNotCreateEntry() {
+        var lookups = new SlowLookups(1, RETENTION);
+        lookups.record(100, () -> lookup(100, System.nanoTime()));
+        lookups.record(50, () -> {
+            throw new AssertionError("should not be created");
+        });
+
+        assertEquals(100, lookups.snapshot().get(0).durationNanos());
+    }
+
+    @Test
+    void record_replacesExpired() {
+        var lookups = new SlowLookups(1, RETENTION);
+        lookups.record(100, () -> lookup(100, System.nanoTime() - RETENTION - 1));
+        assertTrue(lookups.snapshot().isEmpty());
+
+        lookups.record(1, () -> lookup(1, System.nanoTime()));
+        assertEquals(1, lookups.snapshot().get(0).durationNanos());
+    }
+
+    private static SlowLookups.SlowLookup lookup(long duration, long endNanos) {
+        return new SlowLookups.SlowLookup("getStreamerInfo", "key", duration, endNanos,
+                System.currentTimeMillis(), null);
+    }
+
+}
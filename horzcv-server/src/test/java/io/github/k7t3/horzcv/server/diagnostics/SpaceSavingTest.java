@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.diagnostics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpaceSavingTest {
+
+    @Test
+    void add_underCapacity_countsExactly() {
+        var sketch = new SpaceSaving(4);
+        sketch.add("a");
+        sketch.add("a");
+        sketch.add("b");
+
+        var totals = new HashMap<String, long[]>();
+        sketch.addTo(totals);
+        assertEquals(2, totals.get("a")[0]);
+        assertEquals(0, totals.get("a")[1]);
+        assertEquals(1, totals.get("b")[0]);
+    }
+
+    @Test
+    void add_overCapacity_replacesMinimumWithError() {
+        var sketch = new SpaceSaving(2);
+        sketch.add("a");
+        sketch.add("a");
+        sketch.add("b");
+        sketch.add("c");
+
+        var totals = new HashMap<String, long[]>();
+        sketch.addTo(totals);
+        assertEquals(2, totals.size());
+        assertEquals(2, totals.get("a")[0]);
+        // 最も少ないキーを置き換えたため誤差を含む
+        assertEquals(2, totals.get("c")[0]);
+        assertEquals(1, totals.get("c")[1]);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_lowerBoundOf_roundTrip() {
+        for (var value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 1_000_000, 123_456_789_012L}) {
+            var index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowerBoundOf(index) <= value);
+            assertTrue(value < LatencyHistogram.lowerBoundOf(index + 1));
+        }
+    }
+
+    @Test
+    void percentile_withinRelativeError() {
+        var histogram = new LatencyHistogram();
+        for (var i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, histogram.count());
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(500), histogram.percentile(50));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(990), histogram.percentile(99));
+    }
+
+    @Test
+    void percentile_empty_returnsZero() {
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+
+    @Test
+    void record_negative_clampedToZero() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-1);
+
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.sum());
+    }
+
+    @Test
+    void cumulativeCounts() {
+        var histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.record(TimeUnit.SECONDS.toNanos(3));
+
+        var bounds = new long[]{
+                TimeUnit.MILLISECONDS.toNanos(5),
+                TimeUnit.MILLISECONDS.toNanos(50),
+                TimeUnit.SECONDS.toNanos(1),
+                TimeUnit.SECONDS.toNanos(10)
+        };
+
+        assertArrayEquals(new long[]{1, 2, 2, 3}, histogram.cumulativeCounts(bounds));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.07, () -> "expected ~" + expected + " but " + actual);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void requestMetrics_countsSuccessAndFailure() {
+        var metrics = new RequestMetrics();
+
+        var first = metrics.start();
+        var second = metrics.start();
+        assertEquals(2, metrics.inFlight());
+
+        metrics.success(first);
+        metrics.failure(second);
+
+        assertEquals(0, metrics.inFlight());
+        assertEquals(2, metrics.requests());
+        assertEquals(1, metrics.errors());
+        assertEquals(2, metrics.latency().count());
+    }
+
+    @Test
+    void upstreamMetrics_record_classifiesErrors() {
+        var metrics = new UpstreamMetrics("twitch", "search_channels");
+
+        assertEquals("ok", metrics.record("testuser", () -> "ok"));
+        assertThrows(SocketTimeoutException.class, () -> metrics.record("testuser", () -> {
+            throw new SocketTimeoutException();
+        }));
+        assertThrows(RuntimeException.class, () -> metrics.record("testuser", () -> {
+            throw new RuntimeException(new IOException("connection reset"));
+        }));
+
+        assertEquals(3, metrics.requests());
+        assertEquals(2, metrics.errors());
+        assertEquals(1, metrics.errors(UpstreamError.TIMEOUT));
+        assertEquals(1, metrics.errors(UpstreamError.NETWORK));
+    }
+
+    @Test
+    void writePrometheus() {
+        var metrics = new Metrics();
+        metrics.endpoint("getStreamerInfo").success(metrics.endpoint("getStreamerInfo").start());
+        var upstream = metrics.upstream("twitch", "search_channels");
+        upstream.failure(upstream.start(), new SocketTimeoutException());
+        metrics.gauge("pending", "Pending.", () -> 3);
+
+        var out = new StringBuilder();
+        metrics.writePrometheus(out);
+        var text = out.toString();
+
+        assertTrue(text.contains("# TYPE horzcv_requests_total counter\n"));
+        assertTrue(text.contains("horzcv_requests_total{endpoint=\"getStreamerInfo\"} 1\n"));
+        assertTrue(text.contains("horzcv_requests_duration_seconds_bucket{endpoint=\"getStreamerInfo\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("horzcv_upstream_errors_total{service=\"twitch\",operation=\"search_channels\",class=\"timeout\"} 1\n"));
+        assertTrue(text.contains("horzcv_pending 3\n"));
+    }
+
+}
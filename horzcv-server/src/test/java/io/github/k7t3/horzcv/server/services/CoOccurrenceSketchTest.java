@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoOccurrenceSketchTest {
+
+    private static final String A = "https://www.twitch.tv/a";
+    private static final String B = "https://www.twitch.tv/b";
+    private static final String C = "https://www.twitch.tv/c";
+    private static final String D = "https://www.youtube.com/watch?v=d";
+
+    @Test
+    void companions_orderedByCount() {
+        var sketch = new CoOccurrenceSketch(1024, 8, 100);
+        sketch.record(List.of(A, B, C));
+        sketch.record(List.of(A, B));
+        sketch.record(List.of(A, B));
+        sketch.record(A, C);
+
+        assertEquals(List.of(B, C), sketch.companions(A, 5, 1));
+        assertEquals(List.of(A), sketch.companions(B, 5, 2));
+        assertTrue(3 <= sketch.estimate(B, A));
+    }
+
+    @Test
+    void companions_belowMinCount_isEmpty() {
+        var sketch = new CoOccurrenceSketch(1024, 8, 100);
+        sketch.record(A, D);
+
+        assertEquals(List.of(), sketch.companions(A, 5, 2));
+        assertEquals(List.of(), sketch.companions("unknown", 5, 1));
+    }
+
+    @Test
+    void companions_keepsOnlyStrongestNeighbours() {
+        var sketch = new CoOccurrenceSketch(1024, 2, 100);
+        sketch.record(A, B);
+        sketch.record(A, B);
+        sketch.record(A, C);
+        sketch.record(A, C);
+        sketch.record(A, D);
+
+        // 上位2件を超える相手は、既存の相手より多く記録されるまで保持されない
+        assertEquals(List.of(B, C), sketch.companions(A, 5, 1).stream().sorted().toList());
+
+        sketch.record(A, D);
+        sketch.record(A, D);
+        assertTrue(sketch.companions(A, 5, 1).contains(D));
+    }
+
+    @Test
+    void halve_removesKeysWithoutCompanions() {
+        // 幅32のカウンタは320回記録するごとに半減する
+        var sketch = new CoOccurrenceSketch(32, 8, 100);
+        sketch.record(A, B);
+        for (var i = 0; i < 319; i++) {
+            sketch.record(C, D);
+        }
+
+        assertEquals(List.of(), sketch.companions(A, 5, 1));
+        assertEquals(List.of(), sketch.companions(B, 5, 1));
+        assertEquals(List.of(D), sketch.companions(C, 5, 1));
+        assertEquals(2, sketch.size());
+    }
+
+}
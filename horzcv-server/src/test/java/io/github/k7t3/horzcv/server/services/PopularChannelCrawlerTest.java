@@ -0,0 +1,160 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import io.github.k7t3.horzcv.server.services.cache.SharedCacheStore;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchStreamerIdentityFinder;
+import io.github.k7t3.horzcv.server.services.youtube.YoutubeStreamerIdentityFinder;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PopularChannelCrawlerTest {
+
+    private static final String TWITCH_URL = "https://www.twitch.tv/testuser";
+    private static final String YOUTUBE_URL = "https://www.youtube.com/watch?v=abcd1234";
+
+    @Mock
+    private StreamerFinders finders;
+
+    @Mock
+    private TwitchStreamerIdentityFinder twitchFinder;
+
+    @Mock
+    private YoutubeStreamerIdentityFinder youtubeFinder;
+
+    @Mock
+    private SharedCacheStore sharedStore;
+
+    @InjectMocks
+    private PopularChannelCrawler crawler;
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("crawler_youtube_daily_quota");
+    }
+
+    @Test
+    void crawl_seedsTwitchStreams() {
+        var twitch = crawled(TWITCH_URL, null);
+        when(twitchFinder.findLiveStreams(isNull(), eq(100))).thenReturn(twitch);
+
+        crawler.initialize();
+        crawler.crawl();
+
+        verify(finders).seed(twitch.responses());
+        // クォータが設定されていないときはYouTubeを取得しない
+        verifyNoInteractions(youtubeFinder);
+    }
+
+    @Test
+    void onStartup_disabledByDefault() throws InterruptedException {
+        crawler.initialize();
+        crawler.onStartup(new Object());
+
+        // 取得しないため待機せずに終わる
+        assertTrue(crawler.awaitInitialCrawl(Duration.ZERO));
+        verifyNoInteractions(twitchFinder, youtubeFinder);
+    }
+
+    @Test
+    void crawl_leaseHeldByOtherServer_skipsCrawling() {
+        when(sharedStore.isEnabled()).thenReturn(true);
+        when(sharedStore.tryAcquireLease(eq("horzcv:crawler"), anyString(), eq(Duration.ofMinutes(5)))).thenReturn(false);
+
+        crawler.initialize();
+        crawler.crawl();
+
+        verifyNoInteractions(twitchFinder, youtubeFinder);
+    }
+
+    @Test
+    void crawl_underPressure_skipsCrawling() {
+        when(finders.getPendingLoads()).thenReturn(2);
+
+        crawler.initialize();
+        crawler.crawl();
+
+        verifyNoInteractions(twitchFinder, youtubeFinder);
+    }
+
+    @Test
+    void awaitInitialCrawl_releasedAfterFirstCrawl() throws InterruptedException {
+        when(finders.getPendingLoads()).thenReturn(2);
+
+        crawler.initialize();
+        assertFalse(crawler.awaitInitialCrawl(Duration.ZERO));
+
+        // 取得を見送ったときも最初の取得は終わったものとする
+        crawler.crawl();
+        assertTrue(crawler.awaitInitialCrawl(Duration.ZERO));
+    }
+
+    @Test
+    void crawl_youtubeStopsWithinDailyQuota() {
+        System.setProperty("crawler_youtube_daily_quota", "101");
+        when(twitchFinder.findLiveStreams(isNull(), anyInt())).thenReturn(CrawledStreams.empty());
+        var youtube = crawled(YOUTUBE_URL, "next");
+        when(youtubeFinder.findLiveStreams(isNull(), eq(50L))).thenReturn(youtube);
+
+        crawler.initialize();
+        crawler.crawl();
+
+        verify(finders).seed(youtube.responses());
+        // 1ページ分のクォータしかないため次のページは取得しない
+        verify(youtubeFinder, times(1)).findLiveStreams(any(), anyLong());
+    }
+
+    @Test
+    void crawl_afterError_backsOff() {
+        when(twitchFinder.findLiveStreams(isNull(), anyInt())).thenThrow(new RuntimeException("429 Too Many Requests"));
+
+        crawler.initialize();
+        crawler.crawl();
+        crawler.crawl();
+
+        verify(twitchFinder, times(1)).findLiveStreams(any(), anyInt());
+    }
+
+    private static CrawledStreams crawled(String url, String nextCursor) {
+        var info = new StreamerInfo("TestUser", "https://thumbnail.url", url);
+        return new CrawledStreams(Map.of(url, StreamerInfoResponse.of(info)), nextCursor);
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StreamKeysTest {
+
+    @Test
+    void canonicalize_twitch() {
+        assertEquals("https://www.twitch.tv/testuser", StreamKeys.canonicalize("https://www.twitch.tv/testuser"));
+        assertEquals("https://www.twitch.tv/testuser", StreamKeys.canonicalize("http://twitch.tv/TestUser"));
+    }
+
+    @Test
+    void canonicalize_youtube() {
+        assertEquals("https://www.youtube.com/watch?v=abcd1234", StreamKeys.canonicalize("https://youtube.com/live/abcd1234"));
+        assertEquals("https://www.youtube.com/watch?v=abcd1234", StreamKeys.canonicalize("https://www.youtube.com/watch?v=abcd1234&t=10"));
+    }
+
+    @Test
+    void twitch_matchesCanonicalizedUrl() {
+        assertEquals(StreamKeys.canonicalize("https://www.twitch.tv/TestUser"), StreamKeys.twitch("TestUser"));
+    }
+
+    @Test
+    void canonicalize_unknown_returnsNull() {
+        assertNull(StreamKeys.canonicalize("https://example.com/testuser"));
+        assertNull(StreamKeys.canonicalize("keyword"));
+        assertNull(StreamKeys.canonicalize(null));
+    }
+
+}
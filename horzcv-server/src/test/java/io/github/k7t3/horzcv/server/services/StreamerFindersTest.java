@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.k7t3.horzcv.server.metrics.Metrics;
+import io.github.k7t3.horzcv.server.services.cache.SharedStreamerCache;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchEventSubscriptions;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchStreamerIdentityFinder;
+import io.github.k7t3.horzcv.server.services.youtube.YoutubeStreamerIdentityFinder;
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StreamerFindersTest {
+
+    private static final String URL = "https://www.twitch.tv/testuser";
+
+    private static final StreamerInfoResponse RESPONSE = StreamerInfoResponse.of(
+            new StreamerInfo("testuser", "https://example.com/testuser.png", URL));
+
+    @Mock
+    private TwitchStreamerIdentityFinder twitchFinder;
+
+    @Mock
+    private YoutubeStreamerIdentityFinder youtubeFinder;
+
+    @Mock
+    private TwitchEventSubscriptions twitchSubscriptions;
+
+    @Mock
+    private SharedStreamerCache sharedCache;
+
+    @InjectMocks
+    private StreamerFinders finders;
+
+    @BeforeEach
+    void setUp() {
+        finders.initialize();
+    }
+
+    private void passThroughSharedCache() {
+        when(sharedCache.tryLoad(anyString(), any())).thenAnswer(invocation -> {
+            Function<String, StreamerInfoResponse> loader = invocation.getArgument(1);
+            return loader.apply(invocation.getArgument(0));
+        });
+    }
+
+    private static CacheStats stats() {
+        return Metrics.INSTANCE.cache("streamer").snapshot();
+    }
+
+    @Test
+    void find_missThenHit_recordsEachOnce() {
+        passThroughSharedCache();
+        when(twitchFinder.find(anyString())).thenReturn(RESPONSE);
+        var before = stats();
+
+        assertEquals(RESPONSE, finders.find(URL));
+        assertEquals(RESPONSE, finders.find(URL));
+
+        var after = stats();
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+        assertEquals(1, after.loadSuccessCount() - before.loadSuccessCount());
+        assertEquals(0, after.loadFailureCount() - before.loadFailureCount());
+        verify(twitchFinder, times(1)).find(anyString());
+    }
+
+    @Test
+    void find_leaseHeldByOtherNode_waitsWithoutLoadFailure() {
+        when(sharedCache.tryLoad(anyString(), any())).thenReturn(null);
+        when(sharedCache.awaitOtherNode(anyString())).thenReturn(RESPONSE);
+        var before = stats();
+
+        assertEquals(RESPONSE, finders.find(URL));
+        // 待って取得した情報がキャッシュに格納される
+        assertEquals(RESPONSE, finders.find(URL));
+
+        var after = stats();
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+        assertEquals(0, after.loadFailureCount() - before.loadFailureCount());
+        verify(sharedCache, times(1)).awaitOtherNode(anyString());
+        verifyNoInteractions(twitchFinder);
+    }
+
+    @Test
+    void warmUp_doesNotRecordStats() {
+        passThroughSharedCache();
+        when(twitchFinder.find(anyString())).thenReturn(RESPONSE);
+        var before = stats();
+
+        assertEquals(RESPONSE, finders.warmUp(URL));
+        assertEquals(RESPONSE, finders.warmUp(URL));
+
+        var after = stats();
+        assertEquals(before.hitCount(), after.hitCount());
+        assertEquals(before.missCount(), after.missCount());
+        assertEquals(before.loadSuccessCount(), after.loadSuccessCount());
+        assertEquals(before.loadFailureCount(), after.loadFailureCount());
+        // 準備のための検索はEventSubのサブスクリプション管理に通知しない
+        verifyNoInteractions(twitchSubscriptions);
+
+        // 準備で格納した情報は通常の検索でヒットする
+        assertEquals(RESPONSE, finders.find(URL));
+        assertEquals(before.hitCount() + 1, stats().hitCount());
+        verify(twitchFinder, times(1)).find(anyString());
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStreamerInfoStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Test
+    void putAndGet() {
+        var store = new OffHeapStreamerInfoStore(1 << 20);
+        var response = response("testuser");
+
+        store.put("https://www.twitch.tv/testuser", response, TTL);
+
+        assertEquals(response, store.get("https://www.twitch.tv/testuser"));
+        assertNull(store.get("https://www.twitch.tv/unknown"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void put_overwritesExistingEntry() {
+        var store = new OffHeapStreamerInfoStore(1 << 20);
+        store.put("key", response("old"), TTL);
+        store.put("key", response("new"), TTL);
+
+        assertEquals(response("new"), store.get("key"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void remove() {
+        var store = new OffHeapStreamerInfoStore(1 << 20);
+        store.put("key", response("testuser"), TTL);
+        store.remove("key");
+
+        assertNull(store.get("key"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void get_expiredEntry_returnsNull() {
+        var store = new OffHeapStreamerInfoStore(1 << 20);
+        store.put("key", response("testuser"), Duration.ZERO);
+
+        assertNull(store.get("key"));
+    }
+
+    @Test
+    void put_manyEntries_growsIndex() {
+        var store = new OffHeapStreamerInfoStore(16 << 20);
+        for (var i = 0; i < 10_000; i++) {
+            store.put("key" + i, response("user" + i), TTL);
+        }
+
+        assertEquals(10_000, store.size());
+        for (var i = 0; i < 10_000; i += 997) {
+            assertEquals(response("user" + i), store.get("key" + i));
+        }
+    }
+
+    @Test
+    void put_fullGeneration_dropsOldestEntries() {
+        // 1世代あたり8KB
+        var store = new OffHeapStreamerInfoStore(16 << 10);
+        for (var i = 0; i < 1_000; i++) {
+            store.put("key" + i, response("user" + i), TTL);
+        }
+
+        // 最初に書き込んだものは破棄され、最後に書き込んだものは残る
+        assertNull(store.get("key0"));
+        assertEquals(response("user999"), store.get("key999"));
+        assertTrue(store.size() < 1_000);
+        assertTrue(store.usedBytes() <= 16 << 10);
+    }
+
+    @Test
+    void concurrentReadsAndWrites() throws Exception {
+        var store = new OffHeapStreamerInfoStore(1 << 20);
+        var threads = new Thread[4];
+        var failures = new AtomicInteger();
+        for (var t = 0; t < threads.length; t++) {
+            var id = t;
+            threads[t] = new Thread(() -> {
+                for (var i = 0; i < 20_000; i++) {
+                    var key = "key" + (i % 500);
+                    if ((i + id) % 4 == 0) {
+                        store.put(key, response("user" + (i % 500)), TTL);
+                    } else {
+                        var response = store.get(key);
+                        if (response != null && !response.equals(response("user" + (i % 500)))) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        // 世代が切り替わっても別のキーの値を返さない
+        assertEquals(0, failures.get());
+        assertTrue(store.usedBytes() <= 1 << 20);
+    }
+
+    private static StreamerInfoResponse response(String login) {
+        return StreamerInfoResponse.of(new StreamerInfo(
+                login,
+                "https://static-cdn.jtvnw.net/jtv_user_pictures/" + login + "-profile_image-300x300.png",
+                "https://www.twitch.tv/" + login
+        ));
+    }
+
+}
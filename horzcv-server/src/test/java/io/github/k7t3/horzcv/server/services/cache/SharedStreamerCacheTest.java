@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedStreamerCacheTest {
+
+    private static final String KEY = "https://www.twitch.tv/testuser";
+
+    private static final StreamerInfoResponse RESPONSE =
+            StreamerInfoResponse.of(new StreamerInfo("TestUser", "https://thumbnail.url", KEY));
+
+    @Test
+    void load_secondNodeUsesSharedValue() {
+        var store = new InMemorySharedCacheStore();
+        var node1 = new SharedStreamerCache(store);
+        var node2 = new SharedStreamerCache(store);
+        var upstreamCalls = new AtomicInteger();
+        Function<String, StreamerInfoResponse> loader = key -> {
+            upstreamCalls.incrementAndGet();
+            return RESPONSE;
+        };
+
+        assertEquals(RESPONSE, node1.load(KEY, loader));
+        assertEquals(RESPONSE, node2.load(KEY, loader));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void load_concurrentNodes_singleFlight() throws Exception {
+        var store = new InMemorySharedCacheStore();
+        var nodes = new SharedStreamerCache[]{
+                new SharedStreamerCache(store),
+                new SharedStreamerCache(store),
+                new SharedStreamerCache(store)
+        };
+        var upstreamCalls = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        Function<String, StreamerInfoResponse> loader = key -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return RESPONSE;
+        };
+
+        try (var executor = Executors.newFixedThreadPool(nodes.length)) {
+            var futures = new ArrayList<Future<StreamerInfoResponse>>();
+            for (var node : nodes) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return node.load(KEY, loader);
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                assertEquals(RESPONSE, future.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void load_disabledStore_alwaysLoads() {
+        var cache = new SharedStreamerCache(new NoopSharedCacheStore());
+        var upstreamCalls = new AtomicInteger();
+
+        cache.load(KEY, key -> {
+            upstreamCalls.incrementAndGet();
+            return RESPONSE;
+        });
+        cache.load(KEY, key -> {
+            upstreamCalls.incrementAndGet();
+            return RESPONSE;
+        });
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void tryLoad_leaseHeldByOtherNode_returnsNullWithoutWaiting() {
+        var store = new InMemorySharedCacheStore();
+        var cache = new SharedStreamerCache(store);
+        store.tryAcquireLease(KEY, "other-node", Duration.ofSeconds(5));
+        var upstreamCalls = new AtomicInteger();
+
+        var start = System.nanoTime();
+        assertNull(cache.tryLoad(KEY, key -> {
+            upstreamCalls.incrementAndGet();
+            return RESPONSE;
+        }));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, upstreamCalls.get());
+
+        // 他のサーバーが保存した結果を待つ
+        store.put(KEY, StreamerInfoCodec.encode(RESPONSE), Duration.ofMinutes(1));
+        assertEquals(RESPONSE, cache.awaitOtherNode(KEY));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.cache;
+
+import io.github.k7t3.horzcv.shared.model.StreamerInfo;
+import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StreamerInfoCodecTest {
+
+    @Test
+    void roundTrip_identified() {
+        var info = new StreamerInfo("テストユーザー", "https://static-cdn.jtvnw.net/user.png", "https://www.twitch.tv/testuser");
+        var response = StreamerInfoResponse.of(info);
+
+        assertEquals(response, StreamerInfoCodec.decode(StreamerInfoCodec.encode(response)));
+    }
+
+    @Test
+    void roundTrip_multipleAndNullFields() {
+        var response = StreamerInfoResponse.of(List.of(
+                new StreamerInfo("a", null, "https://www.twitch.tv/a"),
+                new StreamerInfo("b", "", "https://www.twitch.tv/b")
+        ));
+
+        assertEquals(response, StreamerInfoCodec.decode(StreamerInfoCodec.encode(response)));
+    }
+
+    @Test
+    void roundTrip_empty() {
+        var response = StreamerInfoResponse.empty();
+
+        assertEquals(response, StreamerInfoCodec.decode(StreamerInfoCodec.encode(response)));
+    }
+
+    @Test
+    void decode_unknownVersion_returnsNull() {
+        assertNull(StreamerInfoCodec.decode(new byte[]{99, 0, 0}));
+        assertNull(StreamerInfoCodec.decode(null));
+    }
+
+    @Test
+    void decode_countExceedingData_returnsNull() {
+        // 件数にInteger.MAX_VALUEを指定しても配列を確保しない
+        assertNull(StreamerInfoCodec.decode(new byte[]{2, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}));
+        assertNull(StreamerInfoCodec.decode(new byte[]{2, 0, 2, 0, 0, 0}));
+    }
+
+    @Test
+    void decode_truncatedData_returnsNull() {
+        var bytes = StreamerInfoCodec.encode(StreamerInfoResponse.of(
+                new StreamerInfo("testuser", "https://static-cdn.jtvnw.net/user.png", "https://www.twitch.tv/testuser")));
+
+        for (var length = 3; length < bytes.length; length++) {
+            assertNull(StreamerInfoCodec.decode(Arrays.copyOf(bytes, length)));
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.twitch;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Twitch EventSubの代わりに署名付きのテストイベントを送信するクラス。
+ * <p>
+ *     ローカルで起動したサーバーに対して実行することもできる。
+ * </p>
+ * <pre>
+ *     java EventSubTestSender http://localhost:8080/horzcv/api/twitch/eventsub secret channel.update login name
+ * </pre>
+ */
+public class EventSubTestSender {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private final URI callback;
+
+    private final EventSubSignature signature;
+
+    public EventSubTestSender(URI callback, String secret) {
+        this.callback = callback;
+        this.signature = new EventSubSignature(secret);
+    }
+
+    public HttpResponse<String> sendVerification(String challenge) throws IOException, InterruptedException {
+        var body = """
+                {"challenge":"%s","subscription":{"id":"%s","type":"channel.update","version":"2","status":"webhook_callback_verification_pending"}}
+                """.formatted(challenge, UUID.randomUUID());
+        return send("webhook_callback_verification", body, UUID.randomUUID().toString(), true);
+    }
+
+    public HttpResponse<String> sendChannelUpdate(String login, String name) throws IOException, InterruptedException {
+        var body = """
+                {"subscription":{"id":"%s","type":"channel.update","version":"2","status":"enabled"},
+                 "event":{"broadcaster_user_id":"1","broadcaster_user_login":"%s","broadcaster_user_name":"%s","title":"test"}}
+                """.formatted(UUID.randomUUID(), login, name);
+        return send("notification", body, UUID.randomUUID().toString(), true);
+    }
+
+    public HttpResponse<String> sendUserUpdate(String login) throws IOException, InterruptedException {
+        var body = """
+                {"subscription":{"id":"%s","type":"user.update","version":"1","status":"enabled"},
+                 "event":{"user_id":"1","user_login":"%s","user_name":"%s","description":""}}
+                """.formatted(UUID.randomUUID(), login, login);
+        return send("notification", body, UUID.randomUUID().toString(), true);
+    }
+
+    public HttpResponse<String> sendRevocation(String subscriptionId) throws IOException, InterruptedException {
+        var body = """
+                {"subscription":{"id":"%s","type":"user.update","version":"1","status":"authorization_revoked"}}
+                """.formatted(subscriptionId);
+        return send("revocation", body, UUID.randomUUID().toString(), true);
+    }
+
+    /**
+     * イベントを送信する。
+     * @param type      メッセージの種類
+     * @param body      リクエストボディ
+     * @param messageId メッセージID
+     * @param signed    falseのときは不正な署名を送信する
+     */
+    public HttpResponse<String> send(String type, String body, String messageId, boolean signed)
+            throws IOException, InterruptedException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        var timestamp = Instant.now().toString();
+        var sign = signed ? signature.sign(messageId, timestamp, bytes) : "sha256=00";
+
+        var request = HttpRequest.newBuilder(callback)
+                .header("Content-Type", "application/json")
+                .header(EventSubSignature.HEADER_MESSAGE_ID, messageId)
+                .header(EventSubSignature.HEADER_MESSAGE_TIMESTAMP, timestamp)
+                .header(EventSubSignature.HEADER_MESSAGE_SIGNATURE, sign)
+                .header(EventSubSignature.HEADER_MESSAGE_TYPE, type)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bytes))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: EventSubTestSender <callback> <secret> <channel.update|user.update> <login> [name]");
+            return;
+        }
+        var sender = new EventSubTestSender(URI.create(args[0]), args[1]);
+        var response = switch (args[2]) {
+            case "channel.update" -> sender.sendChannelUpdate(args[3], args.length > 4 ? args[4] : args[3]);
+            case "user.update" -> sender.sendUserUpdate(args[3]);
+            default -> throw new IllegalArgumentException("unknown type: " + args[2]);
+        };
+        System.out.println(response.statusCode() + " " + response.body());
+    }
+
+}
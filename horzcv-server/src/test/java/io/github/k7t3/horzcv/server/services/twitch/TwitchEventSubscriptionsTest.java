@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.services.twitch;
+
+import com.github.twitch4j.eventsub.EventSubSubscription;
+import com.github.twitch4j.helix.TwitchHelix;
+import com.github.twitch4j.helix.domain.EventSubSubscriptionList;
+import com.github.twitch4j.helix.domain.User;
+import com.github.twitch4j.helix.domain.UserList;
+import com.netflix.hystrix.HystrixCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwitchEventSubscriptionsTest {
+
+    private static final long IDLE = TimeUnit.HOURS.toNanos(6);
+
+    @Mock
+    private TwitchHelix helix;
+
+    private long now = 0;
+
+    private TwitchEventSubscriptions subscriptions;
+
+    @BeforeEach
+    void setUp() {
+        subscriptions = new TwitchEventSubscriptions(helix, "https://example.com/eventsub",
+                "horzcv-test-secret", 100, IDLE, () -> now, Runnable::run);
+
+        var user = mock(User.class);
+        when(user.getId()).thenReturn("1");
+        var users = mock(UserList.class);
+        when(users.getUsers()).thenReturn(List.of(user));
+        var command = mock(HystrixCommand.class);
+        when(command.execute()).thenReturn(users);
+        when(helix.getUsers(isNull(), isNull(), eq(List.of("testuser")))).thenReturn(command);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HystrixCommand<EventSubSubscriptionList> created(String id) {
+        var subscription = mock(EventSubSubscription.class);
+        when(subscription.getId()).thenReturn(id);
+        var list = mock(EventSubSubscriptionList.class);
+        when(list.getSubscriptions()).thenReturn(List.of(subscription));
+        var command = mock(HystrixCommand.class);
+        when(command.execute()).thenReturn(list);
+        return command;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HystrixCommand<EventSubSubscriptionList> failed() {
+        var command = mock(HystrixCommand.class);
+        when(command.execute()).thenThrow(new IllegalStateException("failure"));
+        return command;
+    }
+
+    private void lookup(int times) {
+        for (var i = 0; i < times; i++) {
+            subscriptions.onLookup("TestUser");
+        }
+    }
+
+    @Test
+    void partialFailureKeepsCreatedSubscription() {
+        var first = created("a");
+        var failure = failed();
+        var second = created("b");
+        when(helix.createEventSubSubscription(isNull(), any())).thenReturn(first, failure, second);
+
+        lookup(3);
+        assertEquals(Map.of(TwitchEventSubscriptions.CHANNEL_UPDATE, "a"), subscriptions.subscriptionIds("testuser"));
+
+        // 失敗した直後は再試行しない
+        lookup(1);
+        verify(helix, times(2)).createEventSubSubscription(isNull(), any());
+
+        // 作成できなかった種類だけを作成する
+        now += TimeUnit.MINUTES.toNanos(2);
+        lookup(1);
+        assertEquals(Map.of(
+                TwitchEventSubscriptions.CHANNEL_UPDATE, "a",
+                TwitchEventSubscriptions.USER_UPDATE, "b"), subscriptions.subscriptionIds("testuser"));
+        verify(helix, times(3)).createEventSubSubscription(isNull(), any());
+        verify(helix, times(1)).getUsers(isNull(), isNull(), eq(List.of("testuser")));
+    }
+
+    @Test
+    void revocationRemovesOnlyRevokedSubscription() {
+        var first = created("a");
+        var second = created("b");
+        when(helix.createEventSubSubscription(isNull(), any())).thenReturn(first, second);
+        lookup(3);
+
+        subscriptions.onRevoked("a");
+
+        assertEquals(Map.of(TwitchEventSubscriptions.USER_UPDATE, "b"), subscriptions.subscriptionIds("testuser"));
+        assertEquals(1, subscriptions.size());
+
+        // 取り消された直後は作成し直さない
+        lookup(1);
+        verify(helix, times(2)).createEventSubSubscription(isNull(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sweepDeletesIdleSubscriptions() {
+        var first = created("a");
+        var second = created("b");
+        when(helix.createEventSubSubscription(isNull(), any())).thenReturn(first, second);
+        var delete = mock(HystrixCommand.class);
+        when(helix.deleteEventSubSubscription(isNull(), any())).thenReturn(delete);
+        lookup(3);
+
+        now += IDLE - 1;
+        subscriptions.sweep();
+        assertEquals(1, subscriptions.size());
+
+        now += 1;
+        subscriptions.sweep();
+        assertEquals(0, subscriptions.size());
+        verify(helix).deleteEventSubSubscription(null, "a");
+        verify(helix).deleteEventSubSubscription(null, "b");
+    }
+
+}
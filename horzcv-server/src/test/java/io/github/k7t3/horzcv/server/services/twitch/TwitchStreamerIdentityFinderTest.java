@@ -16,14 +16,12 @@
 
 package io.github.k7t3.horzcv.server.services.twitch;
 
-import com.github.twitch4j.TwitchClient;
 import com.github.twitch4j.helix.TwitchHelix;
 import com.github.twitch4j.helix.domain.ChannelSearchList;
 import com.github.twitch4j.helix.domain.ChannelSearchResult;
 import com.netflix.hystrix.HystrixCommand;
 import io.github.k7t3.horzcv.shared.model.StreamerInfo;
 import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -41,20 +39,12 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class TwitchStreamerIdentityFinderTest {
 
-    @Mock
-    private TwitchClient client;
-
     @Mock
     private TwitchHelix helix;
 
     @InjectMocks
     private TwitchStreamerIdentityFinder finder;
 
-    @BeforeEach
-    void setUp() {
-        //when(client.getHelix()).thenReturn(helix);
-    }
-
     @Test
     void testFind_validTwitchUrl_returnsStreamerInfo() {
         // 準備
@@ -67,7 +57,6 @@ class TwitchStreamerIdentityFinderTest {
         var command = mock(HystrixCommand.class);
         var response = mock(ChannelSearchList.class);
 
-        when(client.getHelix()).thenReturn(helix);
         when(helix.searchChannels(isNull(), eq("testuser"), eq(10), isNull(), eq(false))).thenReturn(command);
         when(command.execute()).thenReturn(response);
         when(response.getResults()).thenReturn(List.of(channel));
@@ -102,7 +91,6 @@ class TwitchStreamerIdentityFinderTest {
         var command = mock(HystrixCommand.class);
         var response = mock(ChannelSearchList.class);
 
-        when(client.getHelix()).thenReturn(helix);
         when(helix.searchChannels(isNull(), eq("nonexistentuser"), eq(10), isNull(), eq(false))).thenReturn(command);
         when(command.execute()).thenReturn(response);
         when(response.getResults()).thenReturn(Collections.emptyList());
@@ -127,7 +115,6 @@ class TwitchStreamerIdentityFinderTest {
         var command = mock(HystrixCommand.class);
         var response = mock(ChannelSearchList.class);
 
-        when(client.getHelix()).thenReturn(helix);
         when(helix.searchChannels(isNull(), eq("testuser"), eq(10), isNull(), eq(false))).thenReturn(command);
         when(command.execute()).thenReturn(response);
         when(response.getResults()).thenReturn(List.of(channel));
@@ -152,7 +139,6 @@ class TwitchStreamerIdentityFinderTest {
         var command = mock(HystrixCommand.class);
         var response = mock(ChannelSearchList.class);
 
-        when(client.getHelix()).thenReturn(helix);
         when(helix.searchChannels(isNull(), eq("testuser"), eq(10), isNull(), eq(false))).thenReturn(command);
         when(command.execute()).thenReturn(response);
         when(response.getResults()).thenReturn(List.of(channel));
@@ -177,7 +163,6 @@ class TwitchStreamerIdentityFinderTest {
         var command = mock(HystrixCommand.class);
         var response = mock(ChannelSearchList.class);
 
-        when(client.getHelix()).thenReturn(helix);
         when(helix.searchChannels(isNull(), eq("TestUser"), eq(10), isNull(), eq(false))).thenReturn(command);
         when(command.execute()).thenReturn(response);
         when(response.getResults()).thenReturn(List.of(channel));
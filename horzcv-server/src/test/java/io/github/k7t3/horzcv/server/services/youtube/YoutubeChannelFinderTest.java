@@ -16,6 +16,8 @@
 
 package io.github.k7t3.horzcv.server.services.youtube;
 
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Channel;
 import com.google.api.services.youtube.model.ChannelListResponse;
@@ -29,9 +31,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
@@ -113,6 +117,77 @@ class YoutubeChannelFinderTest {
         assertThrows(IOException.class, () -> youtubeChannelFinder.fetchChannelInfo(mockYouTube, channelId, url));
     }
 
+    @Test
+    public void fetchChannelSnapshotStoresEtagOfResponse() throws IOException {
+        var channelId = "validChannelId";
+
+        var snippet = new ChannelSnippet();
+        snippet.setTitle("Channel Title");
+        var thumbnails = new ThumbnailDetails();
+        var thumbnail = new Thumbnail();
+        thumbnail.setUrl("https://example.com/thumbnail.jpg");
+        thumbnails.setDefault(thumbnail);
+        snippet.setThumbnails(thumbnails);
+
+        var channel = new Channel();
+        channel.setSnippet(snippet);
+
+        var response = new ChannelListResponse();
+        response.setEtag("etag-1");
+        response.setItems(List.of(channel));
+
+        when(mockYouTube.channels()).thenReturn(mockChannels);
+        when(mockChannels.list(List.of("snippet"))).thenReturn(mockChannelList);
+        when(mockChannelList.setId(List.of(channelId))).thenReturn(mockChannelList);
+        when(mockChannelList.execute()).thenReturn(response);
+
+        var result = youtubeChannelFinder.fetchChannelSnapshot(mockYouTube, channelId, null);
+
+        assertTrue(result.isPresent());
+        assertEquals("Channel Title", result.get().title());
+        assertEquals("etag-1", result.get().etag());
+    }
+
+    @Test
+    public void fetchChannelSnapshotExtendsCachedSnapshotWhenNotModified() throws IOException {
+        var channelId = "validChannelId";
+        var validatedAt = Instant.parse("2025-01-01T00:00:00Z");
+        var cached = new YoutubeChannelSnapshot("Channel Title", "https://example.com/thumbnail.jpg", "etag-1", validatedAt);
+        var headers = new HttpHeaders();
+
+        when(mockYouTube.channels()).thenReturn(mockChannels);
+        when(mockChannels.list(List.of("snippet"))).thenReturn(mockChannelList);
+        when(mockChannelList.setId(List.of(channelId))).thenReturn(mockChannelList);
+        when(mockChannelList.getRequestHeaders()).thenReturn(headers);
+        when(mockChannelList.execute()).thenThrow(
+                new HttpResponseException.Builder(304, "Not Modified", new HttpHeaders()).build()
+        );
+
+        var result = youtubeChannelFinder.fetchChannelSnapshot(mockYouTube, channelId, cached);
+
+        // If-None-Matchで再検証されている
+        assertEquals("etag-1", headers.getIfNoneMatch());
+
+        assertTrue(result.isPresent());
+        assertSame(cached.title(), result.get().title());
+        assertEquals("etag-1", result.get().etag());
+        assertTrue(result.get().validatedAt().isAfter(validatedAt));
+    }
+
+    @Test
+    public void fetchChannelSnapshotThrowsNotModifiedWithoutCachedSnapshot() throws IOException {
+        var channelId = "validChannelId";
+
+        when(mockYouTube.channels()).thenReturn(mockChannels);
+        when(mockChannels.list(List.of("snippet"))).thenReturn(mockChannelList);
+        when(mockChannelList.setId(List.of(channelId))).thenReturn(mockChannelList);
+        when(mockChannelList.execute()).thenThrow(
+                new HttpResponseException.Builder(304, "Not Modified", new HttpHeaders()).build()
+        );
+
+        assertThrows(HttpResponseException.class, () -> youtubeChannelFinder.fetchChannelSnapshot(mockYouTube, channelId, null));
+    }
+
     // YoutubeChannelFinderImplのモックインスタンス化用の空実装クラス
     private static class YoutubeChannelFinderImpl implements YoutubeChannelFinder {
     }
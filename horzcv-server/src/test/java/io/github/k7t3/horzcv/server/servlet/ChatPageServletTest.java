@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatPageServletTest {
+
+    @Test
+    void render_addsHintsToHead() {
+        var html = ChatPageServlet.render("<html><head><title>Horz CV</title></head><body></body></html>");
+
+        assertTrue(html.startsWith("<html><head><title>Horz CV</title><link rel=\"preconnect\""));
+        assertTrue(html.contains("<link rel=\"preconnect\" href=\"https://www.twitch.tv\" crossorigin>"));
+        assertTrue(html.contains("<link rel=\"dns-prefetch\" href=\"https://www.youtube.com\">"));
+        assertTrue(html.lastIndexOf("dns-prefetch") < html.indexOf("</head>"));
+        assertTrue(html.endsWith("</head><body></body></html>"));
+    }
+
+    @Test
+    void render_withoutHead() {
+        assertEquals("<p>no head</p>", ChatPageServlet.render("<p>no head</p>"));
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.servlet;
+
+import io.github.k7t3.horzcv.server.services.StreamerFinders;
+import io.github.k7t3.horzcv.server.services.twitch.EventSubTestSender;
+import io.github.k7t3.horzcv.server.services.twitch.TwitchEventSubscriptions;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwitchEventSubServletTest {
+
+    private static final String SECRET = "horzcv-test-secret";
+
+    @Mock
+    private StreamerFinders finders;
+
+    @Mock
+    private TwitchEventSubscriptions subscriptions;
+
+    @InjectMocks
+    private TwitchEventSubServlet servlet;
+
+    private Server server;
+
+    private EventSubTestSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(subscriptions.getSecret()).thenReturn(SECRET);
+
+        server = new Server(0);
+        var context = new ServletContextHandler();
+        context.addServlet(new ServletHolder(servlet), "/eventsub");
+        server.setHandler(context);
+        server.start();
+
+        sender = new EventSubTestSender(server.getURI().resolve("/eventsub"), SECRET);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    void verificationReturnsChallenge() throws Exception {
+        var response = sender.sendVerification("pogchamp-kappa-360noscope-vohiyo");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("pogchamp-kappa-360noscope-vohiyo", response.body());
+    }
+
+    @Test
+    void channelUpdateUpdatesCachedName() throws Exception {
+        var response = sender.sendChannelUpdate("testuser", "NewName");
+
+        assertEquals(204, response.statusCode());
+        verify(finders).updateStreamerName("https://www.twitch.tv/testuser", "NewName");
+    }
+
+    @Test
+    void userUpdateInvalidatesCache() throws Exception {
+        var response = sender.sendUserUpdate("testuser");
+
+        assertEquals(204, response.statusCode());
+        verify(finders).invalidateStream("https://www.twitch.tv/testuser");
+    }
+
+    @Test
+    void revocationIsForwardedToSubscriptions() throws Exception {
+        var response = sender.sendRevocation("subscription-id");
+
+        assertEquals(204, response.statusCode());
+        verify(subscriptions).onRevoked("subscription-id");
+    }
+
+    @Test
+    void invalidSignatureIsRejected() throws Exception {
+        var body = """
+                {"subscription":{"type":"user.update"},"event":{"user_login":"testuser"}}
+                """;
+        var response = sender.send("notification", body, UUID.randomUUID().toString(), false);
+
+        assertEquals(403, response.statusCode());
+        verifyNoInteractions(finders);
+    }
+
+    @Test
+    void duplicatedMessageIsProcessedOnce() throws Exception {
+        var body = """
+                {"subscription":{"type":"user.update"},"event":{"user_login":"testuser"}}
+                """;
+        var messageId = UUID.randomUUID().toString();
+
+        assertEquals(204, sender.send("notification", body, messageId, true).statusCode());
+        assertEquals(204, sender.send("notification", body, messageId, true).statusCode());
+
+        verify(finders, times(1)).invalidateStream("https://www.twitch.tv/testuser");
+        verify(finders, never()).updateStreamerName(anyString(), anyString());
+    }
+
+    @Test
+    void failedMessageIsProcessedAgain() throws Exception {
+        var body = """
+                {"subscription":{"type":"user.update"},"event":{"user_login":"testuser"}}
+                """;
+        var messageId = UUID.randomUUID().toString();
+        doThrow(new IllegalStateException("failure"))
+                .doNothing()
+                .when(finders).invalidateStream("https://www.twitch.tv/testuser");
+
+        assertEquals(500, sender.send("notification", body, messageId, true).statusCode());
+        assertEquals(204, sender.send("notification", body, messageId, true).statusCode());
+
+        verify(finders, times(2)).invalidateStream("https://www.twitch.tv/testuser");
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.trace;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracerTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @AfterEach
+    void tearDown() {
+        Tracer.end();
+    }
+
+    @Test
+    void span_withoutTrace_isNoop() {
+        var span = Tracer.span("cache");
+        assertTrue(span.isNoop());
+        span.attribute("key", "value").close();
+        assertNull(Tracer.current());
+    }
+
+    @Test
+    void span_nested() {
+        var trace = Tracer.begin("POST /horzcv/api/streamer", null);
+        try (var outer = Tracer.span("getStreamerInfo")) {
+            try (var inner = Tracer.span("cache")) {
+                assertSame(inner, Tracer.currentSpan());
+            }
+            assertSame(outer, Tracer.currentSpan());
+        }
+        assertSame(trace.root(), Tracer.currentSpan());
+        assertSame(trace, Tracer.end());
+
+        var spans = trace.spans();
+        assertEquals(3, spans.size());
+        assertSame(spans.get(1), spans.get(2).parent());
+        spans.forEach(span -> assertTrue(span.isEnded()));
+    }
+
+    @Test
+    void close_closesOpenChildren() {
+        var trace = Tracer.begin("root", null);
+        var outer = Tracer.span("outer");
+        var inner = Tracer.span("inner");
+
+        outer.close();
+
+        assertTrue(inner.isEnded());
+        assertSame(trace.root(), Tracer.currentSpan());
+    }
+
+    @Test
+    void serverTiming_sumsSameName() {
+        var trace = Tracer.begin("root", null);
+        Tracer.span("finder.twitch").close();
+        Tracer.span("cache").close();
+        Tracer.span("cache").close();
+        Tracer.end();
+
+        var timing = trace.serverTiming();
+        assertTrue(timing.matches("finder\\.twitch;dur=\\d+\\.\\d\\d, cache;dur=\\d+\\.\\d\\d, total;dur=\\d+\\.\\d\\d"), timing);
+    }
+
+    @Test
+    void begin_withTraceparent_inheritsTraceAndSampling() {
+        var trace = Tracer.begin("root", TRACEPARENT, true, 0);
+
+        assertTrue(trace.isSampled());
+        assertEquals(0x4bf92f3577b34da6L, trace.traceIdHigh());
+        assertEquals(0xa3ce929d0e0e4736L, trace.traceIdLow());
+        assertEquals(0x00f067aa0ba902b7L, trace.remoteParentId());
+
+        Tracer.end();
+        var notSampled = Tracer.begin("root", TRACEPARENT.substring(0, 53) + "00", true, 1);
+        assertFalse(notSampled.isSampled());
+    }
+
+    @Test
+    void begin_withUntrustedTraceparent_ignoresSampling() {
+        // トレースIDは引き継ぐが、抽出の判定はこのサーバーで行う
+        var trace = Tracer.begin("root", TRACEPARENT, false, 0);
+
+        assertFalse(trace.isSampled());
+        assertEquals(0x4bf92f3577b34da6L, trace.traceIdHigh());
+        assertEquals(0x00f067aa0ba902b7L, trace.remoteParentId());
+
+        Tracer.end();
+        var sampled = Tracer.begin("root", TRACEPARENT.substring(0, 53) + "00", false, 1);
+        assertTrue(sampled.isSampled());
+    }
+
+    @Test
+    void isValidTraceparent() {
+        assertTrue(Tracer.isValidTraceparent(TRACEPARENT));
+        assertFalse(Tracer.isValidTraceparent(TRACEPARENT.toUpperCase()));
+        assertFalse(Tracer.isValidTraceparent("01" + TRACEPARENT.substring(2)));
+        assertFalse(Tracer.isValidTraceparent(TRACEPARENT.substring(1)));
+    }
+
+    @Test
+    void encode_otlpJson() {
+        var trace = Tracer.begin("POST /horzcv/api/streamer", TRACEPARENT);
+        try (var span = Tracer.span("twitch.search_channels", SpanKind.CLIENT)) {
+            span.attribute("horzcv.key", "a\"b").error(new IllegalStateException());
+        }
+        Tracer.end();
+
+        var builder = new StringBuilder();
+        OtlpFileExporter.encode(trace, builder);
+        var json = builder.toString();
+
+        assertTrue(json.startsWith("{\"resourceSpans\":[{\"resource\":"), json);
+        assertTrue(json.endsWith("]}]}]}\n"), json);
+        assertTrue(json.contains("\"traceId\":\"4bf92f3577b34da6a3ce929d0e0e4736\""), json);
+        assertTrue(json.contains("\"parentSpanId\":\"00f067aa0ba902b7\""), json);
+        assertTrue(json.contains("\"kind\":3"), json);
+        assertTrue(json.contains("{\"key\":\"horzcv.key\",\"value\":{\"stringValue\":\"a\\\"b\"}}"), json);
+        assertTrue(json.contains("\"status\":{\"code\":2,\"message\":\"java.lang.IllegalStateException\"}"), json);
+    }
+
+}
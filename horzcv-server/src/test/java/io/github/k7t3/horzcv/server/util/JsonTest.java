@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonTest {
+
+    @Test
+    void appendString_escapes() {
+        var builder = new StringBuilder();
+        Json.appendString(builder, "a\"b\\c\nd\u0001");
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", builder.toString());
+    }
+
+    @Test
+    void appendString_null() {
+        assertEquals("null", Json.appendString(new StringBuilder(), null).toString());
+    }
+
+    @Test
+    void appendMillis_roundsToHundredths() {
+        assertEquals("0.00", Json.appendMillis(new StringBuilder(), 0).toString());
+        assertEquals("1.05", Json.appendMillis(new StringBuilder(), 1_049_999).toString());
+        assertEquals("1234.50", Json.appendMillis(new StringBuilder(), 1_234_500_000L).toString());
+    }
+
+}
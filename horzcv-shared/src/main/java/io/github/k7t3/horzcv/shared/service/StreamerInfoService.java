@@ -26,6 +26,11 @@ import io.github.k7t3.horzcv.shared.model.StreamerInfoResponse;
 @RemoteServiceRelativePath("api/streamer")
 public interface StreamerInfoService extends RemoteService {
 
+    /**
+     * {@link #getStreamerInfos(String[])}で一度にまとめて検索できるURLの最大数
+     */
+    int MAX_BATCH_SIZE = 16;
+
     /**
      * 入力されたURLからストリーマーの情報を取得するメソッド。
      * @param url 入力されたURL
@@ -35,4 +40,13 @@ public interface StreamerInfoService extends RemoteService {
      */
     StreamerInfoResponse getStreamerInfo(String url);
 
+    /**
+     * 同時に開かれる複数のURLからまとめてストリーマーの情報を取得するメソッド。
+     * @param urls 入力されたURLの配列
+     * @return 入力と同じ順序のストリーマーの情報
+     * @implSpec 空もしくは<code>null</code>の要素には{@link StreamerInfoResponse#EMPTY}を返す。
+     *           URLの数が{@link #MAX_BATCH_SIZE}を超えるときは例外をスローする。
+     */
+    StreamerInfoResponse[] getStreamerInfos(String[] urls);
+
 }
@@ -27,4 +27,6 @@ public interface StreamerInfoServiceAsync {
 
     void getStreamerInfo(String url, AsyncCallback<StreamerInfoResponse> callback);
 
+    void getStreamerInfos(String[] urls, AsyncCallback<StreamerInfoResponse[]> callback);
+
 }
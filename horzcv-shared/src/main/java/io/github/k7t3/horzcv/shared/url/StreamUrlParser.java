@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.shared.url;
+
+/**
+ * 配信のURLを判別するパーサー。
+ * <p>
+ *     正規表現を使用せずに1回の走査で配信サービス、URLの形式、IDの範囲を判別し、
+ *     結果を1つの<code>int</code>に格納して返す。オブジェクトを生成しないため検索のたびに呼び出してもよい。
+ *     GWTでトランスパイルするためクライアントとサーバーで同じ判定になる。
+ * </p>
+ * <p>
+ *     対応する形式
+ *     <ul>
+ *         <li>https://www.twitch.tv/{login}</li>
+ *         <li>https://www.youtube.com/watch?v={id}</li>
+ *         <li>https://www.youtube.com/live/{id}</li>
+ *         <li>https://youtu.be/{id}</li>
+ *     </ul>
+ *     スキームは<code>http</code>と<code>https</code>、ホストは<code>www.</code>と<code>m.</code>の有無を問わない。
+ *     IDの後ろにはパスやクエリ、フラグメントが続いてもよい。
+ *     Twitchのチャンネル以外のページ(<code>/videos/</code>や<code>/directory/</code>など)は認識しない。
+ * </p>
+ * <pre>
+ *     int result = StreamUrlParser.parse(url);
+ *     if (StreamUrlParser.service(result) == StreamUrlParser.SERVICE_TWITCH) {
+ *         String login = StreamUrlParser.id(url, result);
+ *     }
+ * </pre>
+ */
+public final class StreamUrlParser {
+
+    /**
+     * 配信のURLとして認識できなかったことを表す結果
+     */
+    public static final int NONE = 0;
+
+    public static final int SERVICE_TWITCH = 1;
+    public static final int SERVICE_YOUTUBE = 2;
+
+    public static final int FORM_TWITCH_CHANNEL = 1;
+    public static final int FORM_YOUTUBE_WATCH = 2;
+    public static final int FORM_YOUTUBE_LIVE = 3;
+    public static final int FORM_YOUTUBE_SHORT = 4;
+
+    // 結果のビット配置: service(2) form(3) idStart(13) idEnd(13)
+    private static final int POSITION_BITS = 13;
+    private static final int POSITION_MASK = (1 << POSITION_BITS) - 1;
+    private static final int FORM_SHIFT = POSITION_BITS * 2;
+    private static final int SERVICE_SHIFT = FORM_SHIFT + 3;
+
+    /**
+     * 判別できるURLの最大の長さ
+     */
+    public static final int MAX_LENGTH = POSITION_MASK;
+
+    // チャンネルではないTwitchのページの最初のパス(小文字)
+    private static final String[] TWITCH_RESERVED_PATHS = {
+            "bits", "directory", "downloads", "drops", "embed", "friends", "inventory", "jobs",
+            "login", "logout", "messages", "moderator", "p", "payments", "popout", "prime",
+            "search", "settings", "signup", "store", "subscriptions", "team", "turbo", "u",
+            "videos", "wallet",
+    };
+
+    private StreamUrlParser() {
+    }
+
+    /**
+     * URLを判別する。
+     * @param url URL
+     * @return 判別した結果。認識できないときは{@link #NONE}
+     */
+    public static int parse(String url) {
+        if (url == null) {
+            return NONE;
+        }
+
+        var length = url.length();
+        while (0 < length && isWhitespace(url.charAt(length - 1))) {
+            length--;
+        }
+        if (MAX_LENGTH < length) {
+            return NONE;
+        }
+
+        var i = 0;
+        while (i < length && isWhitespace(url.charAt(i))) {
+            i++;
+        }
+
+        // スキーム
+        if (startsWithIgnoreCase(url, i, length, "https://")) {
+            i += 8;
+        } else if (startsWithIgnoreCase(url, i, length, "http://")) {
+            i += 7;
+        } else {
+            return NONE;
+        }
+
+        // サブドメイン
+        if (startsWithIgnoreCase(url, i, length, "www.")) {
+            i += 4;
+        } else if (startsWithIgnoreCase(url, i, length, "m.")) {
+            i += 2;
+        }
+
+        if (startsWithIgnoreCase(url, i, length, "twitch.tv/")) {
+            var result = parseId(url, i + 10, length, SERVICE_TWITCH, FORM_TWITCH_CHANNEL, false);
+            if (result != NONE && isTwitchReservedPath(url, idStart(result), idEnd(result))) {
+                return NONE;
+            }
+            return result;
+        }
+        if (startsWithIgnoreCase(url, i, length, "youtube.com/")) {
+            i += 12;
+            if (startsWithIgnoreCase(url, i, length, "live/")) {
+                return parseId(url, i + 5, length, SERVICE_YOUTUBE, FORM_YOUTUBE_LIVE, true);
+            }
+            if (startsWithIgnoreCase(url, i, length, "watch?")) {
+                return parseWatch(url, i + 6, length);
+            }
+            return NONE;
+        }
+        if (startsWithIgnoreCase(url, i, length, "youtu.be/")) {
+            return parseId(url, i + 9, length, SERVICE_YOUTUBE, FORM_YOUTUBE_SHORT, true);
+        }
+
+        return NONE;
+    }
+
+    /**
+     * 判別した結果から配信サービスを返す。
+     * @return {@link #SERVICE_TWITCH}、{@link #SERVICE_YOUTUBE}。認識できないときは0
+     */
+    public static int service(int result) {
+        return result >>> SERVICE_SHIFT;
+    }
+
+    /**
+     * 判別した結果からURLの形式を返す。
+     */
+    public static int form(int result) {
+        return (result >>> FORM_SHIFT) & 0x7;
+    }
+
+    /**
+     * 判別した結果からIDの開始位置を返す。
+     */
+    public static int idStart(int result) {
+        return (result >>> POSITION_BITS) & POSITION_MASK;
+    }
+
+    /**
+     * 判別した結果からIDの終了位置(この位置を含まない)を返す。
+     */
+    public static int idEnd(int result) {
+        return result & POSITION_MASK;
+    }
+
+    /**
+     * 判別した結果からIDを取り出す。
+     * @param url    判別したURL
+     * @param result 判別した結果
+     * @return ID。認識できないときはnull
+     */
+    public static String id(String url, int result) {
+        if (result == NONE) {
+            return null;
+        }
+        return url.substring(idStart(result), idEnd(result));
+    }
+
+    // watch?のクエリからvパラメータを探す
+    private static int parseWatch(String url, int i, int length) {
+        while (i < length) {
+            if (startsWithIgnoreCase(url, i, length, "v=")) {
+                return parseId(url, i + 2, length, SERVICE_YOUTUBE, FORM_YOUTUBE_WATCH, true);
+            }
+            // 次のパラメータへ
+            while (i < length && url.charAt(i) != '&') {
+                if (url.charAt(i) == '#') {
+                    return NONE;
+                }
+                i++;
+            }
+            i++;
+        }
+        return NONE;
+    }
+
+    private static int parseId(String url, int start, int length, int service, int form, boolean allowHyphen) {
+        var end = start;
+        while (end < length && isIdChar(url.charAt(end), allowHyphen)) {
+            end++;
+        }
+        if (end == start) {
+            return NONE;
+        }
+        // IDの直後は区切り文字のみ許可する
+        if (end < length && !isDelimiter(url.charAt(end))) {
+            return NONE;
+        }
+        return (service << SERVICE_SHIFT) | (form << FORM_SHIFT) | (start << POSITION_BITS) | end;
+    }
+
+    private static boolean isTwitchReservedPath(String url, int start, int end) {
+        for (var path : TWITCH_RESERVED_PATHS) {
+            if (path.length() == end - start && startsWithIgnoreCase(url, start, end, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIdChar(char c, boolean allowHyphen) {
+        return ('a' <= c && c <= 'z')
+                || ('A' <= c && c <= 'Z')
+                || ('0' <= c && c <= '9')
+                || c == '_'
+                || (allowHyphen && c == '-');
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '/' || c == '?' || c == '&' || c == '#';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean startsWithIgnoreCase(String url, int offset, int length, String lowerCasePrefix) {
+        var prefixLength = lowerCasePrefix.length();
+        if (length - offset < prefixLength) {
+            return false;
+        }
+        for (var i = 0; i < prefixLength; i++) {
+            var c = url.charAt(offset + i);
+            if ('A' <= c && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != lowerCasePrefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 k7t3
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.k7t3.horzcv.shared.url;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StreamUrlParserTest {
+
+    @Test
+    void parseTwitchChannel() {
+        var url = "https://www.twitch.tv/testuser";
+        var result = StreamUrlParser.parse(url);
+
+        assertEquals(StreamUrlParser.SERVICE_TWITCH, StreamUrlParser.service(result));
+        assertEquals(StreamUrlParser.FORM_TWITCH_CHANNEL, StreamUrlParser.form(result));
+        assertEquals("testuser", StreamUrlParser.id(url, result));
+    }
+
+    @Test
+    void parseTwitchChannelWithoutWww() {
+        assertId("Test_User", "http://twitch.tv/Test_User");
+        assertId("testuser", "https://m.twitch.tv/testuser");
+    }
+
+    @Test
+    void parseTwitchChannelWithTrailingText() {
+        assertId("testuser", "https://www.twitch.tv/testuser/");
+        assertId("testuser", "https://www.twitch.tv/testuser?referrer=raid");
+        assertId("testuser", "  HTTPS://WWW.TWITCH.TV/testuser  ");
+    }
+
+    @Test
+    void parseYoutubeWatch() {
+        var url = "https://www.youtube.com/watch?v=abc-123_XYZ";
+        var result = StreamUrlParser.parse(url);
+
+        assertEquals(StreamUrlParser.SERVICE_YOUTUBE, StreamUrlParser.service(result));
+        assertEquals(StreamUrlParser.FORM_YOUTUBE_WATCH, StreamUrlParser.form(result));
+        assertEquals("abc-123_XYZ", StreamUrlParser.id(url, result));
+    }
+
+    @Test
+    void parseYoutubeWatchWithOtherParameters() {
+        assertId("abcd1234", "https://www.youtube.com/watch?v=abcd1234&t=10");
+        assertId("abcd1234", "https://www.youtube.com/watch?feature=share&v=abcd1234");
+        assertId("abcd1234", "https://m.youtube.com/watch?v=abcd1234#comments");
+    }
+
+    @Test
+    void parseYoutubeLiveAndShortUrl() {
+        var live = "https://youtube.com/live/abcd1234?si=share";
+        assertEquals(StreamUrlParser.FORM_YOUTUBE_LIVE, StreamUrlParser.form(StreamUrlParser.parse(live)));
+        assertId("abcd1234", live);
+
+        var shortUrl = "https://youtu.be/abcd1234";
+        assertEquals(StreamUrlParser.FORM_YOUTUBE_SHORT, StreamUrlParser.form(StreamUrlParser.parse(shortUrl)));
+        assertId("abcd1234", shortUrl);
+    }
+
+    @Test
+    void rejectUnknownUrl() {
+        assertNone(null);
+        assertNone("");
+        assertNone("testuser");
+        assertNone("ftp://www.twitch.tv/testuser");
+        assertNone("https://www.example.com/testuser");
+        assertNone("https://www.twitch.tv/");
+        assertNone("https://www.twitch.tv/test-user");
+        assertNone("https://www.twitch.tv.example.com/testuser");
+        assertNone("https://www.youtube.com/channel/abcd1234");
+        assertNone("https://www.youtube.com/watch?list=abcd1234");
+        assertNone("https://www.youtube.com/watch?t=10#v=abcd1234");
+        assertNone("https://www.youtube.com/watch?v=");
+    }
+
+    @Test
+    void rejectTwitchReservedPaths() {
+        assertNone("https://www.twitch.tv/videos/1234567890");
+        assertNone("https://www.twitch.tv/directory/category/just-chatting");
+        assertNone("https://www.twitch.tv/popout/testuser/chat?popout=");
+        assertNone("https://www.twitch.tv/Settings/profile");
+        assertNone("https://www.twitch.tv/embed/testuser/chat");
+        assertNone("https://www.twitch.tv/search?term=testuser");
+        assertNone("https://www.twitch.tv/subscriptions");
+        assertNone("https://www.twitch.tv/p/en/legal/terms-of-service/");
+        // 予約されたパスで始まるだけのログイン名とチャンネル内のページは認識する
+        assertId("videosfan", "https://www.twitch.tv/videosfan");
+        assertId("testuser", "https://www.twitch.tv/testuser/videos");
+    }
+
+    @Test
+    void rejectTooLongUrl() {
+        var url = "https://www.twitch.tv/" + "a".repeat(StreamUrlParser.MAX_LENGTH);
+        assertNone(url);
+    }
+
+    private static void assertId(String expected, String url) {
+        assertEquals(expected, StreamUrlParser.id(url, StreamUrlParser.parse(url)), url);
+    }
+
+    private static void assertNone(String url) {
+        var result = StreamUrlParser.parse(url);
+        assertEquals(StreamUrlParser.NONE, result, url);
+        assertNull(StreamUrlParser.id(url, result));
+    }
+
+}